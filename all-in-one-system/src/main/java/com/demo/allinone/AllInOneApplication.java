@@ -0,0 +1,37 @@
+package com.demo.allinone;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.FullyQualifiedAnnotationBeanNameGenerator;
+
+import com.demo.broker.BrokerSystemApplication;
+import com.demo.fraudcheck.FraudCheckSystemApplication;
+import com.demo.payment.PaymentProcessingSystemApplication;
+
+/**
+ * The payment processing, broker and fraud check systems in one JVM, for edge deployments and local benchmarks.
+ *
+ * The components and route builders of the three services are scanned unchanged. Bean names are fully qualified,
+ * as each service has its own MessagingConfig, JaxbConfig or IdempotencyConfig. The fraud check system's JaxbConfig
+ * is left out, it defines the same shared data format as the broker's. The jms: endpoints of the routes are served
+ * in memory, see {@link InMemoryTransportConfig}.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ComponentScan(
+    basePackages = {"com.demo.allinone", "com.demo.payment", "com.demo.broker", "com.demo.fraudcheck"},
+    nameGenerator = FullyQualifiedAnnotationBeanNameGenerator.class,
+    excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+        PaymentProcessingSystemApplication.class,
+        BrokerSystemApplication.class,
+        FraudCheckSystemApplication.class,
+        com.demo.fraudcheck.config.JaxbConfig.class}))
+public class AllInOneApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(AllInOneApplication.class, args);
+    }
+}
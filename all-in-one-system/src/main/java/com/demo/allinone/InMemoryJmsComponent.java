@@ -0,0 +1,114 @@
+package com.demo.allinone;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.camel.Endpoint;
+import org.apache.camel.component.seda.QueueReference;
+import org.apache.camel.component.seda.SedaComponent;
+import org.apache.camel.util.TimeUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves jms:queue:NAME endpoints with in-memory SEDA queues, so routes written for JMS run unchanged in one JVM.
+ *
+ * Producers and consumers of a queue share it by name. A request/reply producer waits until the consumer's route
+ * has completed and takes the message it ended with as the reply, so reply queues and correlation IDs are not
+ * needed. Of the JMS endpoint options, concurrentConsumers and maxConcurrentConsumers give the number of consumers,
+ * fixed at the larger of the two, requestTimeout the request/reply timeout, and exchangePattern is kept. SEDA
+ * consumers never wait for an exchange to complete before taking the next, as with asyncConsumer. Options about
+ * connections, reply queues and message types mean nothing in memory and are dropped with a debug message. Options
+ * whose behaviour is lost, such as priority, acknowledgement or transactions, are dropped with a warning naming
+ * what is lost. Messages of a JMSXGroupID group are not kept in order across the consumers of a queue.
+ *
+ * The queue settings are passed to every endpoint rather than set on the component, where Camel's auto-configuration
+ * of SEDA components would replace them with the camel.component.seda defaults.
+ */
+@Slf4j
+public class InMemoryJmsComponent extends SedaComponent {
+
+    private static final String QUEUE_PREFIX = "queue:";
+
+    /** Options applied to the in-memory queue */
+    private static final Set<String> APPLIED_OPTIONS = Set.of("concurrentConsumers", "maxConcurrentConsumers",
+        "requestTimeout", "exchangePattern", "asyncConsumer");
+
+    /** Options whose JMS behaviour the in-memory queue does not have, with what is lost */
+    private static final Map<String, String> LOST_OPTIONS = Map.of(
+        "priority", "messages are taken in arrival order whatever their JMSPriority",
+        "timeToLive", "messages do not expire",
+        "acknowledgementModeName", "a message is gone once taken, whatever the consumer's acknowledgement",
+        "transacted", "a message is gone once taken, no transaction rolls it back",
+        "messageSelector", "consumers take every message of the queue",
+        "selector", "consumers take every message of the queue");
+
+    /** Queue keys of the SEDA component by queue name */
+    private final Map<String, String> queueKeys = new ConcurrentHashMap<>();
+
+    private final InMemoryTransportConfig settings;
+
+    public InMemoryJmsComponent(InMemoryTransportConfig settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    protected Endpoint createEndpoint(String uri, String remaining, Map<String, Object> parameters) throws Exception {
+        String queue = remaining.startsWith(QUEUE_PREFIX) ? remaining.substring(QUEUE_PREFIX.length()) : remaining;
+
+        Map<String, Object> options = new HashMap<>();
+        options.put("size", settings.getQueueSize());
+        options.put("blockWhenFull", settings.isBlockWhenFull());
+        options.put("offerTimeout", settings.getOfferTimeoutMillis());
+        int consumers = Math.max(intOption(parameters, "concurrentConsumers", settings.getConcurrentConsumers()),
+            intOption(parameters, "maxConcurrentConsumers", 0));
+        options.put("concurrentConsumers", consumers);
+        Object requestTimeout = parameters.get("requestTimeout");
+        if (requestTimeout != null) {
+            options.put("timeout", TimeUtils.toMilliSeconds(requestTimeout.toString()));
+        }
+        Object exchangePattern = parameters.get("exchangePattern");
+        if (exchangePattern != null) {
+            options.put("exchangePattern", exchangePattern);
+        }
+        reportDropped(queue, parameters);
+        // Nothing is left over to be reported as an unknown option
+        parameters.clear();
+
+        Endpoint endpoint = super.createEndpoint(uri, queue, options);
+        queueKeys.putIfAbsent(queue, getQueueKey(endpoint.getEndpointUri()));
+        return endpoint;
+    }
+
+    /**
+     * Messages waiting on the queue, 0 for a queue no endpoint has used yet
+     */
+    public int depth(String queue) {
+        String key = queueKeys.get(queue);
+        QueueReference reference = key == null ? null : getQueueReference(key);
+        return reference == null ? 0 : reference.getQueue().size();
+    }
+
+    private static void reportDropped(String queue, Map<String, Object> parameters) {
+        Map<String, Object> dropped = new TreeMap<>(parameters);
+        dropped.keySet().removeAll(APPLIED_OPTIONS);
+        dropped.forEach((name, value) -> {
+            String lost = LOST_OPTIONS.get(name);
+            if (lost != null) {
+                log.warn("In-memory queue {} ignores {}={}: {}", queue, name, value, lost);
+            }
+        });
+        dropped.keySet().removeAll(LOST_OPTIONS.keySet());
+        if (!dropped.isEmpty()) {
+            log.debug("In-memory queue {} ignores the JMS options {}", queue, dropped);
+        }
+    }
+
+    private static int intOption(Map<String, Object> parameters, String name, int defaultValue) {
+        Object value = parameters.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.toString().trim());
+    }
+}
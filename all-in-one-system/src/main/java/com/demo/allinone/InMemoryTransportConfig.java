@@ -0,0 +1,56 @@
+package com.demo.allinone;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import com.demo.common.messaging.ConsumerAutoscaler;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replaces the JMS broker between the three services with in-memory queues.
+ *
+ * The component is registered as the bean named jms, which Camel resolves the jms: scheme to before the JMS
+ * component. Queue depths for admission control are read from the in-memory queues instead of browsing the broker.
+ * With all-in-one.in-memory.enabled=false the services talk over the JMS broker of spring.activemq.broker-url, for
+ * example the embedded one of the broker system.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "all-in-one.in-memory", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConfigurationProperties(prefix = "all-in-one.in-memory")
+@Data
+public class InMemoryTransportConfig {
+
+    private boolean enabled = true;
+
+    /** Capacity of each queue */
+    private int queueSize = 10000;
+
+    /** Consumers of a queue whose endpoint does not set concurrentConsumers */
+    private int concurrentConsumers = 8;
+
+    /** Senders wait for room in a full queue instead of failing */
+    private boolean blockWhenFull = true;
+
+    /** How long a sender waits for room before failing, 0 to wait as long as it takes */
+    private long offerTimeoutMillis = 5000;
+
+    @Bean("jms")
+    public InMemoryJmsComponent inMemoryJmsComponent() {
+        InMemoryJmsComponent component = new InMemoryJmsComponent(this);
+        log.info("jms: endpoints served in memory, queues of {} messages, {} consumers by default", queueSize,
+            concurrentConsumers);
+        return component;
+    }
+
+    @Bean
+    @Primary
+    public ConsumerAutoscaler.QueueDepthProbe inMemoryQueueDepthProbe(InMemoryJmsComponent inMemoryJmsComponent) {
+        return inMemoryJmsComponent::depth;
+    }
+}
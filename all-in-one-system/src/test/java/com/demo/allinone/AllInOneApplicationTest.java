@@ -0,0 +1,123 @@
+package com.demo.allinone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.AdviceWith;
+import org.apache.camel.component.seda.SedaEndpoint;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.demo.common.errorhandling.DeadLetterException;
+import com.demo.common.errorhandling.DeadLetterReinjector;
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.model.PaymentStatus;
+import com.demo.payment.service.PaymentService;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DisplayName("All-in-one Application Tests")
+class AllInOneApplicationTest {
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Autowired
+    private ProducerTemplate producerTemplate;
+
+    @Autowired
+    private DeadLetterReinjector reinjector;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Test
+    @DisplayName("Should serve the jms: endpoints of all three services in memory")
+    void shouldUseInMemoryQueues() {
+        // Then
+        assertThat(camelContext.getComponent("jms")).isInstanceOf(InMemoryJmsComponent.class);
+        assertThat(camelContext.getRoute("broker.jms").getEndpoint())
+            .isInstanceOfSatisfying(SedaEndpoint.class, endpoint -> assertThat(endpoint.getConcurrentConsumers()).isEqualTo(8));
+        assertThat(camelContext.getRoute("jms-route")).isNotNull();
+        assertThat(camelContext.getRoute("broker.jms")).isNotNull();
+        assertThat(camelContext.getRoute("fraud-check")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should check a payment from PPS through the broker to the fraud check system")
+    void shouldProcessPaymentEndToEnd() {
+        // Given
+        PaymentRequest request = payment("Salary payment", "1234567890");
+
+        // When
+        PaymentRecord record = producerTemplate.requestBodyAndHeader("direct:processPaymentWithTracking", request,
+            "useRest", false, PaymentRecord.class);
+
+        // Then
+        assertThat(record.getTransactionId()).isEqualTo(request.getTransactionId());
+        assertThat(record.getStatus()).isEqualTo(PaymentStatus.APPROVED);
+    }
+
+    @Test
+    @DisplayName("Should mark a dead-lettered payment FAILED and approve it once re-injected")
+    void shouldReinjectDeadLetteredPayment() throws Exception {
+        // Given the broker is unreachable from PPS
+        AtomicBoolean brokerDown = new AtomicBoolean(true);
+        AdviceWith.adviceWith(camelContext, "jms-route", route -> route.weaveAddFirst().process(exchange -> {
+            if (brokerDown.get()) {
+                throw new IllegalStateException("broker down");
+            }
+        }));
+        PaymentRequest request = payment("Rent payment", "1122334455");
+
+        // When
+        assertThatThrownBy(() -> producerTemplate.requestBodyAndHeader("direct:processPaymentWithTracking", request,
+                "useRest", false, PaymentRecord.class))
+            .isInstanceOf(CamelExecutionException.class)
+            .cause().isInstanceOf(DeadLetterException.class);
+
+        // Then
+        assertThat(paymentService.getPaymentByTransactionId(request.getTransactionId()))
+            .get().extracting(PaymentRecord::getStatus).isEqualTo(PaymentStatus.FAILED);
+
+        // When the broker is back and the dead letter is re-injected
+        brokerDown.set(false);
+        DeadLetterReinjector.Result result = reinjector.reinject("DLQ.payment-with-tracking", 10);
+
+        // Then
+        assertThat(result.getReinjected()).isEqualTo(1);
+        assertThat(result.getFailed()).isZero();
+        assertThat(paymentService.getPaymentByTransactionId(request.getTransactionId()))
+            .get().extracting(PaymentRecord::getStatus).isEqualTo(PaymentStatus.APPROVED);
+    }
+
+    static PaymentRequest payment(String instruction, String payerAccount) {
+        return PaymentRequest.builder()
+            .transactionId(UUID.randomUUID())
+            .payerName("John Doe")
+            .payerBank("Bank of America")
+            .payerCountryCode("USA")
+            .payerAccount(payerAccount)
+            .payeeName("Jane Smith")
+            .payeeBank("JPMorgan Chase")
+            .payeeCountryCode("GBR")
+            .payeeAccount("0987654321")
+            .paymentInstruction(instruction)
+            .executionDate(LocalDate.now().plusDays(1))
+            .amount(new BigDecimal("1000.00"))
+            .currency("USD")
+            .creationTimestamp(Instant.now())
+            .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.demo.allinone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * End-to-end latency of POST /api/v1/payments/jms with all three services in this JVM over in-memory queues, and,
+ * when a URL is given, of the distributed deployment (PPS, broker and FCS over ActiveMQ) for comparison.
+ *
+ * Run with: mvn test -pl all-in-one-system -am -Dtest=AllInOneLatencyBenchmarkTest -Dbenchmark=true
+ * -Dsurefire.failIfNoSpecifiedTests=false -Dlogging.level.root=WARN [-Dbenchmark.distributed-url=http://localhost:8081]
+ *
+ * Concurrency stays below the initial admission limit, and every client pays from its own account, so requests are
+ * neither shed nor kept in order behind each other.
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DisplayName("All-in-one Latency Benchmark")
+class AllInOneLatencyBenchmarkTest {
+
+    private static final int[] CONCURRENCY = {1, 4, 16, 32};
+    private static final int REQUESTS_PER_CLIENT = 200;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Should compare the latency of in-memory and distributed payment submission")
+    void shouldCompareLatency() throws Exception {
+        List<String> deployments = new ArrayList<>(List.of("in-memory=http://localhost:" + port));
+        String distributedUrl = System.getProperty("benchmark.distributed-url");
+        if (distributedUrl != null && !distributedUrl.isBlank()) {
+            deployments.add("distributed=" + distributedUrl);
+        }
+
+        log.info(String.format("%-12s %12s %14s %10s %10s %10s", "deployment", "concurrency", "requests/s", "p50 ms",
+            "p99 ms", "max ms"));
+        for (String deployment : deployments) {
+            String name = deployment.substring(0, deployment.indexOf('='));
+            URI uri = URI.create(deployment.substring(name.length() + 1) + "/api/v1/payments/jms");
+            run(uri, 4, 1000); // warm up connections, consumers and the JIT
+
+            for (int concurrency : CONCURRENCY) {
+                long started = System.nanoTime();
+                long[] latencies = run(uri, concurrency, REQUESTS_PER_CLIENT);
+                double seconds = (System.nanoTime() - started) / 1e9;
+
+                Arrays.sort(latencies);
+                log.info(String.format("%-12s %12d %14.0f %10.2f %10.2f %10.2f", name, concurrency,
+                    latencies.length / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    latencies[latencies.length - 1] / 1e6));
+                assertThat(latencies).hasSize(concurrency * REQUESTS_PER_CLIENT);
+            }
+        }
+    }
+
+    private long[] run(URI uri, int concurrency, int requestsPerClient) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int client = 0; client < concurrency; client++) {
+                String payerAccount = String.format("%010d", client);
+                results.add(clients.submit(() -> {
+                    long[] latencies = new long[requestsPerClient];
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(
+                                AllInOneApplicationTest.payment("Benchmark payment", payerAccount))))
+                            .build();
+                        long started = System.nanoTime();
+                        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencies[i] = System.nanoTime() - started;
+                        assertThat(response.statusCode()).as(response.body()).isEqualTo(202);
+                    }
+                    return latencies;
+                }));
+            }
+            long[] all = new long[0];
+            for (Future<long[]> result : results) {
+                long[] latencies = result.get(5, TimeUnit.MINUTES);
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            return all;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+}
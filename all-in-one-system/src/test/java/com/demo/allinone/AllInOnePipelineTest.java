@@ -0,0 +1,71 @@
+package com.demo.allinone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.builder.AdviceWith;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.idempotency.IdempotencyCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = {
+    "payment.pipeline.enabled=true",
+    // The Netty ingress of the other test context holds its port
+    "broker.route.netty.enabled=false"
+})
+@AutoConfigureMockMvc
+@DisplayName("All-in-one Payment Pipeline Tests")
+class AllInOnePipelineTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Should release the HTTP thread and answer once the pipeline stages are done")
+    void shouldSubmitThroughPipeline() throws Exception {
+        // Given
+        List<String> dispatchThreads = new CopyOnWriteArrayList<>();
+        AdviceWith.adviceWith(camelContext, "jms-route", route -> route.weaveAddFirst()
+            .process(exchange -> dispatchThreads.add(Thread.currentThread().getName())));
+        PaymentRequest payment = AllInOneApplicationTest.payment("Invoice 42", "5566778899");
+
+        // When
+        MvcResult submitted = mockMvc.perform(post("/api/v1/payments/jms")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(payment)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(submitted))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string(IdempotencyCache.REPLAYED_HEADER, "false"))
+            .andExpect(jsonPath("$.transactionId").value(payment.getTransactionId().toString()))
+            .andExpect(jsonPath("$.status").value("APPROVED"));
+        assertThat(dispatchThreads).singleElement().asString().startsWith("payment-dispatch-");
+    }
+}
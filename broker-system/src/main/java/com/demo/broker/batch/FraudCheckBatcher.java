@@ -0,0 +1,179 @@
+package com.demo.broker.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.demo.common.model.FraudCheckBatchRequest;
+import com.demo.common.model.FraudCheckBatchResponse;
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.PaymentRequest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects fraud check requests into batches and completes each caller from the batch response.
+ *
+ * A batch is sent when it reaches the maximum size or when its first request has waited the linger time,
+ * whichever comes first. Batches are sent by a small pool, so the next batch fills while one is in flight.
+ * Responses are matched to requests by position. Closing fails every request not yet handed to a sender.
+ */
+@Slf4j
+public class FraudCheckBatcher implements AutoCloseable {
+
+    /**
+     * Sends one batch and waits for its response
+     */
+    @FunctionalInterface
+    public interface BatchSender {
+        FraudCheckBatchResponse send(FraudCheckBatchRequest batch) throws Exception;
+    }
+
+    private record Pending(PaymentRequest request, CompletableFuture<FraudCheckResponse> response) {
+    }
+
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final BatchSender sender;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService senders;
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    public FraudCheckBatcher(int maxBatchSize, long lingerMillis, int maxInFlight, BatchSender sender) {
+        if (maxBatchSize < 1 || lingerMillis < 0 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Batch size and in-flight batches must be positive, linger not negative");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.sender = sender;
+        this.senders = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "fraud-check-batch-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.collector = new Thread(this::collect, "fraud-check-batch-collector");
+        collector.setDaemon(true);
+        collector.start();
+        log.info("Fraud check batching: up to {} requests or {} ms, {} batches in flight",
+            maxBatchSize, lingerMillis, maxInFlight);
+    }
+
+    /**
+     * Queue the request for the next batch
+     */
+    public CompletableFuture<FraudCheckResponse> submit(PaymentRequest request) {
+        CompletableFuture<FraudCheckResponse> response = new CompletableFuture<>();
+        if (!running) {
+            response.completeExceptionally(closed());
+            return response;
+        }
+        Pending pending = new Pending(request, response);
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            response.completeExceptionally(closed());
+        }
+        return response;
+    }
+
+    /**
+     * Queue the request and wait for its response at most the timeout, rethrowing the failure of its batch.
+     * A request timed out is answered with a {@link TimeoutException} even if its batch completes later.
+     */
+    public FraudCheckResponse check(PaymentRequest request, long timeoutMillis) throws Exception {
+        CompletableFuture<FraudCheckResponse> response = submit(request);
+        try {
+            return response.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            response.completeExceptionally(e);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private void collect() {
+        List<Pending> batch = List.of();
+        try {
+            while (running) {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                List<Pending> full = batch;
+                senders.execute(() -> dispatch(full));
+                batch = List.of();
+            }
+        } catch (InterruptedException e) {
+            // Closed while the batch was lingering
+            Thread.currentThread().interrupt();
+            IllegalStateException closed = closed();
+            batch.forEach(pending -> pending.response().completeExceptionally(closed));
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        List<PaymentRequest> requests = new ArrayList<>(batch.size());
+        batch.forEach(pending -> requests.add(pending.request()));
+        try {
+            List<FraudCheckResponse> responses = sender.send(new FraudCheckBatchRequest(requests)).getResponses();
+            if (responses.size() != batch.size()) {
+                throw new IllegalStateException(
+                    "Batch of " + batch.size() + " requests answered with " + responses.size() + " responses");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).response().complete(responses.get(i));
+            }
+            log.debug("Fraud check batch of {} completed", batch.size());
+        } catch (Exception e) {
+            log.warn("Fraud check batch of {} failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.response().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Stop collecting, let the batches already handed to the senders finish and fail the requests still queued.
+     * The collector is joined before the senders shut down, so it never hands them a batch they would reject.
+     */
+    @Override
+    public void close() {
+        running = false;
+        collector.interrupt();
+        try {
+            collector.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        senders.shutdown();
+        IllegalStateException closed = closed();
+        for (Pending pending; (pending = queue.poll()) != null;) {
+            pending.response().completeExceptionally(closed);
+        }
+    }
+
+    private static IllegalStateException closed() {
+        return new IllegalStateException("Fraud check batcher is closed");
+    }
+}
@@ -0,0 +1,135 @@
+package com.demo.broker.coalescing;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.demo.broker.config.BrokerRouteConfig;
+import com.demo.common.concurrent.SingleFlightCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single-flight for fraud checks of the same transaction ID.
+ *
+ * The first request for a transaction ID calls the fraud check system. Duplicates arriving while it is outstanding
+ * wait for its result, and duplicates arriving shortly after get the result from a short-lived cache. Failed calls
+ * are not cached, so the next duplicate tries again. Outstanding checks are never evicted, see
+ * {@link SingleFlightCache}.
+ *
+ * Outcomes are counted in the broker.fraudcheck.coalescing meter, tagged outcome=called|coalesced|cached.
+ */
+@Slf4j
+@Component
+public class FraudCheckCoalescer {
+
+    public static final String METER_NAME = "broker.fraudcheck.coalescing";
+
+    private final BrokerRouteConfig.Coalescing config;
+    private final LongSupplier clock;
+    private final Counter called;
+    private final Counter coalesced;
+    private final Counter cached;
+    private final SingleFlightCache<String, Object> checks;
+
+    @Autowired
+    public FraudCheckCoalescer(BrokerRouteConfig routeConfig, MeterRegistry meterRegistry) {
+        this(routeConfig.getCoalescing(), meterRegistry, System::currentTimeMillis);
+    }
+
+    FraudCheckCoalescer(BrokerRouteConfig.Coalescing config, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        this.called = counter(meterRegistry, "called");
+        this.coalesced = counter(meterRegistry, "coalesced");
+        this.cached = counter(meterRegistry, "cached");
+        this.checks = new SingleFlightCache<>(clock, config::getMaxEntries);
+        Gauge.builder(METER_NAME + ".entries", this, FraudCheckCoalescer::size)
+            .description("Outstanding and cached fraud checks")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Run the call once per transaction ID, or return the result of the outstanding or recently completed one.
+     * Calls without a transaction ID are not coalesced.
+     */
+    public <T> T execute(String transactionId, Callable<T> call) throws Exception {
+        try {
+            return executeAsync(transactionId, () -> {
+                try {
+                    return CompletableFuture.completedFuture(call.call());
+                } catch (Exception e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            // Duplicates fail exactly like the request they joined
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Like {@link #execute}, for calls that complete asynchronously. Nobody waits on a thread for the result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String transactionId, Supplier<CompletableFuture<T>> call) {
+        if (!config.isEnabled() || transactionId == null) {
+            called.increment();
+            return start(call);
+        }
+
+        SingleFlightCache<String, Object>.Flight check = checks.join(transactionId, null);
+        if (check.claim()) {
+            called.increment();
+            runAsLeader(check, call);
+        } else if (check.future().isDone()) {
+            cached.increment();
+        } else {
+            coalesced.increment();
+            log.info("Joining outstanding fraud check for transaction ID {}", transactionId);
+        }
+        return (CompletableFuture<T>) check.future().copy();
+    }
+
+    public int size() {
+        return checks.size();
+    }
+
+    private <T> void runAsLeader(SingleFlightCache<String, Object>.Flight check, Supplier<CompletableFuture<T>> call) {
+        start(call).whenComplete((result, error) -> {
+            if (error == null) {
+                check.succeed(result, config.getResultTtlMillis());
+            } else {
+                check.fail(error instanceof CompletionException ? error.getCause() : error, 0);
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(METER_NAME)
+            .description("Fraud checks by coalescing outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
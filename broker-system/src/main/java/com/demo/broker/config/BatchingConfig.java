@@ -0,0 +1,59 @@
+package com.demo.broker.config;
+
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.MediaType.APPLICATION_XML_VALUE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.demo.broker.batch.FraudCheckBatcher;
+import com.demo.common.codec.FraudCheckBinaryCodec;
+import com.demo.common.jaxb.PooledJaxbDataFormat;
+import com.demo.common.model.FraudCheckBatchResponse;
+
+@Configuration
+public class BatchingConfig {
+
+    /**
+     * Batcher sending each batch as one request/reply message in the configured wire format
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "broker.route.batching", name = "enabled", havingValue = "true")
+    public FraudCheckBatcher fraudCheckBatcher(BrokerRouteConfig routeConfig, ProducerTemplate producerTemplate,
+            PooledJaxbDataFormat jaxbDataFormat) {
+        BrokerRouteConfig.Batching batching = routeConfig.getBatching();
+        boolean binary = routeConfig.getWireFormat() == BrokerRouteConfig.WireFormat.BINARY;
+        String requestReplyUri = routeConfig.getJms().requestReplyUri(binary ? "Bytes" : "Text");
+
+        return new FraudCheckBatcher(batching.getMaxSize(), batching.getLingerMillis(), batching.getMaxInFlight(), batch -> {
+            Object body;
+            if (binary) {
+                body = FraudCheckBinaryCodec.encode(batch);
+            } else {
+                ByteArrayOutputStream xml = new ByteArrayOutputStream(512 * batch.getRequests().size());
+                jaxbDataFormat.marshal(batch, xml);
+                body = xml.toString(StandardCharsets.UTF_8);
+            }
+            Exchange reply = producerTemplate.request(requestReplyUri, exchange -> {
+                exchange.getMessage().setBody(body);
+                exchange.getMessage().setHeader(CONTENT_TYPE, binary ? FraudCheckBinaryCodec.CONTENT_TYPE : APPLICATION_XML_VALUE);
+            });
+            if (reply.getException() != null) {
+                throw reply.getException();
+            }
+            // Decoded by the reply's own Content-Type, like the unbatched routes
+            byte[] replyBody = reply.getMessage().getBody(byte[].class);
+            Object response = FraudCheckBinaryCodec.CONTENT_TYPE.equals(reply.getMessage().getHeader(CONTENT_TYPE))
+                ? FraudCheckBinaryCodec.decode(replyBody)
+                : jaxbDataFormat.unmarshal(new ByteArrayInputStream(replyBody));
+            return (FraudCheckBatchResponse) response;
+        });
+    }
+}
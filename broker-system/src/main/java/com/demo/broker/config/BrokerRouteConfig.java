@@ -0,0 +1,108 @@
+package com.demo.broker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import com.demo.common.messaging.RequestReplyEndpoint;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "broker.route")
+@Data
+public class BrokerRouteConfig {
+    private Jms jms = new Jms();
+
+    /**
+     * How the JMS route converts between the JSON and XML messages. STREAMING transcodes token by token,
+     * BINDING goes through the PaymentRequest/FraudCheckResponse objects with Jackson and JAXB
+     */
+    private Transcoding transcoding = Transcoding.STREAMING;
+
+    public enum Transcoding {
+        BINDING, STREAMING
+    }
+
+    /**
+     * Encoding of the messages to the fraud check service. XML sends JAXB text messages, BINARY sends the compact
+     * FraudCheckBinaryCodec encoding as bytes messages, announced by its Content-Type header
+     */
+    private WireFormat wireFormat = WireFormat.XML;
+
+    public enum WireFormat {
+        XML, BINARY
+    }
+
+    private Batching batching = new Batching();
+
+    /**
+     * Micro-batching of fraud check requests. A batch is sent when it holds maxSize requests or its first request
+     * has waited lingerMillis, trading up to lingerMillis of latency for fewer JMS round trips
+     */
+    @Data
+    public static class Batching {
+        private boolean enabled = false;
+        private int maxSize = 50;
+        private long lingerMillis = 5;
+
+        /** Batches sent and awaiting their response at the same time */
+        private int maxInFlight = 4;
+
+        /** Consumers of the broker request queue, enough to fill batches */
+        private int concurrentConsumers = 64;
+    }
+
+    private Coalescing coalescing = new Coalescing();
+
+    private Netty netty = new Netty();
+
+    /**
+     * Non-blocking Netty HTTP ingress for the V2 REST API, next to the Spring MVC endpoint. Served by the
+     * broker.rest.netty route, whose failures are dead-lettered to DLQ.broker.rest.netty
+     */
+    @Data
+    public static class Netty {
+        private boolean enabled = true;
+
+        /** Interface to listen on, only the loopback interface unless set to another address or 0.0.0.0 */
+        private String host = "127.0.0.1";
+        private int port = 8092;
+        private String path = "/api/v2/broker/process-payment";
+
+        /** Event loop threads, 0 for the Netty default of twice the number of cores */
+        private int workerCount = 0;
+
+        public String consumerUri() {
+            StringBuilder uri = new StringBuilder("netty-http:http://")
+                .append(host).append(':').append(port).append(path)
+                .append("?httpMethodRestrict=POST");
+            if (workerCount > 0) {
+                uri.append("&workerCount=").append(workerCount);
+            }
+            return uri.toString();
+        }
+    }
+
+    /**
+     * Single-flight of fraud checks with the same transaction ID, see FraudCheckCoalescer
+     */
+    @Data
+    public static class Coalescing {
+        private boolean enabled = true;
+
+        /** How long a completed result answers duplicates */
+        private long resultTtlMillis = 2000;
+
+        /** Upper bound of cached results, the oldest are evicted first, outstanding checks never */
+        private int maxEntries = 10_000;
+    }
+
+    /**
+     * Request/reply to the fraud check service
+     */
+    public static class Jms extends RequestReplyEndpoint {
+        public Jms() {
+            super("jms:queue:fraud.check.requests", "queue:fraud.check.responses");
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.demo.broker.config;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.util.ClassUtils;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ActiveMQ Artemis broker running inside broker-system, for single-node deployments without the activemq container.
+ *
+ * Active with the embedded-broker profile. The Artemis server jars are only packaged when broker-system is built
+ * with the Maven profile of the same name, so the broker is created by class name and the default build does not
+ * depend on them. It starts while the application context is created, before the Camel routes connect, and stops
+ * after they have.
+ */
+@Slf4j
+@Configuration
+@Profile("embedded-broker")
+@ConfigurationProperties(prefix = "broker.embedded")
+@Data
+public class EmbeddedBrokerConfig {
+
+    private static final String EMBEDDED_BROKER_CLASS = "org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ";
+
+    /** Artemis broker.xml with the acceptors, journal and address settings, from the classpath or a URL */
+    private String configResource = "embedded-broker.xml";
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public Object embeddedBroker() {
+        Class<?> brokerClass;
+        try {
+            brokerClass = ClassUtils.forName(EMBEDDED_BROKER_CLASS, getClass().getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalStateException("The embedded-broker profile needs the Artemis server, "
+                + "build broker-system with -Pembedded-broker", e);
+        }
+        BeanWrapper broker = new BeanWrapperImpl(brokerClass);
+        broker.setPropertyValue("configResourcePath", configResource);
+        log.info("Starting embedded Artemis broker from {}", configResource);
+        return broker.getWrappedInstance();
+    }
+}
@@ -0,0 +1,19 @@
+package com.demo.broker.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.demo.common.jaxb.FraudCheckJaxb;
+import com.demo.common.jaxb.PooledJaxbDataFormat;
+
+@Configuration
+public class JaxbConfig {
+
+    /**
+     * Shared by all routes, created and warmed up at startup
+     */
+    @Bean
+    public PooledJaxbDataFormat jaxbDataFormat() {
+        return FraudCheckJaxb.dataFormat();
+    }
+}
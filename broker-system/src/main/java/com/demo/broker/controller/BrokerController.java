@@ -1,13 +1,21 @@
 package com.demo.broker.controller;
 
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
 import org.apache.camel.ProducerTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.demo.common.errorhandling.RouteErrorHandling;
+import com.demo.common.messaging.PaymentPriority;
+import com.demo.common.messaging.RequestDeadline;
 import com.demo.common.model.FraudCheckResponse;
 import com.demo.common.model.PaymentRequest;
 
@@ -22,15 +30,33 @@ public class BrokerController {
     private ProducerTemplate producerTemplate;
 
     @PostMapping("/v2/broker/process-payment")
-    public ResponseEntity<FraudCheckResponse> processPaymentV2(@RequestBody PaymentRequest request) {
+    public ResponseEntity<?> processPaymentV2(@RequestBody PaymentRequest request,
+            @RequestHeader(name = RequestDeadline.HEADER, required = false) Long deadline,
+            @RequestHeader(name = PaymentPriority.HEADER, required = false) String priority) {
 
         log.info("Recieved REST Request. Payload {}", request);
         
-        var response = producerTemplate.requestBody(
-            "direct:processFraudCheckRest",
-            request,
-            FraudCheckResponse.class
-        );
+        Exchange exchange = producerTemplate.request("direct:processFraudCheckRest", ex -> {
+            ex.getIn().setBody(request);
+            ex.getIn().setHeader(RequestDeadline.HEADER, deadline);
+            ex.getIn().setHeader(PaymentPriority.HEADER, priority);
+        });
+        if (exchange.getException() != null) {
+            throw new CamelExecutionException("Fraud check failed", exchange, exchange.getException());
+        }
+        Message reply = exchange.getMessage();
+
+        // Timed out or dead-lettered requests are answered with the status and text the route set
+        Integer status = reply.getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class);
+        if (status != null) {
+            log.warn("Fraud check failed with status {}: {}", status, reply.getBody(String.class));
+            return ResponseEntity.status(status).contentType(MediaType.TEXT_PLAIN)
+                .header(RouteErrorHandling.DEAD_LETTER_QUEUE_HEADER,
+                    reply.getHeader(RouteErrorHandling.DEAD_LETTER_QUEUE_HEADER, String.class))
+                .body(reply.getBody(String.class));
+        }
+
+        var response = reply.getBody(FraudCheckResponse.class);
 
         log.info("Recieved fraud check response. Payload {}", response);
 
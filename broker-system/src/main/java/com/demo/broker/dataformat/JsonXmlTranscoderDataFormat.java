@@ -0,0 +1,250 @@
+package com.demo.broker.dataformat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.DataFormat;
+import org.apache.camel.spi.DataFormatName;
+import org.apache.camel.support.service.ServiceSupport;
+
+import com.demo.common.model.FraudCheckStatus;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Transcodes between the JSON and the urn:example:fraudcheck:v1 XML representation of the fraud check messages
+ * token by token, without binding them to PaymentRequest or FraudCheckResponse.
+ *
+ * marshal: fraud check request JSON (Jackson) to fraudCheckRequest XML (JAXB).
+ * unmarshal: fraudCheckResponse XML (JAXB) to fraud check response JSON (Jackson).
+ *
+ * The output is what the Jackson/JAXB binding chain produces: only whitelisted fields are copied, in the schema
+ * order, and values are normalised like the model's @JsonFormat annotations and XML adapters do. Both directions
+ * set the {@value #TRANSACTION_ID_HEADER} header.
+ */
+public class JsonXmlTranscoderDataFormat extends ServiceSupport implements DataFormat, DataFormatName {
+
+    public static final String NAMESPACE = "urn:example:fraudcheck:v1";
+    public static final String TRANSACTION_ID_HEADER = "transactionId";
+
+    private static final String NAMESPACE_PREFIX = "ns2";
+    private static final String REQUEST_ELEMENT = "fraudCheckRequest";
+    private static final String RESPONSE_ELEMENT = "fraudCheckResponse";
+
+    /** Request whitelist in XmlType propOrder of PaymentRequest */
+    static final List<String> REQUEST_FIELDS = List.of("transactionId", "payerName", "payerBank", "payerCountryCode",
+        "payerAccount", "payeeName", "payeeBank", "payeeCountryCode", "payeeAccount", "paymentInstruction",
+        "executionDate", "amount", "currency", "creationTimestamp");
+
+    /** Response whitelist in FraudCheckResponse declaration order */
+    static final List<String> RESPONSE_FIELDS = List.of("transactionId", "status", "validationTimestamp");
+
+    private static final int TRANSACTION_ID = 0;
+    private static final int EXECUTION_DATE = REQUEST_FIELDS.indexOf("executionDate");
+    private static final int AMOUNT = REQUEST_FIELDS.indexOf("amount");
+    private static final int CREATION_TIMESTAMP = REQUEST_FIELDS.indexOf("creationTimestamp");
+    private static final int STATUS = RESPONSE_FIELDS.indexOf("status");
+    private static final int VALIDATION_TIMESTAMP = RESPONSE_FIELDS.indexOf("validationTimestamp");
+
+    /** Same as @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ssX", timezone = "UTC") on the model timestamps */
+    private static final DateTimeFormatter JSON_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssX")
+        .withZone(ZoneOffset.UTC);
+
+    private static final Map<String, Integer> REQUEST_INDEX = index(REQUEST_FIELDS);
+    private static final Map<String, Integer> RESPONSE_INDEX = index(RESPONSE_FIELDS);
+
+    private final JsonFactory jsonFactory;
+    private final XMLInputFactory xmlInputFactory;
+    private final XMLOutputFactory xmlOutputFactory;
+
+    public JsonXmlTranscoderDataFormat(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+        this.xmlOutputFactory = XMLOutputFactory.newFactory();
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public String getDataFormatName() {
+        return "jsonXmlTranscoder";
+    }
+
+    @Override
+    public void marshal(Exchange exchange, Object graph, OutputStream stream) throws Exception {
+        InputStream json = exchange.getContext().getTypeConverter().mandatoryConvertTo(InputStream.class, exchange, graph);
+        String transactionId = jsonToXml(json, stream);
+        exchange.getMessage().setHeader(TRANSACTION_ID_HEADER, transactionId);
+    }
+
+    @Override
+    public Object unmarshal(Exchange exchange, InputStream stream) throws Exception {
+        StringWriter json = new StringWriter(128);
+        String transactionId = xmlToJson(stream, json);
+        exchange.getMessage().setHeader(TRANSACTION_ID_HEADER, transactionId);
+        return json.toString();
+    }
+
+    /**
+     * Transcode a fraud check request.
+     *
+     * @return the normalised transaction ID, null if absent
+     */
+    public String jsonToXml(InputStream json, OutputStream xml) throws IOException, XMLStreamException {
+        // JSON members may come in any order, XML elements must follow propOrder
+        String[] values = new String[REQUEST_FIELDS.size()];
+
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Fraud check request must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Integer field = REQUEST_INDEX.get(parser.currentName());
+                JsonToken token = parser.nextToken();
+                if (field == null) {
+                    parser.skipChildren();
+                } else if (token != JsonToken.VALUE_NULL) {
+                    values[field] = requestValue(parser, field);
+                }
+            }
+        }
+
+        XMLStreamWriter writer = xmlOutputFactory.createXMLStreamWriter(xml, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement(NAMESPACE_PREFIX, REQUEST_ELEMENT, NAMESPACE);
+        writer.writeNamespace(NAMESPACE_PREFIX, NAMESPACE);
+        for (int i = 0; i < values.length; i++) {
+            // JAXB leaves out null fields
+            if (values[i] != null) {
+                writer.writeStartElement(REQUEST_FIELDS.get(i));
+                writer.writeCharacters(values[i]);
+                writer.writeEndElement();
+            }
+        }
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+        return values[TRANSACTION_ID];
+    }
+
+    /**
+     * Transcode a fraud check response.
+     *
+     * @return the normalised transaction ID, null if absent
+     */
+    public String xmlToJson(InputStream xml, Writer json) throws IOException, XMLStreamException {
+        String[] values = new String[RESPONSE_FIELDS.size()];
+
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(xml);
+        try {
+            reader.nextTag();
+            if (!RESPONSE_ELEMENT.equals(reader.getLocalName()) || !NAMESPACE.equals(reader.getNamespaceURI())) {
+                throw new XMLStreamException("Expected {" + NAMESPACE + "}" + RESPONSE_ELEMENT + " but got " + reader.getName(),
+                    reader.getLocation());
+            }
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                Integer field = RESPONSE_INDEX.get(reader.getLocalName());
+                if (field == null) {
+                    skipElement(reader);
+                } else {
+                    values[field] = responseValue(reader.getElementText(), field);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        try (JsonGenerator generator = jsonFactory.createGenerator(json)) {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                // Jackson writes null fields
+                generator.writeStringField(RESPONSE_FIELDS.get(i), values[i]);
+            }
+            generator.writeEndObject();
+        }
+        return values[TRANSACTION_ID];
+    }
+
+    private static String requestValue(JsonParser parser, int field) throws IOException {
+        if (!parser.currentToken().isScalarValue()) {
+            throw new JsonParseException(parser, "Field " + REQUEST_FIELDS.get(field) + " must be a scalar value");
+        }
+        String text = parser.getText();
+        try {
+            if (field == TRANSACTION_ID) {
+                return UUID.fromString(text).toString();
+            }
+            if (field == AMOUNT) {
+                BigDecimal amount = parser.currentToken().isNumeric() ? parser.getDecimalValue() : new BigDecimal(text.trim());
+                return amount.toPlainString();
+            }
+            if (field == EXECUTION_DATE) {
+                return LocalDate.parse(text).toString();
+            }
+            if (field == CREATION_TIMESTAMP) {
+                return DateTimeFormatter.ISO_INSTANT.format(JSON_TIMESTAMP.parse(text, Instant::from));
+            }
+        } catch (RuntimeException e) {
+            throw new JsonParseException(parser, "Invalid value for field " + REQUEST_FIELDS.get(field) + ": " + text, e);
+        }
+        return text;
+    }
+
+    private static String responseValue(String text, int field) {
+        if (field == TRANSACTION_ID) {
+            return UUID.fromString(text.trim()).toString();
+        }
+        if (field == STATUS) {
+            return FraudCheckStatus.valueOf(text.trim()).getCode();
+        }
+        if (field == VALIDATION_TIMESTAMP) {
+            // The JSON pattern has no fraction, sub-second precision is dropped like Jackson does
+            return JSON_TIMESTAMP.format(Instant.parse(text.trim()));
+        }
+        return text;
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static Map<String, Integer> index(List<String> fields) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            index.put(fields.get(i), i);
+        }
+        return Map.copyOf(index);
+    }
+}
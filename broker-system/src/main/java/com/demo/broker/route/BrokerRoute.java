@@ -1,20 +1,58 @@
 package com.demo.broker.route;
 
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_XML_VALUE;
 import static org.springframework.http.MediaType.TEXT_PLAIN_VALUE;
 
+import static com.demo.broker.dataformat.JsonXmlTranscoderDataFormat.TRANSACTION_ID_HEADER;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.component.jackson.JacksonDataFormat;
-import org.apache.camel.converter.jaxb.JaxbDataFormat;
+import org.apache.camel.component.jms.JmsConstants;
+import org.apache.camel.model.ProcessorDefinition;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.support.AsyncProcessorSupport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.demo.broker.batch.FraudCheckBatcher;
+import com.demo.broker.coalescing.FraudCheckCoalescer;
+import com.demo.broker.config.BrokerRouteConfig;
+import com.demo.broker.dataformat.JsonXmlTranscoderDataFormat;
+import com.demo.common.codec.FraudCheckBinaryCodec;
+import com.demo.common.codec.FraudCheckBinaryDataFormat;
+import com.demo.common.errorhandling.RouteErrorHandling;
+import com.demo.common.jaxb.PooledJaxbDataFormat;
+import com.demo.common.messaging.AdaptiveTimeouts;
+import com.demo.common.messaging.ConsumerAutoscaler;
+import com.demo.common.messaging.MessageGroupSequencer;
+import com.demo.common.messaging.MessageGroups;
+import com.demo.common.messaging.MessagingProperties;
+import com.demo.common.messaging.PaymentPriority;
+import com.demo.common.messaging.RequestDeadline;
 import com.demo.common.model.FraudCheckResponse;
 import com.demo.common.model.PaymentRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Component
 public class BrokerRoute extends RouteBuilder {
 
@@ -34,6 +72,47 @@ public class BrokerRoute extends RouteBuilder {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private BrokerRouteConfig routeConfig;
+
+    @Autowired
+    private MessagingProperties messagingProperties;
+
+    @Autowired
+    private PooledJaxbDataFormat jaxbDataFormat;
+
+    /** Only present when broker.route.batching.enabled is set */
+    @Autowired(required = false)
+    private FraudCheckBatcher batcher;
+
+    @Autowired
+    private FraudCheckCoalescer coalescer;
+
+    @Autowired
+    private ProducerTemplate producerTemplate;
+
+    @Autowired
+    private RouteErrorHandling routeErrorHandling;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ConsumerAutoscaler consumerAutoscaler;
+
+    @Autowired
+    private AdaptiveTimeouts adaptiveTimeouts;
+
+    @Autowired
+    private MessageGroupSequencer messageGroupSequencer;
+
+    /** Request/reply with the fraud check system, whose reply timeout follows its latency */
+    private AdaptiveTimeouts.Hop fraudCheckHop;
+
+    /** Encoded fraud check reply, shared between duplicate requests */
+    private record FraudCheckReply(byte[] body, String contentType, String deadLetterQueue) {
+    }
+
     @Override
     public void configure() throws Exception {
         configureUsingJaxbDataFormat();
@@ -47,65 +126,278 @@ public class BrokerRoute extends RouteBuilder {
         JacksonDataFormat jacksonResponseFormat = new JacksonDataFormat(FraudCheckResponse.class);
         jacksonResponseFormat.setObjectMapper(objectMapper);
 
-        
-        // Configure JAXB context
-        var jaxbRequestFormat = new JaxbDataFormat(PaymentRequest.class.getPackage().getName());
-        var jaxbResponseFormat = new JaxbDataFormat(FraudCheckResponse.class.getPackage().getName());
-
-        onException(org.apache.camel.ExchangeTimedOutException.class)
+        onException(ExchangeTimedOutException.class)
             .handled(true)
             .setHeader(CONTENT_TYPE, constant(TEXT_PLAIN_VALUE))
             .setBody(simple("Timeout waiting for fraud check response"))
             .setHeader(org.springframework.http.HttpStatus.class.getName(), constant(504))
+            .setHeader(Exchange.HTTP_RESPONSE_CODE, constant(504))
             .log("Timed out waiting on fraud.check.responses");
 
+        fraudCheckHop = adaptiveTimeouts.hop("fraud-check", routeConfig.getJms().requestTimeoutMillis());
+
         // V1: Handle JMS requests from PPS
-        from("jms:queue:broker.requests").routeId("broker.jms")
-        .log("Received fraud check request: JMSCorrelationID: ${header.JMSCorrelationID}\n${body}")
-        .log("type=${body.class.name} | headers=${headers}")
-        .log("Inbound: CorrelationID=${header.JMSCorrelationID}, ReplyTo=${header.JMSReplyTo}, Type=${body.class.name}")
-        .unmarshal(jacksonRequestFormat)
-        .marshal(jaxbRequestFormat)
-        .setHeader("broker-source", constant("REST"))
-        .setHeader(CONTENT_TYPE, constant(APPLICATION_XML_VALUE))
-        // Request–reply over JMS using a fixed reply queue
-        .to("""
-            jms:queue:fraud.check.requests\
-            ?exchangePattern=InOut\
-            &replyTo=queue:fraud.check.responses\
-            &replyToType=Shared\
-            &useMessageIDAsCorrelationID=true\
-            &requestTimeout=30s\
-            &jmsMessageType=Text
-            """)
-        .log("JMS reply arrived: type=${body.class.name} | headers=${headers}\n${body}")
-        .unmarshal(jaxbResponseFormat)
-        .log("V1 JMS reply unmarshalled: type=${body.class.name} | headers=${headers}\n${body}")
-        .marshal(jacksonResponseFormat) // Convert back to JSON
-        .log("V1 JMS reply marshalled: type=${body.class.name} | headers=${headers}\n${body}")
-        ;
+        boolean binary = routeConfig.getWireFormat() == BrokerRouteConfig.WireFormat.BINARY;
+        boolean streaming = !binary && routeConfig.getTranscoding() == BrokerRouteConfig.Transcoding.STREAMING;
+        var transcoder = new JsonXmlTranscoderDataFormat(objectMapper.getFactory());
+        var binaryFormat = new FraudCheckBinaryDataFormat();
+        // One request queue and reply endpoint per priority lane, the high lane with its own fixed consumers
+        MessagingProperties.PriorityLane priorityLane = messagingProperties.getPriorityLane();
+        List<PaymentPriority> lanes = priorityLane.isEnabled() ? List.of(PaymentPriority.values())
+            : List.of(PaymentPriority.NORMAL);
+        Map<PaymentPriority, String> requestReplyUris = new EnumMap<>(PaymentPriority.class);
+        for (PaymentPriority lane : lanes) {
+            requestReplyUris.put(lane, routeConfig.getJms().requestReplyUri(binary ? "Bytes" : "Text", lane));
+        }
+        log.info("Broker JMS route wire format: {}, transcoding: {}, batching: {}, priority lanes: {}",
+            routeConfig.getWireFormat(), binary ? "BINDING" : routeConfig.getTranscoding(), batcher != null, lanes);
+
+        for (PaymentPriority lane : lanes) {
+            // High-value requests skip micro-batching, which would make them wait for the linger time
+            boolean batched = batcher != null && lane == PaymentPriority.NORMAL;
+            String routeId = lane.queue("broker.jms");
+            String requestConsumerUri = lane.queue("jms:queue:broker.requests");
+            if (lane != PaymentPriority.NORMAL) {
+                requestConsumerUri += "?concurrentConsumers=" + priorityLane.getConcurrentConsumers()
+                    + "&maxConcurrentConsumers=" + priorityLane.getConcurrentConsumers();
+            } else if (batched) {
+                // Batches only fill up when several requests wait at the same time, so batching consumes concurrently
+                requestConsumerUri += "?concurrentConsumers=" + routeConfig.getBatching().getConcurrentConsumers();
+            }
+            MessagingProperties.Consumer consumer = messagingProperties.getConsumer();
+            requestConsumerUri = routeErrorHandling.consumerUri(requestConsumerUri, consumer);
+            if (consumer.getAcknowledgement() == MessagingProperties.Consumer.Acknowledgement.TRANSACTED_BATCH) {
+                // The fraud check request is sent from the consumer thread and must not wait for the batch commit
+                requestConsumerUri += "&exposeListenerSession=false";
+            }
+
+            // Failures other than the reply timeout are retried with backoff, then dead-lettered to DLQ.<route ID>
+            // and answered with a failure reply; a request the fraud check system dead-lettered is not retried
+            // The consumer is asynchronous, so a request waits here until the previous one of its group is done
+            RouteDefinition jmsRoute = from(requestConsumerUri).routeId(routeId)
+            .errorHandler(routeErrorHandling.deadLetterChannel(routeId))
+            .process(messageGroupSequencer)
+            .process(applyDeadline(routeId, false))
+            .log("Received fraud check request: JMSCorrelationID: ${header.JMSCorrelationID}\n${body}")
+            .log("type=${body.class.name} | headers=${headers}")
+            .log("Inbound: CorrelationID=${header.JMSCorrelationID}, ReplyTo=${header.JMSReplyTo}, Type=${body.class.name}");
+            if (priorityLane.isEnabled()) {
+                // The queue decides the lane, whatever the header says
+                jmsRoute.setHeader(PaymentPriority.HEADER, constant(lane.name()));
+            }
+            if (lane == PaymentPriority.NORMAL && batcher == null) {
+                // Concurrent consumers follow the queue depth, see messaging.autoscaling; batching keeps its fixed
+                // consumer count, since fewer consumers in a lull would only shrink the batches
+                jmsRoute.routePolicy(consumerAutoscaler.policyFor("broker.requests"));
+            }
+            if (batched) {
+                // Micro-batching: the batcher sends this request together with others and hands back its response
+                jmsRoute.unmarshal(jacksonRequestFormat)
+                .process(checkBatched())
+                .marshal(jacksonResponseFormat);
+            } else {
+                // The payer account group set by PPS is kept, bound requests without one get it here
+                if (binary) {
+                    jmsRoute.unmarshal(jacksonRequestFormat)
+                    .setHeader(TRANSACTION_ID_HEADER, simple("${body.transactionId}"))
+                    .process(MessageGroups.byPayerAccount(messagingProperties.getMessageGroups()))
+                    .marshal(binaryFormat); // sets the binary Content-Type
+                } else if (streaming) {
+                    jmsRoute.marshal(transcoder) // JSON -> XML without binding to PaymentRequest, sets the transactionId header
+                    .setHeader(CONTENT_TYPE, constant(APPLICATION_XML_VALUE));
+                } else {
+                    jmsRoute.unmarshal(jacksonRequestFormat)
+                    .setHeader(TRANSACTION_ID_HEADER, simple("${body.transactionId}"))
+                    .process(MessageGroups.byPayerAccount(messagingProperties.getMessageGroups()))
+                    .marshal(jaxbDataFormat)
+                    .setHeader(CONTENT_TYPE, constant(APPLICATION_XML_VALUE));
+                }
+                jmsRoute
+                .setHeader("broker-source", constant("REST"));
+                // Request–reply over JMS, reply queue handling per broker.route.jms
+                requestReply(jmsRoute, requestReplyUris)
+                .log("JMS reply arrived: type=${body.class.name} | headers=${headers}\n${body}")
+                .process(RouteErrorHandling.rejectDeadLetterReply());
+                if (streaming) {
+                    jmsRoute.unmarshal(transcoder); // XML -> JSON without binding to FraudCheckResponse
+                } else {
+                    // The reply is decoded by its own Content-Type, so a fraud check service answering in XML still works
+                    jmsRoute.choice()
+                        .when(header(CONTENT_TYPE).isEqualTo(FraudCheckBinaryCodec.CONTENT_TYPE)).unmarshal(binaryFormat)
+                        .otherwise().unmarshal(jaxbDataFormat)
+                    .end()
+                    .log("V1 JMS reply unmarshalled: type=${body.class.name} | headers=${headers}\n${body}")
+                    .marshal(jacksonResponseFormat); // Convert back to JSON
+                }
+            }
+            jmsRoute
+            .log("V1 JMS reply marshalled: type=${body.class.name} | headers=${headers}\n${body}")
+            ;
+        }
 
         
         // Service1 route: REST -> JMS (InOut on fixed reply queue) -> REST
-        from("direct:processFraudCheckRest").routeId("broker.rest")
+        RouteDefinition restRoute = from("direct:processFraudCheckRest").routeId("broker.rest")
+            .errorHandler(routeErrorHandling.deadLetterChannel("broker.rest"))
             .log("V2 REST In: type=${body.class.name} | headers=${headers}\n${body}")
-            .marshal(jaxbRequestFormat)
-            .setHeader("broker-source", constant("REST"))
-            .setHeader(CONTENT_TYPE, constant(APPLICATION_XML_VALUE))
-            // Request–reply over JMS using a fixed reply queue
-            .to("""
-                jms:queue:fraud.check.requests\
-                ?exchangePattern=InOut\
-                &replyTo=queue:fraud.check.responses\
-                &replyToType=Shared\
-                &useMessageIDAsCorrelationID=true\
-                &requestTimeout=30s\
-                &jmsMessageType=Text
-                """)
-            .log("JMS reply arrived: type=${body.class.name} | headers=${headers}")
-            .unmarshal(jaxbResponseFormat)
+            .process(applyDeadline("broker.rest", true));
+        if (batcher != null) {
+            restRoute.process(checkBatched());
+        } else {
+            restRoute.setHeader(TRANSACTION_ID_HEADER, simple("${body.transactionId}"))
+                .process(MessageGroups.byPayerAccount(messagingProperties.getMessageGroups()));
+            if (binary) {
+                restRoute.marshal(binaryFormat);
+            } else {
+                restRoute.marshal(jaxbDataFormat)
+                    .setHeader(CONTENT_TYPE, constant(APPLICATION_XML_VALUE));
+            }
+            restRoute
+                .setHeader("broker-source", constant("REST"));
+            // Request–reply over JMS, reply queue handling per broker.route.jms
+            requestReply(restRoute, requestReplyUris)
+                .log("JMS reply arrived: type=${body.class.name} | headers=${headers}")
+                .process(RouteErrorHandling.rejectDeadLetterReply())
+                .choice()
+                    .when(header(CONTENT_TYPE).isEqualTo(FraudCheckBinaryCodec.CONTENT_TYPE)).unmarshal(binaryFormat)
+                    .otherwise().unmarshal(jaxbDataFormat)
+                .end();
+        }
+        restRoute
             .log("V2 REST reply arrived: type=${body.class.name} | headers=${headers}\n${body}")
             ;
+
+        // Non-blocking ingress for the V2 REST API: the Netty event loop is released while the JMS request/reply
+        // is outstanding, and the HTTP response is written when the reply arrives
+        BrokerRouteConfig.Netty netty = routeConfig.getNetty();
+        if (netty.isEnabled()) {
+            from(netty.consumerUri()).routeId("broker.rest.netty")
+                .errorHandler(routeErrorHandling.deadLetterChannel("broker.rest.netty"))
+                .onException(JsonProcessingException.class)
+                    .handled(true)
+                    .setHeader(Exchange.HTTP_RESPONSE_CODE, constant(400))
+                    .setHeader(CONTENT_TYPE, constant(TEXT_PLAIN_VALUE))
+                    .setBody(simple("Invalid payment request: ${exception.message}"))
+                .end()
+                .unmarshal(jacksonRequestFormat)
+                .to("direct:processFraudCheckRest")
+                .choice()
+                    .when(header(Exchange.HTTP_RESPONSE_CODE).isNull())
+                        .marshal(jacksonResponseFormat)
+                        .setHeader(CONTENT_TYPE, constant(APPLICATION_JSON_VALUE))
+                .end();
+        }
+    }
+
+    /**
+     * Enforce the caller's {@link RequestDeadline}: an expired JMS request is dropped unanswered, an expired REST
+     * request times out with 504, and the fraud check reply is awaited no longer than the caller waits, nor longer
+     * than the adaptive timeout of the fraud check hop. The header itself travels on to the fraud check system with
+     * the request.
+     */
+    private Processor applyDeadline(String routeId, boolean answerExpired) {
+        Counter shed = Counter.builder("broker.deadline.shed")
+            .description("Fraud check requests dropped because their deadline passed")
+            .tag("route", routeId)
+            .register(meterRegistry);
+        return exchange -> {
+            Message message = exchange.getMessage();
+            long remaining = RequestDeadline.remainingMillis(message, System.currentTimeMillis());
+            if (remaining == 0) {
+                shed.increment();
+                if (answerExpired) {
+                    throw new ExchangeTimedOutException(exchange, 0, "Deadline passed before the fraud check");
+                }
+                RequestDeadline.drop(exchange);
+            } else {
+                message.setHeader(JmsConstants.JMS_REQUEST_TIMEOUT, Math.min(remaining, fraudCheckHop.timeoutMillis()));
+            }
+        };
+    }
+
+    /**
+     * Request/reply with the fraud check system in the lane of the {@link PaymentPriority} header, coalesced by
+     * transaction ID when enabled
+     */
+    private ProcessorDefinition<?> requestReply(RouteDefinition route, Map<PaymentPriority, String> requestReplyUris) {
+        if (coalescer.isEnabled()) {
+            return route.process(coalescedRequestReply(requestReplyUris));
+        }
+        String normalUri = requestReplyUris.get(PaymentPriority.NORMAL);
+        route.process(fraudCheckHop::measure);
+        if (requestReplyUris.size() == 1) {
+            return route.to(normalUri);
+        }
+        return route.choice()
+            .when(header(PaymentPriority.HEADER).isEqualTo(PaymentPriority.HIGH.name()))
+                .to(requestReplyUris.get(PaymentPriority.HIGH))
+            .otherwise()
+                .to(normalUri)
+        .end();
+    }
+
+    private Processor coalescedRequestReply(Map<PaymentPriority, String> requestReplyUris) {
+        return asyncProcessor(exchange -> {
+            Message message = exchange.getMessage();
+            String requestReplyUri = requestReplyUris.getOrDefault(PaymentPriority.of(message),
+                requestReplyUris.get(PaymentPriority.NORMAL));
+            return coalescer.executeAsync(message.getHeader(TRANSACTION_ID_HEADER, String.class),
+                () -> producerTemplate.asyncSend(requestReplyUri, measured(exchange.copy())).thenApply(sent -> {
+                    if (sent.getException() != null) {
+                        throw new CompletionException(sent.getException());
+                    }
+                    return new FraudCheckReply(sent.getMessage().getBody(byte[].class),
+                        sent.getMessage().getHeader(CONTENT_TYPE, String.class),
+                        sent.getMessage().getHeader(RouteErrorHandling.DEAD_LETTER_QUEUE_HEADER, String.class));
+                }))
+                .thenAccept(reply -> {
+                    message.setBody(reply.body());
+                    message.setHeader(CONTENT_TYPE, reply.contentType());
+                    message.setHeader(RouteErrorHandling.DEAD_LETTER_QUEUE_HEADER, reply.deadLetterQueue());
+                });
+        });
+    }
+
+    /**
+     * The exchange, its send measured as a request/reply of the fraud check hop
+     */
+    private Exchange measured(Exchange exchange) {
+        fraudCheckHop.measure(exchange);
+        return exchange;
+    }
+
+    private Processor checkBatched() {
+        return asyncProcessor(exchange -> {
+            PaymentRequest request = exchange.getMessage().getBody(PaymentRequest.class);
+            String transactionId = request.getTransactionId() == null ? null : request.getTransactionId().toString();
+            return coalescer.executeAsync(transactionId, () -> batcher.submit(request))
+                .thenAccept(response -> exchange.getMessage().setBody(response));
+        });
+    }
+
+    /**
+     * Continue the exchange when the future completes instead of waiting for it on the routing thread
+     */
+    private static Processor asyncProcessor(Function<Exchange, CompletableFuture<?>> call) {
+        return new AsyncProcessorSupport() {
+            @Override
+            public boolean process(Exchange exchange, AsyncCallback callback) {
+                CompletableFuture<?> future;
+                try {
+                    future = call.apply(exchange);
+                } catch (RuntimeException e) {
+                    exchange.setException(e);
+                    callback.done(true);
+                    return true;
+                }
+                future.whenComplete((result, error) -> {
+                    if (error != null) {
+                        exchange.setException(error instanceof CompletionException ? error.getCause() : error);
+                    }
+                    callback.done(false);
+                });
+                return false;
+            }
+        };
     }
-   
 }
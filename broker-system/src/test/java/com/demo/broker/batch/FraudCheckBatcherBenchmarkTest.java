@@ -0,0 +1,114 @@
+package com.demo.broker.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.demo.common.model.FraudCheckBatchRequest;
+import com.demo.common.model.FraudCheckBatchResponse;
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Throughput and latency across batch sizes, against a simulated fraud check hop with a fixed cost per JMS
+ * round trip and a small cost per payment.
+ *
+ * Run with: mvn test -pl broker-system -Dtest=FraudCheckBatcherBenchmarkTest -Dbenchmark=true
+ * [-Dbenchmark.round-trip-micros=500 -Dbenchmark.per-item-micros=5]
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Fraud Check Batcher Benchmark")
+class FraudCheckBatcherBenchmarkTest {
+
+    private static final int[] BATCH_SIZES = {1, 5, 10, 25, 50, 100};
+    private static final long[] LINGER_MILLIS = {1, 5};
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS_PER_CLIENT = 500;
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private final long roundTripNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong("benchmark.round-trip-micros", 500));
+    private final long perItemNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong("benchmark.per-item-micros", 5));
+
+    @Test
+    @DisplayName("Should compare batch sizes by throughput and latency")
+    void shouldCompareBatchSizes() throws Exception {
+        log.info(String.format("%6s %8s %14s %10s %10s", "batch", "linger", "requests/s", "p50 ms", "p99 ms"));
+        for (long linger : LINGER_MILLIS) {
+            for (int batchSize : BATCH_SIZES) {
+                try (FraudCheckBatcher batcher = new FraudCheckBatcher(batchSize, linger, MAX_IN_FLIGHT, this::simulate)) {
+                    run(batcher, 20); // warm up
+                    long started = System.nanoTime();
+                    long[] latencies = run(batcher, REQUESTS_PER_CLIENT);
+                    double seconds = (System.nanoTime() - started) / 1e9;
+
+                    Arrays.sort(latencies);
+                    log.info(String.format("%6d %6d ms %14.0f %10.2f %10.2f", batchSize, linger,
+                        latencies.length / seconds, percentile(latencies, 0.50), percentile(latencies, 0.99)));
+                    assertThat(latencies).hasSize(CLIENTS * REQUESTS_PER_CLIENT);
+                }
+            }
+        }
+    }
+
+    private FraudCheckBatchResponse simulate(FraudCheckBatchRequest batch) {
+        LockSupport.parkNanos(roundTripNanos + perItemNanos * batch.getRequests().size());
+        List<FraudCheckResponse> responses = new ArrayList<>(batch.getRequests().size());
+        for (PaymentRequest request : batch.getRequests()) {
+            responses.add(new FraudCheckResponse(request.getTransactionId(), FraudCheckStatus.APPROVED, Instant.now()));
+        }
+        return new FraudCheckBatchResponse(responses);
+    }
+
+    private static long[] run(FraudCheckBatcher batcher, int requestsPerClient) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                results.add(clients.submit(() -> {
+                    long[] latencies = new long[requestsPerClient];
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        PaymentRequest request = PaymentRequest.builder().transactionId(UUID.randomUUID()).build();
+                        long started = System.nanoTime();
+                        FraudCheckResponse response = batcher.check(request, 5_000);
+                        latencies[i] = System.nanoTime() - started;
+                        assertThat(response.getTransactionId()).isEqualTo(request.getTransactionId());
+                    }
+                    return latencies;
+                }));
+            }
+            long[] all = new long[0];
+            for (Future<long[]> result : results) {
+                long[] latencies = result.get(5, TimeUnit.MINUTES);
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            return all;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))] / 1e6;
+    }
+}
@@ -0,0 +1,160 @@
+package com.demo.broker.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.model.FraudCheckBatchRequest;
+import com.demo.common.model.FraudCheckBatchResponse;
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+
+@DisplayName("Fraud Check Batcher Tests")
+class FraudCheckBatcherTest {
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private FraudCheckBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should send full batches and hand each caller its own response")
+    void shouldBatchBySize() throws Exception {
+        // Given
+        batcher = new FraudCheckBatcher(10, 10_000, 1, this::approveAll);
+        List<PaymentRequest> requests = new ArrayList<>();
+        List<CompletableFuture<FraudCheckResponse>> responses = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            PaymentRequest request = PaymentRequest.builder().transactionId(UUID.randomUUID()).build();
+            requests.add(request);
+            responses.add(batcher.submit(request));
+        }
+
+        // Then
+        for (int i = 0; i < requests.size(); i++) {
+            assertThat(responses.get(i).get(5, TimeUnit.SECONDS).getTransactionId())
+                .isEqualTo(requests.get(i).getTransactionId());
+        }
+        assertThat(batchSizes).containsExactly(10, 10);
+    }
+
+    @Test
+    @DisplayName("Should send a partial batch after the linger time")
+    void shouldBatchByLinger() throws Exception {
+        // Given
+        batcher = new FraudCheckBatcher(50, 20, 1, this::approveAll);
+        PaymentRequest request = PaymentRequest.builder().transactionId(UUID.randomUUID()).build();
+
+        // When
+        long started = System.nanoTime();
+        FraudCheckResponse response = batcher.check(request, 5_000);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(FraudCheckStatus.APPROVED);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(15);
+        assertThat(batchSizes).containsExactly(1);
+    }
+
+    @Test
+    @DisplayName("Should fail every caller of a failed or incomplete batch")
+    void shouldFailWholeBatch() {
+        // Given
+        batcher = new FraudCheckBatcher(2, 1_000, 1, batch -> new FraudCheckBatchResponse(
+            List.of(response(batch.getRequests().get(0)))));
+
+        // When
+        CompletableFuture<FraudCheckResponse> first = batcher.submit(new PaymentRequest());
+        CompletableFuture<FraudCheckResponse> second = batcher.submit(new PaymentRequest());
+
+        // Then
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasMessageContaining("answered with 1 responses");
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+    }
+
+    @Test
+    @DisplayName("Should rethrow the sender failure from check")
+    void shouldRethrowSenderFailure() {
+        // Given
+        batcher = new FraudCheckBatcher(1, 0, 1, batch -> {
+            throw new IOException("broker down");
+        });
+
+        // When/Then
+        assertThatThrownBy(() -> batcher.check(new PaymentRequest(), 5_000))
+            .isInstanceOf(IOException.class)
+            .hasMessage("broker down");
+    }
+
+    @Test
+    @DisplayName("Should fail the lingering batch on close and let the batch in flight finish")
+    void shouldFailLingeringBatchOnClose() throws Exception {
+        // Given
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new FraudCheckBatcher(1, 10_000, 1, batch -> {
+            sending.countDown();
+            release.await();
+            return approveAll(batch);
+        });
+        CompletableFuture<FraudCheckResponse> inFlight = batcher.submit(new PaymentRequest());
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        FraudCheckBatcher lingering = new FraudCheckBatcher(10, 10_000, 1, this::approveAll);
+        CompletableFuture<FraudCheckResponse> waiting = lingering.submit(new PaymentRequest());
+
+        // When
+        lingering.close();
+        batcher.close();
+        release.countDown();
+
+        // Then
+        assertThatThrownBy(() -> waiting.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasMessageContaining("closed");
+        assertThat(inFlight.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(FraudCheckStatus.APPROVED);
+    }
+
+    @Test
+    @DisplayName("Should stop waiting in check after the timeout")
+    void shouldTimeOutCheck() {
+        // Given
+        batcher = new FraudCheckBatcher(10, 10_000, 1, this::approveAll);
+
+        // When/Then
+        assertThatThrownBy(() -> batcher.check(new PaymentRequest(), 50))
+            .isInstanceOf(TimeoutException.class);
+    }
+
+    private FraudCheckBatchResponse approveAll(FraudCheckBatchRequest batch) {
+        batchSizes.add(batch.getRequests().size());
+        return new FraudCheckBatchResponse(batch.getRequests().stream().map(FraudCheckBatcherTest::response).toList());
+    }
+
+    private static FraudCheckResponse response(PaymentRequest request) {
+        return new FraudCheckResponse(request.getTransactionId(), FraudCheckStatus.APPROVED, Instant.now());
+    }
+}
@@ -0,0 +1,195 @@
+package com.demo.broker.coalescing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.broker.config.BrokerRouteConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Fraud Check Coalescer Tests")
+class FraudCheckCoalescerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger calls = new AtomicInteger();
+    private BrokerRouteConfig.Coalescing config;
+    private SimpleMeterRegistry meterRegistry;
+    private FraudCheckCoalescer coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        config = new BrokerRouteConfig.Coalescing();
+        config.setResultTtlMillis(2000);
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new FraudCheckCoalescer(config, meterRegistry, now::get);
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should share one outstanding call between concurrent duplicates")
+    void shouldCoalesceConcurrentDuplicates() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> coalescer.execute("tx-1", () -> {
+                calls.incrementAndGet();
+                release.await(5, TimeUnit.SECONDS);
+                return "APPROVED";
+            })));
+        }
+        while (count("coalesced") + count("called") < 8) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        // Then
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("APPROVED");
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(count("called")).isEqualTo(1);
+        assertThat(count("coalesced")).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should complete asynchronous duplicates when the outstanding call completes")
+    void shouldCoalesceAsynchronousCalls() throws Exception {
+        // Given
+        CompletableFuture<String> reply = new CompletableFuture<>();
+
+        // When
+        CompletableFuture<String> first = coalescer.executeAsync("tx-1", () -> reply);
+        CompletableFuture<String> duplicate = coalescer.executeAsync("tx-1", () -> CompletableFuture.completedFuture("other"));
+        boolean waiting = !first.isDone() && !duplicate.isDone();
+        reply.complete("APPROVED");
+
+        // Then
+        assertThat(waiting).isTrue();
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo("APPROVED");
+        assertThat(duplicate.get(1, TimeUnit.SECONDS)).isEqualTo("APPROVED");
+        assertThat(count("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should answer retries from the cache until the result expires")
+    void shouldCacheResultsForTtl() throws Exception {
+        // Given
+        coalescer.execute("tx-1", this::call);
+
+        // When
+        now.addAndGet(1999);
+        String cached = coalescer.execute("tx-1", this::call);
+        now.addAndGet(1);
+        String expired = coalescer.execute("tx-1", this::call);
+
+        // Then
+        assertThat(cached).isEqualTo("result-1");
+        assertThat(expired).isEqualTo("result-2");
+        assertThat(count("cached")).isEqualTo(1);
+        assertThat(count("called")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should not cache failures")
+    void shouldNotCacheFailures() throws Exception {
+        // Given
+        assertThatThrownBy(() -> coalescer.execute("tx-1", () -> {
+            throw new IllegalStateException("timeout");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // When
+        String retried = coalescer.execute("tx-1", this::call);
+
+        // Then
+        assertThat(retried).isEqualTo("result-1");
+        assertThat(coalescer.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should call every time when disabled or without a transaction ID")
+    void shouldPassThroughWhenDisabled() throws Exception {
+        // Given
+        coalescer.execute(null, this::call);
+        coalescer.execute(null, this::call);
+        config.setEnabled(false);
+
+        // When
+        coalescer.execute("tx-1", this::call);
+        coalescer.execute("tx-1", this::call);
+
+        // Then
+        assertThat(calls).hasValue(4);
+        assertThat(coalescer.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should evict expired results and bound the number of entries")
+    void shouldEvictExpiredAndBoundEntries() throws Exception {
+        // Given
+        config.setMaxEntries(3);
+        for (int i = 0; i < 5; i++) {
+            coalescer.execute("tx-" + i, this::call);
+        }
+        assertThat(coalescer.size()).isEqualTo(3);
+
+        // When
+        now.addAndGet(5000);
+        coalescer.execute("tx-new", this::call);
+
+        // Then
+        assertThat(coalescer.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep outstanding calls when bounding the number of entries")
+    void shouldNotEvictOutstandingCalls() throws Exception {
+        // Given
+        config.setMaxEntries(1);
+        CompletableFuture<String> reply = new CompletableFuture<>();
+        CompletableFuture<String> outstanding = coalescer.executeAsync("tx-1", () -> reply);
+        coalescer.execute("tx-2", this::call);
+        coalescer.execute("tx-3", this::call);
+
+        // When
+        CompletableFuture<String> duplicate = coalescer.executeAsync("tx-1", () -> CompletableFuture.completedFuture("other"));
+        reply.complete("APPROVED");
+
+        // Then
+        assertThat(outstanding.get(1, TimeUnit.SECONDS)).isEqualTo("APPROVED");
+        assertThat(duplicate.get(1, TimeUnit.SECONDS)).isEqualTo("APPROVED");
+        assertThat(count("coalesced")).isEqualTo(1);
+    }
+
+    private String call() {
+        return "result-" + calls.incrementAndGet();
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get(FraudCheckCoalescer.METER_NAME).tag("outcome", outcome).counter().count();
+    }
+}
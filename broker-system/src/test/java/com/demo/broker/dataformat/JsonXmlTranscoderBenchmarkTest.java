@@ -0,0 +1,103 @@
+package com.demo.broker.dataformat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import jakarta.xml.bind.JAXBContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per message cost of the streaming transcoder against the Jackson/JAXB binding chain it replaces.
+ *
+ * Run with: mvn test -pl broker-system -Dtest=JsonXmlTranscoderBenchmarkTest -Dbenchmark=true
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("JSON/XML Transcoder Benchmark")
+class JsonXmlTranscoderBenchmarkTest {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    @DisplayName("Should compare streaming transcoding with object binding")
+    void shouldCompareWithBindingChain() throws Exception {
+        JAXBContext jaxbContext = JAXBContext.newInstance(PaymentRequest.class.getPackage().getName());
+        JsonXmlTranscoderDataFormat transcoder = new JsonXmlTranscoderDataFormat(objectMapper.getFactory());
+
+        byte[] requestJson = objectMapper.writeValueAsBytes(JsonXmlTranscoderDataFormatTest.samplePayment());
+        StringWriter responseXml = new StringWriter();
+        jaxbContext.createMarshaller().marshal(FraudCheckResponse.builder()
+            .transactionId(UUID.randomUUID())
+            .status(FraudCheckStatus.APPROVED)
+            .validationTimestamp(Instant.now())
+            .build(), responseXml);
+        byte[] responseBytes = responseXml.toString().getBytes();
+
+        Task binding = () -> {
+            // What the route did before: four binding passes, a marshaller/unmarshaller per message
+            PaymentRequest request = objectMapper.readValue(requestJson, PaymentRequest.class);
+            ByteArrayOutputStream xml = new ByteArrayOutputStream(1024);
+            jaxbContext.createMarshaller().marshal(request, xml);
+            FraudCheckResponse response = (FraudCheckResponse) jaxbContext.createUnmarshaller()
+                .unmarshal(new ByteArrayInputStream(responseBytes));
+            return xml.size() + objectMapper.writeValueAsBytes(response).length;
+        };
+        Task streaming = () -> {
+            ByteArrayOutputStream xml = new ByteArrayOutputStream(1024);
+            transcoder.jsonToXml(new ByteArrayInputStream(requestJson), xml);
+            StringWriter json = new StringWriter(128);
+            transcoder.xmlToJson(new ByteArrayInputStream(responseBytes), json);
+            return xml.size() + json.getBuffer().length();
+        };
+
+        double bindingNanos = measure(binding);
+        double streamingNanos = measure(streaming);
+
+        log.info(String.format("binding   %8.0f ns/message", bindingNanos));
+        log.info(String.format("streaming %8.0f ns/message (%.1fx)", streamingNanos, bindingNanos / streamingNanos));
+        assertThat(streamingNanos).isPositive();
+    }
+
+    private static double measure(Task task) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += task.run();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += task.run();
+        }
+        double nanos = (double) (System.nanoTime() - started) / ITERATIONS;
+        assertThat(sink).isPositive();
+        return nanos;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        long run() throws Exception;
+    }
+}
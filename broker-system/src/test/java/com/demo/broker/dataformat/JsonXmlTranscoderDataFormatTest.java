@@ -0,0 +1,170 @@
+package com.demo.broker.dataformat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+
+@DisplayName("JSON/XML Transcoder Tests")
+class JsonXmlTranscoderDataFormatTest {
+
+    /** Configured like the Spring Boot mapper used by the binding chain */
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private JAXBContext jaxbContext;
+    private JsonXmlTranscoderDataFormat transcoder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jaxbContext = JAXBContext.newInstance(PaymentRequest.class.getPackage().getName());
+        transcoder = new JsonXmlTranscoderDataFormat(objectMapper.getFactory());
+    }
+
+    @Test
+    @DisplayName("Should produce the same request XML as the Jackson/JAXB chain")
+    void shouldTranscodeRequestLikeBindingChain() throws Exception {
+        // Given
+        String json = """
+            {"creationTimestamp":"2024-01-15T10:30:00Z","amount":"1500.50","currency":"EUR",
+             "transactionId":"550E8400-E29B-41D4-A716-446655440000","payerName":"John <Doe> & Sons",
+             "payerBank":"Bank of America","payerCountryCode":"USA","payerAccount":"1234567890123456",
+             "payeeName":"Jane Smith","payeeBank":"BNP Paribas","payeeCountryCode":"FRA",
+             "payeeAccount":"FR1420041010050500013M02606","executionDate":"2024-01-20",
+             "unknownField":{"nested":[1,2,3]}}
+            """;
+
+        // When
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        String transactionId = transcoder.jsonToXml(bytes(json), streamed);
+
+        // Then
+        PaymentRequest bound = objectMapper.readValue(json, PaymentRequest.class);
+        StringWriter expected = new StringWriter();
+        jaxbContext.createMarshaller().marshal(bound, expected);
+
+        assertThat(transactionId).isEqualTo("550e8400-e29b-41d4-a716-446655440000");
+        assertThat(unmarshalRequest(streamed.toString(StandardCharsets.UTF_8))).isEqualTo(bound);
+        assertThat(withoutDeclaration(streamed.toString(StandardCharsets.UTF_8)))
+            .isEqualTo(withoutDeclaration(expected.toString()));
+    }
+
+    @Test
+    @DisplayName("Should normalise numeric amounts and omit null fields")
+    void shouldNormaliseAmountsAndOmitNulls() throws Exception {
+        // Given
+        String json = """
+            {"transactionId":"550e8400-e29b-41d4-a716-446655440000","amount":17.45,"paymentInstruction":null}
+            """;
+
+        // When
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        transcoder.jsonToXml(bytes(json), streamed);
+
+        // Then
+        String xml = streamed.toString(StandardCharsets.UTF_8);
+        assertThat(xml).contains("<amount>17.45</amount>").doesNotContain("paymentInstruction");
+        assertThat(unmarshalRequest(xml).getAmount()).isEqualByComparingTo(new BigDecimal("17.45"));
+    }
+
+    @Test
+    @DisplayName("Should produce the same response JSON as the JAXB/Jackson chain")
+    void shouldTranscodeResponseLikeBindingChain() throws Exception {
+        // Given
+        FraudCheckResponse response = FraudCheckResponse.builder()
+            .transactionId(UUID.randomUUID())
+            .status(FraudCheckStatus.SUSPICIOUS)
+            .validationTimestamp(Instant.parse("2024-01-15T10:30:00.123456Z"))
+            .build();
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        StringWriter xml = new StringWriter();
+        marshaller.marshal(response, xml);
+
+        // When
+        StringWriter streamed = new StringWriter();
+        String transactionId = transcoder.xmlToJson(bytes(xml.toString()), streamed);
+
+        // Then
+        FraudCheckResponse bound = (FraudCheckResponse) jaxbContext.createUnmarshaller()
+            .unmarshal(new StringReader(xml.toString()));
+        assertThat(transactionId).isEqualTo(response.getTransactionId().toString());
+        assertThat(streamed.toString()).isEqualTo(objectMapper.writeValueAsString(bound));
+        assertThat(streamed.toString()).contains("\"validationTimestamp\":\"2024-01-15T10:30:00Z\"");
+    }
+
+    @Test
+    @DisplayName("Should reject invalid values like the binding chain")
+    void shouldRejectInvalidValues() {
+        // Given
+        String json = """
+            {"transactionId":"550e8400-e29b-41d4-a716-446655440000","executionDate":"2024-01-15T10:30:00Z"}
+            """;
+
+        // When/Then
+        assertThatThrownBy(() -> transcoder.jsonToXml(bytes(json), new ByteArrayOutputStream()))
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("executionDate");
+    }
+
+    static PaymentRequest samplePayment() {
+        return PaymentRequest.builder()
+            .transactionId(UUID.randomUUID())
+            .payerName("John Doe")
+            .payerBank("Bank of America")
+            .payerCountryCode("USA")
+            .payerAccount("1234567890123456")
+            .payeeName("Jane Smith")
+            .payeeBank("BNP Paribas")
+            .payeeCountryCode("FRA")
+            .payeeAccount("FR1420041010050500013M02606")
+            .paymentInstruction("Loan Repayment")
+            .executionDate(LocalDate.of(2024, 1, 20))
+            .amount(new BigDecimal("1500.50"))
+            .currency("EUR")
+            .creationTimestamp(Instant.parse("2024-01-15T10:30:00Z"))
+            .build();
+    }
+
+    private PaymentRequest unmarshalRequest(String xml) throws Exception {
+        return jaxbContext.createUnmarshaller()
+            .unmarshal(new StreamSource(new StringReader(xml)), PaymentRequest.class)
+            .getValue();
+    }
+
+    private static ByteArrayInputStream bytes(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Drops the declaration and the optional escaping of '>' in which StAX and JAXB differ */
+    private static String withoutDeclaration(String xml) {
+        return xml.replaceFirst("^<\\?xml[^>]*\\?>", "").replace("&gt;", ">");
+    }
+}
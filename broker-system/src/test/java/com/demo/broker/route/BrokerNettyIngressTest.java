@@ -0,0 +1,161 @@
+package com.demo.broker.route;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.builder.AdviceWith;
+import org.apache.camel.test.spring.junit5.CamelSpringBootTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import com.demo.broker.config.BrokerRouteConfig;
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@CamelSpringBootTest
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.cloud.consul.enabled=false",
+    "spring.cloud.discovery.enabled=false",
+    "spring.activemq.broker-url=vm://localhost?broker.persistent=false"
+})
+@DisplayName("Broker Netty Ingress Tests")
+class BrokerNettyIngressTest {
+
+    private static final int PORT = freePort();
+
+    private static boolean advised;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BrokerRouteConfig routeConfig;
+
+    @DynamicPropertySource
+    static void nettyPort(DynamicPropertyRegistry registry) {
+        registry.add("broker.route.netty.port", () -> PORT);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        if (advised) {
+            return;
+        }
+        // The fraud check system answers every request with APPROVED, advised once per context
+        AdviceWith.adviceWith(camelContext, "broker.rest.netty", route -> route
+            .weaveByToUri("direct:processFraudCheckRest").replace().process(exchange -> {
+                PaymentRequest request = exchange.getMessage().getBody(PaymentRequest.class);
+                exchange.getMessage().setBody(FraudCheckResponse.builder()
+                    .transactionId(request.getTransactionId())
+                    .status(FraudCheckStatus.APPROVED)
+                    .validationTimestamp(Instant.now())
+                    .build());
+            }));
+        advised = true;
+    }
+
+    @Test
+    @DisplayName("Should answer a POSTed payment with the fraud check response as JSON")
+    void shouldAnswerPost() throws Exception {
+        // Given
+        PaymentRequest payment = payment();
+
+        // When
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(ingress())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(payment)))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+            type -> assertThat(type).startsWith("application/json"));
+        FraudCheckResponse fraudCheck = objectMapper.readValue(response.body(), FraudCheckResponse.class);
+        assertThat(fraudCheck.getTransactionId()).isEqualTo(payment.getTransactionId());
+        assertThat(fraudCheck.getStatus()).isEqualTo(FraudCheckStatus.APPROVED);
+    }
+
+    @Test
+    @DisplayName("Should answer methods other than POST with 405")
+    void shouldRejectOtherMethods() throws Exception {
+        // When
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(ingress()).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(405);
+    }
+
+    @Test
+    @DisplayName("Should answer a malformed payment with 400")
+    void shouldRejectMalformedPayment() throws Exception {
+        // When
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(ingress())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{not json"))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).startsWith("Invalid payment request");
+    }
+
+    private URI ingress() {
+        BrokerRouteConfig.Netty netty = routeConfig.getNetty();
+        return URI.create("http://" + netty.getHost() + ":" + netty.getPort() + netty.getPath());
+    }
+
+    private static PaymentRequest payment() {
+        PaymentRequest payment = new PaymentRequest();
+        payment.setTransactionId(UUID.randomUUID());
+        payment.setPayerName("Alice Johnson");
+        payment.setPayerBank("First National Bank");
+        payment.setPayerCountryCode("USA");
+        payment.setPayerAccount("ACC123456");
+        payment.setPayeeName("Bob Williams");
+        payment.setPayeeBank("Second National Bank");
+        payment.setPayeeCountryCode("USA");
+        payment.setPayeeAccount("ACC789012");
+        payment.setPaymentInstruction("Monthly salary");
+        payment.setExecutionDate(LocalDate.now());
+        payment.setAmount(BigDecimal.valueOf(2500.75));
+        payment.setCurrency("USD");
+        payment.setCreationTimestamp(Instant.now());
+        return payment;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException("No free port for the Netty ingress", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.demo.broker.route;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.camel.CamelContext;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.jms.JmsComponent;
+import org.apache.camel.component.jms.ReplyToType;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.demo.broker.config.BrokerRouteConfig;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Request/reply throughput of Shared vs Exclusive vs Temporary reply queues against a running broker.
+ *
+ * Run with: mvn test -pl broker-system -Dtest=ReplyToTypeBenchmarkTest -Dbenchmark=true
+ * [-Dbenchmark.broker-url=tcp://localhost:61616]
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Reply To Type Benchmark")
+class ReplyToTypeBenchmarkTest {
+
+    private static final int[] CONCURRENCY = {1, 4, 16, 64, 256};
+    private static final int REQUESTS_PER_CLIENT = 200;
+    private static final String REQUEST_QUEUE = "benchmark.requests";
+
+    private CamelContext camelContext;
+    private ProducerTemplate producerTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(
+            System.getProperty("benchmark.broker-url", "tcp://localhost:61616"));
+        connectionFactory.setUserName(System.getProperty("benchmark.user", "admin"));
+        connectionFactory.setPassword(System.getProperty("benchmark.password", "admin"));
+
+        camelContext = new DefaultCamelContext();
+        camelContext.addComponent("jms", JmsComponent.jmsComponent(connectionFactory));
+        camelContext.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                // Echo responder standing in for the fraud check system
+                from("jms:queue:" + REQUEST_QUEUE + "?concurrentConsumers=16")
+                    .setBody(simple("reply-${body}"));
+            }
+        });
+        camelContext.start();
+        producerTemplate = camelContext.createProducerTemplate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        camelContext.stop();
+    }
+
+    @Test
+    @DisplayName("Should compare reply queue modes from 1 to 256 concurrent requests")
+    void shouldCompareReplyToTypes() throws Exception {
+        log.info(String.format("%-10s %12s %14s %14s", "mode", "concurrency", "requests/s", "avg latency ms"));
+        for (ReplyToType replyToType : ReplyToType.values()) {
+            String uri = endpointFor(replyToType);
+            run(uri, 1, 50); // warm up the reply manager and connections
+
+            for (int concurrency : CONCURRENCY) {
+                long started = System.nanoTime();
+                int requests = run(uri, concurrency, REQUESTS_PER_CLIENT);
+                double seconds = (System.nanoTime() - started) / 1e9;
+
+                log.info(String.format("%-10s %12d %14.0f %14.2f", replyToType, concurrency,
+                    requests / seconds, seconds * 1000 * concurrency / requests));
+                assertThat(requests).isEqualTo(concurrency * REQUESTS_PER_CLIENT);
+            }
+        }
+    }
+
+    private String endpointFor(ReplyToType replyToType) {
+        BrokerRouteConfig.Jms jms = new BrokerRouteConfig.Jms();
+        jms.setRequestQueue("jms:queue:" + REQUEST_QUEUE);
+        jms.setResponseQueue("queue:benchmark.responses");
+        jms.setReplyToType(replyToType);
+        jms.setReplyToMaxConcurrentConsumers(4);
+        return jms.requestReplyUri();
+    }
+
+    private int run(String uri, int concurrency, int requestsPerClient) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int client = 0; client < concurrency; client++) {
+                int id = client;
+                results.add(clients.submit(() -> {
+                    int replies = 0;
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        String body = id + "-" + i;
+                        String reply = producerTemplate.requestBody(uri, body, String.class);
+                        assertThat(reply).isEqualTo("reply-" + body);
+                        replies++;
+                    }
+                    return replies;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(5, TimeUnit.MINUTES);
+            }
+            return total;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
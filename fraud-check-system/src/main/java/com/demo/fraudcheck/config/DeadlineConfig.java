@@ -0,0 +1,23 @@
+package com.demo.fraudcheck.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Earliest-deadline-first processing of fraud check requests, see DeadlineScheduler
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fraudcheck.deadline")
+@Data
+public class DeadlineConfig {
+    /** Queue requests locally by deadline and drop those whose caller gave up; off processes them as received */
+    private boolean enabled = true;
+
+    /** Threads checking queued requests at start, then sized by messaging.autoscaling when it is enabled */
+    private int workers = 4;
+
+    /** Requests queued locally before the JMS consumer waits, keep it at least the consumer prefetch */
+    private int queueCapacity = 200;
+}
@@ -0,0 +1,23 @@
+package com.demo.fraudcheck.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Replay of fraud check verdicts for redelivered requests, see VerdictCache
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fraudcheck.idempotency")
+@Data
+public class IdempotencyConfig {
+    /** Answer requests for an already checked transaction ID with the cached verdict */
+    private boolean enabled = true;
+
+    /** About how many transaction IDs are remembered, 40 bytes each allocated up front; the oldest are overwritten first */
+    private int capacity = 1_000_000;
+
+    /** Independently locked parts of the cache, a power of two */
+    private int segments = 16;
+}
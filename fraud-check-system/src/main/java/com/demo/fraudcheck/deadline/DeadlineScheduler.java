@@ -0,0 +1,353 @@
+package com.demo.fraudcheck.deadline;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.support.AsyncProcessorSupport;
+import org.apache.camel.support.SynchronizationAdapter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.demo.common.messaging.ConsumerAutoscaler;
+import com.demo.common.messaging.MessageGroups;
+import com.demo.common.messaging.RequestDeadline;
+import com.demo.fraudcheck.config.DeadlineConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local work queue of the fraud check route, ordered earliest deadline first.
+ *
+ * The JMS consumer hands every request to this stage and goes back for the next message, while a pool of workers
+ * continues the route for the queued request with the earliest {@link RequestDeadline}; requests without one go
+ * last, in arrival order. A request whose deadline has passed, on arrival or while queued, is dropped without a
+ * reply, since its caller already timed out. When queueCapacity requests are waiting the consumer waits too, so
+ * the backlog stays on the broker.
+ *
+ * Requests of one {@link MessageGroups message group}, the payer account bucket, are continued one at a time and
+ * in arrival order: while one is queued or being checked, later ones of its group wait behind it and join the queue
+ * when its exchange is done. That includes its retries, which the error handler schedules after the worker returned.
+ * The broker already delivers a group in order to a single consumer; this keeps the order when the workers take
+ * over. Requests without a group are not held back.
+ *
+ * The workers are the consumers the {@link ConsumerAutoscaler} sizes for the fraud check queue, as the JMS consumers
+ * only hand requests over; requests waiting here count into the queue depth. fraudcheck.deadline.workers is the
+ * initial count.
+ *
+ * The queue only fills when the route consumes asynchronously, see MessagingProperties.Consumer#applyAsyncTo. Batch
+ * acknowledgement profiles must finish a message on its consumer thread and use {@link #dropExpired()} instead.
+ *
+ * Dropped requests are counted in the fraudcheck.deadline.shed meter, tagged stage=received|queued. The queue
+ * and grouped gauges and the wait timer share the prefix.
+ */
+@Slf4j
+@Component
+public class DeadlineScheduler extends AsyncProcessorSupport
+        implements ConsumerAutoscaler.ConsumerPool, DisposableBean {
+
+    public static final String METER_NAME = "fraudcheck.deadline";
+
+    private static final Comparator<Task> EARLIEST_DEADLINE_FIRST =
+        Comparator.comparingLong(Task::deadline).thenComparingLong(Task::sequence);
+
+    private record Task(long deadline, long sequence, long queuedNanos, String group, Exchange exchange,
+            AsyncCallback callback) {
+    }
+
+    private final boolean enabled;
+    private final PriorityBlockingQueue<Task> queue = new PriorityBlockingQueue<>(64, EARLIEST_DEADLINE_FIRST);
+    private final Semaphore capacity;
+    private final AtomicLong sequence = new AtomicLong();
+    /** Groups with a request queued or being checked, and their requests waiting behind it */
+    private final Map<String, ArrayDeque<Task>> groups = new HashMap<>();
+    private final AtomicInteger grouped = new AtomicInteger();
+    /** Running workers, those above workerTarget stop after their current request */
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger workerIds = new AtomicInteger();
+    private int workerTarget;
+    private final Counter shedOnReceipt;
+    private final Counter shedQueued;
+    private final Timer waits;
+    private volatile boolean running = true;
+
+    @Autowired
+    public DeadlineScheduler(DeadlineConfig config, MeterRegistry meterRegistry) {
+        if (config.getWorkers() < 1 || config.getQueueCapacity() < 1) {
+            throw new IllegalArgumentException("workers and queueCapacity must be at least 1");
+        }
+        this.enabled = config.isEnabled();
+        this.capacity = new Semaphore(config.getQueueCapacity());
+        this.shedOnReceipt = counter(meterRegistry, "received");
+        this.shedQueued = counter(meterRegistry, "queued");
+        this.waits = Timer.builder(METER_NAME + ".wait")
+            .description("Time fraud check requests waited in the deadline queue")
+            .register(meterRegistry);
+        Gauge.builder(METER_NAME + ".queue", queue, PriorityBlockingQueue::size)
+            .description("Fraud check requests waiting in the deadline queue")
+            .register(meterRegistry);
+        Gauge.builder(METER_NAME + ".grouped", grouped, AtomicInteger::get)
+            .description("Fraud check requests waiting for an earlier request of their message group")
+            .register(meterRegistry);
+        if (enabled) {
+            resize(config.getWorkers());
+            log.info("Fraud check deadline queue: {} workers, {} requests", config.getWorkers(),
+                config.getQueueCapacity());
+        }
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        if (!enabled) {
+            callback.done(true);
+            return true;
+        }
+        long deadline = RequestDeadline.of(exchange.getMessage());
+        if (deadline < System.currentTimeMillis()) {
+            shed(exchange, deadline, shedOnReceipt);
+            callback.done(true);
+            return true;
+        }
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+        Task task = new Task(deadline, sequence.incrementAndGet(), System.nanoTime(),
+            MessageGroups.of(exchange.getMessage()), exchange, callback);
+        if (task.group() != null) {
+            exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+                @Override
+                public void onDone(Exchange done) {
+                    release(task);
+                }
+            });
+        }
+        if (admit(task)) {
+            queue.add(task);
+        }
+        if (!running && (queue.remove(task) || unpark(task))) {
+            // Shut down while queueing, no worker will take it
+            capacity.release();
+            reject(exchange, callback);
+        }
+        return false;
+    }
+
+    /**
+     * Only drops expired requests and leaves the rest on the consumer thread, for consumers whose transaction or
+     * acknowledgement is bound to that thread
+     */
+    public Processor dropExpired() {
+        return exchange -> {
+            long deadline = RequestDeadline.of(exchange.getMessage());
+            if (enabled && deadline < System.currentTimeMillis()) {
+                shed(exchange, deadline, shedOnReceipt);
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int queuedRequests() {
+        return queue.size();
+    }
+
+    @Override
+    public int size() {
+        synchronized (workers) {
+            return workerTarget;
+        }
+    }
+
+    /**
+     * Starts workers up to the count at once, surplus workers stop once they finished their current request
+     */
+    @Override
+    public void resize(int count) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (workers) {
+            workerTarget = count;
+            while (running && workers.size() < workerTarget) {
+                Thread worker = new Thread(this::work, "fraud-check-worker-" + workerIds.getAndIncrement());
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+    }
+
+    int runningWorkers() {
+        synchronized (workers) {
+            return workers.size();
+        }
+    }
+
+    @Override
+    public int backlog() {
+        return queue.size() + grouped.get();
+    }
+
+    private void work() {
+        while (running && !retire()) {
+            Task task;
+            try {
+                task = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (task == null) {
+                continue;
+            }
+            capacity.release();
+            waits.record(System.nanoTime() - task.queuedNanos(), TimeUnit.NANOSECONDS);
+            if (task.deadline() < System.currentTimeMillis()) {
+                shed(task.exchange(), task.deadline(), shedQueued);
+            }
+            ConsumerAutoscaler.processingStarted(task.exchange());
+            try {
+                // Continues the route on this thread until it is done or waits for a scheduled retry
+                task.callback().done(false);
+            } catch (RuntimeException e) {
+                log.error("Fraud check request failed on worker {}", Thread.currentThread().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Whether the calling worker is surplus, it is then removed
+     */
+    private boolean retire() {
+        synchronized (workers) {
+            if (workers.size() <= workerTarget) {
+                return false;
+            }
+            workers.remove(Thread.currentThread());
+            return true;
+        }
+    }
+
+    /**
+     * Whether the task may join the queue now, otherwise it waits for the requests of its group ahead of it
+     */
+    private boolean admit(Task task) {
+        if (task.group() == null) {
+            return true;
+        }
+        synchronized (groups) {
+            ArrayDeque<Task> waiting = groups.get(task.group());
+            if (waiting == null) {
+                groups.put(task.group(), new ArrayDeque<>());
+                return true;
+            }
+            waiting.add(task);
+            grouped.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Queues the next request of the group of a task whose exchange is done
+     */
+    private void release(Task task) {
+        if (task.group() == null) {
+            return;
+        }
+        Task next;
+        synchronized (groups) {
+            ArrayDeque<Task> waiting = groups.get(task.group());
+            next = waiting == null ? null : waiting.poll();
+            if (next == null) {
+                groups.remove(task.group());
+                return;
+            }
+            grouped.decrementAndGet();
+        }
+        queue.add(next);
+        if (!running && queue.remove(next)) {
+            capacity.release();
+            reject(next.exchange(), next.callback());
+        }
+    }
+
+    private boolean unpark(Task task) {
+        if (task.group() == null) {
+            return false;
+        }
+        synchronized (groups) {
+            ArrayDeque<Task> waiting = groups.get(task.group());
+            if (waiting != null && waiting.remove(task)) {
+                grouped.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void shed(Exchange exchange, long deadline, Counter counter) {
+        RequestDeadline.drop(exchange);
+        counter.increment();
+        log.debug("Dropped fraud check request {} past its deadline by {} ms",
+            exchange.getMessage().getHeader("JMSCorrelationID"), System.currentTimeMillis() - deadline);
+    }
+
+    private static void reject(Exchange exchange, AsyncCallback callback) {
+        exchange.setException(new RejectedExecutionException("Fraud check deadline queue is shut down"));
+        callback.done(false);
+    }
+
+    /**
+     * Stops the workers and fails the requests still queued, so the error handler dead-letters them
+     */
+    @Override
+    public void destroy() {
+        running = false;
+        synchronized (workers) {
+            workers.forEach(Thread::interrupt);
+        }
+        List<Task> rejected = new ArrayList<>();
+        for (Task task; (task = queue.poll()) != null;) {
+            rejected.add(task);
+        }
+        synchronized (groups) {
+            groups.values().forEach(rejected::addAll);
+            groups.clear();
+            grouped.set(0);
+        }
+        for (Task task : rejected) {
+            capacity.release();
+            reject(task.exchange(), task.callback());
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder(METER_NAME + ".shed")
+            .description("Fraud check requests dropped because their deadline passed")
+            .tag("stage", stage)
+            .register(meterRegistry);
+    }
+}
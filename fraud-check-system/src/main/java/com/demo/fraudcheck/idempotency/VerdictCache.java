@@ -0,0 +1,291 @@
+package com.demo.fraudcheck.idempotency;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.demo.common.model.FraudCheckBatchRequest;
+import com.demo.common.model.FraudCheckBatchResponse;
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+import com.demo.fraudcheck.config.IdempotencyConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fixed-memory idempotent consumer stage of the fraud check route, keyed by transaction ID.
+ *
+ * A request whose transaction ID was checked before, typically a JMS redelivery, is answered with the cached
+ * verdict, original validation timestamp included, instead of being checked again. About the last
+ * {@code capacity} transaction IDs are remembered: they are spread over segments by hash, and every segment keeps
+ * its verdicts in primitive arrays used as a ring, overwriting its oldest entry when the ring is full, with an open
+ * addressing index on top to find them. All memory is allocated at startup and no objects are created per entry.
+ *
+ * Outcomes are counted in the fraudcheck.idempotency meter, tagged outcome=checked|replayed. The entries and
+ * memory gauges and the lookup timer share the prefix.
+ */
+@Slf4j
+@Component
+public class VerdictCache {
+
+    public static final String METER_NAME = "fraudcheck.idempotency";
+
+    /** Ring bytes per entry: key high and low bits, timestamp seconds, nanos and status */
+    private static final int ENTRY_BYTES = Long.BYTES * 4;
+    private static final byte NO_STATUS = -1;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final FraudCheckStatus[] STATUSES = FraudCheckStatus.values();
+
+    private final boolean enabled;
+    private final Segment[] segments;
+    private final Counter checked;
+    private final Counter replayed;
+    private final Timer lookups;
+
+    @Autowired
+    public VerdictCache(IdempotencyConfig config, MeterRegistry meterRegistry) {
+        int segmentCount = config.getSegments();
+        if (segmentCount < 1 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("segments must be a power of two, was " + segmentCount);
+        }
+        if (config.getCapacity() < segmentCount) {
+            throw new IllegalArgumentException("capacity must be at least the number of segments, was "
+                + config.getCapacity());
+        }
+        this.enabled = config.isEnabled();
+        this.segments = new Segment[enabled ? segmentCount : 0];
+        int segmentCapacity = (config.getCapacity() + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        this.checked = counter(meterRegistry, "checked");
+        this.replayed = counter(meterRegistry, "replayed");
+        this.lookups = Timer.builder(METER_NAME + ".lookup")
+            .description("Verdict cache lookups")
+            .register(meterRegistry);
+        Gauge.builder(METER_NAME + ".entries", this, VerdictCache::size)
+            .description("Transaction IDs with a cached verdict")
+            .register(meterRegistry);
+        Gauge.builder(METER_NAME + ".memory", this, VerdictCache::memoryBytes)
+            .description("Memory allocated for cached verdicts")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        if (enabled) {
+            log.info("Fraud check verdict cache: {} transaction IDs in {} segments, {} MB",
+                config.getCapacity(), segmentCount, memoryBytes() / (1024 * 1024));
+        }
+    }
+
+    /**
+     * The cached verdict of the request's transaction ID, or the checker's verdict, which is cached.
+     * Requests without a transaction ID are always checked.
+     */
+    public FraudCheckResponse check(PaymentRequest request, Function<PaymentRequest, FraudCheckResponse> checker) {
+        UUID transactionId = request.getTransactionId();
+        if (!enabled || transactionId == null) {
+            return checker.apply(request);
+        }
+        long started = System.nanoTime();
+        FraudCheckResponse cached = get(transactionId);
+        lookups.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (cached != null) {
+            replayed.increment();
+            log.info("Replaying cached verdict {} for redelivered transaction ID {}", cached.getStatus(), transactionId);
+            return cached;
+        }
+        FraudCheckResponse response = checker.apply(request);
+        put(transactionId, response);
+        checked.increment();
+        return response;
+    }
+
+    /**
+     * Check every payment of the batch through {@link #check}, responses are in request order
+     */
+    public FraudCheckBatchResponse checkBatch(FraudCheckBatchRequest batch,
+            Function<PaymentRequest, FraudCheckResponse> checker) {
+        List<FraudCheckResponse> responses = new ArrayList<>(batch.getRequests().size());
+        for (PaymentRequest request : batch.getRequests()) {
+            responses.add(check(request, checker));
+        }
+        return new FraudCheckBatchResponse(responses);
+    }
+
+    public FraudCheckResponse get(UUID transactionId) {
+        if (!enabled) {
+            return null;
+        }
+        long hash = hash(transactionId.getMostSignificantBits(), transactionId.getLeastSignificantBits());
+        return segmentFor(hash).get(transactionId.getMostSignificantBits(), transactionId.getLeastSignificantBits(),
+            hash);
+    }
+
+    public void put(UUID transactionId, FraudCheckResponse response) {
+        if (!enabled) {
+            return;
+        }
+        long hash = hash(transactionId.getMostSignificantBits(), transactionId.getLeastSignificantBits());
+        segmentFor(hash).put(transactionId.getMostSignificantBits(), transactionId.getLeastSignificantBits(), hash,
+            response);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Bytes held by the ring and index arrays, fixed at construction
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += (long) segment.capacity * ENTRY_BYTES + (long) segment.index.length * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & (segments.length - 1)];
+    }
+
+    private static long hash(long msb, long lsb) {
+        // MurmurHash3 finalizer, the index uses the low bits and the segment the high bits
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(METER_NAME)
+            .description("Fraud checks by idempotency outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Ring of verdicts with a linear probing index of ring slot + 1, 0 marking a free index position. A slot is
+     * four adjacent longs, key high and low bits, timestamp seconds, then nanos and status, so a lookup touches
+     * one index and one entry cache line.
+     */
+    private static final class Segment {
+        private static final int STRIDE = 4;
+
+        private final int capacity;
+        private final long[] entries;
+        private final int[] index;
+        private final int mask;
+        private int next;
+        private int size;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            this.entries = new long[capacity * STRIDE];
+            // At most half full, so probe sequences stay short
+            this.index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+            this.mask = index.length - 1;
+        }
+
+        private synchronized FraudCheckResponse get(long keyMsb, long keyLsb, long hash) {
+            int position = find(keyMsb, keyLsb, hash);
+            if (position < 0) {
+                return null;
+            }
+            int base = (index[position] - 1) * STRIDE;
+            long seconds = entries[base + 2];
+            long nanosAndStatus = entries[base + 3];
+            byte status = (byte) nanosAndStatus;
+            return new FraudCheckResponse(new UUID(keyMsb, keyLsb),
+                status == NO_STATUS ? null : STATUSES[status],
+                seconds == NO_TIMESTAMP ? null : Instant.ofEpochSecond(seconds, nanosAndStatus >>> 8));
+        }
+
+        private synchronized void put(long keyMsb, long keyLsb, long hash, FraudCheckResponse response) {
+            int position = find(keyMsb, keyLsb, hash);
+            int slot;
+            if (position >= 0) {
+                slot = index[position] - 1;
+            } else {
+                slot = next;
+                int base = slot * STRIDE;
+                if (size == capacity) {
+                    // Overwrite the oldest verdict
+                    long oldMsb = entries[base];
+                    long oldLsb = entries[base + 1];
+                    remove(find(oldMsb, oldLsb, VerdictCache.hash(oldMsb, oldLsb)));
+                } else {
+                    size++;
+                }
+                next = (next + 1) % capacity;
+                entries[base] = keyMsb;
+                entries[base + 1] = keyLsb;
+                int free = (int) hash & mask;
+                while (index[free] != 0) {
+                    free = (free + 1) & mask;
+                }
+                index[free] = slot + 1;
+            }
+            FraudCheckStatus status = response.getStatus();
+            Instant timestamp = response.getValidationTimestamp();
+            int base = slot * STRIDE;
+            entries[base + 2] = timestamp == null ? NO_TIMESTAMP : timestamp.getEpochSecond();
+            entries[base + 3] = (timestamp == null ? 0L : (long) timestamp.getNano() << 8)
+                | ((status == null ? NO_STATUS : (byte) status.ordinal()) & 0xFF);
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private int find(long keyMsb, long keyLsb, long hash) {
+            int position = (int) hash & mask;
+            while (index[position] != 0) {
+                int base = (index[position] - 1) * STRIDE;
+                if (entries[base] == keyMsb && entries[base + 1] == keyLsb) {
+                    return position;
+                }
+                position = (position + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Free an index position, shifting later entries of the probe sequence back so lookups never stop early
+         */
+        private void remove(int position) {
+            int free = position;
+            int probe = position;
+            while (true) {
+                probe = (probe + 1) & mask;
+                if (index[probe] == 0) {
+                    break;
+                }
+                int base = (index[probe] - 1) * STRIDE;
+                int home = (int) VerdictCache.hash(entries[base], entries[base + 1]) & mask;
+                boolean staysPut = free <= probe ? free < home && home <= probe : free < home || home <= probe;
+                if (!staysPut) {
+                    index[free] = index[probe];
+                    free = probe;
+                }
+            }
+            index[free] = 0;
+        }
+    }
+}
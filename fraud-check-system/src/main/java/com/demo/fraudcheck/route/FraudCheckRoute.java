@@ -3,14 +3,26 @@ package com.demo.fraudcheck.route;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 import static org.springframework.http.MediaType.APPLICATION_XML_VALUE;
 
+import java.util.List;
+
 import org.apache.camel.builder.RouteBuilder;
-import org.apache.camel.converter.jaxb.JaxbDataFormat;
+import org.apache.camel.model.RouteDefinition;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.codec.FraudCheckBinaryCodec;
+import com.demo.common.codec.FraudCheckBinaryDataFormat;
+import com.demo.common.errorhandling.RouteErrorHandling;
+import com.demo.common.jaxb.PooledJaxbDataFormat;
+import com.demo.common.messaging.ConsumerAutoscaler;
+import com.demo.common.messaging.MessageGroupSequencer;
+import com.demo.common.messaging.MessagingProperties;
+import com.demo.common.messaging.PaymentPriority;
+import com.demo.common.model.FraudCheckBatchRequest;
 import com.demo.common.model.PaymentRequest;
+import com.demo.fraudcheck.deadline.DeadlineScheduler;
+import com.demo.fraudcheck.idempotency.VerdictCache;
 import com.demo.fraudcheck.service.FraudCheckService;
 
 @Component
@@ -24,18 +36,84 @@ public class FraudCheckRoute extends RouteBuilder {
 
     @Autowired
     private FraudCheckService fraudCheckService;
-    
+
+    @Autowired
+    private PooledJaxbDataFormat jaxbDataFormat;
+
+    @Autowired
+    private MessagingProperties messagingProperties;
+
+    @Autowired
+    private VerdictCache verdictCache;
+
+    @Autowired
+    private RouteErrorHandling routeErrorHandling;
+
+    @Autowired
+    private DeadlineScheduler deadlineScheduler;
+
+    @Autowired
+    private ConsumerAutoscaler consumerAutoscaler;
+
+    @Autowired
+    private MessageGroupSequencer messageGroupSequencer;
+
     @Override
     public void configure() throws Exception {
         configureUsingJaxbDataformat();
     }
 
     public void configureUsingJaxbDataformat() throws Exception {
-        // Configure JAXB context
-        var jaxbRequestFormat = new JaxbDataFormat(PaymentRequest.class.getPackage().getName());
-        var jaxbResponseFormat = new JaxbDataFormat(FraudCheckResponse.class.getPackage().getName());
+        // Requests announcing the binary Content-Type are decoded with it and answered in it, everything else is XML
+        FraudCheckBinaryDataFormat binaryFormat = new FraudCheckBinaryDataFormat();
 
-        from("jms:queue:fraud.check.requests")
+        MessagingProperties.PriorityLane priorityLane = messagingProperties.getPriorityLane();
+        List<PaymentPriority> lanes = priorityLane.isEnabled() ? List.of(PaymentPriority.values())
+            : List.of(PaymentPriority.NORMAL);
+        for (PaymentPriority lane : lanes) {
+            configureLane(lane, priorityLane, binaryFormat);
+        }
+    }
+
+    /**
+     * The fraud check route of one priority lane. The normal lane is scaled with its backlog and checked earliest
+     * deadline first; the high lane has fixed consumers of its own that check on their own threads, so it never
+     * waits behind the normal lane's deadline queue.
+     */
+    private void configureLane(PaymentPriority lane, MessagingProperties.PriorityLane priorityLane,
+            FraudCheckBinaryDataFormat binaryFormat) {
+        boolean normal = lane == PaymentPriority.NORMAL;
+        String routeId = lane.queue("fraud-check");
+        String queueUri = lane.queue("jms:queue:fraud.check.requests");
+        if (!normal) {
+            queueUri += "?concurrentConsumers=" + priorityLane.getConcurrentConsumers()
+                + "&maxConcurrentConsumers=" + priorityLane.getConcurrentConsumers();
+        }
+        boolean scheduled = normal && messagingProperties.getConsumer().acknowledgesOnReceipt();
+        boolean queued = scheduled && deadlineScheduler.isEnabled();
+        // The deadline queue only fills when the consumer hands over asynchronously, with or without error handling.
+        // It keeps message groups in order, without it the message group sequencer does
+        String consumerUri = queued
+            ? messagingProperties.getConsumer().applyAsyncTo(queueUri)
+            : routeErrorHandling.consumerUri(queueUri, messagingProperties.getConsumer());
+
+        // Acknowledgement profile from messaging.consumer, replies are part of the batch in TRANSACTED_BATCH
+        RouteDefinition route = from(consumerUri)
+            .routeId(routeId)
+            // Retried with backoff, then dead-lettered to DLQ.<route ID> and answered with a failure reply
+            .errorHandler(routeErrorHandling.deadLetterChannel(routeId));
+        if (normal) {
+            // Concurrent consumers follow the queue depth, see messaging.autoscaling. With the deadline queue the
+            // consumers only hand requests to its workers, so the workers are scaled instead
+            route.routePolicy(queued
+                ? consumerAutoscaler.policyFor("fraud.check.requests", deadlineScheduler)
+                : consumerAutoscaler.policyFor("fraud.check.requests"));
+        }
+        if (!queued) {
+            route.process(messageGroupSequencer);
+        }
+        // Requests past their deadline are dropped unanswered, the rest are checked earliest deadline first
+        route.process(scheduled ? deadlineScheduler : deadlineScheduler.dropExpired())
             .log("Received fraud check request: JMSCorrelationID: ${header.JMSCorrelationID}\n${body}")
             .log("type=${body.class.name} | headers=${headers}")
             .log("Inbound: CorrelationID=${header.JMSCorrelationID}, ReplyTo=${header.JMSReplyTo}, Type=${body.class.name}")
@@ -44,22 +122,31 @@ public class FraudCheckRoute extends RouteBuilder {
                 String correlationId = exchange.getIn().getHeader("JMSCorrelationID", String.class);
                 exchange.setProperty("responseCorrelationId", correlationId);
             })
-            .unmarshal(jaxbRequestFormat)
+            .choice()
+                .when(header(CONTENT_TYPE).isEqualTo(FraudCheckBinaryCodec.CONTENT_TYPE))
+                    .unmarshal(binaryFormat)
+                .otherwise()
+                    .unmarshal(jaxbDataFormat) // JAXBElement is unwrapped by the data format
+            .end()
             .log("After unmarshal: type=${body.class.name}")
-            .process(exchange -> {
-                // Handle JAXBElement unwrapping
-                Object body = exchange.getIn().getBody();
-                if (body instanceof jakarta.xml.bind.JAXBElement) {
-                    jakarta.xml.bind.JAXBElement<?> jaxbElement = (jakarta.xml.bind.JAXBElement<?>) body;
-                    exchange.getIn().setBody(jaxbElement.getValue());
-                    log.info("Unwrapped JAXBElement to: {}", jaxbElement.getValue().getClass().getSimpleName());
-                }
-            })
             .log("Before fraud check: type=${body.class.name}")
-            .bean(fraudCheckService, "checkFraud")
+            // Idempotent consumer: redelivered transaction IDs are answered with their cached verdict
+            .choice()
+                .when(body().isInstanceOf(FraudCheckBatchRequest.class))
+                    .process(exchange -> exchange.getMessage().setBody(verdictCache.checkBatch( // micro-batches from the broker
+                        exchange.getMessage().getBody(FraudCheckBatchRequest.class), fraudCheckService::checkFraud)))
+                .otherwise()
+                    .process(exchange -> exchange.getMessage().setBody(verdictCache.check(
+                        exchange.getMessage().getBody(PaymentRequest.class), fraudCheckService::checkFraud)))
+            .end()
             .log("After fraud check: type=${body.class.name}")
-            .marshal(jaxbResponseFormat)
-            .setHeader(CONTENT_TYPE, constant(APPLICATION_XML_VALUE))
+            .choice()
+                .when(header(CONTENT_TYPE).isEqualTo(FraudCheckBinaryCodec.CONTENT_TYPE))
+                    .marshal(binaryFormat) // byte[] body, replied as a BytesMessage
+                .otherwise()
+                    .marshal(jaxbDataFormat)
+                    .setHeader(CONTENT_TYPE, constant(APPLICATION_XML_VALUE))
+            .end()
             .setHeader("JMSCorrelationID", exchangeProperty("responseCorrelationId"))
             .log("Sending response to fraud.check.responses with correlation ID: ${header.JMSCorrelationID}\n${body}")
 //            .to("jms:queue:fraud.check.responses")
@@ -1,8 +1,12 @@
 package com.demo.fraudcheck.service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
+import com.demo.common.model.FraudCheckBatchRequest;
+import com.demo.common.model.FraudCheckBatchResponse;
 import com.demo.common.model.FraudCheckResponse;
 import com.demo.common.model.FraudCheckStatus;
 import com.demo.common.model.PaymentRequest;
@@ -46,4 +50,16 @@ public class FraudCheckService {
         log.info("Fraud check result for {}:{}", payment.getTransactionId(), status);
         return response;
     }
+
+    /**
+     * Check every payment of the batch, responses are in request order
+     */
+    public FraudCheckBatchResponse checkFraudBatch(FraudCheckBatchRequest batch) {
+        List<FraudCheckResponse> responses = new ArrayList<>(batch.getRequests().size());
+        for (PaymentRequest payment : batch.getRequests()) {
+            responses.add(checkFraud(payment));
+        }
+        log.info("Checked batch of {} payments", responses.size());
+        return new FraudCheckBatchResponse(responses);
+    }
 }
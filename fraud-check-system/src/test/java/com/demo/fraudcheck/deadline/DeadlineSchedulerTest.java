@@ -0,0 +1,286 @@
+package com.demo.fraudcheck.deadline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.support.UnitOfWorkHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.messaging.MessageGroups;
+import com.demo.common.messaging.RequestDeadline;
+import com.demo.fraudcheck.config.DeadlineConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Deadline Scheduler Tests")
+class DeadlineSchedulerTest {
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> completed = new CopyOnWriteArrayList<>();
+    private DeadlineScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should drop a request received after its deadline without queueing it")
+    void shouldDropExpiredOnReceipt() {
+        // Given
+        scheduler = new DeadlineScheduler(config(true, 1), meterRegistry);
+        Exchange expired = exchange("expired", System.currentTimeMillis() - 1);
+
+        // When
+        boolean sync = scheduler.process(expired, done -> completed.add("expired"));
+
+        // Then
+        assertThat(sync).isTrue();
+        assertThat(completed).containsExactly("expired");
+        assertThat(expired.isRouteStop()).isTrue();
+        assertThat(expired.getPattern()).isEqualTo(ExchangePattern.InOnly);
+        assertThat(shed("received")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should continue queued requests earliest deadline first, those without one last")
+    void shouldProcessEarliestDeadlineFirst() throws Exception {
+        // Given a busy worker
+        scheduler = new DeadlineScheduler(config(true, 1), meterRegistry);
+        CountDownLatch release = blockWorker();
+        long now = System.currentTimeMillis();
+        CountDownLatch done = new CountDownLatch(4);
+
+        // When
+        submit(exchange("late", now + 30_000), done);
+        submit(exchange("none", null), done);
+        submit(exchange("soon", now + 10_000), done);
+        submit(exchange("middle", now + 20_000), done);
+        release.countDown();
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed).containsExactly("blocker", "soon", "middle", "late", "none");
+        assertThat(shed("received") + shed("queued")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop a request whose deadline passes while it is queued")
+    void shouldDropExpiredWhileQueued() throws Exception {
+        // Given
+        scheduler = new DeadlineScheduler(config(true, 1), meterRegistry);
+        CountDownLatch release = blockWorker();
+        Exchange shortLived = exchange("short", System.currentTimeMillis() + 50);
+        CountDownLatch done = new CountDownLatch(1);
+        submit(shortLived, done);
+
+        // When
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(shortLived.isRouteStop()).isTrue();
+        assertThat(shed("queued")).isEqualTo(1.0);
+        assertThat(meterRegistry.get(DeadlineScheduler.METER_NAME + ".wait").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should check the requests of a message group one at a time, other groups meanwhile")
+    void shouldSerializeMessageGroups() throws Exception {
+        // Given a request of group A holding one of two workers
+        scheduler = new DeadlineScheduler(config(true, 2), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Exchange first = exchange("a-first", null);
+        first.getMessage().setHeader(MessageGroups.HEADER, "payer-1");
+        scheduler.process(first, sync -> {
+            completed.add("a-first");
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done(first);
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        CountDownLatch secondDone = new CountDownLatch(1);
+        CountDownLatch otherDone = new CountDownLatch(1);
+        Exchange second = exchange("a-second", System.currentTimeMillis() + 10_000);
+        second.getMessage().setHeader(MessageGroups.HEADER, "payer-1");
+        Exchange other = exchange("b", System.currentTimeMillis() + 20_000);
+        other.getMessage().setHeader(MessageGroups.HEADER, "payer-2");
+        submit(second, secondDone);
+        submit(other, otherDone);
+
+        // Then the other group goes ahead, the second request of group A waits for the first
+        assertThat(otherDone.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(secondDone.await(200, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(meterRegistry.get(DeadlineScheduler.METER_NAME + ".grouped").gauge().value()).isEqualTo(1.0);
+        release.countDown();
+        assertThat(secondDone.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed).containsExactly("a-first", "b", "a-second");
+    }
+
+    @Test
+    @DisplayName("Should hold back the next request of a group until a retried request is done")
+    void shouldKeepGroupOrderAcrossRetries() throws Exception {
+        // Given a route retrying after a delay, without holding the worker meanwhile
+        scheduler = new DeadlineScheduler(config(true, 2), meterRegistry);
+        CountDownLatch failed = new CountDownLatch(1);
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:requests")
+                    .errorHandler(defaultErrorHandler().maximumRedeliveries(1).redeliveryDelay(300)
+                        .asyncDelayedRedelivery())
+                    .process(scheduler)
+                    .process(exchange -> {
+                        String body = exchange.getMessage().getBody(String.class);
+                        if (body.equals("a-first") && failed.getCount() > 0) {
+                            failed.countDown();
+                            throw new IllegalStateException("fraud check unavailable");
+                        }
+                        completed.add(body);
+                    });
+            }
+        });
+        context.start();
+        ProducerTemplate producer = context.createProducerTemplate();
+
+        // When the first request of the group fails once and the second arrives while it waits for its retry
+        CompletableFuture<Exchange> first = producer.asyncSend("direct:requests", grouped("a-first"));
+        assertThat(failed.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Exchange> second = producer.asyncSend("direct:requests", grouped("a-second"));
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS).getException()).isNull();
+        assertThat(second.get(5, TimeUnit.SECONDS).getException()).isNull();
+        assertThat(completed).containsExactly("a-first", "a-second");
+        context.stop();
+    }
+
+    @Test
+    @DisplayName("Should pass requests straight through when disabled")
+    void shouldPassThroughWhenDisabled() {
+        // Given
+        scheduler = new DeadlineScheduler(config(false, 1), meterRegistry);
+        Exchange expired = exchange("expired", System.currentTimeMillis() - 1);
+
+        // When
+        boolean sync = scheduler.process(expired, done -> completed.add("expired"));
+
+        // Then
+        assertThat(sync).isTrue();
+        assertThat(expired.isRouteStop()).isFalse();
+        assertThat(shed("received")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should add workers at once and retire surplus ones after their current request")
+    void shouldResizeWorkers() throws Exception {
+        // Given a busy worker and a queued request
+        scheduler = new DeadlineScheduler(config(true, 1), meterRegistry);
+        CountDownLatch release = blockWorker();
+        CountDownLatch done = new CountDownLatch(1);
+        submit(exchange("queued", null), done);
+        int backlog = scheduler.backlog();
+
+        // When
+        scheduler.resize(2);
+        boolean checkedBySecondWorker = done.await(5, TimeUnit.SECONDS);
+        scheduler.resize(1);
+        release.countDown();
+
+        // Then
+        assertThat(backlog).isEqualTo(1);
+        assertThat(checkedBySecondWorker).isTrue();
+        assertThat(scheduler.size()).isEqualTo(1);
+        for (int i = 0; i < 50 && scheduler.runningWorkers() > 1; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(scheduler.runningWorkers()).isEqualTo(1);
+    }
+
+    /**
+     * Queue a request whose continuation holds the only worker until the returned latch is released
+     */
+    private CountDownLatch blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.process(exchange("blocker", null), done -> {
+            completed.add("blocker");
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return release;
+    }
+
+    private void submit(Exchange exchange, CountDownLatch done) {
+        AsyncCallback callback = sync -> {
+            completed.add(exchange.getMessage().getBody(String.class));
+            done(exchange);
+            done.countDown();
+        };
+        assertThat(scheduler.process(exchange, callback)).isFalse();
+    }
+
+    /**
+     * Complete the exchange like the route's unit of work does
+     */
+    private static void done(Exchange exchange) {
+        UnitOfWorkHelper.doneSynchronizations(exchange, exchange.getExchangeExtension().handoverCompletions());
+    }
+
+    private Exchange exchange(String body, Long deadline) {
+        Exchange exchange = new DefaultExchange(context, ExchangePattern.InOut);
+        exchange.getMessage().setBody(body);
+        exchange.getMessage().setHeader(RequestDeadline.HEADER, deadline);
+        return exchange;
+    }
+
+    private Processor grouped(String body) {
+        return exchange -> {
+            exchange.getMessage().setBody(body);
+            exchange.getMessage().setHeader(RequestDeadline.HEADER, System.currentTimeMillis() + 10_000);
+            exchange.getMessage().setHeader(MessageGroups.HEADER, "payer-1");
+        };
+    }
+
+    private double shed(String stage) {
+        return meterRegistry.get(DeadlineScheduler.METER_NAME + ".shed").tag("stage", stage).counter().count();
+    }
+
+    private static DeadlineConfig config(boolean enabled, int workers) {
+        DeadlineConfig config = new DeadlineConfig();
+        config.setEnabled(enabled);
+        config.setWorkers(workers);
+        return config;
+    }
+}
@@ -0,0 +1,96 @@
+package com.demo.fraudcheck.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Memory and lookup latency of the verdict cache at its default capacity of one million transaction IDs.
+ *
+ * Run with: mvn test -pl shared-commons,fraud-check-system -Dtest=VerdictCacheBenchmarkTest -Dbenchmark=true
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Verdict Cache Benchmark")
+class VerdictCacheBenchmarkTest {
+
+    private static final int CAPACITY = 1_000_000;
+    private static final int LOOKUPS = 2_000_000;
+    private static final int THREADS = 8;
+
+    @Test
+    @DisplayName("Should report memory and lookup latency of a full cache")
+    void shouldReportMemoryAndLatency() throws Exception {
+        VerdictCache cache = new VerdictCache(VerdictCacheTest.config(true, CAPACITY, 16), new SimpleMeterRegistry());
+        UUID[] ids = new UUID[CAPACITY];
+        FraudCheckResponse response = new FraudCheckResponse(null, FraudCheckStatus.APPROVED, Instant.now());
+        for (int i = 0; i < CAPACITY; i++) {
+            ids[i] = UUID.randomUUID();
+            cache.put(ids[i], response);
+        }
+        log.info(String.format("capacity %d: %.1f MB, %.1f bytes per transaction ID", CAPACITY,
+            cache.memoryBytes() / 1024.0 / 1024.0, (double) cache.memoryBytes() / CAPACITY));
+
+        // Warmup, then single threaded hits and misses
+        measure(cache, ids, LOOKUPS, true);
+        log.info(String.format("hit   %6.0f ns/lookup", measure(cache, ids, LOOKUPS, true)));
+        log.info(String.format("miss  %6.0f ns/lookup", measure(cache, ids, LOOKUPS, false)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long started = System.nanoTime();
+            List<Future<Double>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> measure(cache, ids, LOOKUPS, true)));
+            }
+            for (Future<Double> result : results) {
+                result.get(5, TimeUnit.MINUTES);
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            log.info(String.format("%d threads: %.1f M lookups/s", THREADS, THREADS * LOOKUPS / seconds / 1e6));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cache.size()).isGreaterThan(CAPACITY * 99 / 100);
+    }
+
+    private static double measure(VerdictCache cache, UUID[] ids, int lookups, boolean hits) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        UUID[] keys = new UUID[4096];
+        for (int i = 0; i < keys.length; i++) {
+            // Segments fill unevenly, the most recent half is certainly still cached
+            keys[i] = hits ? ids[ids.length / 2 + random.nextInt(ids.length / 2)] : UUID.randomUUID();
+        }
+        int found = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            if (cache.get(keys[i & (keys.length - 1)]) != null) {
+                found++;
+            }
+        }
+        double nanos = (double) (System.nanoTime() - started) / lookups;
+        assertThat(found).isEqualTo(hits ? lookups : 0);
+        return nanos;
+    }
+}
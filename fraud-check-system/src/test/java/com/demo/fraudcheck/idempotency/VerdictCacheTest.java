@@ -0,0 +1,163 @@
+package com.demo.fraudcheck.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.model.FraudCheckBatchRequest;
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+import com.demo.fraudcheck.config.IdempotencyConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Verdict Cache Tests")
+class VerdictCacheTest {
+
+    private final AtomicInteger checks = new AtomicInteger();
+
+    private final Function<PaymentRequest, FraudCheckResponse> checker = request -> {
+        checks.incrementAndGet();
+        return new FraudCheckResponse(request.getTransactionId(), FraudCheckStatus.SUSPICIOUS, Instant.now());
+    };
+
+    @Test
+    @DisplayName("Should replay the cached verdict for a redelivered transaction ID")
+    void shouldReplayCachedVerdict() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        VerdictCache cache = new VerdictCache(config(true, 1_000, 4), meterRegistry);
+        PaymentRequest request = request(UUID.randomUUID());
+
+        // When
+        FraudCheckResponse first = cache.check(request, checker);
+        FraudCheckResponse redelivered = cache.check(request(request.getTransactionId()), checker);
+
+        // Then
+        assertThat(checks).hasValue(1);
+        assertThat(redelivered).isEqualTo(first);
+        assertThat(meterRegistry.get(VerdictCache.METER_NAME).tag("outcome", "replayed").counter().count())
+            .isEqualTo(1.0);
+        assertThat(meterRegistry.get(VerdictCache.METER_NAME + ".lookup").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should always check when disabled or without a transaction ID")
+    void shouldCheckWhenDisabledOrWithoutId() {
+        // Given
+        VerdictCache disabled = new VerdictCache(config(false, 1_000, 4), new SimpleMeterRegistry());
+        VerdictCache enabled = new VerdictCache(config(true, 1_000, 4), new SimpleMeterRegistry());
+        PaymentRequest request = request(UUID.randomUUID());
+
+        // When
+        disabled.check(request, checker);
+        disabled.check(request, checker);
+        enabled.check(request(null), checker);
+        enabled.check(request(null), checker);
+
+        // Then
+        assertThat(checks).hasValue(4);
+        assertThat(disabled.memoryBytes()).isZero();
+        assertThat(enabled.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should check each payment of a batch once and keep request order")
+    void shouldCheckBatchOnce() {
+        // Given
+        VerdictCache cache = new VerdictCache(config(true, 1_000, 4), new SimpleMeterRegistry());
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        FraudCheckBatchRequest batch = new FraudCheckBatchRequest(List.of(request(first), request(second)));
+
+        // When
+        cache.checkBatch(batch, checker);
+        List<FraudCheckResponse> responses = cache.checkBatch(batch, checker).getResponses();
+
+        // Then
+        assertThat(checks).hasValue(2);
+        assertThat(responses).extracting(FraudCheckResponse::getTransactionId).containsExactly(first, second);
+    }
+
+    @Test
+    @DisplayName("Should remember exactly the most recent transaction IDs")
+    void shouldEvictOldestFirst() {
+        // Given
+        VerdictCache cache = new VerdictCache(config(true, 64, 1), new SimpleMeterRegistry());
+        Map<UUID, FraudCheckResponse> recent = new LinkedHashMap<>();
+        List<UUID> all = new ArrayList<>();
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 5_000; i++) {
+            UUID id = !all.isEmpty() && random.nextInt(4) == 0
+                ? all.get(all.size() - 1 - random.nextInt(Math.min(all.size(), 100)))
+                : new UUID(random.nextLong(), random.nextLong());
+            FraudCheckResponse response = new FraudCheckResponse(id,
+                random.nextBoolean() ? FraudCheckStatus.APPROVED : FraudCheckStatus.SUSPICIOUS,
+                Instant.ofEpochSecond(random.nextInt(), random.nextInt(1_000_000_000)));
+            if (cache.get(id) == null) {
+                cache.put(id, response);
+                recent.put(id, response);
+                all.add(id);
+                if (recent.size() > 64) {
+                    recent.remove(recent.keySet().iterator().next());
+                }
+            }
+        }
+
+        // Then
+        assertThat(cache.size()).isEqualTo(64);
+        recent.forEach((id, response) -> assertThat(cache.get(id)).isEqualTo(response));
+        assertThat(all.stream().distinct().filter(id -> cache.get(id) != null)).hasSize(64);
+    }
+
+    @Test
+    @DisplayName("Should allocate a fixed amount of memory up front")
+    void shouldUseFixedMemory() {
+        // Given
+        VerdictCache cache = new VerdictCache(config(true, 100_000, 16), new SimpleMeterRegistry());
+        long allocated = cache.memoryBytes();
+
+        // When
+        for (int i = 0; i < 300_000; i++) {
+            cache.put(UUID.randomUUID(), new FraudCheckResponse(null, null, null));
+        }
+
+        // Then
+        assertThat(cache.memoryBytes()).isEqualTo(allocated);
+        assertThat(allocated / 100_000).isBetween(32L, 50L);
+        assertThat(cache.size()).isEqualTo(100_000);
+        assertThatThrownBy(() -> new VerdictCache(config(true, 100, 3), new SimpleMeterRegistry()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static IdempotencyConfig config(boolean enabled, int capacity, int segments) {
+        IdempotencyConfig config = new IdempotencyConfig();
+        config.setEnabled(enabled);
+        config.setCapacity(capacity);
+        config.setSegments(segments);
+        return config;
+    }
+
+    private static PaymentRequest request(UUID transactionId) {
+        return PaymentRequest.builder()
+            .transactionId(transactionId)
+            .payerName("John Doe")
+            .payeeName("Jane Smith")
+            .build();
+    }
+}
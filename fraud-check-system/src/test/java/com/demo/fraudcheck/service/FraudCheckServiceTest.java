@@ -1,5 +1,7 @@
 package com.demo.fraudcheck.service;
 
+import com.demo.common.model.FraudCheckBatchRequest;
+import com.demo.common.model.FraudCheckBatchResponse;
 import com.demo.common.model.FraudCheckResponse;
 import com.demo.common.model.FraudCheckStatus;
 import com.demo.common.model.PaymentRequest;
@@ -12,6 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -233,6 +236,25 @@ class FraudCheckServiceTest {
         }
     }
 
+    @Test
+    @DisplayName("Should check every payment of a batch and keep the request order")
+    void shouldCheckBatchInOrder() {
+        // Given
+        PaymentRequest clean = createValidPayment();
+        PaymentRequest blacklisted = createValidPayment();
+        blacklisted.setPayeeCountryCode("PRK");
+
+        // When
+        FraudCheckBatchResponse response = fraudCheckService.checkFraudBatch(
+            new FraudCheckBatchRequest(List.of(blacklisted, clean)));
+
+        // Then
+        assertThat(response.getResponses()).extracting(FraudCheckResponse::getTransactionId)
+            .containsExactly(blacklisted.getTransactionId(), clean.getTransactionId());
+        assertThat(response.getResponses()).extracting(FraudCheckResponse::getStatus)
+            .containsExactly(FraudCheckStatus.SUSPICIOUS, FraudCheckStatus.APPROVED);
+    }
+
     private PaymentRequest createValidPayment() {
         PaymentRequest payment = new PaymentRequest();
         payment.setTransactionId(UUID.randomUUID());
@@ -0,0 +1,230 @@
+package com.demo.payment.admission;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.apache.camel.ExchangeTimedOutException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.demo.common.errorhandling.DeadLetterException;
+import com.demo.common.messaging.ConsumerAutoscaler.QueueDepthProbe;
+import com.demo.payment.config.AdmissionConfig;
+import com.demo.payment.exception.AdmissionRejectedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sheds payment submissions early instead of letting them queue up until they all time out together.
+ *
+ * A submission is admitted while fewer fraud checks than the concurrency limit are in flight and the broker queue
+ * is below maxQueueDepth; otherwise it fails at once with an {@link AdmissionRejectedException}, answered with 429
+ * or 503 and Retry-After.
+ *
+ * The limit adapts AIMD style, like a TCP congestion window. Every fraud check that completes in time while the
+ * limit is in use raises it by 1/limit, so by about one per limit completions. A fraud check that times out, is
+ * dead-lettered, is shed by a full PaymentPipeline or takes longer than latencyThresholdMillis multiplies it by
+ * backoffRatio, once per window: checks started before the last decrease do not decrease it again. Failures
+ * unrelated to load, like duplicates, leave it alone.
+ *
+ * The limit, in-flight checks and queue depth are published as payment.admission.* gauges, rejections are counted
+ * in payment.admission.rejected, tagged reason=limit|backlog.
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+
+    private final AdmissionConfig config;
+    private final QueueDepthProbe queueDepthProbe;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejectedByLimit;
+    private final Counter rejectedByBacklog;
+
+    private double limit;
+    private long lastDecreaseNanos;
+    /** Smoothed fraud check latency, estimates how long the queued backlog takes to drain */
+    private double latencyMillis = Double.NaN;
+    private volatile int queueDepth;
+
+    @Autowired
+    public AdmissionController(AdmissionConfig config, QueueDepthProbe queueDepthProbe, MeterRegistry meterRegistry) {
+        this(config, queueDepthProbe, meterRegistry, System::nanoTime);
+    }
+
+    AdmissionController(AdmissionConfig config, QueueDepthProbe queueDepthProbe, MeterRegistry meterRegistry,
+            LongSupplier nanoClock) {
+        if (config.getMinLimit() < 1 || config.getMaxLimit() < config.getMinLimit()) {
+            throw new IllegalArgumentException("Admission limits must satisfy 1 <= min <= max, were "
+                + config.getMinLimit() + " and " + config.getMaxLimit());
+        }
+        this.config = config;
+        this.queueDepthProbe = queueDepthProbe;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), config.getInitialLimit()));
+        this.lastDecreaseNanos = nanoClock.getAsLong();
+        this.rejectedByLimit = rejected(meterRegistry, "limit");
+        this.rejectedByBacklog = rejected(meterRegistry, "backlog");
+        Gauge.builder("payment.admission.limit", this, AdmissionController::getLimit)
+            .description("Concurrent fraud checks admitted")
+            .register(meterRegistry);
+        Gauge.builder("payment.admission.inflight", inFlight, AtomicInteger::get)
+            .description("Fraud checks in flight")
+            .register(meterRegistry);
+        Gauge.builder("payment.admission.queue.depth", this, controller -> controller.queueDepth)
+            .description("Depth of the queue fraud check requests are sent to")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Runs the submission if it is admitted
+     *
+     * @throws AdmissionRejectedException when the concurrency limit is reached or the broker queue is backed up
+     */
+    public <T> T call(Supplier<T> submission) {
+        if (!config.isEnabled()) {
+            return submission.get();
+        }
+        int current = admit();
+        long started = nanoClock.getAsLong();
+        try {
+            T result = submission.get();
+            release(started, current, null);
+            return result;
+        } catch (RuntimeException e) {
+            release(started, current, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the submission if it is admitted, it stays in flight until its future completes
+     *
+     * @throws AdmissionRejectedException when the concurrency limit is reached or the broker queue is backed up
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> submission) {
+        if (!config.isEnabled()) {
+            return submission.get();
+        }
+        int current = admit();
+        long started = nanoClock.getAsLong();
+        CompletableFuture<T> result;
+        try {
+            result = submission.get();
+        } catch (RuntimeException e) {
+            release(started, current, e);
+            throw e;
+        }
+        return result.whenComplete((value, error) -> release(started, current, error));
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.admission.depth-check-interval-millis:1000}")
+    public void sampleQueueDepth() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            queueDepth = queueDepthProbe.depth(config.getQueue());
+        } catch (Exception e) {
+            // Keep the last depth, the concurrency limit still protects against a slow fraud check
+            log.debug("Could not measure the depth of {}: {}", config.getQueue(), e.getMessage());
+        }
+    }
+
+    /**
+     * Counts the submission in flight
+     *
+     * @return the submissions in flight including this one
+     */
+    private int admit() {
+        int depth = queueDepth;
+        if (depth >= config.getMaxQueueDepth()) {
+            rejectedByBacklog.increment();
+            throw new AdmissionRejectedException(String.format("%d fraud checks are queued, try again later", depth),
+                true, backlogRetryAfterSeconds(depth));
+        }
+        int current = inFlight.incrementAndGet();
+        if (current > getLimit()) {
+            inFlight.decrementAndGet();
+            rejectedByLimit.increment();
+            throw new AdmissionRejectedException(String.format("%d fraud checks are in flight, try again later",
+                current - 1), false, config.getRetryAfterSeconds());
+        }
+        return current;
+    }
+
+    private void release(long startedNanos, int inFlightAtStart, Throwable error) {
+        try {
+            if (error == null) {
+                onCompleted(startedNanos, inFlightAtStart, false);
+            } else if (isOverload(error)) {
+                onCompleted(startedNanos, inFlightAtStart, true);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private synchronized void onCompleted(long startedNanos, int inFlightAtStart, boolean overload) {
+        long now = nanoClock.getAsLong();
+        double millis = (now - startedNanos) / 1e6;
+        latencyMillis = Double.isNaN(latencyMillis) ? millis : 0.8 * latencyMillis + 0.2 * millis;
+        if (overload || millis > config.getLatencyThresholdMillis()) {
+            if (startedNanos >= lastDecreaseNanos) {
+                double decreased = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+                log.info("Admission limit {} -> {} after a {} fraud check of {} ms", (int) limit, (int) decreased,
+                    overload ? "failed" : "slow", (long) millis);
+                limit = decreased;
+                lastDecreaseNanos = now;
+            }
+        } else if (inFlightAtStart * 2 >= limit) {
+            // Only grow while the limit is actually in use
+            limit = Math.min(config.getMaxLimit(), limit + 1 / limit);
+        }
+    }
+
+    /**
+     * How long the queued fraud checks take to drain at the current concurrency, by Little's law
+     */
+    private synchronized int backlogRetryAfterSeconds(int depth) {
+        double drainMillis = Double.isNaN(latencyMillis) ? 0 : depth * latencyMillis / limit;
+        long seconds = TimeUnit.MILLISECONDS.toSeconds((long) Math.ceil(drainMillis)) + 1;
+        return (int) Math.max(config.getRetryAfterSeconds(), Math.min(config.getMaxRetryAfterSeconds(), seconds));
+    }
+
+    /**
+     * Whether the failure means the fraud check or the payment pipeline could not keep up, as opposed to a problem
+     * with the payment
+     */
+    private static boolean isOverload(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ExchangeTimedOutException || cause instanceof DeadLetterException
+                    || cause instanceof AdmissionRejectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("payment.admission.rejected")
+            .description("Payment submissions shed by admission control")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
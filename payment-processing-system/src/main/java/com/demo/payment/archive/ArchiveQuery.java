@@ -0,0 +1,45 @@
+package com.demo.payment.archive;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+import com.demo.payment.model.PaymentStatus;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Predicates pushed down into the archive scan. Every predicate is optional, an empty query matches all rows.
+ *
+ * The time range applies to submittedTimestamp and is inclusive of from and exclusive of to.
+ */
+@Value
+@Builder
+public class ArchiveQuery {
+    Set<PaymentStatus> statuses;
+    String currency;
+    Instant from;
+    Instant to;
+    UUID transactionId;
+
+    public static ArchiveQuery all() {
+        return ArchiveQuery.builder().build();
+    }
+
+    public static ArchiveQuery byTransactionId(UUID transactionId) {
+        return ArchiveQuery.builder().transactionId(transactionId).build();
+    }
+
+    int statusMask() {
+        if (statuses == null || statuses.isEmpty()) {
+            return ColumnarSegment.ALL_STATUSES;
+        }
+        int mask = 0;
+        for (PaymentStatus status : EnumSet.copyOf(statuses)) {
+            mask |= 1 << status.ordinal();
+        }
+        return mask;
+    }
+}
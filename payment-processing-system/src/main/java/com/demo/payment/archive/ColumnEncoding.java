@@ -0,0 +1,187 @@
+package com.demo.payment.archive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Low level column encodings used by the segment files.
+ *
+ * Long columns are stored as a presence bitmap followed by zig-zag varint deltas of the present values.
+ * String columns are dictionary encoded: the distinct values first, then one varint code per row (0 = null).
+ */
+final class ColumnEncoding {
+
+    private ColumnEncoding() {
+    }
+
+    /**
+     * Minimal growable byte sink, avoids the synchronisation of ByteArrayOutputStream
+     */
+    static final class Sink {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long readVarLong(ByteBuffer buffer) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+
+    /**
+     * Encode a nullable long column, nulls are passed as {@code null} entries.
+     */
+    static byte[] encodeLongs(Long[] values) {
+        Sink sink = new Sink();
+        byte[] presence = new byte[(values.length + 7) / 8];
+        for (int row = 0; row < values.length; row++) {
+            if (values[row] != null) {
+                presence[row >>> 3] |= (byte) (1 << (row & 7));
+            }
+        }
+        sink.writeBytes(presence);
+
+        long previous = 0;
+        for (Long value : values) {
+            if (value != null) {
+                sink.writeVarLong(zigZag(value - previous));
+                previous = value;
+            }
+        }
+        return sink.toByteArray();
+    }
+
+    /**
+     * Decode a long column. Absent rows are flagged in the returned presence bitmap.
+     */
+    static long[] decodeLongs(ByteBuffer buffer, int rowCount, boolean[] present) {
+        byte[] presence = new byte[(rowCount + 7) / 8];
+        buffer.get(presence);
+
+        long[] values = new long[rowCount];
+        long previous = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if ((presence[row >>> 3] & (1 << (row & 7))) != 0) {
+                previous += unZigZag(readVarLong(buffer));
+                values[row] = previous;
+                present[row] = true;
+            }
+        }
+        return values;
+    }
+
+    static byte[] encodeStrings(String[] values) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] codes = new int[values.length];
+        for (int row = 0; row < values.length; row++) {
+            String value = values[row];
+            codes[row] = value == null ? 0 : dictionary.computeIfAbsent(value, v -> dictionary.size() + 1);
+        }
+
+        Sink sink = new Sink();
+        sink.writeInt(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            sink.writeInt(utf8.length);
+            sink.writeBytes(utf8);
+        }
+        for (int code : codes) {
+            sink.writeVarLong(code);
+        }
+        return sink.toByteArray();
+    }
+
+    /**
+     * Read only the dictionary of a string column, leaving the buffer positioned at the row codes.
+     */
+    static String[] decodeDictionary(ByteBuffer buffer) {
+        String[] dictionary = new String[buffer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] utf8 = new byte[buffer.getInt()];
+            buffer.get(utf8);
+            dictionary[i] = new String(utf8, StandardCharsets.UTF_8);
+        }
+        return dictionary;
+    }
+
+    static int[] decodeCodes(ByteBuffer buffer, int rowCount) {
+        int[] codes = new int[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            codes[row] = (int) readVarLong(buffer);
+        }
+        return codes;
+    }
+
+    static String[] decodeStrings(ByteBuffer buffer, int rowCount) {
+        String[] dictionary = decodeDictionary(buffer);
+        int[] codes = decodeCodes(buffer, rowCount);
+        String[] values = new String[rowCount];
+        for (int row = 0; row < rowCount; row++) {
+            values[row] = codes[row] == 0 ? null : dictionary[codes[row] - 1];
+        }
+        return values;
+    }
+}
@@ -0,0 +1,543 @@
+package com.demo.payment.archive;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.model.PaymentStatus;
+
+import lombok.Getter;
+
+/**
+ * Immutable, memory mapped, column oriented segment of archived payment records.
+ *
+ * Layout: a fixed header with row count, min/max statistics and a status bitmask, followed by a directory of
+ * (offset, length) per column and the column data itself. Rows are sorted by submittedTimestamp.
+ * A scan first prunes the whole segment using the header statistics, then evaluates the predicates on the
+ * status, currency, submittedTimestamp and transactionId columns, and only decodes the remaining columns
+ * when at least one row matched.
+ *
+ * Timestamps are stored as epoch nanoseconds, so records come back exactly as archived. Segments of version 1 kept
+ * epoch milliseconds and are still read.
+ */
+public final class ColumnarSegment {
+
+    static final long MAGIC = 0x5041595345473031L; // PAYSEG01
+    static final int VERSION = 2;
+    private static final int MILLIS_VERSION = 1;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    static final int ALL_STATUSES = (1 << PaymentStatus.values().length) - 1;
+    private static final int NO_STATUS = 0xFF;
+    private static final int FILTER_HASHES = 3;
+
+    enum Column {
+        TRANSACTION_ID,
+        STATUS,
+        SUBMITTED_TIMESTAMP,
+        LAST_UPDATED_TIMESTAMP,
+        CURRENCY,
+        AMOUNT,
+        EXECUTION_DATE,
+        CREATION_TIMESTAMP,
+        PAYER_NAME,
+        PAYER_BANK,
+        PAYER_COUNTRY_CODE,
+        PAYER_ACCOUNT,
+        PAYEE_NAME,
+        PAYEE_BANK,
+        PAYEE_COUNTRY_CODE,
+        PAYEE_ACCOUNT,
+        PAYMENT_INSTRUCTION
+    }
+
+    private static final int HEADER_SIZE = 8 + 4 + 4 + 6 * 8 + 4 + 4;
+
+    @Getter
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    @Getter
+    private final int rowCount;
+    /** Nanoseconds per stored timestamp unit, 1 from version 2 on */
+    private final long timestampUnit;
+    private final long minSubmitted;
+    private final long maxSubmitted;
+    @Getter
+    private final long minAmountMinor;
+    @Getter
+    private final long maxAmountMinor;
+    @Getter
+    private final long minExecutionDay;
+    @Getter
+    private final long maxExecutionDay;
+    private final int statusMask;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    // Small and read for every currency predicate, so kept once decoded
+    private volatile String[] currencyDictionary;
+
+    // Bloom filter of the transaction IDs, built on the first lookup by ID so lookups skip segments without it
+    private volatile BitSet transactionIdFilter;
+
+    private ColumnarSegment(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+
+        int version = buffer.getInt(8);
+        if (buffer.getLong(0) != MAGIC || (version != VERSION && version != MILLIS_VERSION)) {
+            throw new IOException("Not a payment segment file: " + file);
+        }
+        this.timestampUnit = version == MILLIS_VERSION ? NANOS_PER_MILLI : 1;
+        this.rowCount = buffer.getInt(12);
+        this.minSubmitted = buffer.getLong(16);
+        this.maxSubmitted = buffer.getLong(24);
+        this.minAmountMinor = buffer.getLong(32);
+        this.maxAmountMinor = buffer.getLong(40);
+        this.minExecutionDay = buffer.getLong(48);
+        this.maxExecutionDay = buffer.getLong(56);
+        this.statusMask = buffer.getInt(64);
+
+        int columnCount = buffer.getInt(68);
+        this.offsets = new int[columnCount];
+        this.lengths = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            offsets[i] = buffer.getInt(HEADER_SIZE + i * 8);
+            lengths[i] = buffer.getInt(HEADER_SIZE + i * 8 + 4);
+        }
+    }
+
+    /**
+     * Map an existing segment file read-only
+     */
+    public static ColumnarSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ColumnarSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write the records into a new segment file and map it. The file is written next to the target and moved
+     * into place, so readers never observe a partially written segment. The file is synced before the move and its
+     * directory after it, so the segment survives a crash once this returns.
+     */
+    public static ColumnarSegment write(Path file, List<PaymentRecord> records) throws IOException {
+        List<PaymentRecord> rows = new ArrayList<>(records);
+        rows.sort(Comparator.comparing(PaymentRecord::getSubmittedTimestamp,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        int count = rows.size();
+        byte[][] columns = new byte[Column.values().length][];
+
+        ColumnEncoding.Sink ids = new ColumnEncoding.Sink();
+        byte[] statuses = new byte[count];
+        int mask = 0;
+        for (int row = 0; row < count; row++) {
+            PaymentRecord record = rows.get(row);
+            ids.writeLong(record.getTransactionId().getMostSignificantBits());
+            ids.writeLong(record.getTransactionId().getLeastSignificantBits());
+            PaymentStatus status = record.getStatus();
+            statuses[row] = (byte) (status == null ? NO_STATUS : status.ordinal());
+            mask |= status == null ? 0 : 1 << status.ordinal();
+        }
+        columns[Column.TRANSACTION_ID.ordinal()] = ids.toByteArray();
+        columns[Column.STATUS.ordinal()] = statuses;
+
+        Long[] submitted = longs(rows, r -> nanos(r.getSubmittedTimestamp()));
+        Long[] amounts = longs(rows, r -> minorUnits(request(r).getAmount()));
+        Long[] executionDays = longs(rows, r -> request(r).getExecutionDate() == null
+                ? null : request(r).getExecutionDate().toEpochDay());
+
+        columns[Column.SUBMITTED_TIMESTAMP.ordinal()] = ColumnEncoding.encodeLongs(submitted);
+        columns[Column.LAST_UPDATED_TIMESTAMP.ordinal()] = ColumnEncoding.encodeLongs(
+                longs(rows, r -> nanos(r.getLastUpdatedTimestamp())));
+        columns[Column.CURRENCY.ordinal()] = ColumnEncoding.encodeStrings(strings(rows, PaymentRequest::getCurrency));
+        columns[Column.AMOUNT.ordinal()] = ColumnEncoding.encodeLongs(amounts);
+        columns[Column.EXECUTION_DATE.ordinal()] = ColumnEncoding.encodeLongs(executionDays);
+        columns[Column.CREATION_TIMESTAMP.ordinal()] = ColumnEncoding.encodeLongs(
+                longs(rows, r -> nanos(request(r).getCreationTimestamp())));
+        columns[Column.PAYER_NAME.ordinal()] = ColumnEncoding.encodeStrings(strings(rows, PaymentRequest::getPayerName));
+        columns[Column.PAYER_BANK.ordinal()] = ColumnEncoding.encodeStrings(strings(rows, PaymentRequest::getPayerBank));
+        columns[Column.PAYER_COUNTRY_CODE.ordinal()] = ColumnEncoding.encodeStrings(
+                strings(rows, PaymentRequest::getPayerCountryCode));
+        columns[Column.PAYER_ACCOUNT.ordinal()] = ColumnEncoding.encodeStrings(
+                strings(rows, PaymentRequest::getPayerAccount));
+        columns[Column.PAYEE_NAME.ordinal()] = ColumnEncoding.encodeStrings(strings(rows, PaymentRequest::getPayeeName));
+        columns[Column.PAYEE_BANK.ordinal()] = ColumnEncoding.encodeStrings(strings(rows, PaymentRequest::getPayeeBank));
+        columns[Column.PAYEE_COUNTRY_CODE.ordinal()] = ColumnEncoding.encodeStrings(
+                strings(rows, PaymentRequest::getPayeeCountryCode));
+        columns[Column.PAYEE_ACCOUNT.ordinal()] = ColumnEncoding.encodeStrings(
+                strings(rows, PaymentRequest::getPayeeAccount));
+        columns[Column.PAYMENT_INSTRUCTION.ordinal()] = ColumnEncoding.encodeStrings(
+                strings(rows, PaymentRequest::getPaymentInstruction));
+
+        ColumnEncoding.Sink out = new ColumnEncoding.Sink();
+        out.writeLong(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(count);
+        writeRange(out, submitted);
+        writeRange(out, amounts);
+        writeRange(out, executionDays);
+        out.writeInt(mask);
+        out.writeInt(columns.length);
+
+        int offset = HEADER_SIZE + columns.length * 8;
+        for (byte[] column : columns) {
+            out.writeInt(offset);
+            out.writeInt(column.length);
+            offset += column.length;
+        }
+        for (byte[] column : columns) {
+            out.writeBytes(column);
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.wrap(out.toByteArray());
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(file.toAbsolutePath().getParent());
+
+        return open(file);
+    }
+
+    /**
+     * Persist the directory entry of a moved file
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory (Windows), the segment file itself is synced already
+        }
+    }
+
+    /**
+     * Prune using header statistics and the currency dictionary only
+     */
+    public boolean mightMatch(ArchiveQuery query) {
+        if (rowCount == 0 || (statusMask & query.statusMask()) == 0) {
+            return false;
+        }
+        boolean timeBounded = query.getFrom() != null || query.getTo() != null;
+        if (timeBounded && (bound(query.getFrom(), Long.MIN_VALUE) > maxSubmitted
+                || bound(query.getTo(), Long.MAX_VALUE) <= minSubmitted)) {
+            return false;
+        }
+        if (query.getTransactionId() != null && !mightContain(query.getTransactionId())) {
+            return false;
+        }
+        return query.getCurrency() == null || currencyCode(query.getCurrency()) > 0;
+    }
+
+    /**
+     * Count matching rows. Only the predicate columns are read.
+     */
+    public int count(ArchiveQuery query) {
+        return mightMatch(query) ? select(query).cardinality() : 0;
+    }
+
+    /**
+     * Materialise the matching rows as payment records
+     */
+    public List<PaymentRecord> scan(ArchiveQuery query) {
+        return scan(query, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Materialise up to limit matching rows after skipping the first skip of them, in submission order
+     */
+    public List<PaymentRecord> scan(ArchiveQuery query, int skip, int limit) {
+        if (limit <= 0 || !mightMatch(query)) {
+            return List.of();
+        }
+        BitSet selected = select(query);
+        BitSet page = new BitSet(rowCount);
+        int matched = 0;
+        for (int row = selected.nextSetBit(0); row >= 0 && matched - skip < limit; row = selected.nextSetBit(row + 1)) {
+            if (matched++ >= skip) {
+                page.set(row);
+            }
+        }
+        if (page.isEmpty()) {
+            return List.of();
+        }
+        return materialise(page);
+    }
+
+    private BitSet select(ArchiveQuery query) {
+        BitSet selected = new BitSet(rowCount);
+        selected.set(0, rowCount);
+
+        if (query.statusMask() != ALL_STATUSES) {
+            ByteBuffer statuses = column(Column.STATUS);
+            int mask = query.statusMask();
+            for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+                int status = statuses.get(row) & 0xFF;
+                if (status == NO_STATUS || (mask & (1 << status)) == 0) {
+                    selected.clear(row);
+                }
+            }
+        }
+
+        if (query.getCurrency() != null && !selected.isEmpty()) {
+            int code = currencyCode(query.getCurrency());
+            ByteBuffer currencies = column(Column.CURRENCY);
+            ColumnEncoding.decodeDictionary(currencies);
+            int[] codes = ColumnEncoding.decodeCodes(currencies, rowCount);
+            for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+                if (codes[row] != code) {
+                    selected.clear(row);
+                }
+            }
+        }
+
+        boolean timeBounded = query.getFrom() != null || query.getTo() != null;
+        if (timeBounded && !selected.isEmpty()) {
+            boolean[] present = new boolean[rowCount];
+            long[] submitted = ColumnEncoding.decodeLongs(column(Column.SUBMITTED_TIMESTAMP), rowCount, present);
+            long from = bound(query.getFrom(), Long.MIN_VALUE);
+            long to = bound(query.getTo(), Long.MAX_VALUE);
+            for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+                if (!present[row] || submitted[row] < from || submitted[row] >= to) {
+                    selected.clear(row);
+                }
+            }
+        }
+
+        if (query.getTransactionId() != null && !selected.isEmpty()) {
+            ByteBuffer ids = column(Column.TRANSACTION_ID);
+            long msb = query.getTransactionId().getMostSignificantBits();
+            long lsb = query.getTransactionId().getLeastSignificantBits();
+            for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+                if (ids.getLong(row * 16) != msb || ids.getLong(row * 16 + 8) != lsb) {
+                    selected.clear(row);
+                }
+            }
+        }
+        return selected;
+    }
+
+    private List<PaymentRecord> materialise(BitSet selected) {
+        ByteBuffer ids = column(Column.TRANSACTION_ID);
+        ByteBuffer statuses = column(Column.STATUS);
+
+        boolean[] submittedPresent = new boolean[rowCount];
+        long[] submitted = ColumnEncoding.decodeLongs(column(Column.SUBMITTED_TIMESTAMP), rowCount, submittedPresent);
+        boolean[] updatedPresent = new boolean[rowCount];
+        long[] updated = ColumnEncoding.decodeLongs(column(Column.LAST_UPDATED_TIMESTAMP), rowCount, updatedPresent);
+        boolean[] amountPresent = new boolean[rowCount];
+        long[] amounts = ColumnEncoding.decodeLongs(column(Column.AMOUNT), rowCount, amountPresent);
+        boolean[] executionPresent = new boolean[rowCount];
+        long[] executionDays = ColumnEncoding.decodeLongs(column(Column.EXECUTION_DATE), rowCount, executionPresent);
+        boolean[] creationPresent = new boolean[rowCount];
+        long[] created = ColumnEncoding.decodeLongs(column(Column.CREATION_TIMESTAMP), rowCount, creationPresent);
+
+        String[] currencies = strings(Column.CURRENCY);
+        String[] payerNames = strings(Column.PAYER_NAME);
+        String[] payerBanks = strings(Column.PAYER_BANK);
+        String[] payerCountries = strings(Column.PAYER_COUNTRY_CODE);
+        String[] payerAccounts = strings(Column.PAYER_ACCOUNT);
+        String[] payeeNames = strings(Column.PAYEE_NAME);
+        String[] payeeBanks = strings(Column.PAYEE_BANK);
+        String[] payeeCountries = strings(Column.PAYEE_COUNTRY_CODE);
+        String[] payeeAccounts = strings(Column.PAYEE_ACCOUNT);
+        String[] instructions = strings(Column.PAYMENT_INSTRUCTION);
+
+        List<PaymentRecord> records = new ArrayList<>(selected.cardinality());
+        for (int row = selected.nextSetBit(0); row >= 0; row = selected.nextSetBit(row + 1)) {
+            UUID transactionId = new UUID(ids.getLong(row * 16), ids.getLong(row * 16 + 8));
+            int status = statuses.get(row) & 0xFF;
+
+            PaymentRequest request = PaymentRequest.builder()
+                    .transactionId(transactionId)
+                    .payerName(payerNames[row])
+                    .payerBank(payerBanks[row])
+                    .payerCountryCode(payerCountries[row])
+                    .payerAccount(payerAccounts[row])
+                    .payeeName(payeeNames[row])
+                    .payeeBank(payeeBanks[row])
+                    .payeeCountryCode(payeeCountries[row])
+                    .payeeAccount(payeeAccounts[row])
+                    .paymentInstruction(instructions[row])
+                    .executionDate(executionPresent[row] ? LocalDate.ofEpochDay(executionDays[row]) : null)
+                    .amount(amountPresent[row] ? BigDecimal.valueOf(amounts[row], 2) : null)
+                    .currency(currencies[row])
+                    .creationTimestamp(creationPresent[row] ? instant(created[row]) : null)
+                    .build();
+
+            records.add(PaymentRecord.builder()
+                    .transactionId(transactionId)
+                    .paymentRequest(request)
+                    .status(status == NO_STATUS ? null : PaymentStatus.values()[status])
+                    .submittedTimestamp(submittedPresent[row] ? instant(submitted[row]) : null)
+                    .lastUpdatedTimestamp(updatedPresent[row] ? instant(updated[row]) : null)
+                    .build());
+        }
+        return records;
+    }
+
+    private boolean mightContain(UUID transactionId) {
+        BitSet filter = transactionIdFilter;
+        if (filter == null) {
+            filter = new BitSet(filterBits());
+            ByteBuffer ids = column(Column.TRANSACTION_ID);
+            for (int row = 0; row < rowCount; row++) {
+                addToFilter(filter, ids.getLong(row * 16), ids.getLong(row * 16 + 8));
+            }
+            transactionIdFilter = filter;
+        }
+        long msb = transactionId.getMostSignificantBits();
+        long lsb = transactionId.getLeastSignificantBits();
+        int bits = filterBits();
+        for (int i = 0; i < FILTER_HASHES; i++) {
+            if (!filter.get(filterBit(msb, lsb, i, bits))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addToFilter(BitSet filter, long msb, long lsb) {
+        int bits = filterBits();
+        for (int i = 0; i < FILTER_HASHES; i++) {
+            filter.set(filterBit(msb, lsb, i, bits));
+        }
+    }
+
+    /**
+     * 10 bits per row and 3 hashes, about 2% false positives
+     */
+    private int filterBits() {
+        return Math.max(64, rowCount * 10);
+    }
+
+    /**
+     * Double hashing over the two halves of the ID, which are random already
+     */
+    private static int filterBit(long msb, long lsb, int i, int bits) {
+        return (int) Math.floorMod(msb + i * lsb, (long) bits);
+    }
+
+    /**
+     * @return 1-based dictionary code of the currency, 0 when the segment does not contain it
+     */
+    private int currencyCode(String currency) {
+        String[] dictionary = currencyDictionary;
+        if (dictionary == null) {
+            dictionary = ColumnEncoding.decodeDictionary(column(Column.CURRENCY));
+            currencyDictionary = dictionary;
+        }
+        for (int i = 0; i < dictionary.length; i++) {
+            if (dictionary[i].equals(currency)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private Instant instant(long stored) {
+        long nanos = stored * timestampUnit;
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND), Math.floorMod(nanos, NANOS_PER_SECOND));
+    }
+
+    /**
+     * A time bound of a query in stored timestamp units. Rounded up, since a stored timestamp t (nanoseconds, or
+     * milliseconds in version 1) lies within a bound b exactly when t >= ceil(b), and before it exactly when
+     * t < ceil(b).
+     */
+    private long bound(Instant instant, long unbounded) {
+        if (instant == null) {
+            return unbounded;
+        }
+        long nanos = saturatedNanos(instant);
+        return Math.floorDiv(nanos, timestampUnit) + (Math.floorMod(nanos, timestampUnit) == 0 ? 0 : 1);
+    }
+
+    private String[] strings(Column column) {
+        return ColumnEncoding.decodeStrings(column(column), rowCount);
+    }
+
+    private ByteBuffer column(Column column) {
+        return buffer.slice(offsets[column.ordinal()], lengths[column.ordinal()]);
+    }
+
+    private static PaymentRequest request(PaymentRecord record) {
+        return record.getPaymentRequest() == null ? new PaymentRequest() : record.getPaymentRequest();
+    }
+
+    /**
+     * Epoch nanoseconds, which cover the years 1677 to 2262
+     */
+    private static Long nanos(Instant instant) {
+        return instant == null ? null
+            : Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+    }
+
+    private static long saturatedNanos(Instant instant) {
+        try {
+            return nanos(instant);
+        } catch (ArithmeticException e) {
+            return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Amounts are validated to at most 2 decimals, so they are kept as exact minor units (scale 2)
+     */
+    private static Long minorUnits(BigDecimal amount) {
+        return amount == null ? null : amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    private static Long[] longs(List<PaymentRecord> rows, Function<PaymentRecord, Long> extractor) {
+        Long[] values = new Long[rows.size()];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = extractor.apply(rows.get(row));
+        }
+        return values;
+    }
+
+    private static String[] strings(List<PaymentRecord> rows, Function<PaymentRequest, String> extractor) {
+        String[] values = new String[rows.size()];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = extractor.apply(request(rows.get(row)));
+        }
+        return values;
+    }
+
+    private static void writeRange(ColumnEncoding.Sink out, Long[] values) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (Long value : values) {
+            if (value != null) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        out.writeLong(min);
+        out.writeLong(max);
+    }
+}
@@ -0,0 +1,158 @@
+package com.demo.payment.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.demo.payment.config.ArchiveConfig;
+import com.demo.payment.model.PaymentRecord;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cold storage tier for terminal payments, made of immutable columnar segment files.
+ */
+@Slf4j
+@Component
+public class PaymentArchive {
+
+    static final String SEGMENT_SUFFIX = ".pseg";
+
+    private final Path directory;
+    private final List<ColumnarSegment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    /** Shared by readers of the in-memory store and the archive together, exclusive while payments move */
+    private final ReadWriteLock moves = new ReentrantReadWriteLock();
+
+    @Autowired
+    public PaymentArchive(ArchiveConfig archiveConfig) {
+        this(Paths.get(archiveConfig.getDirectory()));
+    }
+
+    public PaymentArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Map the segments left by a previous run
+     */
+    @PostConstruct
+    public void loadSegments() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList()) {
+                segments.add(ColumnarSegment.open(file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load archive segments from " + directory, e);
+        }
+        log.info("Loaded {} archive segment(s) from {}", segments.size(), directory);
+    }
+
+    /**
+     * Write the records into a new segment. Returns once the segment is durable and visible to scans.
+     */
+    public ColumnarSegment archive(List<PaymentRecord> records) {
+        String name = String.format("segment-%d-%04d%s", System.currentTimeMillis(),
+                sequence.incrementAndGet() % 10_000, SEGMENT_SUFFIX);
+        try {
+            ColumnarSegment segment = ColumnarSegment.write(directory.resolve(name), records);
+            segments.add(segment);
+            log.info("Archived {} payment(s) into segment {}", segment.getRowCount(), name);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write archive segment " + name, e);
+        }
+    }
+
+    /**
+     * The matching records, segment by segment in archive order. Only one segment is materialised at a time.
+     */
+    public Stream<PaymentRecord> stream(ArchiveQuery query) {
+        return segments.stream().flatMap(segment -> segment.scan(query).stream());
+    }
+
+    public List<PaymentRecord> scan(ArchiveQuery query) {
+        List<PaymentRecord> result = new ArrayList<>();
+        for (ColumnarSegment segment : segments) {
+            result.addAll(segment.scan(query));
+        }
+        return result;
+    }
+
+    /**
+     * A page of the matching records, segment by segment in archive order. Segments before the page are only
+     * counted, and only the rows of the page are materialised.
+     */
+    public List<PaymentRecord> scan(ArchiveQuery query, int offset, int limit) {
+        List<PaymentRecord> result = new ArrayList<>();
+        long skip = offset;
+        for (ColumnarSegment segment : segments) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (skip > 0) {
+                int matching = segment.count(query);
+                if (matching <= skip) {
+                    skip -= matching;
+                    continue;
+                }
+            }
+            result.addAll(segment.scan(query, (int) skip, limit - result.size()));
+            skip = 0;
+        }
+        return result;
+    }
+
+    public long count(ArchiveQuery query) {
+        long count = 0;
+        for (ColumnarSegment segment : segments) {
+            count += segment.count(query);
+        }
+        return count;
+    }
+
+    public Optional<PaymentRecord> findByTransactionId(UUID transactionId) {
+        return scan(ArchiveQuery.byTransactionId(transactionId), 0, 1).stream().findFirst();
+    }
+
+    public boolean contains(UUID transactionId) {
+        return count(ArchiveQuery.byTransactionId(transactionId)) > 0;
+    }
+
+    /**
+     * Held while reading the in-memory store and the archive together, so no payment moves between them meanwhile
+     */
+    public Lock readLock() {
+        return moves.readLock();
+    }
+
+    /**
+     * Held while payments are written into the archive and dropped from the in-memory store
+     */
+    public Lock moveLock() {
+        return moves.writeLock();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+}
@@ -0,0 +1,43 @@
+package com.demo.payment.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Admission control of payment submissions, see AdmissionController
+ */
+@Configuration
+@ConfigurationProperties(prefix = "payment.admission")
+@Data
+public class AdmissionConfig {
+    /** Shed submissions above the concurrency limit or while the broker queue is backed up */
+    private boolean enabled = true;
+
+    /** Concurrent fraud checks allowed at start, the limit then adapts between minLimit and maxLimit */
+    private int initialLimit = 50;
+    private int minLimit = 4;
+    private int maxLimit = 500;
+
+    /** Factor the limit is multiplied with when fraud checks time out, fail downstream or get slow */
+    private double backoffRatio = 0.9;
+
+    /** Fraud checks slower than this count as congestion, well below the request timeout */
+    private long latencyThresholdMillis = 5000;
+
+    /** Queue whose depth is watched, the one PPS sends fraud check requests to */
+    private String queue = "broker.requests";
+
+    /** Depth of that queue from which new submissions are answered with 503 */
+    private int maxQueueDepth = 1000;
+
+    /** How often the queue depth is measured */
+    private long depthCheckIntervalMillis = 1000;
+
+    /** Retry-After of submissions over the concurrency limit, and the least one of backlog rejections */
+    private int retryAfterSeconds = 1;
+
+    /** Most a backlog rejection asks the client to wait */
+    private int maxRetryAfterSeconds = 30;
+}
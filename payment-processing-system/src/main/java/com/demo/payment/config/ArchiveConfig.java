@@ -0,0 +1,32 @@
+package com.demo.payment.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Cold storage archive for terminal payments (APPROVED, REJECTED, FAILED, EXPIRED)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "payment.archive")
+@Data
+public class ArchiveConfig {
+    /** Move terminal payments out of the in-memory store on a schedule */
+    private boolean enabled = false;
+
+    /** Directory holding the immutable segment files */
+    private String directory = "data/archive";
+
+    /** Only archive payments whose last update is older than this */
+    private long minAgeMinutes = 60;
+
+    /** How often the archiving job runs */
+    private long intervalMs = 600_000;
+
+    /** Upper bound of rows written into a single segment */
+    private int maxRowsPerSegment = 100_000;
+
+    /** Upper bound of payments returned by one archive scan request, larger limits are capped */
+    private int maxPageSize = 1000;
+}
@@ -0,0 +1,23 @@
+package com.demo.payment.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Replay of payment submission retries, keyed by the Idempotency-Key header or the transaction ID
+ */
+@Configuration
+@ConfigurationProperties(prefix = "payment.idempotency")
+@Data
+public class IdempotencyConfig {
+    /** Answer retries from the cache instead of submitting the payment again */
+    private boolean enabled = true;
+
+    /** How long a submission outcome is kept for replay */
+    private long ttlSeconds = 600;
+
+    /** Upper bound of cached submissions, the oldest completed ones are evicted first, in-flight ones never */
+    private int maxEntries = 10_000;
+}
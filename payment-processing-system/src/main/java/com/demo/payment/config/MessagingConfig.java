@@ -1,38 +1,16 @@
 package com.demo.payment.config;
 
-import org.apache.activemq.ActiveMQConnectionFactory;
-import org.apache.camel.component.jms.JmsComponent;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
-import jakarta.jms.ConnectionFactory;
+import com.demo.common.errorhandling.ErrorHandlingConfig;
+import com.demo.common.messaging.PooledMessagingConfig;
 
+/**
+ * Cached JMS connection shared by the Camel JMS endpoints, tuned with the messaging.* properties, and the retry
+ * and dead-letter handling of the routes, tuned with the error-handling.* properties
+ */
 @Configuration
+@Import({PooledMessagingConfig.class, ErrorHandlingConfig.class})
 public class MessagingConfig {
-    
-    @Value("${spring.activemq.broker-url}")
-    private String brokerUrl;
-    
-    @Value("${spring.activemq.user}")
-    private String userName;
-    
-    @Value("${spring.activemq.password}")
-    private String password;
-    
-    @Bean
-    public ConnectionFactory connectionFactory() {
-        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory();
-        factory.setBrokerURL(brokerUrl);
-        factory.setUserName(userName);
-        factory.setPassword(password);
-        return factory;
-    }
-    
-    @Bean
-    public JmsComponent jmsComponent() {
-        JmsComponent jmsComponent = new JmsComponent();
-        jmsComponent.setConnectionFactory(connectionFactory());
-        return jmsComponent;
-    }
-}
\ No newline at end of file
+}
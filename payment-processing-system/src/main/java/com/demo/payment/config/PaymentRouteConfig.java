@@ -1,8 +1,11 @@
 package com.demo.payment.config;
 
+import org.apache.camel.util.TimeUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import com.demo.common.messaging.RequestReplyEndpoint;
+
 import lombok.Data;
 
 @Configuration
@@ -12,16 +15,29 @@ public class PaymentRouteConfig {
     private Jms jms = new Jms();
     private Rest rest = new Rest();
 
-    @Data
-    public static class Jms {
-        private String requestQueue = "jms:queue:broker.requests";
-        private String responseQueue = "jms:queue:broker.responses";
+    /**
+     * Request/reply to the broker. The request timeout is the longest a fraud check may take, also the deadline sent
+     * along with the request. Within it the timeout follows the latency of the broker, see messaging.adaptive-timeout
+     */
+    public static class Jms extends RequestReplyEndpoint {
+        public Jms() {
+            super("jms:queue:broker.requests", "jms:queue:broker.responses");
+        }
     }
 
     @Data
     public static class Rest {
         private String host = "localhost";
-        private String port = "8082";
+
+        /** The broker's non-blocking Netty ingress, 8082 for its Spring MVC endpoint when the ingress is disabled */
+        private String port = "8092";
         private String endpoint = "/api/v2/broker/process-payment";
+
+        /** Longest a fraud check over REST may take, adapted like the JMS request timeout */
+        private String requestTimeout = "30s";
+
+        public long requestTimeoutMillis() {
+            return TimeUtils.toMilliSeconds(requestTimeout);
+        }
     }
 }
@@ -0,0 +1,52 @@
+package com.demo.payment.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Staged execution of payment submissions, see PaymentPipeline
+ */
+@Configuration
+@ConfigurationProperties(prefix = "payment.pipeline")
+@Data
+public class PipelineConfig {
+    /** Hand submissions from stage to stage through bounded queues; off runs them on the caller thread */
+    private boolean enabled = false;
+
+    /**
+     * Takes submissions off the HTTP threads and classifies their priority lane and message group. Admission control
+     * keeps at most its limit of submissions in the pipeline, so the ingest queue is smaller than
+     * payment.admission.max-limit: otherwise it can never fill and shed while admission is on
+     */
+    private Stage ingest = new Stage(2, 256);
+
+    /** Saves the payment record */
+    private Stage persist = new Stage(2, 1024);
+
+    /** Sends the fraud check request, whose reply arrives on a thread of the JMS or Netty endpoint */
+    private Stage dispatch = new Stage(4, 1024);
+
+    /** Updates the payment status from the fraud check verdict */
+    private Stage decision = new Stage(2, 1024);
+
+    /** How long a submission waits for room in the ingest queue before it is shed with 503 */
+    private long ingestTimeoutMillis = 1000;
+
+    /** Retry-After of shed submissions */
+    private int retryAfterSeconds = 1;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stage {
+        /** Threads working off the stage's queue */
+        private int workers;
+
+        /** Payments waiting for the stage, when it is full the stage before waits for room */
+        private int queueCapacity;
+    }
+}
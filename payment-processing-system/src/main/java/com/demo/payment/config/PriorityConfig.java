@@ -0,0 +1,27 @@
+package com.demo.payment.config;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Classification of payments into priority lanes, see PaymentPriorityClassifier
+ */
+@Configuration
+@ConfigurationProperties(prefix = "payment.priority")
+@Data
+public class PriorityConfig {
+    /** Send high-value payments to the high priority queues */
+    private boolean enabled = true;
+
+    /** Amount from which a payment is high priority, per ISO currency code */
+    private Map<String, BigDecimal> thresholds = new HashMap<>();
+
+    /** Threshold of currencies without their own, none when unset */
+    private BigDecimal defaultThreshold;
+}
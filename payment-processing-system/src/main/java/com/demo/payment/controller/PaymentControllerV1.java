@@ -1,25 +1,41 @@
 package com.demo.payment.controller;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.camel.ProducerTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.demo.common.model.PaymentRequest;
+import com.demo.payment.admission.AdmissionController;
+import com.demo.payment.archive.ArchiveQuery;
 import com.demo.payment.exception.PaymentNotFoundException;
+import com.demo.payment.idempotency.IdempotencyCache;
+import com.demo.payment.model.ExportFormat;
 import com.demo.payment.model.PaymentRecord;
 import com.demo.payment.model.PaymentStatus;
+import com.demo.payment.service.PaymentExportService;
 import com.demo.payment.service.PaymentService;
+import com.demo.payment.stats.PaymentStatistics;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -39,23 +55,55 @@ public class PaymentControllerV1 {
     @Autowired
     private ProducerTemplate producerTemplate;
 
+    @Autowired
+    private PaymentStatistics paymentStatistics;
+
+    @Autowired
+    private PaymentExportService paymentExportService;
+
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    @Autowired
+    private AdmissionController admissionController;
+
     @PostMapping("/payments")
     @Operation(summary = "Submit payment for processing using REST",
-               description = "Submits a payment request for validation and fraud checking")
-    public ResponseEntity<PaymentRecord> submitPaymentRest(@Valid @RequestBody PaymentRequest request) {
-        return submitPayment(request, true);
+               description = "Submits a payment request for validation and fraud checking. Retries with the same Idempotency-Key (or transaction ID) get the original outcome")
+    public CompletableFuture<ResponseEntity<PaymentRecord>> submitPaymentRest(
+            @Parameter(description = "Client supplied key identifying retries of the same submission, defaults to the transaction ID")
+            @RequestHeader(name = IdempotencyCache.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PaymentRequest request) {
+        return submitPayment(request, idempotencyKey, true);
     }
 
     @PostMapping("/payments/jms")
     @Operation(summary = "Process payment via JMS",
-               description = "Submits a payment request for validation and fraud checking")
-    public ResponseEntity<PaymentRecord> processPaymentJms(@Valid @RequestBody PaymentRequest request) {
-        return submitPayment(request, false);
+               description = "Submits a payment request for validation and fraud checking. Retries with the same Idempotency-Key (or transaction ID) get the original outcome")
+    public CompletableFuture<ResponseEntity<PaymentRecord>> processPaymentJms(
+            @Parameter(description = "Client supplied key identifying retries of the same submission, defaults to the transaction ID")
+            @RequestHeader(name = IdempotencyCache.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PaymentRequest request) {
+        return submitPayment(request, idempotencyKey, false);
     }
     
-    private ResponseEntity<PaymentRecord> submitPayment(@Valid @RequestBody PaymentRequest request, boolean useRest) {
-        PaymentRecord response = producerTemplate.requestBodyAndHeader("direct:processPaymentWithTracking", request, "useRest", useRest, PaymentRecord.class);
-        return ResponseEntity.accepted().body(response);
+    /**
+     * Starts the submission and frees the HTTP thread, the response is written once the route completes. With
+     * payment.pipeline.enabled that is on the thread of the last stage, otherwise the route runs on this thread.
+     */
+    private CompletableFuture<ResponseEntity<PaymentRecord>> submitPayment(PaymentRequest request,
+            String idempotencyKey, boolean useRest) {
+        String key = idempotencyKey != null && !idempotencyKey.isBlank()
+            ? idempotencyKey
+            : String.valueOf(request.getTransactionId());
+
+        // Replays of earlier submissions are answered without admission, a shed submission is not cached
+        return idempotencyCache.submitAsync(key, request.getTransactionId(),
+                () -> admissionController.callAsync(() -> producerTemplate.asyncRequestBodyAndHeader(
+                    "direct:processPaymentWithTracking", request, "useRest", useRest, PaymentRecord.class)))
+            .thenApply(submission -> ResponseEntity.accepted()
+                .header(IdempotencyCache.REPLAYED_HEADER, String.valueOf(submission.isReplayed()))
+                .body(submission.getPayment()));
     }
 
     @GetMapping("/payments/{transactionId}")
@@ -92,4 +140,81 @@ public class PaymentControllerV1 {
         return ResponseEntity.ok(payments);
     }
 
+    @GetMapping("/payments/recent")
+    @Operation(summary = "Get latest payments",
+               description = "Most recently submitted or updated payments, newest first, served from a fixed size buffer without sorting the store")
+    public ResponseEntity<List<PaymentRecord>> getRecentPayments(
+            @Parameter(description = "Maximum number of payments to return")
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(paymentService.getRecentPayments(limit));
+    }
+
+    @GetMapping("/payments/stats")
+    @Operation(summary = "Get payment statistics",
+               description = "Counts per status, approval/rejection rates and volume per currency over 1m, 5m and 1h sliding windows")
+    public ResponseEntity<PaymentStatistics.Snapshot> getPaymentStatistics() {
+        return ResponseEntity.ok(paymentStatistics.snapshot());
+    }
+
+    @GetMapping("/payments/archive")
+    @Operation(summary = "Scan archived payments",
+               description = "Scans the cold storage archive one page at a time, in archive order. Filters are pushed down so non matching segments are skipped")
+    public ResponseEntity<List<PaymentRecord>> scanArchivedPayments(
+            @Parameter(description = "Filter by payment status")
+            @RequestParam(required = false) List<PaymentStatus> status,
+            @Parameter(description = "Filter by ISO4217 currency code")
+            @RequestParam(required = false) String currency,
+            @Parameter(description = "Submitted at or after, ISO8601 UTC timestamp")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "Submitted before, ISO8601 UTC timestamp")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "Matching payments to skip")
+            @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "Maximum number of payments to return, capped at payment.archive.max-page-size")
+            @RequestParam(defaultValue = "100") int limit) {
+
+        ArchiveQuery query = ArchiveQuery.builder()
+            .statuses(status == null ? null : Set.copyOf(status))
+            .currency(currency)
+            .from(from)
+            .to(to)
+            .build();
+
+        return ResponseEntity.ok(paymentService.getArchivedPayments(query, offset, limit));
+    }
+
+    @GetMapping("/payments/export")
+    @Operation(summary = "Export payments for reconciliation",
+               description = "Streams payments as NDJSON or CSV, optionally gzip compressed. Rows are written as they are read, so large exports use constant memory")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @Parameter(description = "Export format")
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(description = "Submitted on or after, ISO8601 UTC date")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Submitted on or before, ISO8601 UTC date")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Filter by payment status")
+            @RequestParam(required = false) PaymentStatus status,
+            @Parameter(description = "Gzip compress the export")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+
+        String filename = "payments." + format.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType());
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                paymentExportService.export(compressed, format, from, to, status);
+                compressed.finish();
+            } else {
+                paymentExportService.export(out, format, from, to, status);
+            }
+        };
+
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(body);
+    }
+
 }
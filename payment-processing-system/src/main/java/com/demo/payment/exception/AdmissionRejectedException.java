@@ -0,0 +1,23 @@
+package com.demo.payment.exception;
+
+import lombok.Getter;
+
+/**
+ * A submission shed by admission control before it reached the fraud check
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Whether the broker queue is backed up, rather than the concurrency limit reached */
+    private final boolean downstreamBacklog;
+
+    private final int retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, boolean downstreamBacklog, int retryAfterSeconds) {
+        super(message);
+        this.downstreamBacklog = downstreamBacklog;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.camel.CamelExecutionException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.demo.common.errorhandling.DeadLetterException;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 
@@ -249,6 +251,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(DeadLetterException.class)
+    public ResponseEntity<ErrorResponse> handleDeadLetterException(DeadLetterException ex) {
+        log.warn("Payment dead-lettered to {}: {}", ex.getDeadLetterQueue(), ex.getMessage());
+        ErrorResponse error = new ErrorResponse("FRAUD_CHECK_UNAVAILABLE", ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleAdmissionRejectedException(AdmissionRejectedException ex) {
+        log.warn("Payment submission shed: {}", ex.getMessage());
+        boolean backlog = ex.isDownstreamBacklog();
+        ErrorResponse error = new ErrorResponse(backlog ? "FRAUD_CHECK_BACKLOG" : "TOO_MANY_PAYMENTS_IN_FLIGHT",
+            ex.getMessage());
+        return ResponseEntity.status(backlog ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(error);
+    }
+
     @ExceptionHandler(CamelExecutionException.class)
     public ResponseEntity<ErrorResponse> handleCamelExecutionException(Exception ex) {
         // Dont print the exception here again
@@ -259,6 +279,11 @@ public class GlobalExceptionHandler {
             if (cause instanceof PaymentAlreadyExistsException pae) {
                 // 'pae' is auto-cast to PaymentAlreadyExistsException
                 return handlePaymentAlreadyExistsException(pae);
+            } else if (cause instanceof DeadLetterException dle) {
+                return handleDeadLetterException(dle);
+            } else if (cause instanceof AdmissionRejectedException are) {
+                // Shed by a full payment pipeline
+                return handleAdmissionRejectedException(are);
             } else {
                 return handleGenericException(cause); // or other handling
             }
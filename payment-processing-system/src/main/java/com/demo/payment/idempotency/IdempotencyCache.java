@@ -0,0 +1,147 @@
+package com.demo.payment.idempotency;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.demo.common.concurrent.SingleFlightCache;
+import com.demo.payment.config.IdempotencyConfig;
+import com.demo.payment.exception.PaymentValidationException;
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.repository.PaymentRepository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded TTL cache of in-flight and completed payment submissions.
+ *
+ * The first submission for a key runs the action. Retries with the same key attach to its future, so they wait for
+ * the in-flight submission or get its stored outcome, and never run the action again. Failed submissions are kept
+ * too: when the payment was stored before the failure, e.g. its fraud check timed out, retries are answered with the
+ * stored payment, otherwise the next retry submits it again.
+ */
+@Slf4j
+@Component
+public class IdempotencyCache {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyConfig config;
+    private final PaymentRepository paymentRepository;
+    private final SingleFlightCache<String, PaymentRecord> submissions;
+
+    @Autowired
+    public IdempotencyCache(IdempotencyConfig config, PaymentRepository paymentRepository) {
+        this(config, paymentRepository, System::currentTimeMillis);
+    }
+
+    IdempotencyCache(IdempotencyConfig config, PaymentRepository paymentRepository, LongSupplier clock) {
+        this.config = config;
+        this.paymentRepository = paymentRepository;
+        this.submissions = new SingleFlightCache<>(clock, config::getMaxEntries);
+    }
+
+    /**
+     * Run the submission once per key, on the calling thread.
+     *
+     * @throws PaymentValidationException when the key was already used for another transaction
+     */
+    public Submission submit(String key, UUID transactionId, Supplier<PaymentRecord> action) {
+        return join(submitAsync(key, transactionId, () -> CompletableFuture.completedFuture(action.get())));
+    }
+
+    /**
+     * Start the submission once per key. The returned future completes with the submission's outcome, retries of an
+     * outstanding submission with its completion.
+     *
+     * @throws PaymentValidationException when the key was already used for another transaction
+     */
+    public CompletableFuture<Submission> submitAsync(String key, UUID transactionId,
+            Supplier<CompletableFuture<PaymentRecord>> action) {
+        if (!config.isEnabled()) {
+            return action.get().thenApply(payment -> new Submission(payment, false));
+        }
+
+        while (true) {
+            SingleFlightCache<String, PaymentRecord>.Flight submission = submissions.join(key, transactionId);
+            if (!transactionId.equals(submission.getOwner())) {
+                throw new PaymentValidationException(String.format(
+                    "Idempotency key %s was already used for transaction ID %s", key, submission.getOwner()));
+            }
+
+            if (submission.claim()) {
+                return runAsLeader(submission, action).thenApply(payment -> new Submission(payment, false));
+            }
+
+            if (submission.isFailed()) {
+                Optional<PaymentRecord> stored = paymentRepository.findByTransactionId(transactionId);
+                if (stored.isPresent()) {
+                    log.info("Answering retry of failed submission for idempotency key {} with the stored payment",
+                        key);
+                    return CompletableFuture.completedFuture(new Submission(stored.get(), true));
+                }
+                // Failed before the payment was stored, submit it again
+                submission.remove();
+                continue;
+            }
+
+            log.info("Replaying submission for idempotency key {} (transaction ID {})", key, transactionId);
+            return submission.future().thenApply(payment -> new Submission(payment, true));
+        }
+    }
+
+    public int size() {
+        return submissions.size();
+    }
+
+    private CompletableFuture<PaymentRecord> runAsLeader(SingleFlightCache<String, PaymentRecord>.Flight submission,
+            Supplier<CompletableFuture<PaymentRecord>> action) {
+        long ttlMillis = config.getTtlSeconds() * 1000;
+        CompletableFuture<PaymentRecord> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            submission.fail(e, ttlMillis);
+            throw e;
+        }
+        return result.whenComplete((payment, error) -> {
+            if (error == null) {
+                submission.succeed(payment, ttlMillis);
+            } else {
+                submission.fail(unwrap(error), ttlMillis);
+            }
+        });
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Rethrow the leader's exception so retries are answered exactly like the original request
+            if (unwrap(e) instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Submission {
+        private final PaymentRecord payment;
+        private final boolean replayed;
+    }
+}
@@ -0,0 +1,244 @@
+package com.demo.payment.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.AsyncProcessorSupport;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.demo.payment.config.PipelineConfig;
+import com.demo.payment.exception.AdmissionRejectedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the payment-with-tracking route in stages, each with its own threads and bounded queue: ingest, persist,
+ * dispatch and decision.
+ *
+ * A {@link Stage} in the route hands the exchange to its queue and frees the thread that brought it, and one of the
+ * stage's workers continues the route up to the next stage. A burst of submissions then waits in the queues instead
+ * of on HTTP threads, every stage works on its own cores, and a slow stage only holds up its own queue. The caller
+ * still gets its payment record once the decision stage is done.
+ *
+ * When a stage's queue is full, the stage before waits for room, so a backlog propagates back to the ingest stage.
+ * There a submission waits at most ingestTimeoutMillis and is then shed with an {@link AdmissionRejectedException},
+ * answered with 503 and Retry-After. Disabled, the stages do nothing and the route runs on the caller thread.
+ *
+ * Per stage, queued payments and busy workers are published as the payment.pipeline.queue and
+ * payment.pipeline.busy gauges, the time spent queued as the payment.pipeline.wait timer and shed submissions in
+ * payment.pipeline.shed, all tagged stage=ingest|persist|dispatch|decision.
+ */
+@Slf4j
+@Component
+public class PaymentPipeline implements DisposableBean {
+
+    public static final String METER_NAME = "payment.pipeline";
+
+    private record Task(long queuedNanos, Exchange exchange, AsyncCallback callback) {
+    }
+
+    private final boolean enabled;
+    private final int retryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+    private final List<Stage> stages = new ArrayList<>();
+    private final Stage ingest;
+    private final Stage persist;
+    private final Stage dispatch;
+    private final Stage decision;
+    private volatile boolean running = true;
+
+    @Autowired
+    public PaymentPipeline(PipelineConfig config, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.retryAfterSeconds = config.getRetryAfterSeconds();
+        this.meterRegistry = meterRegistry;
+        this.ingest = new Stage("ingest", config.getIngest(), config.getIngestTimeoutMillis());
+        this.persist = new Stage("persist", config.getPersist(), -1);
+        this.dispatch = new Stage("dispatch", config.getDispatch(), -1);
+        this.decision = new Stage("decision", config.getDecision(), -1);
+        if (enabled) {
+            stages.forEach(Stage::startWorkers);
+            log.info("Payment pipeline: {}", stages);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Stage ingest() {
+        return ingest;
+    }
+
+    public Stage persist() {
+        return persist;
+    }
+
+    public Stage dispatch() {
+        return dispatch;
+    }
+
+    public Stage decision() {
+        return decision;
+    }
+
+    /**
+     * Stops the workers and fails the payments still queued
+     */
+    @Override
+    public void destroy() {
+        running = false;
+        stages.forEach(Stage::stopWorkers);
+    }
+
+    /**
+     * One stage of the pipeline, continues the route on a worker of its own
+     */
+    public final class Stage extends AsyncProcessorSupport {
+        private final String name;
+        private final int workerCount;
+        /** How long a payment waits for room in the queue, negative to wait as long as the pipeline runs */
+        private final long offerTimeoutMillis;
+        private final BlockingQueue<Task> queue;
+        private final AtomicInteger busy = new AtomicInteger();
+        private final List<Thread> workers = new ArrayList<>();
+        private final Timer waits;
+        private final Counter shed;
+
+        private Stage(String name, PipelineConfig.Stage settings, long offerTimeoutMillis) {
+            if (settings.getWorkers() < 1 || settings.getQueueCapacity() < 1) {
+                throw new IllegalArgumentException("Pipeline stage " + name
+                    + " needs at least 1 worker and a queue capacity of at least 1");
+            }
+            this.name = name;
+            this.workerCount = settings.getWorkers();
+            this.offerTimeoutMillis = offerTimeoutMillis;
+            this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+            this.waits = Timer.builder(METER_NAME + ".wait")
+                .description("Time payments waited for a worker of the pipeline stage")
+                .tag("stage", name)
+                .register(meterRegistry);
+            this.shed = Counter.builder(METER_NAME + ".shed")
+                .description("Payment submissions shed because the pipeline stage was full")
+                .tag("stage", name)
+                .register(meterRegistry);
+            Gauge.builder(METER_NAME + ".queue", queue, BlockingQueue::size)
+                .description("Payments waiting for the pipeline stage")
+                .tag("stage", name)
+                .register(meterRegistry);
+            Gauge.builder(METER_NAME + ".busy", busy, AtomicInteger::get)
+                .description("Workers of the pipeline stage processing a payment")
+                .tag("stage", name)
+                .register(meterRegistry);
+            stages.add(this);
+        }
+
+        @Override
+        public boolean process(Exchange exchange, AsyncCallback callback) {
+            if (!enabled) {
+                callback.done(true);
+                return true;
+            }
+            Task task = new Task(System.nanoTime(), exchange, callback);
+            boolean queued;
+            try {
+                queued = offer(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.setException(e);
+                callback.done(true);
+                return true;
+            }
+            if (queued && (running || !queue.remove(task))) {
+                return false;
+            }
+            if (running) {
+                shed.increment();
+                exchange.setException(new AdmissionRejectedException(String.format(
+                    "%d payments are waiting to be processed, try again later", queue.size()), true,
+                    retryAfterSeconds));
+            } else {
+                exchange.setException(new RejectedExecutionException("Payment pipeline is shut down"));
+            }
+            callback.done(true);
+            return true;
+        }
+
+        public int queuedPayments() {
+            return queue.size();
+        }
+
+        private boolean offer(Task task) throws InterruptedException {
+            if (offerTimeoutMillis >= 0) {
+                return queue.offer(task, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            // The stages after this one keep draining, so the wait is bounded by their progress
+            while (running) {
+                if (queue.offer(task, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void startWorkers() {
+            for (int i = 0; i < workerCount; i++) {
+                Thread worker = new Thread(this::work, "payment-" + name + "-" + i);
+                worker.setDaemon(true);
+                worker.start();
+                workers.add(worker);
+            }
+        }
+
+        private void work() {
+            while (running) {
+                Task task;
+                try {
+                    task = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (task == null) {
+                    continue;
+                }
+                waits.record(System.nanoTime() - task.queuedNanos(), TimeUnit.NANOSECONDS);
+                busy.incrementAndGet();
+                try {
+                    // Continues the route on this thread up to the next stage
+                    task.callback().done(false);
+                } catch (RuntimeException e) {
+                    log.error("Payment failed in pipeline stage {}", name, e);
+                } finally {
+                    busy.decrementAndGet();
+                }
+            }
+        }
+
+        private void stopWorkers() {
+            workers.forEach(Thread::interrupt);
+            for (Task task; (task = queue.poll()) != null;) {
+                task.exchange().setException(new RejectedExecutionException("Payment pipeline is shut down"));
+                task.callback().done(false);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d workers, queue of %d)", name, workerCount,
+                queue.size() + queue.remainingCapacity());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.demo.payment.priority;
+
+import java.math.BigDecimal;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.demo.common.messaging.PaymentPriority;
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.config.PriorityConfig;
+
+/**
+ * Puts payments at or above the threshold of their currency in the {@link PaymentPriority#HIGH} lane.
+ *
+ * Thresholds are per currency rather than converted, so they need no exchange rates and stay stable; a currency
+ * without its own threshold uses the default one, or is never high priority when there is none.
+ */
+@Component
+public class PaymentPriorityClassifier implements Processor {
+
+    private final PriorityConfig config;
+
+    @Autowired
+    public PaymentPriorityClassifier(PriorityConfig config) {
+        this.config = config;
+    }
+
+    public PaymentPriority classify(PaymentRequest request) {
+        if (!config.isEnabled() || request == null || request.getAmount() == null) {
+            return PaymentPriority.NORMAL;
+        }
+        String currency = request.getCurrency() == null ? null : request.getCurrency().trim().toUpperCase();
+        BigDecimal threshold = currency == null ? null : config.getThresholds().get(currency);
+        if (threshold == null) {
+            threshold = config.getDefaultThreshold();
+        }
+        return threshold != null && request.getAmount().compareTo(threshold) >= 0 ? PaymentPriority.HIGH
+            : PaymentPriority.NORMAL;
+    }
+
+    /**
+     * Sets the {@value PaymentPriority#HEADER} header of a message holding a PaymentRequest, NORMAL for other bodies
+     */
+    @Override
+    public void process(Exchange exchange) {
+        PaymentRequest request = exchange.getMessage().getBody(PaymentRequest.class);
+        exchange.getMessage().setHeader(PaymentPriority.HEADER, classify(request).name());
+    }
+}
@@ -4,18 +4,33 @@ import com.demo.payment.exception.PaymentAlreadyExistsException;
 import com.demo.payment.model.PaymentRecord;
 import com.demo.payment.model.PaymentStatus;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Repository
 public class InMemoryPaymentRepository implements PaymentRepository {
 
+    private static final int DEFAULT_RECENT_CAPACITY = 1024;
+
     private final Map<UUID, PaymentRecord> payments = new ConcurrentHashMap<>();
+    private final RecentPaymentsBuffer recentPayments;
+
+    public InMemoryPaymentRepository() {
+        this(DEFAULT_RECENT_CAPACITY);
+    }
+
+    @Autowired
+    public InMemoryPaymentRepository(@Value("${payment.repository.recent-capacity:1024}") int recentCapacity) {
+        this.recentPayments = new RecentPaymentsBuffer(recentCapacity);
+    }
 
     @Override
     public PaymentRecord save(PaymentRecord paymentRecord) {
@@ -27,6 +42,7 @@ public class InMemoryPaymentRepository implements PaymentRepository {
         }
 
         payments.put(transactionId, paymentRecord);
+        recentPayments.add(paymentRecord);
         log.info("Saved payment record for transaction ID: {}", transactionId);
 
         return paymentRecord;
@@ -42,6 +58,7 @@ public class InMemoryPaymentRepository implements PaymentRepository {
         }
 
         payments.put(transactionId, paymentRecord);
+        recentPayments.add(paymentRecord);
         log.info("Updated payment record for transaction ID: {} with status: {}",
             transactionId, paymentRecord.getStatus());
 
@@ -68,6 +85,17 @@ public class InMemoryPaymentRepository implements PaymentRepository {
             .collect(Collectors.toList());
     }
 
+    @Override
+    public List<PaymentRecord> findRecent(int limit) {
+        // Deleted (e.g. archived) payments may still sit in the ring
+        return recentPayments.latest(limit, payment -> payments.containsKey(payment.getTransactionId()));
+    }
+
+    @Override
+    public Stream<PaymentRecord> streamAll() {
+        return payments.values().stream();
+    }
+
     @Override
     public List<PaymentRecord> findPendingOlderThan(Instant timestamp) {
         return payments.values().stream()
@@ -77,6 +105,16 @@ public class InMemoryPaymentRepository implements PaymentRepository {
             .collect(Collectors.toList());
     }
 
+    @Override
+    public List<PaymentRecord> findCompletedOlderThan(Instant timestamp) {
+        return payments.values().stream()
+            .filter(payment -> payment.getStatus() != PaymentStatus.NEW
+                && payment.getStatus() != PaymentStatus.PENDING_FRAUD_CHECK)
+            .filter(payment -> payment.getLastUpdatedTimestamp().isBefore(timestamp))
+            .sorted(Comparator.comparing(PaymentRecord::getSubmittedTimestamp))
+            .collect(Collectors.toList());
+    }
+
     @Override
     public boolean deleteByTransactionId(UUID transactionId) {
         PaymentRecord removed = payments.remove(transactionId);
@@ -108,6 +146,7 @@ public class InMemoryPaymentRepository implements PaymentRepository {
 
     public void clear() {
         payments.clear();
+        recentPayments.clear();
         log.info("Cleared all payment records from repository");
     }
 }
\ No newline at end of file
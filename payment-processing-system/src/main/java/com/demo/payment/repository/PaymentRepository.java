@@ -7,6 +7,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface PaymentRepository {
 
@@ -35,11 +36,28 @@ public interface PaymentRepository {
      */
     List<PaymentRecord> findAll();
 
+    /**
+     * Find the most recently saved or updated payments, newest first, without scanning the store.
+     * Returns at most limit payments, and never more than the recent buffer holds.
+     */
+    List<PaymentRecord> findRecent(int limit);
+
+    /**
+     * Stream all payments in no particular order, without copying or sorting the store.
+     * The stream is weakly consistent: it never blocks writers and reflects some of the concurrent updates.
+     */
+    Stream<PaymentRecord> streamAll();
+
     /**
      * Find payments that are pending and older than the specified timestamp.
      */
     List<PaymentRecord> findPendingOlderThan(Instant timestamp);
 
+    /**
+     * Find payments in a terminal status whose last update is older than the specified timestamp.
+     */
+    List<PaymentRecord> findCompletedOlderThan(Instant timestamp);
+
     /**
      * Delete payment by transaction ID.
      */
@@ -0,0 +1,76 @@
+package com.demo.payment.repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+import com.demo.payment.model.PaymentRecord;
+
+/**
+ * Lock-free, fixed size ring of the most recently saved or updated payments.
+ *
+ * Writers claim a sequence number and store the record in its slot, overwriting the oldest entry. Readers walk
+ * backwards from the newest sequence, so reading the latest N costs O(N) whatever the size of the store. A payment
+ * updated several times occupies several slots; readers report it once, at its most recent position.
+ */
+class RecentPaymentsBuffer {
+
+    private final AtomicReferenceArray<PaymentRecord> slots;
+    private final AtomicLong sequence = new AtomicLong();
+    private final int mask;
+
+    RecentPaymentsBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    void add(PaymentRecord payment) {
+        long slot = sequence.getAndIncrement();
+        slots.set((int) (slot & mask), payment);
+    }
+
+    /**
+     * Latest distinct payments, newest first, that are still accepted by the filter.
+     */
+    List<PaymentRecord> latest(int limit, Predicate<PaymentRecord> filter) {
+        int wanted = Math.min(limit, slots.length());
+        List<PaymentRecord> result = new ArrayList<>(Math.max(wanted, 0));
+        if (wanted <= 0) {
+            return result;
+        }
+
+        Set<UUID> seen = new HashSet<>(wanted * 2);
+        long head = sequence.get();
+        long oldest = Math.max(0, head - slots.length());
+        for (long slot = head - 1; slot >= oldest && result.size() < wanted; slot--) {
+            // Slot may be empty while its writer is still publishing, or already hold a newer record
+            PaymentRecord payment = slots.get((int) (slot & mask));
+            if (payment != null && seen.add(payment.getTransactionId()) && filter.test(payment)) {
+                result.add(payment);
+            }
+        }
+        return result;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+}
@@ -1,16 +1,32 @@
 package com.demo.payment.route;
 
+import java.util.UUID;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.component.jackson.JacksonDataFormat;
+import org.apache.camel.component.jms.JmsConstants;
+import org.apache.camel.component.netty.NettyConstants;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
+import com.demo.common.errorhandling.DeadLetterException;
+import com.demo.common.errorhandling.DeadLetterReinjector;
+import com.demo.common.errorhandling.RouteErrorHandling;
+import com.demo.common.messaging.AdaptiveTimeouts;
+import com.demo.common.messaging.MessageGroups;
+import com.demo.common.messaging.MessagingProperties;
+import com.demo.common.messaging.PaymentPriority;
 import com.demo.common.model.FraudCheckResponse;
 import com.demo.common.model.PaymentRequest;
 import com.demo.payment.config.PaymentRouteConfig;
+import com.demo.payment.exception.AdmissionRejectedException;
 import com.demo.payment.exception.PaymentAlreadyExistsException;
 import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.pipeline.PaymentPipeline;
+import com.demo.payment.priority.PaymentPriorityClassifier;
 import com.demo.payment.service.PaymentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -20,6 +36,9 @@ import lombok.extern.slf4j.Slf4j;
 @Component
 public class PaymentProcessingRoute extends RouteBuilder {
 
+    /** Transaction ID of the payment record stored by the exchange */
+    static final String TRANSACTION_ID_PROPERTY = "paymentTransactionId";
+
     @Autowired
     private PaymentRouteConfig routeConfig;
 
@@ -32,6 +51,21 @@ public class PaymentProcessingRoute extends RouteBuilder {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private RouteErrorHandling routeErrorHandling;
+
+    @Autowired
+    private PaymentPriorityClassifier priorityClassifier;
+
+    @Autowired
+    private MessagingProperties messagingProperties;
+
+    @Autowired
+    private AdaptiveTimeouts adaptiveTimeouts;
+
+    @Autowired
+    private PaymentPipeline pipeline;
+
     @Override
     public void configure() throws Exception {
         log.info("Payment Route config: {}", routeConfig);
@@ -47,20 +81,50 @@ public class PaymentProcessingRoute extends RouteBuilder {
 
         
         // Enhanced route with status tracking
+        // The fraud check call is retried with backoff, then the request is dead-lettered to
+        // DLQ.payment-with-tracking and the caller gets a DeadLetterException. Duplicates, timeouts and
+        // submissions shed by a full pipeline fail at once.
+        // A dead-lettered payment is marked FAILED. Re-injected, it skips the duplicate check and is checked again.
+        // With payment.pipeline.enabled each stage continues the route on its own workers, see PaymentPipeline
         from("direct:processPaymentWithTracking").routeId("payment-with-tracking")
+            .errorHandler(routeErrorHandling.deadLetterChannelFailingCaller("payment-with-tracking",
+                PaymentAlreadyExistsException.class, ExchangeTimedOutException.class,
+                AdmissionRejectedException.class))
+            .onCompletion().onFailureOnly()
+                .process(exchange -> {
+                    UUID transactionId = exchange.getProperty(TRANSACTION_ID_PROPERTY, UUID.class);
+                    Exception cause = exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+                    if (transactionId != null && cause instanceof DeadLetterException) {
+                        paymentService.markPaymentFailed(transactionId, cause.getMessage());
+                    }
+                })
+            .end()
+            .process(pipeline.ingest())
             .log("Processing payment with status tracking: ${body}")
+            // High-value payments travel in the high priority lane, over JMS and REST alike
+            .process(priorityClassifier)
+            // Requests of one payer account are checked in order, different accounts in parallel
+            .process(MessageGroups.byPayerAccount(messagingProperties.getMessageGroups()))
+            .process(pipeline.persist())
             .process(exchange -> {
                 PaymentRequest request = exchange.getIn().getBody(PaymentRequest.class);
                 log.info("Starting fraud check for payment: {}", request.getTransactionId());
                 
-                paymentService.save(request);
+                if (exchange.getIn().getHeader(DeadLetterReinjector.REINJECTED_HEADER, false, Boolean.class)) {
+                    paymentService.resubmit(request);
+                } else {
+                    paymentService.save(request);
+                }
+                exchange.setProperty(TRANSACTION_ID_PROPERTY, request.getTransactionId());
             })
+            .process(pipeline.dispatch())
             .choice()
                 .when(header("useRest").isEqualTo(true))
                     .to("direct:processPaymentRest")
                 .otherwise()
                     .to("direct:processPaymentJms")
             .end()
+            .process(pipeline.decision())
             .process(exchange -> {
                 // Update payment status based on fraud check response
                 FraudCheckResponse fraudResponse = exchange.getIn().getBody(FraudCheckResponse.class);
@@ -70,33 +134,37 @@ public class PaymentProcessingRoute extends RouteBuilder {
 
         // V1: JMS-based route
         from("direct:processPaymentJms").routeId("jms-route")
+            .errorHandler(noErrorHandler()) // failures are retried by the calling route
             .log("V1: Processing payment via JMS. JMSCorrelationID: ${header.JMSCorrelationID}")
             .marshal(jacksonDataFormat)
             .log("V1 Marshalled JSON: type=${body.class.name} | headers=${headers}\n${body}")
             .setHeader("Content-Type", constant(MediaType.APPLICATION_JSON_VALUE))
-//            .to(routeConfig.getJms().getRequestQueue())
             .log("V1: Payment request sent to broker via JMS")
-            .to("""
-                    jms:queue:broker.requests\
-                    ?exchangePattern=InOut\
-                    &replyTo=jms:queue:broker.responses\
-                    &replyToType=Shared\
-                    &useMessageIDAsCorrelationID=true\
-                    &requestTimeout=30s\
-                    &jmsMessageType=Text
-                    """)
+            // The reply timeout follows the broker's latency, later hops drop the request once this attempt has timed out
+            .process(adaptiveTimeouts.hop("broker.jms", routeConfig.getJms().requestTimeoutMillis())
+                .begin(JmsConstants.JMS_REQUEST_TIMEOUT))
+            .choice()
+                .when(header(PaymentPriority.HEADER).isEqualTo(PaymentPriority.HIGH.name()))
+                    .to(routeConfig.getJms().requestReplyUri(PaymentPriority.HIGH))
+                .otherwise()
+                    .to(routeConfig.getJms().requestReplyUri())
+            .end()
             .log("V1 Response raw: type=${body.class.name} | headers=${headers}\n${body}")
+            .process(RouteErrorHandling.rejectDeadLetterReply())
             .unmarshal(jacksonFraudCheckResponseFormat)
             .log("V1 Response raw: type=${body.class.name} | headers=${headers}\n${body}")
             ;
 
         // V2: REST-based route
         from("direct:processPaymentRest").routeId("rest-route")
+            .errorHandler(noErrorHandler()) // failures are retried by the calling route
             .log("V2 REST: Processing payment via REST JMSCorrelationID: ${header.JMSCorrelationID}")
             .marshal(jacksonDataFormat)
             .log("V2 REST: Marshalled: ${body}")
             .log("V2 REST: Sending to broker via REST")
             .setHeader("Content-Type", constant(MediaType.APPLICATION_JSON_VALUE))
+            .process(adaptiveTimeouts.hop("broker.rest", routeConfig.getRest().requestTimeoutMillis())
+                .begin(NettyConstants.NETTY_REQUEST_TIMEOUT))
             .to("rest:post:" + routeConfig.getRest().getEndpoint())
             .log("V2 REST: Received fraud check Response: \n${body}")
             .unmarshal(jacksonFraudCheckResponseFormat)
@@ -1,6 +1,8 @@
 package com.demo.payment.scheduler;
 
+import com.demo.payment.config.ArchiveConfig;
 import com.demo.payment.service.PaymentService;
+import com.demo.payment.stats.PaymentStatistics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -19,6 +21,12 @@ public class PaymentTimeoutScheduler {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private ArchiveConfig archiveConfig;
+
+    @Autowired
+    private PaymentStatistics paymentStatistics;
+
     /**
      * Runs every 5 minutes to check for expired pending payments
      */
@@ -34,6 +42,23 @@ public class PaymentTimeoutScheduler {
         }
     }
 
+    /**
+     * Runs every 10 minutes to move completed payments into the archive
+     */
+    @Scheduled(fixedRateString = "${payment.archive.interval-ms:600000}")
+    public void archiveCompletedPayments() {
+        if (!archiveConfig.isEnabled()) {
+            return;
+        }
+
+        try {
+            int archived = paymentService.archiveCompletedPayments();
+            log.debug("Completed payment archiving, {} payment(s) archived", archived);
+        } catch (Exception e) {
+            log.error("Error during payment archiving", e);
+        }
+    }
+
     /**
      * Runs every hour to log payment statistics
      */
@@ -43,8 +68,9 @@ public class PaymentTimeoutScheduler {
             long totalPayments = paymentService.getPaymentCount();
             log.info("Payment Statistics - Total payments in system: {}", totalPayments);
 
-            // Log additional statistics
-            log.info("Active payment monitoring and timeout checking is enabled");
+            PaymentStatistics.Snapshot snapshot = paymentStatistics.snapshot();
+            log.info("Payment Statistics - Status counts: {}", snapshot.getStatusCounts());
+            log.info("Payment Statistics - Last hour: {}", snapshot.getWindows().get("1h"));
         } catch (Exception e) {
             log.error("Error logging payment statistics", e);
         }
@@ -0,0 +1,205 @@
+package com.demo.payment.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.archive.ArchiveQuery;
+import com.demo.payment.archive.PaymentArchive;
+import com.demo.payment.model.ExportFormat;
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.model.PaymentStatus;
+import com.demo.payment.repository.PaymentRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams payments straight from the archive and the repository into an output stream, one record at a time.
+ *
+ * Memory use is bounded: nothing is collected or sorted, archived payments are read one segment at a time, and the
+ * output is flushed every {@value #CHUNK_ROWS} rows so the servlet container can send chunks while the export
+ * continues. Archiving waits while an export runs, so no payment moves from the repository into the archive and is
+ * missed or exported twice.
+ */
+@Slf4j
+@Service
+public class PaymentExportService {
+
+    static final int CHUNK_ROWS = 1_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssX")
+            .withZone(ZoneOffset.UTC);
+
+    private static final String[] CSV_HEADER = {
+        "transactionId", "status", "submittedTimestamp", "lastUpdatedTimestamp",
+        "payerName", "payerBank", "payerCountryCode", "payerAccount",
+        "payeeName", "payeeBank", "payeeCountryCode", "payeeAccount",
+        "paymentInstruction", "executionDate", "amount", "currency", "creationTimestamp"
+    };
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentArchive paymentArchive;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public PaymentExportService(PaymentRepository paymentRepository, PaymentArchive paymentArchive,
+            ObjectMapper objectMapper) {
+        this.paymentRepository = paymentRepository;
+        this.paymentArchive = paymentArchive;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write the payments submitted between from and to (inclusive, UTC dates) with the given status, archived ones
+     * first. All filters are optional. The output stream is flushed but not closed.
+     *
+     * @return number of exported payments
+     */
+    public long export(OutputStream out, ExportFormat format, LocalDate from, LocalDate to, PaymentStatus status)
+            throws IOException {
+        Instant fromInstant = from == null ? null : from.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant toInstant = to == null ? null : to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        ArchiveQuery archived = ArchiveQuery.builder()
+            .statuses(status == null ? null : Set.of(status))
+            .from(fromInstant)
+            .to(toInstant)
+            .build();
+
+        Lock readLock = paymentArchive.readLock();
+        readLock.lock();
+        try (Stream<PaymentRecord> payments = Stream.concat(paymentArchive.stream(archived),
+                paymentRepository.streamAll().filter(filter(fromInstant, toInstant, status)))) {
+            Iterator<PaymentRecord> iterator = payments.iterator();
+            long rows = format == ExportFormat.CSV ? writeCsv(out, iterator) : writeNdjson(out, iterator);
+            log.info("Exported {} payment(s) as {} (from={}, to={}, status={})", rows, format, from, to, status);
+            return rows;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private long writeNdjson(OutputStream out, Iterator<PaymentRecord> payments) throws IOException {
+        long rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (payments.hasNext()) {
+                generator.writeObject(payments.next());
+                generator.writeRaw('\n');
+                if (++rows % CHUNK_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        return rows;
+    }
+
+    private long writeCsv(OutputStream out, Iterator<PaymentRecord> payments) throws IOException {
+        long rows = 0;
+        // Not closed: closing would close the response stream owned by the caller
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writeCsvRow(writer, CSV_HEADER);
+
+        String[] values = new String[CSV_HEADER.length];
+        while (payments.hasNext()) {
+            PaymentRecord payment = payments.next();
+            PaymentRequest request = payment.getPaymentRequest() == null ? new PaymentRequest() : payment.getPaymentRequest();
+
+            values[0] = toString(payment.getTransactionId());
+            values[1] = toString(payment.getStatus());
+            values[2] = format(payment.getSubmittedTimestamp());
+            values[3] = format(payment.getLastUpdatedTimestamp());
+            values[4] = request.getPayerName();
+            values[5] = request.getPayerBank();
+            values[6] = request.getPayerCountryCode();
+            values[7] = request.getPayerAccount();
+            values[8] = request.getPayeeName();
+            values[9] = request.getPayeeBank();
+            values[10] = request.getPayeeCountryCode();
+            values[11] = request.getPayeeAccount();
+            values[12] = request.getPaymentInstruction();
+            values[13] = toString(request.getExecutionDate());
+            values[14] = request.getAmount() == null ? null : request.getAmount().toPlainString();
+            values[15] = request.getCurrency();
+            values[16] = format(request.getCreationTimestamp());
+            writeCsvRow(writer, values);
+
+            if (++rows % CHUNK_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * RFC 4180: quote values containing separators, quotes or line breaks and double the embedded quotes
+     */
+    static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static Predicate<PaymentRecord> filter(Instant fromInstant, Instant toInstant, PaymentStatus status) {
+        return payment -> {
+            if (status != null && payment.getStatus() != status) {
+                return false;
+            }
+            Instant submitted = payment.getSubmittedTimestamp();
+            if (fromInstant != null && (submitted == null || submitted.isBefore(fromInstant))) {
+                return false;
+            }
+            return toInstant == null || (submitted != null && submitted.isBefore(toInstant));
+        };
+    }
+
+    private static String format(Instant instant) {
+        return instant == null ? null : TIMESTAMP.format(instant);
+    }
+
+    private static String toString(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -4,6 +4,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.camel.ProducerTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +14,11 @@ import org.springframework.stereotype.Service;
 import com.demo.common.model.FraudCheckResponse;
 import com.demo.common.model.FraudCheckStatus;
 import com.demo.common.model.PaymentRequest;
+import com.demo.payment.archive.ArchiveQuery;
+import com.demo.payment.archive.PaymentArchive;
+import com.demo.payment.config.ArchiveConfig;
 import com.demo.payment.exception.PaymentAlreadyExistsException;
+import com.demo.payment.exception.PaymentValidationException;
 import com.demo.payment.model.PaymentRecord;
 import com.demo.payment.model.PaymentStatus;
 import com.demo.payment.repository.PaymentRepository;
@@ -36,16 +41,27 @@ public class PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private PaymentArchive paymentArchive;
+
+    @Autowired
+    private ArchiveConfig archiveConfig;
+
+    @Autowired(required = false)
+    private List<PaymentStatusListener> statusListeners = List.of();
+
     @Value("${pps.broker.service.url:http://localhost:8082}")
     private String brokerServiceUrl;
 
     @Value("${payment.timeout.minutes:30}")
     private long timeoutMinutes;
 
-    public PaymentService(PaymentRepository paymentRepository, PaymentValidator paymentValidator, ProducerTemplate producerTemplate) {
+    public PaymentService(PaymentRepository paymentRepository, PaymentValidator paymentValidator,
+            ProducerTemplate producerTemplate, PaymentArchive paymentArchive) {
         this.paymentRepository = paymentRepository;
         this.paymentValidator = paymentValidator;
         this.producerTemplate = producerTemplate;
+        this.paymentArchive = paymentArchive;
     }
 
     public PaymentRecord submitPayment(PaymentRequest request, boolean useRest) {
@@ -74,8 +90,39 @@ public class PaymentService {
     }
     
     public PaymentRecord save(PaymentRequest request) {
+        // Terminal payments may have been moved to the archive, they are duplicates all the same
+        if (paymentArchive.contains(request.getTransactionId())) {
+            throw new PaymentAlreadyExistsException(
+                "Payment with transaction ID " + request.getTransactionId() + " already exists");
+        }
         PaymentRecord paymentRecord = PaymentRecord.fromRequest(request);
-        return paymentRepository.save(paymentRecord);
+        PaymentRecord saved = paymentRepository.save(paymentRecord);
+        notifyStatusChange(paymentRecord, null);
+        return saved;
+    }
+
+    /**
+     * Save the payment of a re-injected dead letter. Its record was stored before the request failed and marked
+     * FAILED when it was dead-lettered, it goes back to PENDING_FRAUD_CHECK. A payment decided meanwhile is a
+     * duplicate.
+     */
+    public PaymentRecord resubmit(PaymentRequest request) {
+        Optional<PaymentRecord> paymentOpt = paymentRepository.findByTransactionId(request.getTransactionId());
+        if (paymentOpt.isEmpty()) {
+            return save(request);
+        }
+
+        PaymentRecord payment = paymentOpt.get();
+        PaymentStatus previousStatus = payment.getStatus();
+        if (previousStatus != PaymentStatus.FAILED && previousStatus != PaymentStatus.PENDING_FRAUD_CHECK) {
+            throw new PaymentAlreadyExistsException("Payment with transaction ID " + request.getTransactionId()
+                + " was already " + previousStatus);
+        }
+        payment.updateStatus(PaymentStatus.PENDING_FRAUD_CHECK);
+        paymentRepository.update(payment);
+        notifyStatusChange(payment, previousStatus);
+        log.info("Resubmitted re-injected payment {}, was {}", request.getTransactionId(), previousStatus);
+        return payment;
     }
 
     public PaymentRecord processPayment(FraudCheckResponse fraudResponse) {
@@ -113,8 +160,10 @@ public class PaymentService {
             newStatus = PaymentStatus.REJECTED;
         }
 
+        PaymentStatus previousStatus = payment.getStatus();
         payment.updateStatus(newStatus);
         paymentRepository.update(payment);
+        notifyStatusChange(payment, previousStatus);
 
         log.info("Updated payment {} status to: {}", fraudResponse.getTransactionId(), newStatus);
         
@@ -122,7 +171,22 @@ public class PaymentService {
     }    
 
     public Optional<PaymentRecord> getPaymentByTransactionId(UUID transactionId) {
-        return paymentRepository.findByTransactionId(transactionId);
+        Optional<PaymentRecord> payment = paymentRepository.findByTransactionId(transactionId);
+        if (payment.isEmpty()) {
+            // Terminal payments may have been moved to the archive
+            return paymentArchive.findByTransactionId(transactionId);
+        }
+        return payment;
+    }
+
+    /**
+     * A page of the archived payments matching the query, at most payment.archive.max-page-size of them
+     */
+    public List<PaymentRecord> getArchivedPayments(ArchiveQuery query, int offset, int limit) {
+        if (offset < 0 || limit < 1) {
+            throw new PaymentValidationException("offset must not be negative and limit must be positive");
+        }
+        return paymentArchive.scan(query, offset, Math.min(limit, archiveConfig.getMaxPageSize()));
     }
 
     public List<PaymentRecord> getPaymentsByStatus(PaymentStatus status) {
@@ -133,6 +197,10 @@ public class PaymentService {
         return paymentRepository.findAll();
     }
 
+    public List<PaymentRecord> getRecentPayments(int limit) {
+        return paymentRepository.findRecent(limit);
+    }
+
     public void expirePendingPayments() {
         Instant cutoffTime = Instant.now().minusSeconds(timeoutMinutes * 60);
         List<PaymentRecord> expiredPayments = paymentRepository.findPendingOlderThan(cutoffTime);
@@ -140,23 +208,72 @@ public class PaymentService {
         log.info("Found {} payments to expire (older than {} minutes)", expiredPayments.size(), timeoutMinutes);
 
         for (PaymentRecord payment : expiredPayments) {
+            PaymentStatus previousStatus = payment.getStatus();
             payment.updateStatus(PaymentStatus.EXPIRED);
             paymentRepository.update(payment);
+            notifyStatusChange(payment, previousStatus);
             log.info("Expired payment: {}", payment.getTransactionId());
         }
     }
 
+    /**
+     * Move terminal payments older than the configured age from the in-memory store into archive segments
+     */
+    public int archiveCompletedPayments() {
+        Lock moveLock = paymentArchive.moveLock();
+        if (!moveLock.tryLock()) {
+            log.info("Payment export in progress, archiving deferred to the next run");
+            return 0;
+        }
+        try {
+            return archiveCompletedPaymentsLocked();
+        } finally {
+            moveLock.unlock();
+        }
+    }
+
+    private int archiveCompletedPaymentsLocked() {
+        Instant cutoffTime = Instant.now().minusSeconds(archiveConfig.getMinAgeMinutes() * 60);
+        List<PaymentRecord> completedPayments = paymentRepository.findCompletedOlderThan(cutoffTime);
+
+        log.info("Found {} payments to archive (older than {} minutes)",
+                completedPayments.size(), archiveConfig.getMinAgeMinutes());
+
+        int batchSize = archiveConfig.getMaxRowsPerSegment();
+        for (int start = 0; start < completedPayments.size(); start += batchSize) {
+            List<PaymentRecord> batch = completedPayments.subList(start,
+                    Math.min(start + batchSize, completedPayments.size()));
+            paymentArchive.archive(batch);
+            // Only drop from memory once the segment is durable
+            batch.forEach(payment -> paymentRepository.deleteByTransactionId(payment.getTransactionId()));
+        }
+        return completedPayments.size();
+    }
+
     public void markPaymentFailed(UUID transactionId, String reason) {
         Optional<PaymentRecord> paymentOpt = paymentRepository.findByTransactionId(transactionId);
 
         if (paymentOpt.isPresent()) {
             PaymentRecord payment = paymentOpt.get();
+            PaymentStatus previousStatus = payment.getStatus();
             payment.updateStatus(PaymentStatus.FAILED);
             paymentRepository.update(payment);
+            notifyStatusChange(payment, previousStatus);
             log.error("Marked payment {} as FAILED: {}", transactionId, reason);
         }
     }
 
+    private void notifyStatusChange(PaymentRecord payment, PaymentStatus previousStatus) {
+        for (PaymentStatusListener listener : statusListeners) {
+            try {
+                listener.onStatusChange(payment, previousStatus);
+            } catch (RuntimeException e) {
+                log.warn("Payment status listener {} failed for transaction: {}",
+                        listener.getClass().getSimpleName(), payment.getTransactionId(), e);
+            }
+        }
+    }
+
     public long getPaymentCount() {
         return paymentRepository.count();
     }
@@ -0,0 +1,16 @@
+package com.demo.payment.service;
+
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.model.PaymentStatus;
+
+/**
+ * Notified by {@link PaymentService} on every payment status transition
+ */
+public interface PaymentStatusListener {
+
+    /**
+     * @param payment  payment record, already carrying the new status
+     * @param previous status before the transition, null for a newly submitted payment
+     */
+    void onStatusChange(PaymentRecord payment, PaymentStatus previous);
+}
@@ -0,0 +1,131 @@
+package com.demo.payment.stats;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+import org.springframework.stereotype.Component;
+
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.model.PaymentStatus;
+import com.demo.payment.service.PaymentStatusListener;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Streaming payment statistics, maintained incrementally on every status transition.
+ *
+ * Status counts are running totals. Rates and volumes are kept over sliding 1m, 5m and 1h windows of 60
+ * buckets each, so reading them costs the same whatever the number of stored payments.
+ */
+@Component
+public class PaymentStatistics implements PaymentStatusListener {
+
+    private static final int BUCKETS = 60;
+
+    private final LongSupplier clock;
+    private final AtomicLongArray statusCounts = new AtomicLongArray(PaymentStatus.values().length);
+    private final Map<String, SlidingWindow> windows = new LinkedHashMap<>();
+
+    public PaymentStatistics() {
+        this(System::currentTimeMillis);
+    }
+
+    PaymentStatistics(LongSupplier clock) {
+        this.clock = clock;
+        windows.put("1m", new SlidingWindow(60_000L, BUCKETS));
+        windows.put("5m", new SlidingWindow(300_000L, BUCKETS));
+        windows.put("1h", new SlidingWindow(3_600_000L, BUCKETS));
+    }
+
+    @Override
+    public void onStatusChange(PaymentRecord payment, PaymentStatus previous) {
+        PaymentStatus status = payment.getStatus();
+        if (status == null || status == previous) {
+            return;
+        }
+        if (previous != null) {
+            statusCounts.decrementAndGet(previous.ordinal());
+        }
+        statusCounts.incrementAndGet(status.ordinal());
+
+        long now = clock.getAsLong();
+        PaymentRequest request = payment.getPaymentRequest();
+        boolean submitted = previous == null && request != null
+                && request.getCurrency() != null && request.getAmount() != null;
+        long amountMinor = submitted
+                ? request.getAmount().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue()
+                : 0;
+
+        for (SlidingWindow window : windows.values()) {
+            window.recordStatus(now, status);
+            if (submitted) {
+                window.recordVolume(now, request.getCurrency(), amountMinor);
+            }
+        }
+    }
+
+    public Snapshot snapshot() {
+        Map<PaymentStatus, Long> counts = new EnumMap<>(PaymentStatus.class);
+        for (PaymentStatus status : PaymentStatus.values()) {
+            counts.put(status, statusCounts.get(status.ordinal()));
+        }
+
+        long now = clock.getAsLong();
+        Map<String, WindowStatistics> windowStatistics = new LinkedHashMap<>();
+        windows.forEach((name, window) -> windowStatistics.put(name, toWindowStatistics(window.snapshot(now))));
+
+        return new Snapshot(counts, windowStatistics);
+    }
+
+    private WindowStatistics toWindowStatistics(SlidingWindow.WindowSnapshot window) {
+        long approved = window.count(PaymentStatus.APPROVED);
+        long rejected = window.count(PaymentStatus.REJECTED);
+        long decided = approved + rejected;
+
+        return new WindowStatistics(
+            window.count(PaymentStatus.PENDING_FRAUD_CHECK),
+            approved,
+            rejected,
+            window.count(PaymentStatus.FAILED),
+            window.count(PaymentStatus.EXPIRED),
+            rate(approved, decided),
+            rate(rejected, decided),
+            window.countByCurrency(),
+            window.volume());
+    }
+
+    private static BigDecimal rate(long part, long total) {
+        if (total == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(part).divide(BigDecimal.valueOf(total), 4, RoundingMode.HALF_UP);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Snapshot {
+        private Map<PaymentStatus, Long> statusCounts;
+        private Map<String, WindowStatistics> windows;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class WindowStatistics {
+        private long submitted;
+        private long approved;
+        private long rejected;
+        private long failed;
+        private long expired;
+        private BigDecimal approvalRate;
+        private BigDecimal rejectionRate;
+        private Map<String, Long> countByCurrency;
+        private Map<String, BigDecimal> volumeByCurrency;
+    }
+}
@@ -0,0 +1,101 @@
+package com.demo.payment.stats;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.demo.payment.model.PaymentStatus;
+
+/**
+ * Fixed size ring of time buckets. Writes touch exactly one bucket, reads sum the live buckets, so both are
+ * independent of how many payments are stored.
+ *
+ * A bucket is recycled lazily by the first writer that lands on it in a new period. Readers ignore buckets that
+ * belong to a period outside the window.
+ */
+class SlidingWindow {
+
+    private static final int STATUSES = PaymentStatus.values().length;
+
+    private final long bucketMillis;
+    private final Bucket[] buckets;
+
+    SlidingWindow(long windowMillis, int bucketCount) {
+        this.bucketMillis = windowMillis / bucketCount;
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    void recordStatus(long nowMillis, PaymentStatus status) {
+        bucketFor(nowMillis).statusCounts.incrementAndGet(status.ordinal());
+    }
+
+    void recordVolume(long nowMillis, String currency, long amountMinor) {
+        Bucket bucket = bucketFor(nowMillis);
+        bucket.volumeMinor.computeIfAbsent(currency, c -> new LongAdder()).add(amountMinor);
+        bucket.countByCurrency.computeIfAbsent(currency, c -> new LongAdder()).increment();
+    }
+
+    WindowSnapshot snapshot(long nowMillis) {
+        long current = nowMillis / bucketMillis;
+        long[] statusCounts = new long[STATUSES];
+        Map<String, Long> volumeMinor = new TreeMap<>();
+        Map<String, Long> countByCurrency = new TreeMap<>();
+
+        for (Bucket bucket : buckets) {
+            long period = bucket.period;
+            if (period <= current - buckets.length || period > current) {
+                continue;
+            }
+            for (int i = 0; i < STATUSES; i++) {
+                statusCounts[i] += bucket.statusCounts.get(i);
+            }
+            bucket.volumeMinor.forEach((currency, sum) -> volumeMinor.merge(currency, sum.sum(), Long::sum));
+            bucket.countByCurrency.forEach((currency, sum) -> countByCurrency.merge(currency, sum.sum(), Long::sum));
+        }
+
+        Map<String, BigDecimal> volume = new TreeMap<>();
+        volumeMinor.forEach((currency, minor) -> volume.put(currency, BigDecimal.valueOf(minor, 2)));
+        return new WindowSnapshot(statusCounts, volume, countByCurrency);
+    }
+
+    private Bucket bucketFor(long nowMillis) {
+        long period = nowMillis / bucketMillis;
+        Bucket bucket = buckets[(int) (period % buckets.length)];
+        if (bucket.period != period) {
+            synchronized (bucket) {
+                if (bucket.period != period) {
+                    bucket.reset(period);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+        private volatile long period = Long.MIN_VALUE;
+        private final AtomicLongArray statusCounts = new AtomicLongArray(STATUSES);
+        private final Map<String, LongAdder> volumeMinor = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> countByCurrency = new ConcurrentHashMap<>();
+
+        private void reset(long newPeriod) {
+            for (int i = 0; i < STATUSES; i++) {
+                statusCounts.set(i, 0);
+            }
+            volumeMinor.clear();
+            countByCurrency.clear();
+            period = newPeriod;
+        }
+    }
+
+    record WindowSnapshot(long[] statusCounts, Map<String, BigDecimal> volume, Map<String, Long> countByCurrency) {
+        long count(PaymentStatus status) {
+            return statusCounts[status.ordinal()];
+        }
+    }
+}
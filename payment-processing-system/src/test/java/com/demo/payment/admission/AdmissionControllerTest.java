@@ -0,0 +1,194 @@
+package com.demo.payment.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.ExchangeTimedOutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.payment.config.AdmissionConfig;
+import com.demo.payment.exception.AdmissionRejectedException;
+import com.demo.payment.exception.PaymentAlreadyExistsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Admission Controller Tests")
+class AdmissionControllerTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final AtomicInteger depth = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private AdmissionConfig config;
+    private AdmissionController controller;
+
+    @BeforeEach
+    void setUp() {
+        config = new AdmissionConfig();
+        config.setInitialLimit(10);
+        config.setMinLimit(2);
+        config.setMaxLimit(20);
+        config.setLatencyThresholdMillis(1000);
+        config.setMaxQueueDepth(100);
+        controller = new AdmissionController(config, queue -> depth.get(), meterRegistry, clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should shed submissions above the concurrency limit with 429 semantics")
+    void shouldRejectAboveLimit() throws Exception {
+        // Given the limit of 10 in use
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch admitted = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            executor.submit(() -> controller.call(() -> {
+                admitted.countDown();
+                await(release);
+                return "done";
+            }));
+        }
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When/Then
+        assertThatThrownBy(() -> controller.call(() -> "eleventh"))
+            .isInstanceOfSatisfying(AdmissionRejectedException.class, e -> {
+                assertThat(e.isDownstreamBacklog()).isFalse();
+                assertThat(e.getRetryAfterSeconds()).isEqualTo(config.getRetryAfterSeconds());
+            });
+        release.countDown();
+        assertThat(meterRegistry.get("payment.admission.rejected").tag("reason", "limit").counter().count())
+            .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should shed submissions with 503 semantics while the broker queue is backed up")
+    void shouldRejectOnBacklog() {
+        // Given
+        depth.set(150);
+        controller.sampleQueueDepth();
+
+        // When/Then
+        assertThatThrownBy(() -> controller.call(() -> "payment"))
+            .isInstanceOfSatisfying(AdmissionRejectedException.class, e -> {
+                assertThat(e.isDownstreamBacklog()).isTrue();
+                assertThat(e.getRetryAfterSeconds()).isBetween(1, config.getMaxRetryAfterSeconds());
+            });
+        depth.set(0);
+        controller.sampleQueueDepth();
+        assertThat(controller.call(() -> "payment")).isEqualTo("payment");
+    }
+
+    @Test
+    @DisplayName("Should keep an asynchronous submission in flight until its future completes")
+    void shouldHoldAsyncSubmissionUntilCompleted() {
+        // Given
+        CompletableFuture<String> fraudCheck = new CompletableFuture<>();
+
+        // When
+        CompletableFuture<String> result = controller.callAsync(() -> fraudCheck);
+        int inFlightWhileRunning = controller.getInFlight();
+        fraudCheck.completeExceptionally(new ExchangeTimedOutException(null, 1000));
+
+        // Then
+        assertThat(inFlightWhileRunning).isEqualTo(1);
+        assertThat(result).isCompletedExceptionally();
+        assertThat(controller.getInFlight()).isZero();
+        assertThat(controller.getLimit()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Should back off multiplicatively once per window on timeouts and slow checks")
+    void shouldDecreaseOnOverload() {
+        // When a timed out check
+        assertThatThrownBy(() -> controller.call(() -> {
+            throw new CamelExecutionException("timed out", null, new ExchangeTimedOutException(null, 30_000));
+        })).isInstanceOf(CamelExecutionException.class);
+        int afterTimeout = controller.getLimit();
+
+        // and a slow check that started after the decrease
+        controller.call(() -> {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+            return "slow";
+        });
+
+        // Then
+        assertThat(afterTimeout).isEqualTo(9);
+        assertThat(controller.getLimit()).isEqualTo(8);
+        assertThat(controller.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not back off on failures unrelated to load")
+    void shouldIgnoreBusinessFailures() {
+        // When
+        assertThatThrownBy(() -> controller.call(() -> {
+            throw new PaymentAlreadyExistsException("duplicate");
+        })).isInstanceOf(PaymentAlreadyExistsException.class);
+
+        // Then
+        assertThat(controller.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should grow additively while the limit is in use and fraud checks are fast")
+    void shouldIncreaseWhileUtilized() throws Exception {
+        // Given 5 of 10 checks in flight, so with the next one more than half the limit
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch admitted = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            executor.submit(() -> controller.call(() -> {
+                admitted.countDown();
+                await(release);
+                return "done";
+            }));
+        }
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When about one window of fast checks completes
+        for (int i = 0; i < 11; i++) {
+            controller.call(() -> "fast");
+        }
+        release.countDown();
+
+        // Then
+        assertThat(controller.getLimit()).isEqualTo(11);
+        assertThat(meterRegistry.get("payment.admission.limit").gauge().value()).isEqualTo(11.0);
+    }
+
+    @Test
+    @DisplayName("Should run every submission when disabled")
+    void shouldPassThroughWhenDisabled() {
+        // Given
+        config.setEnabled(false);
+        depth.set(1000);
+        controller.sampleQueueDepth();
+
+        // When/Then
+        assertThat(controller.call(() -> "payment")).isEqualTo("payment");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
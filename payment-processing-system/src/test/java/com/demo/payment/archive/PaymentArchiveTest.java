@@ -0,0 +1,194 @@
+package com.demo.payment.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.model.PaymentStatus;
+
+@DisplayName("Payment Archive Tests")
+class PaymentArchiveTest {
+
+    private static final Instant BASE = Instant.parse("2024-01-15T10:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private PaymentArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        archive = new PaymentArchive(directory);
+    }
+
+    @Test
+    @DisplayName("Should round trip all fields through a segment")
+    void shouldRoundTripAllFields() {
+        // Given
+        PaymentRecord record = createRecord(PaymentStatus.APPROVED, "EUR", "1500.75", 0);
+        record.getPaymentRequest().setPaymentInstruction(null);
+
+        // When
+        archive.archive(List.of(record));
+        List<PaymentRecord> scanned = archive.scan(ArchiveQuery.all());
+
+        // Then
+        assertThat(scanned).hasSize(1);
+        PaymentRecord restored = scanned.get(0);
+        assertThat(restored.getTransactionId()).isEqualTo(record.getTransactionId());
+        assertThat(restored.getStatus()).isEqualTo(PaymentStatus.APPROVED);
+        assertThat(restored.getSubmittedTimestamp()).isEqualTo(record.getSubmittedTimestamp());
+        assertThat(restored.getLastUpdatedTimestamp()).isEqualTo(record.getLastUpdatedTimestamp());
+        assertThat(restored.getPaymentRequest()).isEqualTo(record.getPaymentRequest());
+    }
+
+    @Test
+    @DisplayName("Should filter rows by status, currency and submission time")
+    void shouldFilterRowsByPredicates() {
+        // Given
+        archive.archive(List.of(
+            createRecord(PaymentStatus.APPROVED, "EUR", "10.00", 0),
+            createRecord(PaymentStatus.REJECTED, "EUR", "20.00", 60),
+            createRecord(PaymentStatus.APPROVED, "USD", "30.00", 120),
+            createRecord(PaymentStatus.EXPIRED, "GBP", "40.00", 180)));
+
+        // When
+        List<PaymentRecord> approvedEur = archive.scan(ArchiveQuery.builder()
+            .statuses(Set.of(PaymentStatus.APPROVED))
+            .currency("EUR")
+            .build());
+        List<PaymentRecord> inRange = archive.scan(ArchiveQuery.builder()
+            .from(BASE.plusSeconds(60))
+            .to(BASE.plusSeconds(180))
+            .build());
+
+        // Then
+        assertThat(approvedEur).extracting(r -> r.getPaymentRequest().getAmount())
+            .containsExactly(new BigDecimal("10.00"));
+        assertThat(inRange).extracting(PaymentRecord::getStatus)
+            .containsExactly(PaymentStatus.REJECTED, PaymentStatus.APPROVED);
+        assertThat(archive.count(ArchiveQuery.builder().currency("EUR").build())).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should prune segments using statistics and dictionaries")
+    void shouldPruneSegments() {
+        // Given
+        ColumnarSegment eurSegment = archive.archive(List.of(createRecord(PaymentStatus.APPROVED, "EUR", "10.00", 0)));
+        ColumnarSegment usdSegment = archive.archive(List.of(createRecord(PaymentStatus.REJECTED, "USD", "10.00", 3600)));
+
+        // Then
+        assertThat(eurSegment.mightMatch(ArchiveQuery.builder().currency("USD").build())).isFalse();
+        assertThat(eurSegment.mightMatch(ArchiveQuery.builder().statuses(Set.of(PaymentStatus.REJECTED)).build())).isFalse();
+        assertThat(eurSegment.mightMatch(ArchiveQuery.builder().from(BASE.plusSeconds(60)).build())).isFalse();
+        assertThat(usdSegment.mightMatch(ArchiveQuery.builder().to(BASE.plusSeconds(3600)).build())).isFalse();
+        assertThat(usdSegment.mightMatch(ArchiveQuery.builder().currency("USD").build())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should find archived payment by transaction ID and reload segments from disk")
+    void shouldFindByTransactionIdAfterReload() {
+        // Given
+        PaymentRecord record = createRecord(PaymentStatus.FAILED, "CHF", "99.99", 0);
+        archive.archive(List.of(createRecord(PaymentStatus.APPROVED, "CHF", "1.00", 0), record));
+
+        // When
+        PaymentArchive reopened = new PaymentArchive(directory);
+        reopened.loadSegments();
+
+        // Then
+        assertThat(reopened.getSegmentCount()).isEqualTo(1);
+        assertThat(reopened.findByTransactionId(record.getTransactionId()))
+            .hasValueSatisfying(found -> assertThat(found.getStatus()).isEqualTo(PaymentStatus.FAILED));
+        assertThat(reopened.findByTransactionId(UUID.randomUUID())).isEmpty();
+        assertThat(reopened.contains(record.getTransactionId())).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep sub-millisecond timestamps and filter on them")
+    void shouldKeepNanosecondTimestamps() {
+        // Given
+        PaymentRecord early = createRecord(PaymentStatus.APPROVED, "EUR", "10.00", 0);
+        early.setSubmittedTimestamp(BASE.plusNanos(123_456));
+        early.setLastUpdatedTimestamp(BASE.plusNanos(987_654_321));
+        early.getPaymentRequest().setCreationTimestamp(BASE.plusNanos(1));
+        PaymentRecord late = createRecord(PaymentStatus.APPROVED, "EUR", "20.00", 0);
+        late.setSubmittedTimestamp(BASE.plusNanos(123_457));
+        archive.archive(List.of(early, late));
+
+        // When
+        PaymentRecord restored = archive.findByTransactionId(early.getTransactionId()).orElseThrow();
+        List<PaymentRecord> fromLate = archive.scan(ArchiveQuery.builder().from(BASE.plusNanos(123_457)).build());
+
+        // Then
+        assertThat(restored.getSubmittedTimestamp()).isEqualTo(BASE.plusNanos(123_456));
+        assertThat(restored.getLastUpdatedTimestamp()).isEqualTo(BASE.plusNanos(987_654_321));
+        assertThat(restored.getPaymentRequest().getCreationTimestamp()).isEqualTo(BASE.plusNanos(1));
+        assertThat(fromLate).extracting(PaymentRecord::getTransactionId).containsExactly(late.getTransactionId());
+    }
+
+    @Test
+    @DisplayName("Should return matching payments a page at a time across segments")
+    void shouldPageThroughSegments() {
+        // Given
+        archive.archive(List.of(
+            createRecord(PaymentStatus.APPROVED, "EUR", "1.00", 0),
+            createRecord(PaymentStatus.REJECTED, "EUR", "2.00", 1),
+            createRecord(PaymentStatus.APPROVED, "EUR", "3.00", 2)));
+        archive.archive(List.of(
+            createRecord(PaymentStatus.APPROVED, "EUR", "4.00", 3),
+            createRecord(PaymentStatus.APPROVED, "EUR", "5.00", 4)));
+        ArchiveQuery approved = ArchiveQuery.builder().statuses(Set.of(PaymentStatus.APPROVED)).build();
+
+        // When
+        List<PaymentRecord> first = archive.scan(approved, 0, 3);
+        List<PaymentRecord> second = archive.scan(approved, 3, 3);
+
+        // Then
+        assertThat(first).extracting(r -> r.getPaymentRequest().getAmount())
+            .containsExactly(new BigDecimal("1.00"), new BigDecimal("3.00"), new BigDecimal("4.00"));
+        assertThat(second).extracting(r -> r.getPaymentRequest().getAmount())
+            .containsExactly(new BigDecimal("5.00"));
+        assertThat(archive.scan(approved, 4, 3)).isEmpty();
+    }
+
+    private PaymentRecord createRecord(PaymentStatus status, String currency, String amount, long offsetSeconds) {
+        PaymentRequest request = PaymentRequest.builder()
+            .transactionId(UUID.randomUUID())
+            .payerName("Test Payer")
+            .payerBank("Test Bank")
+            .payerCountryCode("DEU")
+            .payerAccount("DE89370400440532013000")
+            .payeeName("Test Payee")
+            .payeeBank("Test Payee Bank")
+            .payeeCountryCode("FRA")
+            .payeeAccount("FR1420041010050500013M02606")
+            .paymentInstruction("Test payment")
+            .executionDate(LocalDate.of(2024, 1, 16))
+            .amount(new BigDecimal(amount))
+            .currency(currency)
+            .creationTimestamp(BASE.plusSeconds(offsetSeconds))
+            .build();
+
+        return PaymentRecord.builder()
+            .transactionId(request.getTransactionId())
+            .paymentRequest(request)
+            .status(status)
+            .submittedTimestamp(BASE.plusSeconds(offsetSeconds))
+            .lastUpdatedTimestamp(BASE.plusSeconds(offsetSeconds + 5))
+            .build();
+    }
+}
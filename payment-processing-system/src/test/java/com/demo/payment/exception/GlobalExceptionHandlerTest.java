@@ -7,6 +7,7 @@ import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BeanPropertyBindingResult;
@@ -89,4 +90,21 @@ public class GlobalExceptionHandlerTest {
         assertThat(response.getBody().getCode()).isEqualTo("DUPLICATE_PAYMENT");
         assertThat(response.getBody().getMessage()).isEqualTo("Payment with transaction ID 12345 already exists");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should answer shed submissions with 429 or 503 and Retry-After")
+    void testAdmissionRejected() {
+        // When
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> limited = globalExceptionHandler
+            .handleAdmissionRejectedException(new AdmissionRejectedException("limit", false, 1));
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> backlog = globalExceptionHandler
+            .handleAdmissionRejectedException(new AdmissionRejectedException("backlog", true, 12));
+
+        // Then
+        assertThat(limited.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(limited.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(backlog.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(backlog.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("12");
+        assertThat(backlog.getBody().getCode()).isEqualTo("FRAUD_CHECK_BACKLOG");
+    }
+}
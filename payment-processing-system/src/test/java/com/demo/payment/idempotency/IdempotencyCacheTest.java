@@ -0,0 +1,223 @@
+package com.demo.payment.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.payment.config.IdempotencyConfig;
+import com.demo.payment.exception.PaymentValidationException;
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.model.PaymentStatus;
+import com.demo.payment.repository.InMemoryPaymentRepository;
+
+@DisplayName("Idempotency Cache Tests")
+class IdempotencyCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private final InMemoryPaymentRepository repository = new InMemoryPaymentRepository();
+
+    private IdempotencyConfig config;
+    private IdempotencyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        config = new IdempotencyConfig();
+        config.setTtlSeconds(60);
+        config.setMaxEntries(100);
+        cache = new IdempotencyCache(config, repository, clock::get);
+    }
+
+    @Test
+    @DisplayName("Should replay the stored outcome without running the submission again")
+    void shouldReplayStoredOutcome() {
+        // Given
+        UUID transactionId = UUID.randomUUID();
+        IdempotencyCache.Submission first = cache.submit("key-1", transactionId, () -> process(transactionId));
+
+        // When
+        IdempotencyCache.Submission retry = cache.submit("key-1", transactionId, () -> process(transactionId));
+
+        // Then
+        assertThat(first.isReplayed()).isFalse();
+        assertThat(retry.isReplayed()).isTrue();
+        assertThat(retry.getPayment()).isSameAs(first.getPayment());
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should attach retries to the in-flight submission")
+    void shouldJoinInFlightSubmission() throws Exception {
+        // Given
+        UUID transactionId = UUID.randomUUID();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyCache.Submission> original = CompletableFuture.supplyAsync(() ->
+            cache.submit("key-1", transactionId, () -> {
+                started.countDown();
+                await(release);
+                return process(transactionId);
+            }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        CompletableFuture<IdempotencyCache.Submission> retry = CompletableFuture.supplyAsync(() ->
+            cache.submit("key-1", transactionId, () -> process(transactionId)));
+        release.countDown();
+
+        // Then
+        assertThat(retry.get(5, TimeUnit.SECONDS).isReplayed()).isTrue();
+        assertThat(retry.get().getPayment()).isSameAs(original.get(5, TimeUnit.SECONDS).getPayment());
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should submit again when the failed submission stored no payment")
+    void shouldEvictFailedSubmission() {
+        // Given
+        UUID transactionId = UUID.randomUUID();
+        assertThatThrownBy(() -> cache.submit("key-1", transactionId, () -> {
+            throw new IllegalStateException("Broker unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // When
+        IdempotencyCache.Submission retry = cache.submit("key-1", transactionId, () -> process(transactionId));
+
+        // Then
+        assertThat(retry.isReplayed()).isFalse();
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should answer retries of a submission that failed after storing the payment with the stored payment")
+    void shouldAnswerFailedSubmissionFromRepository() {
+        // Given the fraud check timed out after the payment was stored
+        UUID transactionId = UUID.randomUUID();
+        PaymentRecord stored = process(transactionId);
+        assertThatThrownBy(() -> cache.submit("key-1", transactionId, () -> {
+            repository.save(stored);
+            throw new IllegalStateException("Fraud check timed out");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // When
+        IdempotencyCache.Submission retry = cache.submit("key-1", transactionId, () -> process(transactionId));
+
+        // Then
+        assertThat(retry.isReplayed()).isTrue();
+        assertThat(retry.getPayment()).isSameAs(stored);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should not evict in-flight submissions to bound the number of entries")
+    void shouldNotEvictInFlightSubmission() throws Exception {
+        // Given
+        config.setMaxEntries(1);
+        UUID transactionId = UUID.randomUUID();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyCache.Submission> original = CompletableFuture.supplyAsync(() ->
+            cache.submit("key-1", transactionId, () -> {
+                started.countDown();
+                await(release);
+                return process(transactionId);
+            }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        UUID other = UUID.randomUUID();
+        cache.submit("key-2", other, () -> process(other));
+
+        // When
+        CompletableFuture<IdempotencyCache.Submission> retry = CompletableFuture.supplyAsync(() ->
+            cache.submit("key-1", transactionId, () -> process(transactionId)));
+        release.countDown();
+
+        // Then
+        assertThat(retry.get(5, TimeUnit.SECONDS).isReplayed()).isTrue();
+        assertThat(retry.get().getPayment()).isSameAs(original.get(5, TimeUnit.SECONDS).getPayment());
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should reject a key reused for another transaction")
+    void shouldRejectKeyReuseForOtherTransaction() {
+        // Given
+        UUID transactionId = UUID.randomUUID();
+        cache.submit("key-1", transactionId, () -> process(transactionId));
+
+        // When/Then
+        UUID other = UUID.randomUUID();
+        assertThatThrownBy(() -> cache.submit("key-1", other, () -> process(other)))
+            .isInstanceOf(PaymentValidationException.class)
+            .hasMessageContaining("key-1");
+    }
+
+    @Test
+    @DisplayName("Should forget outcomes after the TTL and bound the number of entries")
+    void shouldExpireAndBoundEntries() {
+        // Given
+        config.setMaxEntries(2);
+        UUID transactionId = UUID.randomUUID();
+        cache.submit("key-1", transactionId, () -> process(transactionId));
+
+        // When
+        clock.addAndGet(61_000);
+        IdempotencyCache.Submission afterTtl = cache.submit("key-1", transactionId, () -> process(transactionId));
+        for (int i = 0; i < 5; i++) {
+            UUID id = UUID.randomUUID();
+            cache.submit("other-" + i, id, () -> process(id));
+        }
+
+        // Then
+        assertThat(afterTtl.isReplayed()).isFalse();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should complete retries of an asynchronous submission once it completes")
+    void shouldAttachRetriesToAsyncSubmission() {
+        // Given
+        UUID transactionId = UUID.randomUUID();
+        CompletableFuture<PaymentRecord> route = new CompletableFuture<>();
+        CompletableFuture<IdempotencyCache.Submission> first = cache.submitAsync("key-1", transactionId, () -> route);
+
+        // When
+        CompletableFuture<IdempotencyCache.Submission> retry = cache.submitAsync("key-1", transactionId,
+            () -> CompletableFuture.completedFuture(process(transactionId)));
+        boolean retryDoneEarly = retry.isDone();
+        route.complete(process(transactionId));
+
+        // Then
+        assertThat(retryDoneEarly).isFalse();
+        assertThat(first.join().isReplayed()).isFalse();
+        assertThat(retry.join().isReplayed()).isTrue();
+        assertThat(retry.join().getPayment()).isSameAs(first.join().getPayment());
+        assertThat(executions).hasValue(1);
+    }
+
+    private PaymentRecord process(UUID transactionId) {
+        executions.incrementAndGet();
+        return PaymentRecord.builder()
+            .transactionId(transactionId)
+            .status(PaymentStatus.APPROVED)
+            .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
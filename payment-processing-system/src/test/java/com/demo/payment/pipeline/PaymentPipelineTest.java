@@ -0,0 +1,199 @@
+package com.demo.payment.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.payment.config.PipelineConfig;
+import com.demo.payment.exception.AdmissionRejectedException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Payment Pipeline Tests")
+class PaymentPipelineTest {
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> completed = new CopyOnWriteArrayList<>();
+    private PaymentPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.destroy();
+        }
+        context.stop();
+    }
+
+    @Test
+    @DisplayName("Should run every stage of a route on its own workers and answer the caller at the end")
+    void shouldRunStagesOnTheirOwnWorkers() throws Exception {
+        // Given
+        pipeline = new PaymentPipeline(config(true, 1), meterRegistry);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:payment")
+                    .process(pipeline.ingest()).process(exchange -> threads.add(Thread.currentThread().getName()))
+                    .process(pipeline.persist()).process(exchange -> threads.add(Thread.currentThread().getName()))
+                    .process(pipeline.dispatch()).process(exchange -> threads.add(Thread.currentThread().getName()))
+                    .process(pipeline.decision()).process(exchange -> threads.add(Thread.currentThread().getName()))
+                    .setBody(simple("done-${body}"));
+            }
+        });
+        context.start();
+        ProducerTemplate producerTemplate = context.createProducerTemplate();
+
+        // When
+        String reply = producerTemplate.requestBody("direct:payment", "payment", String.class);
+
+        // Then
+        assertThat(reply).isEqualTo("done-payment");
+        assertThat(threads).containsExactly("payment-ingest-0", "payment-persist-0", "payment-dispatch-0",
+            "payment-decision-0");
+        assertThat(meterRegistry.get(PaymentPipeline.METER_NAME + ".wait").tag("stage", "decision").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should shed a submission with 503 when the ingest queue stays full")
+    void shouldShedWhenIngestIsFull() throws Exception {
+        // Given a busy ingest worker and a full ingest queue
+        pipeline = new PaymentPipeline(config(true, 1), meterRegistry);
+        CountDownLatch release = blockWorker(pipeline.ingest());
+        submit(pipeline.ingest(), exchange("queued"), new CountDownLatch(1));
+
+        // When
+        Exchange shed = exchange("shed");
+        boolean sync = pipeline.ingest().process(shed, done -> completed.add("shed"));
+        release.countDown();
+
+        // Then
+        assertThat(sync).isTrue();
+        assertThat(shed.getException()).isInstanceOfSatisfying(AdmissionRejectedException.class,
+            e -> assertThat(e.isDownstreamBacklog()).isTrue());
+        assertThat(meterRegistry.get(PaymentPipeline.METER_NAME + ".shed").tag("stage", "ingest").counter().count())
+            .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should make a stage wait for room in the next one instead of shedding")
+    void shouldWaitForRoomAfterIngest() throws Exception {
+        // Given a busy persist worker and a full persist queue
+        pipeline = new PaymentPipeline(config(true, 1), meterRegistry);
+        CountDownLatch release = blockWorker(pipeline.persist());
+        CountDownLatch done = new CountDownLatch(2);
+        submit(pipeline.persist(), exchange("queued"), done);
+
+        // When
+        Exchange waiting = exchange("waiting");
+        CompletableFuture<Boolean> handedOver = CompletableFuture.supplyAsync(() -> pipeline.persist().process(waiting,
+            sync -> {
+                completed.add("waiting");
+                done.countDown();
+            }));
+
+        // Then it waits until the persist stage has room
+        Thread.sleep(200);
+        assertThat(handedOver).isNotDone();
+        release.countDown();
+        assertThat(handedOver.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(completed).containsExactly("blocker", "queued", "waiting");
+        assertThat(waiting.getException()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should fail queued payments when the pipeline shuts down")
+    void shouldFailQueuedOnShutdown() throws Exception {
+        // Given
+        pipeline = new PaymentPipeline(config(true, 1), meterRegistry);
+        CountDownLatch release = blockWorker(pipeline.decision());
+        Exchange queued = exchange("queued");
+        CountDownLatch done = new CountDownLatch(1);
+        submit(pipeline.decision(), queued, done);
+
+        // When
+        pipeline.destroy();
+        release.countDown();
+
+        // Then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.getException()).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    @DisplayName("Should pass payments straight through when disabled")
+    void shouldPassThroughWhenDisabled() {
+        // Given
+        pipeline = new PaymentPipeline(config(false, 1), meterRegistry);
+        Exchange exchange = exchange("payment");
+
+        // When
+        boolean sync = pipeline.ingest().process(exchange, done -> completed.add(Thread.currentThread().getName()));
+
+        // Then
+        assertThat(sync).isTrue();
+        assertThat(completed).containsExactly(Thread.currentThread().getName());
+    }
+
+    /**
+     * Queue a payment whose continuation holds the stage's only worker until the returned latch is released
+     */
+    private CountDownLatch blockWorker(PaymentPipeline.Stage stage) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        stage.process(exchange("blocker"), done -> {
+            completed.add("blocker");
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        return release;
+    }
+
+    private void submit(PaymentPipeline.Stage stage, Exchange exchange, CountDownLatch done) {
+        assertThat(stage.process(exchange, sync -> {
+            completed.add(exchange.getMessage().getBody(String.class));
+            done.countDown();
+        })).isFalse();
+    }
+
+    private Exchange exchange(String body) {
+        Exchange exchange = new DefaultExchange(context, ExchangePattern.InOut);
+        exchange.getMessage().setBody(body);
+        return exchange;
+    }
+
+    private static PipelineConfig config(boolean enabled, int queueCapacity) {
+        PipelineConfig config = new PipelineConfig();
+        config.setEnabled(enabled);
+        config.setIngestTimeoutMillis(50);
+        for (PipelineConfig.Stage stage : List.of(config.getIngest(), config.getPersist(), config.getDispatch(),
+                config.getDecision())) {
+            stage.setWorkers(1);
+            stage.setQueueCapacity(queueCapacity);
+        }
+        return config;
+    }
+}
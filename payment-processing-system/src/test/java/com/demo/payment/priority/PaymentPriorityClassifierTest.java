@@ -0,0 +1,116 @@
+package com.demo.payment.priority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.messaging.PaymentPriority;
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.config.PaymentRouteConfig;
+import com.demo.payment.config.PriorityConfig;
+
+@DisplayName("Payment Priority Classifier Tests")
+class PaymentPriorityClassifierTest {
+
+    private PriorityConfig config;
+    private PaymentPriorityClassifier classifier;
+
+    @BeforeEach
+    void setUp() {
+        config = new PriorityConfig();
+        config.getThresholds().put("EUR", new BigDecimal("100000"));
+        config.getThresholds().put("JPY", new BigDecimal("15000000"));
+        classifier = new PaymentPriorityClassifier(config);
+    }
+
+    @Test
+    @DisplayName("Should make payments from the threshold of their currency high priority")
+    void shouldClassifyByCurrencyThreshold() {
+        // When/Then
+        assertThat(classifier.classify(payment("100000.00", "EUR"))).isEqualTo(PaymentPriority.HIGH);
+        assertThat(classifier.classify(payment("10000000.00", "eur"))).isEqualTo(PaymentPriority.HIGH);
+        assertThat(classifier.classify(payment("99999.99", "EUR"))).isEqualTo(PaymentPriority.NORMAL);
+        assertThat(classifier.classify(payment("100000.00", "JPY"))).isEqualTo(PaymentPriority.NORMAL);
+    }
+
+    @Test
+    @DisplayName("Should use the default threshold for other currencies, or none without one")
+    void shouldUseDefaultThreshold() {
+        // Given
+        PaymentRequest payment = payment("250000.00", "SEK");
+
+        // When
+        PaymentPriority withoutDefault = classifier.classify(payment);
+        config.setDefaultThreshold(new BigDecimal("200000"));
+        PaymentPriority withDefault = classifier.classify(payment);
+
+        // Then
+        assertThat(withoutDefault).isEqualTo(PaymentPriority.NORMAL);
+        assertThat(withDefault).isEqualTo(PaymentPriority.HIGH);
+        assertThat(classifier.classify(payment(null, "EUR"))).isEqualTo(PaymentPriority.NORMAL);
+    }
+
+    @Test
+    @DisplayName("Should set the priority header and keep everything normal when disabled")
+    void shouldSetHeader() {
+        // Given
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getMessage().setBody(payment("5000000.00", "EUR"));
+
+        // When
+        classifier.process(exchange);
+        String enabled = exchange.getMessage().getHeader(PaymentPriority.HEADER, String.class);
+        config.setEnabled(false);
+        classifier.process(exchange);
+
+        // Then
+        assertThat(enabled).isEqualTo("HIGH");
+        assertThat(PaymentPriority.of(exchange.getMessage())).isEqualTo(PaymentPriority.NORMAL);
+    }
+
+    @Test
+    @DisplayName("Should keep messages without a payment request normal")
+    void shouldTreatMissingRequestAsNormal() {
+        // Given
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+
+        // When
+        classifier.process(exchange);
+
+        // Then
+        assertThat(classifier.classify(null)).isEqualTo(PaymentPriority.NORMAL);
+        assertThat(exchange.getMessage().getHeader(PaymentPriority.HEADER, String.class)).isEqualTo("NORMAL");
+    }
+
+    @Test
+    @DisplayName("Should send high priority requests to their own queues with JMSPriority")
+    void shouldBuildHighPriorityEndpoint() {
+        // Given
+        PaymentRouteConfig.Jms jms = new PaymentRouteConfig.Jms();
+        jms.setInstanceId("pps-1");
+
+        // When
+        String normal = jms.requestReplyUri();
+        String high = jms.requestReplyUri(PaymentPriority.HIGH);
+
+        // Then
+        assertThat(normal).startsWith("jms:queue:broker.requests?").doesNotContain("priority=")
+            .contains("replyTo=queue:broker.responses.pps-1&");
+        assertThat(high).startsWith("jms:queue:broker.requests.high?")
+            .contains("explicitQosEnabled=true&priority=9", "replyTo=queue:broker.responses.pps-1.high&");
+    }
+
+    private static PaymentRequest payment(String amount, String currency) {
+        return PaymentRequest.builder()
+            .amount(amount == null ? null : new BigDecimal(amount))
+            .currency(currency)
+            .build();
+    }
+}
@@ -222,6 +222,44 @@ class InMemoryPaymentRepositoryTest {
         assertThat(deleted).isFalse();
     }
 
+    @Test
+    @DisplayName("Should return latest distinct payments newest first")
+    void shouldReturnRecentPaymentsNewestFirst() {
+        // Given
+        PaymentRecord first = repository.save(createTestPaymentRecord());
+        PaymentRecord second = repository.save(createTestPaymentRecord());
+        PaymentRecord third = repository.save(createTestPaymentRecord());
+        first.updateStatus(PaymentStatus.APPROVED);
+        repository.update(first);
+
+        // When
+        List<PaymentRecord> recent = repository.findRecent(10);
+
+        // Then
+        assertThat(recent).containsExactly(first, third, second);
+        assertThat(repository.findRecent(2)).containsExactly(first, third);
+    }
+
+    @Test
+    @DisplayName("Should keep only the buffer capacity and skip deleted payments")
+    void shouldBoundRecentPaymentsAndSkipDeleted() {
+        // Given
+        InMemoryPaymentRepository small = new InMemoryPaymentRepository(4);
+        for (int i = 0; i < 10; i++) {
+            small.save(createTestPaymentRecord());
+        }
+        PaymentRecord newest = small.save(createTestPaymentRecord());
+        PaymentRecord deleted = small.save(createTestPaymentRecord());
+        small.deleteByTransactionId(deleted.getTransactionId());
+
+        // When
+        List<PaymentRecord> recent = small.findRecent(100);
+
+        // Then
+        assertThat(recent).hasSize(3).doesNotContain(deleted);
+        assertThat(recent.get(0)).isEqualTo(newest);
+    }
+
     @Test
     @DisplayName("Should clear all payments")
     void shouldClearAllPayments() {
@@ -236,6 +274,7 @@ class InMemoryPaymentRepositoryTest {
         // Then
         assertThat(repository.count()).isEqualTo(0);
         assertThat(repository.findAll()).isEmpty();
+        assertThat(repository.findRecent(10)).isEmpty();
     }
 
     private PaymentRecord createTestPaymentRecord() {
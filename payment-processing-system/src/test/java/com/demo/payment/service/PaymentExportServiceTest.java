@@ -0,0 +1,159 @@
+package com.demo.payment.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.archive.PaymentArchive;
+import com.demo.payment.model.ExportFormat;
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.model.PaymentStatus;
+import com.demo.payment.repository.InMemoryPaymentRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+@DisplayName("Payment Export Service Tests")
+class PaymentExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @TempDir
+    Path archiveDirectory;
+
+    private InMemoryPaymentRepository repository;
+    private PaymentArchive archive;
+    private PaymentExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryPaymentRepository();
+        archive = new PaymentArchive(archiveDirectory);
+        exportService = new PaymentExportService(repository, archive, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Should export one JSON document per line within the date range")
+    void shouldExportNdjsonWithinDateRange() throws IOException {
+        // Given
+        PaymentRecord inRange = save("John Doe", PaymentStatus.APPROVED, "2024-01-31T23:59:59Z");
+        save("John Doe", PaymentStatus.APPROVED, "2024-02-01T00:00:00Z");
+        save("John Doe", PaymentStatus.APPROVED, "2023-12-31T23:59:59Z");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = exportService.export(out, ExportFormat.NDJSON,
+            LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(1);
+        assertThat(lines).hasSize(1);
+        JsonNode json = objectMapper.readTree(lines[0]);
+        assertThat(json.get("transactionId").asText()).isEqualTo(inRange.getTransactionId().toString());
+        assertThat(json.get("submittedTimestamp").asText()).isEqualTo("2024-01-31T23:59:59Z");
+    }
+
+    @Test
+    @DisplayName("Should export CSV with header, status filter and RFC 4180 escaping")
+    void shouldExportCsvFilteredByStatus() throws IOException {
+        // Given
+        PaymentRecord approved = save("Doe, \"Johnny\"", PaymentStatus.APPROVED, "2024-01-15T10:00:00Z");
+        save("Jane Smith", PaymentStatus.REJECTED, "2024-01-15T10:00:00Z");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = exportService.export(out, ExportFormat.CSV, null, null, PaymentStatus.APPROVED);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(rows).isEqualTo(1);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("transactionId,status,submittedTimestamp,");
+        assertThat(lines[1]).startsWith(approved.getTransactionId() + ",APPROVED,2024-01-15T10:00:00Z,")
+            .contains(",\"Doe, \"\"Johnny\"\"\",")
+            .contains(",100.50,EUR,");
+    }
+
+    @Test
+    @DisplayName("Should export archived payments with the same filters, ahead of those in memory")
+    void shouldExportArchivedPayments() throws IOException {
+        // Given
+        PaymentRecord archived = save("John Doe", PaymentStatus.APPROVED, "2024-01-10T08:00:00Z");
+        PaymentRecord archivedRejected = save("John Doe", PaymentStatus.REJECTED, "2024-01-10T09:00:00Z");
+        PaymentRecord archivedBefore = save("John Doe", PaymentStatus.APPROVED, "2023-12-31T23:59:59Z");
+        archive.archive(List.of(archived, archivedRejected, archivedBefore));
+        List.of(archived, archivedRejected, archivedBefore)
+            .forEach(payment -> repository.deleteByTransactionId(payment.getTransactionId()));
+        PaymentRecord inMemory = save("John Doe", PaymentStatus.APPROVED, "2024-01-20T08:00:00Z");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = exportService.export(out, ExportFormat.NDJSON,
+            LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), PaymentStatus.APPROVED);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(2);
+        assertThat(lines).extracting(line -> objectMapper.readTree(line).get("transactionId").asText())
+            .containsExactly(archived.getTransactionId().toString(), inMemory.getTransactionId().toString());
+    }
+
+    @Test
+    @DisplayName("Should export only the header when nothing matches")
+    void shouldExportHeaderOnlyWhenEmpty() throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = exportService.export(out, ExportFormat.CSV, null, null, null);
+
+        // Then
+        assertThat(rows).isZero();
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\r\n")).hasSize(1);
+    }
+
+    private PaymentRecord save(String payerName, PaymentStatus status, String submitted) {
+        PaymentRequest request = PaymentRequest.builder()
+            .transactionId(UUID.randomUUID())
+            .payerName(payerName)
+            .payerBank("Bank of America")
+            .payerCountryCode("USA")
+            .payerAccount("1234567890123456")
+            .payeeName("Jane Smith")
+            .payeeBank("Deutsche Bank")
+            .payeeCountryCode("DEU")
+            .payeeAccount("DE89370400440532013000")
+            .paymentInstruction("Invoice payment")
+            .executionDate(LocalDate.of(2024, 1, 20))
+            .amount(new BigDecimal("100.50"))
+            .currency("EUR")
+            .creationTimestamp(Instant.parse(submitted))
+            .build();
+        PaymentRecord record = PaymentRecord.builder()
+            .transactionId(request.getTransactionId())
+            .paymentRequest(request)
+            .status(status)
+            .submittedTimestamp(Instant.parse(submitted))
+            .lastUpdatedTimestamp(Instant.parse(submitted))
+            .build();
+        return repository.save(record);
+    }
+}
@@ -29,6 +29,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import com.demo.common.model.FraudCheckResponse;
 import com.demo.common.model.FraudCheckStatus;
 import com.demo.common.model.PaymentRequest;
+import com.demo.payment.archive.PaymentArchive;
 import com.demo.payment.exception.PaymentAlreadyExistsException;
 import com.demo.payment.model.PaymentRecord;
 import com.demo.payment.model.PaymentStatus;
@@ -48,11 +49,14 @@ class PaymentServiceTest {
     @Mock
     private ProducerTemplate producerTemplate;
 
+    @Mock
+    private PaymentArchive paymentArchive;
+
     private PaymentService paymentService;
 
     @BeforeEach
     void setUp() {
-        paymentService = new PaymentService(paymentRepository, paymentValidator, producerTemplate);
+        paymentService = new PaymentService(paymentRepository, paymentValidator, producerTemplate, paymentArchive);
     }
 
     @Test
@@ -93,6 +97,19 @@ class PaymentServiceTest {
         verify(producerTemplate, never()).requestBody(any(String.class), any(), any(Class.class));
     }
 
+    @Test
+    @DisplayName("Should reject a payment whose transaction ID was archived")
+    void shouldRejectArchivedPayment() {
+        // Given
+        PaymentRequest request = createTestPaymentRequest();
+        when(paymentArchive.contains(request.getTransactionId())).thenReturn(true);
+
+        // When/Then
+        assertThatThrownBy(() -> paymentService.save(request))
+            .isInstanceOf(PaymentAlreadyExistsException.class);
+        verify(paymentRepository, never()).save(any(PaymentRecord.class));
+    }
+
     @Test
     @DisplayName("Should update payment status to approved")
     void shouldUpdatePaymentStatusToApproved() {
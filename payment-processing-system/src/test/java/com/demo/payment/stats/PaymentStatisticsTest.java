@@ -0,0 +1,108 @@
+package com.demo.payment.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.model.PaymentRequest;
+import com.demo.payment.model.PaymentRecord;
+import com.demo.payment.model.PaymentStatus;
+
+@DisplayName("Payment Statistics Tests")
+class PaymentStatisticsTest {
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+    private PaymentStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new PaymentStatistics(clock::get);
+    }
+
+    @Test
+    @DisplayName("Should track status counts across transitions")
+    void shouldTrackStatusCounts() {
+        // Given
+        PaymentRecord approved = submit("EUR", "100.00");
+        PaymentRecord rejected = submit("EUR", "50.50");
+        submit("USD", "10.00");
+
+        // When
+        transition(approved, PaymentStatus.APPROVED);
+        transition(rejected, PaymentStatus.REJECTED);
+
+        // Then
+        PaymentStatistics.Snapshot snapshot = statistics.snapshot();
+        assertThat(snapshot.getStatusCounts().get(PaymentStatus.PENDING_FRAUD_CHECK)).isEqualTo(1);
+        assertThat(snapshot.getStatusCounts().get(PaymentStatus.APPROVED)).isEqualTo(1);
+        assertThat(snapshot.getStatusCounts().get(PaymentStatus.REJECTED)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should compute rates and volume per currency within the window")
+    void shouldComputeRatesAndVolume() {
+        // Given
+        PaymentRecord first = submit("EUR", "100.00");
+        PaymentRecord second = submit("EUR", "50.50");
+        PaymentRecord third = submit("GBP", "10.00");
+        transition(first, PaymentStatus.APPROVED);
+        transition(second, PaymentStatus.APPROVED);
+        transition(third, PaymentStatus.REJECTED);
+
+        // When
+        PaymentStatistics.WindowStatistics lastMinute = statistics.snapshot().getWindows().get("1m");
+
+        // Then
+        assertThat(lastMinute.getSubmitted()).isEqualTo(3);
+        assertThat(lastMinute.getApprovalRate()).isEqualByComparingTo("0.6667");
+        assertThat(lastMinute.getRejectionRate()).isEqualByComparingTo("0.3333");
+        assertThat(lastMinute.getVolumeByCurrency()).containsEntry("EUR", new BigDecimal("150.50"));
+        assertThat(lastMinute.getCountByCurrency()).containsEntry("GBP", 1L);
+    }
+
+    @Test
+    @DisplayName("Should drop events that slid out of the window")
+    void shouldSlideWindows() {
+        // Given
+        submit("EUR", "100.00");
+
+        // When
+        clock.addAndGet(120_000);
+        submit("EUR", "1.00");
+
+        // Then
+        PaymentStatistics.Snapshot snapshot = statistics.snapshot();
+        assertThat(snapshot.getWindows().get("1m").getSubmitted()).isEqualTo(1);
+        assertThat(snapshot.getWindows().get("1m").getVolumeByCurrency()).containsEntry("EUR", new BigDecimal("1.00"));
+        assertThat(snapshot.getWindows().get("5m").getSubmitted()).isEqualTo(2);
+        assertThat(snapshot.getWindows().get("1h").getVolumeByCurrency()).containsEntry("EUR", new BigDecimal("101.00"));
+    }
+
+    private PaymentRecord submit(String currency, String amount) {
+        PaymentRequest request = PaymentRequest.builder()
+            .transactionId(UUID.randomUUID())
+            .amount(new BigDecimal(amount))
+            .currency(currency)
+            .executionDate(LocalDate.now())
+            .creationTimestamp(Instant.now())
+            .build();
+        PaymentRecord record = PaymentRecord.fromRequest(request);
+        statistics.onStatusChange(record, null);
+        return record;
+    }
+
+    private void transition(PaymentRecord record, PaymentStatus status) {
+        PaymentStatus previous = record.getStatus();
+        record.updateStatus(status);
+        statistics.onStatusChange(record, previous);
+    }
+}
@@ -0,0 +1,343 @@
+package com.demo.common.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.demo.common.model.FraudCheckBatchRequest;
+import com.demo.common.model.FraudCheckBatchResponse;
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+
+/**
+ * Compact binary encoding of the fraud check request and response, an alternative to the JAXB XML on the
+ * broker to fraud check hop.
+ *
+ * Layout: magic, version, message type, a presence bitmap, then the present fields in schema (propOrder) order.
+ * UUIDs take 16 bytes, strings are length prefixed UTF-8, dates and timestamps are zigzag varints of epoch
+ * day / epoch second (+ nanos), amounts are scale plus unscaled two's complement bytes. Batches are a varint
+ * count followed by the encoded items.
+ */
+public final class FraudCheckBinaryCodec {
+
+    /** Content-Type header value announcing this encoding */
+    public static final String CONTENT_TYPE = "application/vnd.demo.fraudcheck+binary";
+
+    private static final byte MAGIC = (byte) 0xFC;
+    private static final byte VERSION = 1;
+    private static final byte REQUEST = 1;
+    private static final byte RESPONSE = 2;
+    private static final byte BATCH_REQUEST = 3;
+    private static final byte BATCH_RESPONSE = 4;
+
+    private static final FraudCheckStatus[] STATUSES = FraudCheckStatus.values();
+
+    private FraudCheckBinaryCodec() {
+    }
+
+    /**
+     * Encode a PaymentRequest, FraudCheckResponse or a batch of either
+     */
+    public static byte[] encode(Object message) {
+        if (message instanceof PaymentRequest request) {
+            Output out = header(REQUEST, 256);
+            writeRequest(out, request);
+            return out.toByteArray();
+        }
+        if (message instanceof FraudCheckResponse response) {
+            Output out = header(RESPONSE, 32);
+            writeResponse(out, response);
+            return out.toByteArray();
+        }
+        if (message instanceof FraudCheckBatchRequest batch) {
+            Output out = header(BATCH_REQUEST, 160 * batch.getRequests().size() + 8);
+            out.writeVarLong(batch.getRequests().size());
+            batch.getRequests().forEach(request -> writeRequest(out, request));
+            return out.toByteArray();
+        }
+        if (message instanceof FraudCheckBatchResponse batch) {
+            Output out = header(BATCH_RESPONSE, 32 * batch.getResponses().size() + 8);
+            out.writeVarLong(batch.getResponses().size());
+            batch.getResponses().forEach(response -> writeResponse(out, response));
+            return out.toByteArray();
+        }
+        throw new IllegalArgumentException("Cannot encode " + (message == null ? "null" : message.getClass().getName()));
+    }
+
+    /**
+     * Decode to a PaymentRequest, FraudCheckResponse or batch, depending on the encoded message type
+     */
+    public static Object decode(byte[] bytes) {
+        Input in = new Input(bytes);
+        if (bytes.length < 3 || in.readByte() != MAGIC || in.readByte() != VERSION) {
+            throw new IllegalArgumentException("Not a fraud check binary message (version " + VERSION + ")");
+        }
+        byte type = in.readByte();
+        return switch (type) {
+            case REQUEST -> readRequest(in);
+            case RESPONSE -> readResponse(in);
+            case BATCH_REQUEST -> {
+                int count = in.readCount();
+                List<PaymentRequest> requests = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    requests.add(readRequest(in));
+                }
+                yield new FraudCheckBatchRequest(requests);
+            }
+            case BATCH_RESPONSE -> {
+                int count = in.readCount();
+                List<FraudCheckResponse> responses = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    responses.add(readResponse(in));
+                }
+                yield new FraudCheckBatchResponse(responses);
+            }
+            default -> throw new IllegalArgumentException("Unknown fraud check message type " + type);
+        };
+    }
+
+    private static void writeRequest(Output out, PaymentRequest request) {
+        Object[] fields = {
+            request.getTransactionId(), request.getPayerName(), request.getPayerBank(), request.getPayerCountryCode(),
+            request.getPayerAccount(), request.getPayeeName(), request.getPayeeBank(), request.getPayeeCountryCode(),
+            request.getPayeeAccount(), request.getPaymentInstruction(), request.getExecutionDate(), request.getAmount(),
+            request.getCurrency(), request.getCreationTimestamp()
+        };
+        writePresence(out, fields);
+        for (Object field : fields) {
+            writeValue(out, field);
+        }
+    }
+
+    private static PaymentRequest readRequest(Input in) {
+        int presence = (int) in.readVarLong();
+        PaymentRequest request = new PaymentRequest();
+        if (present(presence, 0)) request.setTransactionId(in.readUuid());
+        if (present(presence, 1)) request.setPayerName(in.readString());
+        if (present(presence, 2)) request.setPayerBank(in.readString());
+        if (present(presence, 3)) request.setPayerCountryCode(in.readString());
+        if (present(presence, 4)) request.setPayerAccount(in.readString());
+        if (present(presence, 5)) request.setPayeeName(in.readString());
+        if (present(presence, 6)) request.setPayeeBank(in.readString());
+        if (present(presence, 7)) request.setPayeeCountryCode(in.readString());
+        if (present(presence, 8)) request.setPayeeAccount(in.readString());
+        if (present(presence, 9)) request.setPaymentInstruction(in.readString());
+        if (present(presence, 10)) request.setExecutionDate(LocalDate.ofEpochDay(in.readZigZag()));
+        if (present(presence, 11)) request.setAmount(in.readDecimal());
+        if (present(presence, 12)) request.setCurrency(in.readString());
+        if (present(presence, 13)) request.setCreationTimestamp(in.readInstant());
+        return request;
+    }
+
+    private static void writeResponse(Output out, FraudCheckResponse response) {
+        Object[] fields = { response.getTransactionId(), response.getStatus(), response.getValidationTimestamp() };
+        writePresence(out, fields);
+        for (Object field : fields) {
+            writeValue(out, field);
+        }
+    }
+
+    private static FraudCheckResponse readResponse(Input in) {
+        int presence = (int) in.readVarLong();
+        FraudCheckResponse response = new FraudCheckResponse();
+        if (present(presence, 0)) response.setTransactionId(in.readUuid());
+        if (present(presence, 1)) response.setStatus(STATUSES[in.readByte()]);
+        if (present(presence, 2)) response.setValidationTimestamp(in.readInstant());
+        return response;
+    }
+
+    private static Output header(byte type, int capacity) {
+        Output out = new Output(capacity);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(type);
+        return out;
+    }
+
+    private static void writePresence(Output out, Object[] fields) {
+        long presence = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] != null) {
+                presence |= 1L << i;
+            }
+        }
+        out.writeVarLong(presence);
+    }
+
+    private static void writeValue(Output out, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof String string) {
+            out.writeString(string);
+        } else if (value instanceof UUID uuid) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else if (value instanceof LocalDate date) {
+            out.writeZigZag(date.toEpochDay());
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeZigZag(decimal.scale());
+            byte[] unscaled = decimal.unscaledValue().toByteArray();
+            out.writeVarLong(unscaled.length);
+            out.writeBytes(unscaled);
+        } else if (value instanceof Instant instant) {
+            out.writeZigZag(instant.getEpochSecond());
+            out.writeVarLong(instant.getNano());
+        } else if (value instanceof FraudCheckStatus status) {
+            out.writeByte((byte) status.ordinal());
+        } else {
+            throw new IllegalArgumentException("Unsupported field type " + value.getClass().getName());
+        }
+    }
+
+    private static boolean present(int presence, int field) {
+        return (presence & (1 << field)) != 0;
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int position;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private void writeByte(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes);
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        private Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private byte readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated fraud check binary message");
+            }
+            return buffer[position++];
+        }
+
+        private byte[] readBytes(int length) {
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated fraud check binary message");
+            }
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (readByte() & 0xFF);
+            }
+            return value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in fraud check binary message");
+        }
+
+        private int readCount() {
+            long count = readVarLong();
+            // Every item takes at least its presence byte, anything larger cannot be a valid count
+            if (count < 0 || count > buffer.length - position) {
+                throw new IllegalArgumentException("Truncated fraud check binary message");
+            }
+            return (int) count;
+        }
+
+        private long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Truncated fraud check binary message");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private UUID readUuid() {
+            return new UUID(readLong(), readLong());
+        }
+
+        private BigDecimal readDecimal() {
+            int scale = (int) readZigZag();
+            byte[] unscaled = readBytes((int) readVarLong());
+            return new BigDecimal(new BigInteger(unscaled), scale);
+        }
+
+        private Instant readInstant() {
+            long seconds = readZigZag();
+            return Instant.ofEpochSecond(seconds, readVarLong());
+        }
+    }
+}
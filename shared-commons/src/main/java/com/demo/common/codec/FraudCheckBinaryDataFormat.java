@@ -0,0 +1,34 @@
+package com.demo.common.codec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.DataFormat;
+import org.apache.camel.spi.DataFormatName;
+import org.apache.camel.support.service.ServiceSupport;
+
+/**
+ * Camel data format for {@link FraudCheckBinaryCodec}. Marshalling also sets the Content-Type header,
+ * so the receiving side can tell the encoding apart from XML.
+ */
+public class FraudCheckBinaryDataFormat extends ServiceSupport implements DataFormat, DataFormatName {
+
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+
+    @Override
+    public String getDataFormatName() {
+        return "fraudCheckBinary";
+    }
+
+    @Override
+    public void marshal(Exchange exchange, Object graph, OutputStream stream) throws Exception {
+        stream.write(FraudCheckBinaryCodec.encode(graph));
+        exchange.getMessage().setHeader(CONTENT_TYPE_HEADER, FraudCheckBinaryCodec.CONTENT_TYPE);
+    }
+
+    @Override
+    public Object unmarshal(Exchange exchange, InputStream stream) throws Exception {
+        return FraudCheckBinaryCodec.decode(stream.readAllBytes());
+    }
+}
@@ -0,0 +1,172 @@
+package com.demo.common.concurrent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded map of outstanding and completed calls by key, for callers that run a call once per key.
+ *
+ * Callers of a key join the same flight. The one that claims it runs the call, the others wait on its future, and
+ * once the call completed they get its outcome until it expires. Only completed entries expire or are evicted to
+ * stay within maxEntries, an outstanding call is never dropped, so followers arriving while it runs always join it.
+ * With more than maxEntries calls outstanding the map grows past the bound until they complete.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlightCache<K, V> {
+
+    private final LongSupplier clock;
+    private final IntSupplier maxEntries;
+
+    /** Outstanding entries in start order, completed entries behind them in completion order */
+    private final LinkedHashMap<K, Flight> flights = new LinkedHashMap<>();
+
+    public SingleFlightCache(LongSupplier clock, IntSupplier maxEntries) {
+        this.clock = clock;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * The flight of the key. A new one is started when there is none or it expired.
+     *
+     * @param owner kept with a new flight, so followers can check it was started for the same purpose
+     */
+    public Flight join(K key, Object owner) {
+        synchronized (flights) {
+            long now = clock.getAsLong();
+            evictExpired(now);
+            Flight flight = flights.get(key);
+            if (flight != null && !flight.isExpired(now)) {
+                return flight;
+            }
+            flight = new Flight(key, owner);
+            flights.put(key, flight);
+            if (flights.size() > maxEntries.getAsInt()) {
+                evictOldestCompleted();
+            }
+            return flight;
+        }
+    }
+
+    public int size() {
+        synchronized (flights) {
+            return flights.size();
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Flight> iterator = flights.values().iterator();
+        while (iterator.hasNext()) {
+            Flight flight = iterator.next();
+            if (!flight.future.isDone()) {
+                continue;
+            }
+            if (!flight.isExpired(now)) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private void evictOldestCompleted() {
+        Iterator<Flight> iterator = flights.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().future.isDone()) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * One call of a key
+     */
+    public final class Flight {
+        private final K key;
+        private final Object owner;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        /** Set when the call completes, outstanding flights do not expire */
+        private long expiresAt = Long.MAX_VALUE;
+
+        private boolean claimed;
+
+        private Flight(K key, Object owner) {
+            this.key = key;
+            this.owner = owner;
+        }
+
+        /**
+         * True for exactly one caller of the flight, which has to run the call and complete the flight
+         */
+        public boolean claim() {
+            synchronized (flights) {
+                if (claimed) {
+                    return false;
+                }
+                claimed = true;
+                return true;
+            }
+        }
+
+        public Object getOwner() {
+            return owner;
+        }
+
+        public CompletableFuture<V> future() {
+            return future;
+        }
+
+        public boolean isFailed() {
+            return future.isCompletedExceptionally();
+        }
+
+        /**
+         * Complete the flight, followers get the result until ttlMillis from now
+         */
+        public void succeed(V result, long ttlMillis) {
+            expireAfter(ttlMillis);
+            future.complete(result);
+        }
+
+        /**
+         * Fail the flight, followers get the failure until ttlMillis from now. With 0 the flight is dropped and the
+         * next caller of the key starts a new one.
+         */
+        public void fail(Throwable error, long ttlMillis) {
+            if (ttlMillis <= 0) {
+                remove();
+            } else {
+                expireAfter(ttlMillis);
+            }
+            future.completeExceptionally(error);
+        }
+
+        /**
+         * Drop the flight if it is still the one of its key, so the next caller starts a new one
+         */
+        public void remove() {
+            synchronized (flights) {
+                flights.remove(key, this);
+            }
+        }
+
+        private void expireAfter(long ttlMillis) {
+            synchronized (flights) {
+                expiresAt = clock.getAsLong() + ttlMillis;
+                // Completed flights are kept in completion order, so the expired ones sit at the head
+                if (flights.remove(key, this)) {
+                    flights.put(key, this);
+                }
+            }
+        }
+
+        private boolean isExpired(long now) {
+            return future.isDone() && expiresAt <= now;
+        }
+    }
+}
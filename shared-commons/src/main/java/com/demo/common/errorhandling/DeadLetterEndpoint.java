@@ -0,0 +1,38 @@
+package com.demo.common.errorhandling;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Operator endpoint re-injecting dead letters once the cause of their failure is fixed.
+ *
+ * An actuator endpoint, so it is only reachable over HTTP once deadletters is added to
+ * management.endpoints.web.exposure.include, and then on the management port, which should be separate and bound
+ * to an internal interface (management.server.port and management.server.address).
+ */
+@Endpoint(id = "deadletters")
+public class DeadLetterEndpoint {
+
+    private static final int DEFAULT_MAX = 100;
+
+    private final DeadLetterReinjector reinjector;
+
+    public DeadLetterEndpoint(DeadLetterReinjector reinjector) {
+        this.reinjector = reinjector;
+    }
+
+    /**
+     * Re-inject up to max messages of a dead letter queue to the route endpoint each came from
+     */
+    @WriteOperation
+    public DeadLetterReinjector.Result reinject(@Selector String queue, @Nullable Integer max) {
+        try {
+            return reinjector.reinject(queue, max == null ? DEFAULT_MAX : max);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.demo.common.errorhandling;
+
+/**
+ * A request failed for good and was dead-lettered, here or by the service that answered it. It is never retried.
+ */
+public class DeadLetterException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String deadLetterQueue;
+
+    public DeadLetterException(String message, String deadLetterQueue) {
+        super(message);
+        this.deadLetterQueue = deadLetterQueue;
+    }
+
+    public String getDeadLetterQueue() {
+        return deadLetterQueue;
+    }
+}
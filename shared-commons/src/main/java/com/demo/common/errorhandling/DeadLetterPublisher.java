@@ -0,0 +1,131 @@
+package com.demo.common.errorhandling;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Message;
+import org.apache.camel.ProducerTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dead letter endpoint of the routes, see {@link RouteErrorHandling}.
+ *
+ * Sends the original message of a failed exchange to the route's dead letter queue, with the failure described in
+ * dlq* headers, then turns the exchange into a failure reply: a text body, HTTP status 503 and the
+ * {@value RouteErrorHandling#DEAD_LETTER_QUEUE_HEADER} header naming the queue. A request that failed because the
+ * downstream service already dead-lettered it is not stored twice.
+ */
+@Slf4j
+public class DeadLetterPublisher {
+
+    public static final String ROUTE_ID_HEADER = "dlqRouteId";
+    public static final String FROM_ENDPOINT_HEADER = "dlqFromEndpoint";
+    public static final String EXCEPTION_TYPE_HEADER = "dlqExceptionType";
+    public static final String EXCEPTION_MESSAGE_HEADER = "dlqExceptionMessage";
+    public static final String FAILED_AT_HEADER = "dlqFailedAt";
+    public static final String ATTEMPTS_HEADER = "dlqAttempts";
+
+    /** Set when a model object was stored as JSON, so it can be restored on re-injection */
+    public static final String BODY_TYPE_HEADER = "dlqBodyType";
+
+    /** Prefix of the model classes that are stored as JSON and may be restored from it */
+    static final String MODEL_PACKAGE = "com.demo.";
+
+    private final ErrorHandlingProperties properties;
+    private final ProducerTemplate producerTemplate;
+    private final ObjectMapper objectMapper;
+
+    public DeadLetterPublisher(ErrorHandlingProperties properties, ProducerTemplate producerTemplate,
+            ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.producerTemplate = producerTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Dead-letter the exchange and leave the failure reply in it, for callers waiting on a reply
+     */
+    public void publish(Exchange exchange) throws Exception {
+        String routeId = exchange.getProperty(RouteErrorHandling.ROUTE_ID_PROPERTY, String.class);
+        Exception cause = exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+        int attempts = exchange.getProperty(RouteErrorHandling.ATTEMPTS_PROPERTY, 1, Integer.class);
+
+        String queue;
+        if (cause instanceof DeadLetterException downstream) {
+            queue = downstream.getDeadLetterQueue();
+            log.warn("Route {} failed because the request was dead-lettered to {} downstream", routeId, queue);
+        } else {
+            queue = properties.deadLetterQueue(routeId);
+            send(exchange, queue, routeId, cause, attempts);
+        }
+
+        Message message = exchange.getMessage();
+        message.setBody(String.format("%s failed after %d attempt(s) and was dead-lettered to %s: %s",
+            routeId, attempts, queue, cause == null ? "unknown error" : cause.getMessage()));
+        message.setHeader("Content-Type", "text/plain");
+        message.setHeader(Exchange.HTTP_RESPONSE_CODE, 503);
+        message.setHeader(RouteErrorHandling.DEAD_LETTER_QUEUE_HEADER, queue);
+    }
+
+    /**
+     * Dead-letter the exchange, then fail it with a {@link DeadLetterException}, for callers expecting an exception.
+     * A pass-through exception is rethrown as it is instead.
+     */
+    public void publishAndFail(Exchange exchange) throws Exception {
+        if (exchange.getProperty(RouteErrorHandling.PASS_THROUGH_PROPERTY, false, Boolean.class)) {
+            Throwable cause = RouteErrorHandling.caught(exchange);
+            throw cause instanceof Exception e ? e : new IllegalStateException(cause);
+        }
+        publish(exchange);
+        Message message = exchange.getMessage();
+        throw new DeadLetterException(message.getBody(String.class),
+            message.getHeader(RouteErrorHandling.DEAD_LETTER_QUEUE_HEADER, String.class));
+    }
+
+    private void send(Exchange failed, String queue, String routeId, Exception cause, int attempts)
+            throws Exception {
+        Message original = failed.getMessage();
+        Object body = original.getBody();
+        Object payload;
+        String bodyType = null;
+        if (body == null || body instanceof String || body instanceof byte[]) {
+            payload = body;
+        } else if (body.getClass().getName().startsWith(MODEL_PACKAGE)) {
+            payload = objectMapper.writeValueAsBytes(body);
+            bodyType = body.getClass().getName();
+        } else {
+            payload = original.getBody(byte[].class);
+        }
+        String fromEndpoint = failed.getFromEndpoint() == null ? null
+            : failed.getFromEndpoint().getEndpointUri().replaceFirst("\\?.*", "");
+        String storedBodyType = bodyType;
+
+        Exchange sent = producerTemplate.send("jms:queue:" + queue, ExchangePattern.InOnly, exchange -> {
+            Message message = exchange.getIn();
+            for (Map.Entry<String, Object> header : original.getHeaders().entrySet()) {
+                // Reply and routing headers of the failed exchange must not apply to the dead letter
+                if (!header.getKey().startsWith("JMS") && !header.getKey().regionMatches(true, 0, "Camel", 0, 5)) {
+                    message.setHeader(header.getKey(), header.getValue());
+                }
+            }
+            message.setBody(payload);
+            message.setHeader(ROUTE_ID_HEADER, routeId);
+            message.setHeader(FROM_ENDPOINT_HEADER, fromEndpoint);
+            message.setHeader(EXCEPTION_TYPE_HEADER, cause == null ? null : cause.getClass().getName());
+            message.setHeader(EXCEPTION_MESSAGE_HEADER, cause == null ? null : cause.getMessage());
+            message.setHeader(FAILED_AT_HEADER, Instant.now().toString());
+            message.setHeader(ATTEMPTS_HEADER, attempts);
+            message.setHeader(BODY_TYPE_HEADER, storedBodyType);
+        });
+        if (sent.getException() != null) {
+            throw sent.getException();
+        }
+        log.error("Route {} failed after {} attempt(s), dead-lettered to {}: {}", routeId, attempts, queue,
+            cause == null ? "unknown error" : cause.toString());
+    }
+}
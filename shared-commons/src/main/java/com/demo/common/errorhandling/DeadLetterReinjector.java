@@ -0,0 +1,138 @@
+package com.demo.common.errorhandling;
+
+import java.util.Map;
+
+import org.apache.camel.ConsumerTemplate;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Message;
+import org.apache.camel.ProducerTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves dead letters back to the endpoint their route consumed from once the cause of the failure is fixed. The
+ * dlq* headers are removed and model objects stored as JSON are restored first.
+ *
+ * Dead letters only go to an endpoint a route of this service consumes from, so a dead letter naming any other
+ * endpoint in its {@value DeadLetterPublisher#FROM_ENDPOINT_HEADER} header stays on the dead letter queue.
+ * Re-injected messages carry the {@value #REINJECTED_HEADER} header, so a route can tell that the steps before the
+ * failure already ran once for them.
+ */
+@Slf4j
+public class DeadLetterReinjector {
+
+    /** Set on re-injected messages */
+    public static final String REINJECTED_HEADER = "deadLetterReinjected";
+
+    private static final long RECEIVE_TIMEOUT_MILLIS = 1000;
+
+    private final ErrorHandlingProperties properties;
+    private final ConsumerTemplate consumerTemplate;
+    private final ProducerTemplate producerTemplate;
+    private final ObjectMapper objectMapper;
+
+    public DeadLetterReinjector(ErrorHandlingProperties properties, ConsumerTemplate consumerTemplate,
+            ProducerTemplate producerTemplate, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.consumerTemplate = consumerTemplate;
+        this.producerTemplate = producerTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Re-inject up to max messages of the dead letter queue to where each message came from. A message that cannot
+     * be sent is put back on the dead letter queue and counted as failed.
+     */
+    public Result reinject(String queue, int max) {
+        if (!queue.startsWith(properties.getDeadLetterQueuePrefix())) {
+            throw new IllegalArgumentException("Not a dead letter queue: " + queue);
+        }
+        Result result = new Result(queue);
+        for (int i = 0; i < max; i++) {
+            Exchange deadLetter = consumerTemplate.receive("jms:queue:" + queue, RECEIVE_TIMEOUT_MILLIS);
+            if (deadLetter == null) {
+                break;
+            }
+            try {
+                reinject(deadLetter.getMessage());
+                result.reinjected++;
+            } catch (Exception e) {
+                log.error("Could not re-inject a dead letter of {}, putting it back: {}", queue, e.getMessage());
+                producerTemplate.send("jms:queue:" + queue, ExchangePattern.InOnly,
+                    exchange -> exchange.getIn().copyFrom(deadLetter.getMessage()));
+                result.failed++;
+            } finally {
+                consumerTemplate.doneUoW(deadLetter);
+            }
+        }
+        log.info("Re-injected {} dead letter(s) of {}, {} failed", result.reinjected, queue, result.failed);
+        return result;
+    }
+
+    private void reinject(Message deadLetter) throws Exception {
+        String endpoint = deadLetter.getHeader(DeadLetterPublisher.FROM_ENDPOINT_HEADER, String.class);
+        if (endpoint == null) {
+            throw new IllegalArgumentException("No " + DeadLetterPublisher.FROM_ENDPOINT_HEADER + " header");
+        }
+        if (!isRouteEndpoint(endpoint)) {
+            throw new IllegalArgumentException("Refusing to re-inject to " + endpoint
+                + ", no route of this service consumes from it");
+        }
+        Object body = deadLetter.getBody();
+        String bodyType = deadLetter.getHeader(DeadLetterPublisher.BODY_TYPE_HEADER, String.class);
+        if (bodyType != null) {
+            if (!bodyType.startsWith(DeadLetterPublisher.MODEL_PACKAGE)) {
+                throw new IllegalArgumentException("Refusing to restore a body of type " + bodyType);
+            }
+            body = objectMapper.readValue(deadLetter.getBody(byte[].class), Class.forName(bodyType));
+        }
+        Object restored = body;
+        Exchange sent = producerTemplate.send(endpoint, ExchangePattern.InOnly, exchange -> {
+            Message message = exchange.getIn();
+            for (Map.Entry<String, Object> header : deadLetter.getHeaders().entrySet()) {
+                if (!header.getKey().startsWith("dlq") && !header.getKey().startsWith("JMS")) {
+                    message.setHeader(header.getKey(), header.getValue());
+                }
+            }
+            message.setHeader(REINJECTED_HEADER, true);
+            message.setBody(restored);
+        });
+        if (sent.getException() != null) {
+            throw sent.getException();
+        }
+    }
+
+    private boolean isRouteEndpoint(String endpoint) {
+        return producerTemplate.getCamelContext().getRoutes().stream()
+            .map(route -> route.getEndpoint().getEndpointUri().replaceFirst("\\?.*", ""))
+            .anyMatch(endpoint::equals);
+    }
+
+    /**
+     * Outcome of a re-injection run
+     */
+    public static class Result {
+        private final String queue;
+        private int reinjected;
+        private int failed;
+
+        Result(String queue) {
+            this.queue = queue;
+        }
+
+        public String getQueue() {
+            return queue;
+        }
+
+        public int getReinjected() {
+            return reinjected;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+    }
+}
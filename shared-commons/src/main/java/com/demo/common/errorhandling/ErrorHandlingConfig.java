@@ -0,0 +1,50 @@
+package com.demo.common.errorhandling;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ConsumerTemplate;
+import org.apache.camel.ProducerTemplate;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retry and dead-letter handling shared by the Camel routes of a service, tuned with the error-handling.*
+ * properties. Import it from the service's messaging configuration.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ErrorHandlingProperties.class)
+public class ErrorHandlingConfig {
+
+    @Bean
+    public RouteErrorHandling routeErrorHandling(ErrorHandlingProperties properties) {
+        ErrorHandlingProperties.Retry retry = properties.getRetry();
+        log.info("Route error handling {}: {} retries from {} ms, x{} up to {} ms, dead letters to {}<route>",
+            properties.isEnabled() ? "on" : "off", retry.getMaximumRedeliveries(), retry.getRedeliveryDelayMillis(),
+            retry.getBackOffMultiplier(), retry.getMaximumRedeliveryDelayMillis(),
+            properties.getDeadLetterQueuePrefix());
+        return new RouteErrorHandling(properties);
+    }
+
+    @Bean(RouteErrorHandling.PUBLISHER_BEAN)
+    public DeadLetterPublisher deadLetterPublisher(ErrorHandlingProperties properties,
+            ProducerTemplate producerTemplate, ObjectMapper objectMapper) {
+        return new DeadLetterPublisher(properties, producerTemplate, objectMapper);
+    }
+
+    @Bean
+    public DeadLetterReinjector deadLetterReinjector(ErrorHandlingProperties properties, CamelContext camelContext,
+            ProducerTemplate producerTemplate, ObjectMapper objectMapper) {
+        ConsumerTemplate consumerTemplate = camelContext.createConsumerTemplate();
+        return new DeadLetterReinjector(properties, consumerTemplate, producerTemplate, objectMapper);
+    }
+
+    @Bean
+    public DeadLetterEndpoint deadLetterEndpoint(DeadLetterReinjector reinjector) {
+        return new DeadLetterEndpoint(reinjector);
+    }
+}
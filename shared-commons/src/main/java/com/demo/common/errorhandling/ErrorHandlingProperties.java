@@ -0,0 +1,53 @@
+package com.demo.common.errorhandling;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Retry and dead-letter settings of the Camel routes, see {@link RouteErrorHandling}
+ */
+@ConfigurationProperties(prefix = "error-handling")
+@Data
+public class ErrorHandlingProperties {
+
+    /** Retry failed route steps and dead-letter what still fails; off leaves the Camel default error handler */
+    private boolean enabled = true;
+
+    /** Dead letter queues are named prefix + route ID */
+    private String deadLetterQueuePrefix = "DLQ.";
+
+    /** Retry of every route without an entry in {@link #routes} */
+    private Retry retry = new Retry();
+
+    /** Retry per route ID, replacing the default retry for that route */
+    private Map<String, Retry> routes = new HashMap<>();
+
+    /**
+     * Jittered exponential backoff: attempt n waits delay * multiplier^(n-1), capped at
+     * maximumRedeliveryDelayMillis and randomly shifted by up to jitter of itself, so retries of many messages do
+     * not arrive in lockstep
+     */
+    @Data
+    public static class Retry {
+        /** Retries after the first attempt, 0 dead-letters on the first failure */
+        private int maximumRedeliveries = 3;
+        private long redeliveryDelayMillis = 100;
+        private double backOffMultiplier = 2.0;
+        private long maximumRedeliveryDelayMillis = 5000;
+
+        /** Fraction of each delay that is randomized, 0 to 1 */
+        private double jitter = 0.25;
+    }
+
+    public Retry retryFor(String routeId) {
+        return routes.getOrDefault(routeId, retry);
+    }
+
+    public String deadLetterQueue(String routeId) {
+        return deadLetterQueuePrefix + routeId;
+    }
+}
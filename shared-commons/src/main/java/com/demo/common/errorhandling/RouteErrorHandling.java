@@ -0,0 +1,132 @@
+package com.demo.common.errorhandling;
+
+import java.util.List;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ErrorHandlerFactory;
+import org.apache.camel.LoggingLevel;
+import org.apache.camel.Processor;
+import org.apache.camel.builder.DeadLetterChannelBuilder;
+import org.apache.camel.builder.DefaultErrorHandlerBuilder;
+
+import com.demo.common.messaging.MessagingProperties;
+
+/**
+ * Error handlers of the Camel routes: retry with jittered exponential backoff, then dead-letter.
+ *
+ * Retries are scheduled on the Camel scheduler instead of sleeping in the route, so an asynchronous consumer's
+ * thread is free while it backs off; {@link #consumerUri} makes JMS consumers asynchronous where their
+ * acknowledgement allows it, and a {@link com.demo.common.messaging.MessageGroupSequencer} first in the route keeps
+ * their message groups in order. Exhausted exchanges go to {@link DeadLetterPublisher} with their original message.
+ * The onException clauses of a route builder still take precedence over these handlers.
+ */
+public class RouteErrorHandling {
+
+    /** Header of a failure reply naming the queue the request was dead-lettered to */
+    public static final String DEAD_LETTER_QUEUE_HEADER = "deadLetterQueue";
+
+    /** Bean name of the {@link DeadLetterPublisher} */
+    public static final String PUBLISHER_BEAN = "deadLetterPublisher";
+
+    static final String ROUTE_ID_PROPERTY = "deadLetterRouteId";
+    static final String ATTEMPTS_PROPERTY = "deadLetterAttempts";
+    static final String PASS_THROUGH_PROPERTY = "deadLetterPassThrough";
+
+    private final ErrorHandlingProperties properties;
+
+    public RouteErrorHandling(ErrorHandlingProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Retry, then dead-letter and answer the caller with a failure reply, for JMS and HTTP consumers
+     */
+    public ErrorHandlerFactory deadLetterChannel(String routeId) {
+        return builder(routeId, "publish", true, List.of());
+    }
+
+    /**
+     * Retry, then dead-letter and fail the exchange with a {@link DeadLetterException}, for routes called from
+     * Java code that expects an exception. Exceptions of the pass-through types are neither retried nor
+     * dead-lettered, they reach the caller as they are.
+     */
+    @SafeVarargs
+    public final ErrorHandlerFactory deadLetterChannelFailingCaller(String routeId,
+            Class<? extends Exception>... passThrough) {
+        return builder(routeId, "publishAndFail", false, List.of(passThrough));
+    }
+
+    /**
+     * The JMS consumer URI, asynchronous when error handling is on and the consumer acknowledges messages on
+     * receipt anyway (AUTO, DUPS_OK), so retries do not hold the listener thread, see
+     * {@link MessagingProperties.Consumer#applyAsyncTo}
+     */
+    public String consumerUri(String uri, MessagingProperties.Consumer consumer) {
+        return properties.isEnabled() ? consumer.applyAsyncTo(uri) : consumer.applyTo(uri);
+    }
+
+    /**
+     * Fail with a {@link DeadLetterException} when the reply is the failure reply of a service that dead-lettered
+     * the request, instead of retrying or decoding it
+     */
+    public static Processor rejectDeadLetterReply() {
+        return exchange -> {
+            String queue = exchange.getMessage().getHeader(DEAD_LETTER_QUEUE_HEADER, String.class);
+            if (queue != null) {
+                throw new DeadLetterException(exchange.getMessage().getBody(String.class), queue);
+            }
+        };
+    }
+
+    private ErrorHandlerFactory builder(String routeId, String method, boolean handleNewException,
+            List<Class<? extends Exception>> passThrough) {
+        if (!properties.isEnabled()) {
+            return new DefaultErrorHandlerBuilder();
+        }
+        ErrorHandlingProperties.Retry retry = properties.retryFor(routeId);
+        DeadLetterChannelBuilder builder = new DeadLetterChannelBuilder(
+            "bean:" + PUBLISHER_BEAN + "?method=" + method);
+        builder.deadLetterHandleNewException(handleNewException);
+        builder.maximumRedeliveries(retry.getMaximumRedeliveries())
+            .redeliveryDelay(retry.getRedeliveryDelayMillis())
+            .useExponentialBackOff()
+            .backOffMultiplier(retry.getBackOffMultiplier())
+            .maximumRedeliveryDelay(retry.getMaximumRedeliveryDelayMillis())
+            .useCollisionAvoidance()
+            .collisionAvoidancePercent(retry.getJitter() * 100)
+            .asyncDelayedRedelivery()
+            .retryAttemptedLogLevel(LoggingLevel.WARN)
+            .useOriginalMessage()
+            .onPrepareFailure(exchange -> {
+                exchange.setProperty(ROUTE_ID_PROPERTY, routeId);
+                exchange.setProperty(PASS_THROUGH_PROPERTY, isAny(caught(exchange), passThrough));
+            });
+        // A retry-while predicate replaces the redelivery limit, so it checks the limit itself. It also counts the
+        // attempts, the redelivery counter header is gone with the original message by the time it is dead-lettered.
+        builder.setRetryWhilePredicate(exchange -> {
+            // Already counts the attempt that just failed
+            int attempts = exchange.getMessage().getHeader(Exchange.REDELIVERY_COUNTER, 1, Integer.class);
+            exchange.setProperty(ATTEMPTS_PROPERTY, attempts);
+            return !(exchange.getException() instanceof DeadLetterException)
+                && !isAny(exchange.getException(), passThrough)
+                && attempts <= retry.getMaximumRedeliveries();
+        });
+        return builder;
+    }
+
+    static Throwable caught(Exchange exchange) {
+        return exchange.getException() != null ? exchange.getException()
+            : exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Throwable.class);
+    }
+
+    private static boolean isAny(Throwable exception, List<Class<? extends Exception>> types) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Exception> type : types) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+package com.demo.common.jaxb;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+
+/**
+ * JAXB data format for the urn:example:fraudcheck:v1 messages exchanged between broker and fraud check system
+ */
+public final class FraudCheckJaxb {
+
+    private FraudCheckJaxb() {
+    }
+
+    /**
+     * Create the pooled data format for the model package, warmed up with a request and a response
+     * so every field and XML adapter has been through the binding code once.
+     */
+    public static PooledJaxbDataFormat dataFormat() {
+        PaymentRequest request = PaymentRequest.builder()
+            .transactionId(UUID.randomUUID())
+            .payerName("Warm Up")
+            .payerBank("Warm Up Bank")
+            .payerCountryCode("USA")
+            .payerAccount("12345678")
+            .payeeName("Warm Up")
+            .payeeBank("Warm Up Bank")
+            .payeeCountryCode("USA")
+            .payeeAccount("87654321")
+            .paymentInstruction("Warm up")
+            .executionDate(LocalDate.now())
+            .amount(BigDecimal.ONE)
+            .currency("USD")
+            .creationTimestamp(Instant.now())
+            .build();
+        FraudCheckResponse response = FraudCheckResponse.builder()
+            .transactionId(request.getTransactionId())
+            .status(FraudCheckStatus.APPROVED)
+            .validationTimestamp(Instant.now())
+            .build();
+
+        return new PooledJaxbDataFormat(PaymentRequest.class.getPackage().getName()).warmUp(request, response);
+    }
+}
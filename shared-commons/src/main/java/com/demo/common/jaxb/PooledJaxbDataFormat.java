@@ -0,0 +1,147 @@
+package com.demo.common.jaxb;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.DataFormat;
+import org.apache.camel.spi.DataFormatName;
+import org.apache.camel.support.service.ServiceSupport;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JAXB data format with an eagerly created context and pools of reusable marshallers and unmarshallers.
+ *
+ * Marshallers and unmarshallers are not thread safe but expensive to create, so each message borrows one and
+ * returns it afterwards. The context is created and warmed up in the constructor, so the cost is paid at startup
+ * instead of by the first messages. Unmarshalled JAXBElements are unwrapped to their value.
+ */
+@Slf4j
+public class PooledJaxbDataFormat extends ServiceSupport implements DataFormat, DataFormatName {
+
+    public static final int DEFAULT_POOL_SIZE = 32;
+
+    private final JAXBContext context;
+    private final XMLInputFactory xmlInputFactory;
+    private final BlockingQueue<Marshaller> marshallers;
+    private final BlockingQueue<Unmarshaller> unmarshallers;
+
+    public PooledJaxbDataFormat(String contextPath) {
+        this(contextPath, DEFAULT_POOL_SIZE);
+    }
+
+    public PooledJaxbDataFormat(String contextPath, int poolSize) {
+        long started = System.nanoTime();
+        try {
+            this.context = JAXBContext.newInstance(contextPath, PooledJaxbDataFormat.class.getClassLoader());
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Unable to create JAXB context for " + contextPath, e);
+        }
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        this.marshallers = new ArrayBlockingQueue<>(poolSize);
+        this.unmarshallers = new ArrayBlockingQueue<>(poolSize);
+
+        // Fill the pools with one instance each, which also initialises the context internals
+        marshallers.offer(createMarshaller());
+        unmarshallers.offer(createUnmarshaller());
+        log.info("JAXB context for {} ready in {} ms", contextPath, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public String getDataFormatName() {
+        return "jaxb";
+    }
+
+    public JAXBContext getContext() {
+        return context;
+    }
+
+    /**
+     * Marshal and unmarshal the given samples once, so the per-class binding code is set up before real traffic.
+     */
+    public PooledJaxbDataFormat warmUp(Object... samples) {
+        for (Object sample : samples) {
+            try {
+                ByteArrayOutputStream xml = new ByteArrayOutputStream(512);
+                marshal(sample, xml);
+                unmarshal(new ByteArrayInputStream(xml.toByteArray()));
+            } catch (Exception e) {
+                log.warn("JAXB warm-up with {} failed: {}", sample.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public void marshal(Exchange exchange, Object graph, OutputStream stream) throws Exception {
+        marshal(graph, stream);
+    }
+
+    @Override
+    public Object unmarshal(Exchange exchange, InputStream stream) throws Exception {
+        return unmarshal(stream);
+    }
+
+    public void marshal(Object graph, OutputStream stream) throws JAXBException {
+        Marshaller marshaller = marshallers.poll();
+        if (marshaller == null) {
+            marshaller = createMarshaller();
+        }
+        try {
+            // JAXB's own UTF-8 writer is faster than going through an XMLStreamWriter
+            marshaller.marshal(graph, stream);
+        } finally {
+            marshallers.offer(marshaller);
+        }
+    }
+
+    public Object unmarshal(InputStream stream) throws JAXBException, XMLStreamException {
+        Unmarshaller unmarshaller = unmarshallers.poll();
+        if (unmarshaller == null) {
+            unmarshaller = createUnmarshaller();
+        }
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(stream);
+        try {
+            Object result = unmarshaller.unmarshal(reader);
+            return result instanceof JAXBElement<?> element ? element.getValue() : result;
+        } finally {
+            reader.close();
+            unmarshallers.offer(unmarshaller);
+        }
+    }
+
+    private Marshaller createMarshaller() {
+        try {
+            Marshaller marshaller = context.createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+            return marshaller;
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Unable to create JAXB marshaller", e);
+        }
+    }
+
+    private Unmarshaller createUnmarshaller() {
+        try {
+            return context.createUnmarshaller();
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Unable to create JAXB unmarshaller", e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.demo.common.messaging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.Processor;
+import org.apache.camel.spi.CamelEvent;
+import org.apache.camel.spi.CamelEvent.ExchangeSendingEvent;
+import org.apache.camel.spi.CamelEvent.ExchangeSentEvent;
+import org.apache.camel.support.EventNotifierSupport;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Request timeouts that follow the latency each hop actually has, instead of one fixed timeout for all of them.
+ *
+ * Every request/reply of a {@link Hop} is measured, and the hop's timeout is the configured percentile of the
+ * latencies of the last window, times factor, kept between minMillis and the hop's configured timeout. A hop that
+ * answers in 50 ms then gives up on a lost reply after a second or so rather than after 30 seconds, while one
+ * with a slow tail keeps its long timeout. Until the window holds minSamples latencies the configured timeout
+ * applies.
+ *
+ * A request that times out counts with at least the timeout it had, so whenever more requests time out than the
+ * percentile allows, the timeout grows again instead of cutting off ever more of a slowing hop.
+ *
+ * Requests are measured by Camel's send events: {@link Hop#measure} marks the exchange, and the next endpoint it is
+ * sent to is timed. The timeout and percentile of each hop are published as the messaging.timeout and
+ * messaging.latency.percentile gauges, tagged with the hop name.
+ */
+@Slf4j
+public class AdaptiveTimeouts extends EventNotifierSupport {
+
+    private static final String MEASUREMENT_PROPERTY = "adaptiveTimeoutMeasurement";
+
+    /** Slices the latency window is kept in */
+    private static final int WINDOW_SLICES = 6;
+
+    /** Percentiles are computed again at most this often, not on every request */
+    private static final long RECOMPUTE_MILLIS = 1000;
+
+    private final MessagingProperties.AdaptiveTimeout settings;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final Map<String, Hop> hops = new ConcurrentHashMap<>();
+
+    public AdaptiveTimeouts(MessagingProperties.AdaptiveTimeout settings, MeterRegistry meterRegistry) {
+        this(settings, meterRegistry, System::currentTimeMillis);
+    }
+
+    AdaptiveTimeouts(MessagingProperties.AdaptiveTimeout settings, MeterRegistry meterRegistry, LongSupplier clock) {
+        if (settings.getPercentile() <= 0 || settings.getPercentile() > 1 || settings.getFactor() < 1) {
+            throw new IllegalArgumentException("Adaptive timeouts need 0 < percentile <= 1 and factor >= 1, were "
+                + settings.getPercentile() + " and " + settings.getFactor());
+        }
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        // Only the send events are needed, the others are not even created
+        setIgnoreCamelContextEvents(true);
+        setIgnoreRouteEvents(true);
+        setIgnoreServiceEvents(true);
+        setIgnoreExchangeCreatedEvent(true);
+        setIgnoreExchangeCompletedEvent(true);
+        setIgnoreExchangeFailedEvents(true);
+        setIgnoreExchangeRedeliveryEvents(true);
+        setIgnoreStepEvents(true);
+    }
+
+    /**
+     * The hop of that name, whose timeout never exceeds maxMillis, usually the timeout configured for it
+     */
+    public Hop hop(String name, long maxMillis) {
+        return hops.computeIfAbsent(name, key -> {
+            Hop hop = new Hop(key, maxMillis);
+            Gauge.builder("messaging.timeout", hop, Hop::timeoutMillis)
+                .description("Request timeout of the hop in milliseconds")
+                .tag("hop", key)
+                .register(meterRegistry);
+            Gauge.builder("messaging.latency.percentile", hop, Hop::percentileMillis)
+                .description("Latency percentile of the hop the timeout is derived from, in milliseconds")
+                .tag("hop", key)
+                .register(meterRegistry);
+            log.info("Adaptive timeout of {}: {}, p{} x {} between {} and {} ms", key,
+                settings.isEnabled() ? "enabled" : "disabled", settings.getPercentile() * 100, settings.getFactor(),
+                hop.minMillis, maxMillis);
+            return hop;
+        });
+    }
+
+    @Override
+    public boolean isEnabled(CamelEvent event) {
+        return event instanceof ExchangeSendingEvent || event instanceof ExchangeSentEvent;
+    }
+
+    @Override
+    public void notify(CamelEvent event) {
+        if (event instanceof ExchangeSendingEvent sending) {
+            Measurement measurement = sending.getExchange().getProperty(MEASUREMENT_PROPERTY, Measurement.class);
+            if (measurement != null && measurement.endpoint == null) {
+                measurement.endpoint = sending.getEndpoint();
+            }
+        } else if (event instanceof ExchangeSentEvent sent) {
+            Exchange exchange = sent.getExchange();
+            Measurement measurement = exchange.getProperty(MEASUREMENT_PROPERTY, Measurement.class);
+            if (measurement != null && measurement.endpoint == sent.getEndpoint()) {
+                exchange.removeProperty(MEASUREMENT_PROPERTY);
+                measurement.hop.completed(sent.getTimeTaken(), exchange.getException());
+            }
+        }
+    }
+
+    /**
+     * Latencies and timeout of one request/reply hop
+     */
+    public final class Hop {
+        private final String name;
+        private final long minMillis;
+        private final long maxMillis;
+        private final LatencyHistogram latencies;
+        private volatile long timeoutMillis;
+        private volatile long percentileMillis;
+        private volatile long computedAt = -RECOMPUTE_MILLIS;
+
+        private Hop(String name, long maxMillis) {
+            this.name = name;
+            this.maxMillis = maxMillis;
+            this.minMillis = Math.min(settings.getMinMillis(), maxMillis);
+            this.latencies = new LatencyHistogram(settings.getWindowMillis(), WINDOW_SLICES);
+            this.timeoutMillis = maxMillis;
+        }
+
+        /**
+         * How long the next request may wait for its reply
+         */
+        public long timeoutMillis() {
+            if (!settings.isEnabled()) {
+                return maxMillis;
+            }
+            long now = clock.getAsLong();
+            if (now - computedAt >= RECOMPUTE_MILLIS) {
+                recompute(now);
+            }
+            return timeoutMillis;
+        }
+
+        long percentileMillis() {
+            timeoutMillis();
+            return percentileMillis;
+        }
+
+        long samples() {
+            return latencies.count(clock.getAsLong());
+        }
+
+        /**
+         * Sets the hop's timeout in the timeout header of the endpoint and the {@link RequestDeadline} to match, and
+         * measures the next send
+         */
+        public Processor begin(String timeoutHeader) {
+            return exchange -> {
+                long timeout = timeoutMillis();
+                exchange.getMessage().setHeader(timeoutHeader, timeout);
+                exchange.getMessage().setHeader(RequestDeadline.HEADER, System.currentTimeMillis() + timeout);
+                measure(exchange);
+            };
+        }
+
+        /**
+         * Measures the next send of the exchange as a request/reply of this hop
+         */
+        public void measure(Exchange exchange) {
+            if (settings.isEnabled()) {
+                exchange.setProperty(MEASUREMENT_PROPERTY, new Measurement(this));
+            }
+        }
+
+        void completed(long millis, Exception failure) {
+            if (failure == null) {
+                latencies.record(millis, clock.getAsLong());
+            } else if (failure instanceof ExchangeTimedOutException) {
+                // The reply would have taken longer than the timeout the request had
+                latencies.record(Math.max(millis, timeoutMillis), clock.getAsLong());
+            }
+            // Other failures say nothing about how long a reply takes
+        }
+
+        private synchronized void recompute(long now) {
+            if (now - computedAt < RECOMPUTE_MILLIS) {
+                return;
+            }
+            long previous = timeoutMillis;
+            if (latencies.count(now) < settings.getMinSamples()) {
+                percentileMillis = 0;
+                timeoutMillis = maxMillis;
+            } else {
+                percentileMillis = latencies.percentile(settings.getPercentile(), now);
+                long timeout = (long) Math.ceil(percentileMillis * settings.getFactor());
+                timeoutMillis = Math.max(minMillis, Math.min(maxMillis, timeout));
+            }
+            computedAt = now;
+            if (timeoutMillis != previous) {
+                log.debug("Timeout of {} {} -> {} ms, p{} latency {} ms", name, previous, timeoutMillis,
+                    settings.getPercentile() * 100, percentileMillis);
+            }
+        }
+    }
+
+    /**
+     * A request/reply being measured, bound to the first endpoint the exchange is sent to
+     */
+    private static final class Measurement {
+        private final Hop hop;
+        private volatile Endpoint endpoint;
+
+        private Measurement(Hop hop) {
+            this.hop = hop;
+        }
+    }
+}
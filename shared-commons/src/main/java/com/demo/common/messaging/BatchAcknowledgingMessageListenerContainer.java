@@ -0,0 +1,126 @@
+package com.demo.common.messaging;
+
+import org.apache.camel.component.jms.DefaultJmsMessageListenerContainer;
+import org.apache.camel.component.jms.JmsEndpoint;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Listener container that commits a transacted session, or acknowledges a CLIENT_ACKNOWLEDGE session, once per
+ * batch of messages instead of once per message.
+ *
+ * A batch ends after batchSize messages, when a message arrives batchIntervalMillis after the batch started, or
+ * when a receive times out with the batch still open, so the endpoint receiveTimeout should be the batch interval.
+ * Every consumer thread has its own session and therefore its own batch.
+ *
+ * After a rollback (transacted) or recover (client acknowledge) the redelivered messages are committed one by one
+ * for the next batchSize messages, so a poison message fails alone instead of taking its batch with it to the DLQ.
+ */
+@Slf4j
+public class BatchAcknowledgingMessageListenerContainer extends DefaultJmsMessageListenerContainer {
+
+    private final int batchSize;
+    private final long batchIntervalNanos;
+    private final ThreadLocal<Batch> batches = ThreadLocal.withInitial(Batch::new);
+
+    public BatchAcknowledgingMessageListenerContainer(JmsEndpoint endpoint, int batchSize, long batchIntervalMillis) {
+        super(endpoint);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1, was " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.batchIntervalNanos = batchIntervalMillis * 1_000_000L;
+    }
+
+    @Override
+    protected void commitIfNecessary(Session session, Message message) throws JMSException {
+        Batch batch = batch(session);
+        long now = System.nanoTime();
+        if (batch.pending == 0) {
+            batch.startedNanos = now;
+        }
+        batch.pending++;
+        batch.lastMessage = message;
+        if (batch.singleCommits > 0) {
+            batch.singleCommits--;
+            complete(session, batch);
+        } else if (batch.pending >= batchSize || now - batch.startedNanos >= batchIntervalNanos) {
+            complete(session, batch);
+        }
+    }
+
+    @Override
+    protected void noMessageReceived(Object invoker, Session session) {
+        super.noMessageReceived(invoker, session);
+        completeIdleBatch(session);
+    }
+
+    /**
+     * Commit or acknowledge what the current thread consumed so far, called when a receive timed out
+     */
+    void completeIdleBatch(Session session) {
+        Batch batch = batch(session);
+        int pending = batch.pending;
+        if (pending == 0) {
+            return;
+        }
+        try {
+            complete(session, batch);
+        } catch (JMSException e) {
+            // The session is rolled back or recovered when it is closed, the batch is redelivered
+            log.warn("Could not complete a batch of {} messages on an idle consumer: {}", pending, e.getMessage());
+        }
+    }
+
+    @Override
+    protected void rollbackOnExceptionIfNecessary(Session session, Throwable ex) throws JMSException {
+        Batch batch = batch(session);
+        try {
+            super.rollbackOnExceptionIfNecessary(session, ex);
+        } finally {
+            batch.reset();
+            batch.singleCommits = batchSize;
+        }
+    }
+
+    /**
+     * Messages of the current thread consumed but not yet committed or acknowledged
+     */
+    int pendingMessages() {
+        return batches.get().pending;
+    }
+
+    private void complete(Session session, Batch batch) throws JMSException {
+        try {
+            super.commitIfNecessary(session, batch.lastMessage);
+        } finally {
+            batch.reset();
+        }
+    }
+
+    private Batch batch(Session session) {
+        Batch batch = batches.get();
+        if (batch.session != session) {
+            // A new session after a failure, whatever the old one held is redelivered by the broker
+            batch.reset();
+            batch.session = session;
+        }
+        return batch;
+    }
+
+    private static final class Batch {
+        private Session session;
+        private Message lastMessage;
+        private int pending;
+        private long startedNanos;
+        private int singleCommits;
+
+        private void reset() {
+            lastMessage = null;
+            pending = 0;
+        }
+    }
+}
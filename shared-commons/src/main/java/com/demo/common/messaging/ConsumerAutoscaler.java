@@ -0,0 +1,294 @@
+package com.demo.common.messaging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Route;
+import org.apache.camel.component.jms.JmsConsumer;
+import org.apache.camel.spi.RoutePolicy;
+import org.apache.camel.support.RoutePolicySupport;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Adjusts the concurrent consumers of JMS routes to their queue depth and processing latency.
+ *
+ * Every interval the queue is browsed for its depth and the mean exchange latency of the route since the last
+ * interval is taken. By Little's law, working off depth messages of latency each within targetDrainMillis takes
+ * depth * latency / targetDrainMillis consumers, kept within the configured bounds. Consumers are added at once,
+ * at most doubling per interval, and removed one per interval only after scaleDownAfterIntervals intervals in a
+ * row wanted fewer, so a short lull does not undo a scale-up.
+ *
+ * Attach it to a route with {@link #policyFor(String)}; the route must consume with the default listener container or
+ * one extending it. A route whose consumers hand messages to a worker pool of its own scales that pool instead, see
+ * {@link #policyFor(String, ConsumerPool)}. The consumers and depth of each queue are published as the
+ * messaging.consumers and messaging.queue.depth gauges, tagged with the queue name.
+ */
+@Slf4j
+public class ConsumerAutoscaler implements AutoCloseable {
+
+    /**
+     * Number of messages waiting on a queue, at most maxBrowseDepth
+     */
+    @FunctionalInterface
+    public interface QueueDepthProbe {
+        int depth(String queue) throws Exception;
+    }
+
+    /**
+     * Consumers of a route that can be resized
+     */
+    public interface ConsumerPool {
+        int size();
+
+        void resize(int consumers);
+
+        /** Messages taken off the queue but not processed yet, counted into the queue depth */
+        default int backlog() {
+            return 0;
+        }
+    }
+
+    private static final String STARTED_PROPERTY = "consumerAutoscalerStarted";
+
+    private final MessagingProperties.Autoscaling settings;
+    private final QueueDepthProbe probe;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ScaledQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public ConsumerAutoscaler(MessagingProperties.Autoscaling settings, QueueDepthProbe probe,
+            MeterRegistry meterRegistry) {
+        if (settings.getMinConsumers() < 1 || settings.getMaxConsumers() < settings.getMinConsumers()) {
+            throw new IllegalArgumentException("Consumer bounds must satisfy 1 <= min <= max, were "
+                + settings.getMinConsumers() + " and " + settings.getMaxConsumers());
+        }
+        this.settings = settings;
+        this.probe = probe;
+        this.meterRegistry = meterRegistry;
+        if (settings.isEnabled()) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "jms-consumer-autoscaler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::scaleSafely, settings.getIntervalMillis(),
+                settings.getIntervalMillis(), TimeUnit.MILLISECONDS);
+            log.info("JMS consumer autoscaling between {} and {} consumers every {} ms, target drain {} ms",
+                settings.getMinConsumers(), settings.getMaxConsumers(), settings.getIntervalMillis(),
+                settings.getTargetDrainMillis());
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Route policy scaling the consumers of the route consuming the queue and measuring its latency
+     */
+    public RoutePolicy policyFor(String queue) {
+        return new ScalingRoutePolicy(queue, null);
+    }
+
+    /**
+     * Route policy scaling the given pool, which processes the messages the route's consumers hand to it, and
+     * measuring the latency of the route. The pool marks when it starts on a message with
+     * {@link #processingStarted}, so its queueing time is not taken for processing time.
+     */
+    public RoutePolicy policyFor(String queue, ConsumerPool pool) {
+        return new ScalingRoutePolicy(queue, pool);
+    }
+
+    /**
+     * Restarts the latency measurement of the exchange when a worker pool starts processing it
+     */
+    public static void processingStarted(Exchange exchange) {
+        if (exchange.getProperty(STARTED_PROPERTY) != null) {
+            exchange.setProperty(STARTED_PROPERTY, System.nanoTime());
+        }
+    }
+
+    /**
+     * Sample every queue once and resize its consumers, called every interval
+     */
+    void scale() {
+        for (ScaledQueue scaled : queues.values()) {
+            int depth;
+            try {
+                depth = probe.depth(scaled.queue) + scaled.pool.backlog();
+            } catch (Exception e) {
+                log.warn("Could not measure the depth of {}, keeping {} consumers: {}", scaled.queue,
+                    scaled.pool.size(), e.getMessage());
+                continue;
+            }
+            int current = scaled.pool.size();
+            int next = scaled.next(current, depth);
+            if (next != current) {
+                log.info("Scaling consumers of {} from {} to {}: depth {}, latency {} ms", scaled.queue, current, next,
+                    depth, String.format("%.1f", scaled.latencyMillis));
+                scaled.pool.resize(next);
+            }
+        }
+    }
+
+    ScaledQueue register(String queue, ConsumerPool pool) {
+        ScaledQueue scaled = new ScaledQueue(queue, pool);
+        queues.put(queue, scaled);
+        Gauge.builder("messaging.consumers", pool, ConsumerPool::size)
+            .description("Concurrent consumers of the queue")
+            .tag("queue", queue)
+            .register(meterRegistry);
+        Gauge.builder("messaging.queue.depth", scaled, s -> s.depth)
+            .description("Messages waiting on the queue, up to the browse limit")
+            .tag("queue", queue)
+            .register(meterRegistry);
+        return scaled;
+    }
+
+    private void scaleSafely() {
+        try {
+            scale();
+        } catch (RuntimeException e) {
+            log.warn("JMS consumer autoscaling failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Scaling state of one queue
+     */
+    final class ScaledQueue {
+        private final String queue;
+        private final ConsumerPool pool;
+        private final LongAdder latencyNanos = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private double latencyMillis = Double.NaN;
+        private int lowIntervals;
+        private volatile int depth;
+
+        private ScaledQueue(String queue, ConsumerPool pool) {
+            this.queue = queue;
+            this.pool = pool;
+        }
+
+        void record(long nanos) {
+            latencyNanos.add(nanos);
+            completed.increment();
+        }
+
+        /**
+         * The consumer count for the next interval
+         */
+        int next(int current, int depth) {
+            this.depth = depth;
+            long count = completed.sumThenReset();
+            long nanos = latencyNanos.sumThenReset();
+            if (count > 0) {
+                latencyMillis = nanos / 1e6 / count;
+            }
+            int wanted;
+            if (depth == 0) {
+                wanted = settings.getMinConsumers();
+            } else if (Double.isNaN(latencyMillis)) {
+                // Nothing completed yet, the consumers there are may be stuck
+                wanted = current * 2;
+            } else {
+                wanted = (int) Math.ceil(depth * latencyMillis / Math.max(1, settings.getTargetDrainMillis()));
+            }
+            wanted = Math.max(settings.getMinConsumers(), Math.min(settings.getMaxConsumers(), wanted));
+
+            if (wanted > current) {
+                lowIntervals = 0;
+                return Math.min(wanted, current * 2);
+            }
+            if (wanted < current) {
+                lowIntervals++;
+                if (lowIntervals >= settings.getScaleDownAfterIntervals()) {
+                    return current - 1;
+                }
+                return current;
+            }
+            lowIntervals = 0;
+            return current;
+        }
+    }
+
+    private final class ScalingRoutePolicy extends RoutePolicySupport {
+        private final String queue;
+        private final ConsumerPool pool;
+        private volatile ScaledQueue scaled;
+
+        private ScalingRoutePolicy(String queue, ConsumerPool pool) {
+            this.queue = queue;
+            this.pool = pool;
+        }
+
+        @Override
+        public void onStart(Route route) {
+            if (scheduler == null) {
+                return;
+            }
+            if (pool != null) {
+                scaled = register(queue, pool);
+            } else if (listenerContainer(route) instanceof DefaultMessageListenerContainer container) {
+                scaled = register(queue, new ConsumerPool() {
+                    @Override
+                    public int size() {
+                        return container.getConcurrentConsumers();
+                    }
+
+                    @Override
+                    public void resize(int consumers) {
+                        // Lowering the maximum first lets surplus consumers stop after their current receive
+                        if (consumers < container.getConcurrentConsumers()) {
+                            container.setConcurrentConsumers(consumers);
+                            container.setMaxConcurrentConsumers(consumers);
+                        } else {
+                            container.setMaxConcurrentConsumers(consumers);
+                            container.setConcurrentConsumers(consumers);
+                        }
+                    }
+                });
+            } else {
+                log.warn("Route {} does not consume {} with a resizable JMS listener container, not autoscaling",
+                    route.getRouteId(), queue);
+            }
+        }
+
+        private static Object listenerContainer(Route route) {
+            try {
+                return route.getConsumer() instanceof JmsConsumer consumer ? consumer.getListenerContainer() : null;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void onExchangeBegin(Route route, Exchange exchange) {
+            if (scaled != null) {
+                exchange.setProperty(STARTED_PROPERTY, System.nanoTime());
+            }
+        }
+
+        @Override
+        public void onExchangeDone(Route route, Exchange exchange) {
+            Long started = exchange.getProperty(STARTED_PROPERTY, Long.class);
+            if (scaled != null && started != null) {
+                scaled.record(System.nanoTime() - started);
+            }
+        }
+    }
+}
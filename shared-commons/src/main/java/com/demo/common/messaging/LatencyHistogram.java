@@ -0,0 +1,98 @@
+package com.demo.common.messaging;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the last windowMillis in logarithmic buckets, for percentiles without keeping the samples.
+ *
+ * Each bucket spans 5% of its lower bound, so a percentile is reported at most 5% high, from 1 ms up to
+ * {@link #MAX_MILLIS}. The window is kept as a ring of slices; a slice is cleared when the clock comes round to
+ * it again, so old latencies leave the window a slice at a time.
+ */
+final class LatencyHistogram {
+
+    /** Longer latencies count into the last bucket */
+    static final long MAX_MILLIS = 10 * 60 * 1000;
+
+    private static final double GROWTH = 1.05;
+    private static final int BUCKETS = bucket(MAX_MILLIS) + 1;
+
+    private final long sliceMillis;
+    private final long[][] counts;
+    private final long[] sliceEpochs;
+
+    LatencyHistogram(long windowMillis, int slices) {
+        this.sliceMillis = Math.max(1, windowMillis / slices);
+        this.counts = new long[slices][BUCKETS];
+        this.sliceEpochs = new long[slices];
+    }
+
+    synchronized void record(long millis, long nowMillis) {
+        long epoch = nowMillis / sliceMillis;
+        int slice = (int) (epoch % counts.length);
+        if (sliceEpochs[slice] != epoch) {
+            Arrays.fill(counts[slice], 0);
+            sliceEpochs[slice] = epoch;
+        }
+        counts[slice][bucket(millis)]++;
+    }
+
+    /**
+     * Latencies recorded within the window
+     */
+    synchronized long count(long nowMillis) {
+        long count = 0;
+        for (int slice = 0; slice < counts.length; slice++) {
+            if (isCurrent(slice, nowMillis)) {
+                for (long bucketCount : counts[slice]) {
+                    count += bucketCount;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The latency in milliseconds below which the quantile of the latencies within the window fall, rounded up to
+     * the bucket bound; 0 without latencies
+     */
+    synchronized long percentile(double quantile, long nowMillis) {
+        long[] merged = new long[BUCKETS];
+        long count = 0;
+        for (int slice = 0; slice < counts.length; slice++) {
+            if (isCurrent(slice, nowMillis)) {
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    merged[bucket] += counts[slice][bucket];
+                    count += counts[slice][bucket];
+                }
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += merged[bucket];
+            if (seen >= rank) {
+                return upperBound(bucket);
+            }
+        }
+        return MAX_MILLIS;
+    }
+
+    private boolean isCurrent(int slice, long nowMillis) {
+        return nowMillis / sliceMillis - sliceEpochs[slice] < counts.length;
+    }
+
+    private static int bucket(long millis) {
+        if (millis <= 1) {
+            return 0;
+        }
+        return (int) Math.ceil(Math.log(Math.min(millis, MAX_MILLIS)) / Math.log(GROWTH));
+    }
+
+    private static long upperBound(int bucket) {
+        return Math.min(MAX_MILLIS, (long) Math.ceil(Math.pow(GROWTH, bucket)));
+    }
+}
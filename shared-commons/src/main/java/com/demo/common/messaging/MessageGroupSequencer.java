@@ -0,0 +1,135 @@
+package com.demo.common.messaging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.AsyncProcessorSupport;
+import org.apache.camel.support.SynchronizationAdapter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the exchanges of one {@link MessageGroups message group} in order behind an asynchronous JMS consumer.
+ *
+ * An asynchronous consumer takes the next message while the previous exchange waits for its reply or for a
+ * scheduled retry, so the next message of a group would overtake it. Placed first in the route, this stage lets an
+ * exchange of a group continue only when no earlier exchange of its group is still in progress. Later ones wait
+ * here, off the consumer thread, and continue in arrival order on a hand-off thread once the exchange ahead of them
+ * is done, retries included. Exchanges without a group, and all exchanges while message groups are off, continue
+ * at once on the consumer thread.
+ *
+ * The fraud check deadline queue keeps group order the same way for the requests it schedules.
+ */
+@Slf4j
+public class MessageGroupSequencer extends AsyncProcessorSupport implements AutoCloseable {
+
+    private record Waiting(Exchange exchange, AsyncCallback callback) {
+    }
+
+    private final boolean enabled;
+    /** Groups with an exchange in progress, and the exchanges waiting behind it */
+    private final Map<String, ArrayDeque<Waiting>> groups = new HashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final ExecutorService handOff;
+    private volatile boolean running = true;
+
+    public MessageGroupSequencer(MessagingProperties.Groups settings) {
+        this.enabled = settings.isEnabled();
+        AtomicInteger threadIds = new AtomicInteger();
+        this.handOff = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "message-group-" + threadIds.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        String group = enabled ? MessageGroups.of(exchange.getMessage()) : null;
+        if (group == null) {
+            callback.done(true);
+            return true;
+        }
+        exchange.getExchangeExtension().addOnCompletion(new SynchronizationAdapter() {
+            @Override
+            public void onDone(Exchange done) {
+                release(group);
+            }
+        });
+        synchronized (groups) {
+            ArrayDeque<Waiting> behind = groups.get(group);
+            if (behind == null) {
+                groups.put(group, new ArrayDeque<>());
+            } else {
+                behind.add(new Waiting(exchange, callback));
+                waiting.incrementAndGet();
+                return false;
+            }
+        }
+        callback.done(true);
+        return true;
+    }
+
+    /**
+     * Exchanges waiting for an earlier exchange of their group
+     */
+    public int waiting() {
+        return waiting.get();
+    }
+
+    /**
+     * Continues the next exchange of the group of an exchange that is done
+     */
+    private void release(String group) {
+        Waiting next;
+        synchronized (groups) {
+            ArrayDeque<Waiting> behind = groups.get(group);
+            next = behind == null ? null : behind.poll();
+            if (next == null) {
+                groups.remove(group);
+                return;
+            }
+            waiting.decrementAndGet();
+        }
+        try {
+            if (!running) {
+                throw new RejectedExecutionException("Message group sequencer is closed");
+            }
+            handOff.execute(() -> next.callback().done(false));
+        } catch (RejectedExecutionException e) {
+            next.exchange().setException(e);
+            next.callback().done(false);
+        }
+    }
+
+    /**
+     * Fails the exchanges still waiting, so the error handler dead-letters them
+     */
+    @Override
+    public void close() {
+        running = false;
+        List<Waiting> rejected = new ArrayList<>();
+        synchronized (groups) {
+            groups.values().forEach(rejected::addAll);
+            groups.clear();
+            waiting.set(0);
+        }
+        handOff.shutdown();
+        for (Waiting parked : rejected) {
+            parked.exchange().setException(new RejectedExecutionException("Message group sequencer is closed"));
+            parked.callback().done(false);
+        }
+        if (!rejected.isEmpty()) {
+            log.warn("Failed {} exchanges waiting for their message group on shutdown", rejected.size());
+        }
+    }
+}
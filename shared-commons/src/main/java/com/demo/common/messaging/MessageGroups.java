@@ -0,0 +1,57 @@
+package com.demo.common.messaging;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+
+import com.demo.common.model.PaymentRequest;
+
+/**
+ * JMS message groups keeping the fraud check requests of one payer account in order.
+ *
+ * The broker hands all messages of a {@value #HEADER} to the same consumer, so requests of different accounts are
+ * checked in parallel and those of one account one after the other. The group is a hash bucket of the payer
+ * account rather than the account itself: the account number stays out of the headers and the number of groups
+ * the broker tracks is bounded. {@link String#hashCode()} is specified, so PPS and the broker agree on the bucket.
+ */
+public final class MessageGroups {
+
+    public static final String HEADER = "JMSXGroupID";
+
+    private MessageGroups() {
+    }
+
+    /**
+     * The group of a payer account, null without an account
+     */
+    public static String groupOf(String payerAccount, int buckets) {
+        if (payerAccount == null || payerAccount.isBlank()) {
+            return null;
+        }
+        return "payer-" + Math.floorMod(payerAccount.trim().hashCode(), buckets);
+    }
+
+    /**
+     * Sets the group of a message holding a PaymentRequest, keeping a group set by an earlier hop
+     */
+    public static Processor byPayerAccount(MessagingProperties.Groups settings) {
+        return (Exchange exchange) -> {
+            Message message = exchange.getMessage();
+            if (settings.isEnabled() && message.getHeader(HEADER) == null
+                    && message.getBody() instanceof PaymentRequest request) {
+                String group = groupOf(request.getPayerAccount(), settings.getBuckets());
+                if (group != null) {
+                    message.setHeader(HEADER, group);
+                }
+            }
+        };
+    }
+
+    /**
+     * The group of the message, null when it has none
+     */
+    public static String of(Message message) {
+        Object group = message.getHeader(HEADER);
+        return group == null ? null : group.toString();
+    }
+}
@@ -0,0 +1,195 @@
+package com.demo.common.messaging;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Connection caching and flow control of the JMS client, see {@link PooledMessagingConfig}
+ */
+@ConfigurationProperties(prefix = "messaging")
+@Data
+public class MessagingProperties {
+
+    /** Sessions kept open per acknowledge mode on the shared connection */
+    private int sessionCacheSize = 32;
+
+    /** Keep producers open with their cached session, so sends do not create a producer each time */
+    private boolean cacheProducers = true;
+
+    /** Listener containers manage their own consumers, so consumers are not cached by default */
+    private boolean cacheConsumers = false;
+
+    /** Send without waiting for the broker receipt of each message */
+    private boolean asyncSend = false;
+
+    /**
+     * Bytes of async sends a producer may have unconfirmed before it waits for the broker, 0 for no limit.
+     * The OpenWire counterpart of the Artemis confirmation window
+     */
+    private int confirmationWindowSize = 1024 * 1024;
+
+    /**
+     * Messages the broker pushes to a queue consumer ahead of acknowledgement. The OpenWire counterpart of the
+     * Artemis consumer window; lower values spread work more evenly across concurrent consumers
+     */
+    private int prefetch = 100;
+
+    /** How the service's main queue consumer acknowledges, see {@link Consumer} */
+    private Consumer consumer = new Consumer();
+
+    /** Concurrent consumers of the service's main queue, see {@link ConsumerAutoscaler} */
+    private Autoscaling autoscaling = new Autoscaling();
+
+    /** Separate queue and consumers for high-value payments, see {@link PaymentPriority} */
+    private PriorityLane priorityLane = new PriorityLane();
+
+    /** Per-account ordering of fraud check requests, see {@link MessageGroups} */
+    private Groups messageGroups = new Groups();
+
+    /** Request timeouts derived from the latency of each hop, see {@link AdaptiveTimeouts} */
+    private AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout();
+
+    /**
+     * Acknowledgement profile of a queue consumer, a bounded redelivery window traded for consumer throughput.
+     *
+     * <ul>
+     * <li>AUTO: one acknowledgement per message. A crash redelivers at most the message in flight.</li>
+     * <li>DUPS_OK: the client acknowledges lazily, about every prefetch / 2 messages. A crash redelivers up to
+     * that many already answered messages.</li>
+     * <li>CLIENT_BATCH: one acknowledgement per batch of batchSize messages or batchIntervalMillis. Replies go out
+     * immediately; a crash or a failed message redelivers up to a batch of already answered messages.</li>
+     * <li>TRANSACTED_BATCH: one local transaction per batch, replies are sent in the transaction and only reach the
+     * requester when the batch commits, up to batchIntervalMillis later. A crash or a failed message rolls back the
+     * batch and its replies, so redelivered messages are answered only once.</li>
+     * </ul>
+     *
+     * Redelivered messages carry JMSRedelivered; the fraud check verdict depends only on the request, and the
+     * requester drops replies it no longer waits for, so a repeated check is harmless.
+     */
+    @Data
+    public static class Consumer {
+
+        private Acknowledgement acknowledgement = Acknowledgement.AUTO;
+
+        /** Messages per commit or acknowledgement in the batch profiles */
+        private int batchSize = 100;
+
+        /** Longest a batch stays open, also the receive timeout that closes batches of an idle consumer */
+        private long batchIntervalMillis = 10;
+
+        public enum Acknowledgement {
+            AUTO, DUPS_OK, CLIENT_BATCH, TRANSACTED_BATCH
+        }
+
+        /**
+         * Whether messages are acknowledged when they are received rather than after they were processed
+         */
+        public boolean acknowledgesOnReceipt() {
+            return acknowledgement == Acknowledgement.AUTO || acknowledgement == Acknowledgement.DUPS_OK;
+        }
+
+        /**
+         * The consumer endpoint URI with the options of the acknowledgement profile appended
+         */
+        public String applyTo(String uri) {
+            String options = switch (acknowledgement) {
+                case AUTO -> "";
+                case DUPS_OK -> "acknowledgementModeName=DUPS_OK_ACKNOWLEDGE";
+                case CLIENT_BATCH -> "acknowledgementModeName=CLIENT_ACKNOWLEDGE&" + batchContainerOptions();
+                // Local session transactions, a transaction manager would commit every message itself
+                case TRANSACTED_BATCH -> "transacted=true&lazyCreateTransactionManager=false&" + batchContainerOptions();
+            };
+            if (options.isEmpty()) {
+                return uri;
+            }
+            return uri + (uri.contains("?") ? "&" : "?") + options;
+        }
+
+        /**
+         * Like {@link #applyTo}, and consuming asynchronously when messages are acknowledged on receipt, so the
+         * listener thread takes the next message while the route continues on another thread. Batch profiles
+         * acknowledge after processing and keep the thread until the exchange completes.
+         */
+        public String applyAsyncTo(String uri) {
+            String withProfile = applyTo(uri);
+            if (!acknowledgesOnReceipt()) {
+                return withProfile;
+            }
+            return withProfile + (withProfile.contains("?") ? "&" : "?") + "asyncConsumer=true";
+        }
+
+        private String batchContainerOptions() {
+            return "consumerType=Custom&messageListenerContainerFactory=#"
+                + PooledMessagingConfig.BATCH_ACKNOWLEDGING_CONTAINER_FACTORY
+                + "&receiveTimeout=" + Math.max(1, batchIntervalMillis);
+        }
+    }
+
+    /**
+     * Bounds and pace of the concurrent consumer autoscaler. Consumers are added as soon as the backlog needs
+     * them and removed one at a time once it has needed fewer for scaleDownAfterIntervals intervals in a row.
+     */
+    @Data
+    public static class Autoscaling {
+        private boolean enabled = true;
+        private int minConsumers = 1;
+        private int maxConsumers = 8;
+
+        /** How often queue depth and latency are sampled */
+        private long intervalMillis = 1000;
+
+        /** Enough consumers are kept to work off the queued messages in about this time */
+        private long targetDrainMillis = 1000;
+
+        /** Consecutive intervals with too many consumers before one is removed */
+        private int scaleDownAfterIntervals = 5;
+
+        /** Queue depth is measured by browsing, at most this many messages */
+        private int maxBrowseDepth = 5000;
+    }
+
+    /**
+     * Consumers of the {@link PaymentPriority#HIGH} variant of the service's main queue. They are fixed in number
+     * and process on their own threads, so a backlog of normal requests never delays them.
+     */
+    @Data
+    public static class PriorityLane {
+        private boolean enabled = true;
+        private int concurrentConsumers = 2;
+    }
+
+    /**
+     * JMS message groups of fraud check requests, one per bucket of payer accounts
+     */
+    @Data
+    public static class Groups {
+        private boolean enabled = true;
+
+        /** Groups the payer accounts are hashed into, bounding the group table of the broker */
+        private int buckets = 1024;
+    }
+
+    /**
+     * How request timeouts follow hop latency. The configured request timeout of a hop stays its upper bound.
+     */
+    @Data
+    public static class AdaptiveTimeout {
+        private boolean enabled = true;
+
+        /** Latency percentile the timeout is derived from */
+        private double percentile = 0.999;
+
+        /** Headroom over the percentile */
+        private double factor = 2.0;
+
+        /** Lower bound of the timeout */
+        private long minMillis = 1000;
+
+        /** Latencies the percentile is taken over */
+        private long windowMillis = 60_000;
+
+        /** Latencies needed within the window before the timeout adapts, enough for the percentile to be meaningful */
+        private long minSamples = 1000;
+    }
+}
@@ -0,0 +1,49 @@
+package com.demo.common.messaging;
+
+import org.apache.camel.Message;
+
+/**
+ * Priority lane of a fraud check request, set by PPS from the payment amount and carried in the {@value #HEADER}
+ * header through the broker to FCS.
+ *
+ * Each lane has its own request queues, named with the lane's suffix, and its own consumers, so high-value payments
+ * do not queue behind bulk load. The JMSPriority sent along lets a broker that orders by priority do the same
+ * within a queue.
+ */
+public enum PaymentPriority {
+
+    NORMAL(4, ""),
+    HIGH(9, ".high");
+
+    public static final String HEADER = "paymentPriority";
+
+    private final int jmsPriority;
+    private final String queueSuffix;
+
+    PaymentPriority(int jmsPriority, String queueSuffix) {
+        this.jmsPriority = jmsPriority;
+        this.queueSuffix = queueSuffix;
+    }
+
+    public int getJmsPriority() {
+        return jmsPriority;
+    }
+
+    /**
+     * The lane's variant of a queue name or of an endpoint URI without options
+     */
+    public String queue(String queue) {
+        return queue + queueSuffix;
+    }
+
+    /**
+     * The lane of the message, {@link #NORMAL} without a readable {@value #HEADER} header
+     */
+    public static PaymentPriority of(Message message) {
+        Object value = message.getHeader(HEADER);
+        if (value instanceof PaymentPriority priority) {
+            return priority;
+        }
+        return value != null && HIGH.name().equalsIgnoreCase(value.toString().trim()) ? HIGH : NORMAL;
+    }
+}
@@ -0,0 +1,138 @@
+package com.demo.common.messaging;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.camel.component.jms.JmsComponent;
+import org.apache.camel.component.jms.MessageListenerContainerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.jms.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JMS connection shared by all Camel JMS endpoints of a service.
+ *
+ * For sends the client connection is opened once and sessions and producers are cached on it, instead of creating a
+ * connection, session and producer for every send. Listener containers keep their connection and consumers open on
+ * their own and get the plain client connection factory, so they do not hold cached sessions of the shared
+ * connection or go down with it when it is reset. Import it from the service's messaging configuration.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(MessagingProperties.class)
+public class PooledMessagingConfig {
+
+    /** Bean name of the container factory used by the batch acknowledgement profiles */
+    public static final String BATCH_ACKNOWLEDGING_CONTAINER_FACTORY = "batchAcknowledgingContainerFactory";
+
+    @Value("${spring.activemq.broker-url}")
+    private String brokerUrl;
+
+    @Value("${spring.activemq.user}")
+    private String userName;
+
+    @Value("${spring.activemq.password}")
+    private String password;
+
+    @Bean
+    public ConnectionFactory connectionFactory(MessagingProperties properties) {
+        return cachingConnectionFactory(brokerUrl, userName, password, properties);
+    }
+
+    @Bean
+    public JmsComponent jmsComponent(ConnectionFactory connectionFactory, MessagingProperties properties) {
+        JmsComponent jmsComponent = new JmsComponent();
+        jmsComponent.setConnectionFactory(connectionFactory);
+        jmsComponent.setListenerConnectionFactory(clientConnectionFactory(brokerUrl, userName, password, properties));
+        return jmsComponent;
+    }
+
+    @Bean(BATCH_ACKNOWLEDGING_CONTAINER_FACTORY)
+    public MessageListenerContainerFactory batchAcknowledgingContainerFactory(MessagingProperties properties) {
+        MessagingProperties.Consumer consumer = properties.getConsumer();
+        log.info("JMS consumer acknowledgement {}, batches of {} messages or {} ms", consumer.getAcknowledgement(),
+            consumer.getBatchSize(), consumer.getBatchIntervalMillis());
+        return endpoint -> new BatchAcknowledgingMessageListenerContainer(endpoint, consumer.getBatchSize(),
+            consumer.getBatchIntervalMillis());
+    }
+
+    /**
+     * Measures queue depth by browsing, up to messaging.autoscaling.max-browse-depth messages
+     */
+    @Bean
+    public ConsumerAutoscaler.QueueDepthProbe queueDepthProbe(MessagingProperties properties,
+            ConnectionFactory connectionFactory) {
+        int maxBrowseDepth = properties.getAutoscaling().getMaxBrowseDepth();
+        JmsTemplate browser = new JmsTemplate(connectionFactory);
+        return queue -> browser.browse(queue, (session, browsed) -> {
+            int depth = 0;
+            for (var messages = browsed.getEnumeration(); messages.hasMoreElements()
+                    && depth < maxBrowseDepth; messages.nextElement()) {
+                depth++;
+            }
+            return depth;
+        });
+    }
+
+    /**
+     * Scales the concurrent consumers of the routes it is attached to
+     */
+    @Bean(destroyMethod = "close")
+    public ConsumerAutoscaler consumerAutoscaler(MessagingProperties properties,
+            ConsumerAutoscaler.QueueDepthProbe queueDepthProbe, MeterRegistry meterRegistry) {
+        return new ConsumerAutoscaler(properties.getAutoscaling(), queueDepthProbe, meterRegistry);
+    }
+
+    /**
+     * Timeouts of the request/reply hops of the service, registered with Camel to measure them
+     */
+    /**
+     * Keeps message groups in order behind asynchronous consumers, see messaging.message-groups
+     */
+    @Bean(destroyMethod = "close")
+    public MessageGroupSequencer messageGroupSequencer(MessagingProperties properties) {
+        return new MessageGroupSequencer(properties.getMessageGroups());
+    }
+
+    @Bean
+    public AdaptiveTimeouts adaptiveTimeouts(MessagingProperties properties, MeterRegistry meterRegistry) {
+        return new AdaptiveTimeouts(properties.getAdaptiveTimeout(), meterRegistry);
+    }
+
+    /**
+     * Client connection factory with the flow control settings applied
+     */
+    public static ActiveMQConnectionFactory clientConnectionFactory(String brokerUrl, String userName, String password,
+            MessagingProperties properties) {
+        ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory();
+        factory.setBrokerURL(brokerUrl);
+        factory.setUserName(userName);
+        factory.setPassword(password);
+        factory.setUseAsyncSend(properties.isAsyncSend());
+        factory.setProducerWindowSize(properties.getConfirmationWindowSize());
+        factory.getPrefetchPolicy().setQueuePrefetch(properties.getPrefetch());
+        return factory;
+    }
+
+    /**
+     * Client connection factory behind a single shared connection with cached sessions and producers
+     */
+    public static CachingConnectionFactory cachingConnectionFactory(String brokerUrl, String userName, String password,
+            MessagingProperties properties) {
+        CachingConnectionFactory factory = new CachingConnectionFactory(
+            clientConnectionFactory(brokerUrl, userName, password, properties));
+        factory.setSessionCacheSize(properties.getSessionCacheSize());
+        factory.setCacheProducers(properties.isCacheProducers());
+        factory.setCacheConsumers(properties.isCacheConsumers());
+        factory.setReconnectOnException(true);
+        log.info("JMS connection to {}: {} cached sessions, async send {}, confirmation window {} bytes, prefetch {}",
+            brokerUrl, properties.getSessionCacheSize(), properties.isAsyncSend(),
+            properties.getConfirmationWindowSize(), properties.getPrefetch());
+        return factory;
+    }
+}
@@ -0,0 +1,73 @@
+package com.demo.common.messaging;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+
+/**
+ * Absolute deadline of a fraud check request, carried from PPS through the broker to FCS in the
+ * {@value #HEADER} header as epoch milliseconds.
+ *
+ * PPS sets it to the time its request/reply gives up, so every later hop can tell whether anybody is still waiting
+ * for the answer. Plain header types survive JMS properties and HTTP headers alike.
+ *
+ * An absolute time also covers the time a request waited in broker queues, which a relative budget handed from hop to
+ * hop would miss, but it assumes the clocks of the hosts are synchronized, e.g. by NTP. A host whose clock is ahead by
+ * s ms drops requests s ms before their caller gives up, one behind keeps them s ms longer.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "requestDeadline";
+
+    /** Sorts requests without a deadline after all others */
+    public static final long NONE = Long.MAX_VALUE;
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Sets the deadline to now + timeoutMillis, replacing the deadline of a previous attempt
+     */
+    public static Processor expiresIn(long timeoutMillis) {
+        return exchange -> exchange.getMessage().setHeader(HEADER, System.currentTimeMillis() + timeoutMillis);
+    }
+
+    /**
+     * The deadline of the message in epoch milliseconds, {@link #NONE} when it has none or an unreadable one
+     */
+    public static long of(Message message) {
+        Object value = message.getHeader(HEADER);
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return NONE;
+            }
+        }
+        return NONE;
+    }
+
+    public static boolean isExpired(Message message, long nowMillis) {
+        return of(message) < nowMillis;
+    }
+
+    /**
+     * Milliseconds left before the deadline, 0 once it has passed, {@link #NONE} without a deadline
+     */
+    public static long remainingMillis(Message message, long nowMillis) {
+        long deadline = of(message);
+        return deadline == NONE ? NONE : Math.max(0, deadline - nowMillis);
+    }
+
+    /**
+     * Ends the exchange without a reply, for requests whose caller has already given up
+     */
+    public static void drop(Exchange exchange) {
+        exchange.setPattern(ExchangePattern.InOnly);
+        exchange.setRouteStop(true);
+    }
+}
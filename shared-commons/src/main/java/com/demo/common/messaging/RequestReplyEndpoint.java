@@ -0,0 +1,104 @@
+package com.demo.common.messaging;
+
+import java.util.UUID;
+
+import org.apache.camel.component.jms.ReplyToType;
+import org.apache.camel.util.TimeUtils;
+
+import lombok.Data;
+
+/**
+ * JMS request/reply of a service to the next hop, bound from the service's route configuration, which sets the
+ * default queues. Builds the InOut endpoint per priority lane with the reply queue of the configured reply type.
+ */
+@Data
+public class RequestReplyEndpoint {
+    private String requestQueue;
+    private String responseQueue;
+
+    /**
+     * How replies are consumed. Exclusive reads a per-instance reply queue without selectors and correlates
+     * in memory, Shared filters a common reply queue with a selector per request, Temporary uses a temporary queue
+     */
+    private ReplyToType replyToType = ReplyToType.Exclusive;
+
+    /** Suffix of the per-instance reply queue used in Exclusive mode */
+    private String instanceId = UUID.randomUUID().toString();
+
+    private String requestTimeout = "30s";
+
+    /** How often pending requests are checked for timeouts */
+    private long requestTimeoutCheckerInterval = 1000;
+
+    private int replyToConcurrentConsumers = 1;
+    private int replyToMaxConcurrentConsumers = 1;
+
+    public RequestReplyEndpoint() {
+    }
+
+    public RequestReplyEndpoint(String requestQueue, String responseQueue) {
+        this.requestQueue = requestQueue;
+        this.responseQueue = responseQueue;
+    }
+
+    /**
+     * Name of the queue replies are read from, per instance in Exclusive mode
+     */
+    public String replyQueueName() {
+        String name = responseQueue.replaceFirst("^jms:", "").replaceFirst("^queue:", "");
+        return replyToType == ReplyToType.Exclusive ? name + "." + instanceId : name;
+    }
+
+    public long requestTimeoutMillis() {
+        return TimeUtils.toMilliSeconds(requestTimeout);
+    }
+
+    /**
+     * InOut endpoint sending text messages to the request queue and waiting for the correlated reply
+     */
+    public String requestReplyUri() {
+        return requestReplyUri("Text", PaymentPriority.NORMAL);
+    }
+
+    /**
+     * InOut endpoint sending text messages to the request queue of the priority lane
+     */
+    public String requestReplyUri(PaymentPriority priority) {
+        return requestReplyUri("Text", priority);
+    }
+
+    /**
+     * InOut endpoint sending the given JMS message type to the request queue and waiting for the correlated reply
+     */
+    public String requestReplyUri(String jmsMessageType) {
+        return requestReplyUri(jmsMessageType, PaymentPriority.NORMAL);
+    }
+
+    /**
+     * InOut endpoint sending the given JMS message type to the request queue of the priority lane, with its
+     * JMSPriority, and waiting for the correlated reply. Each lane has its own reply queue in Exclusive mode, as
+     * every endpoint correlates the replies of its queue in memory.
+     */
+    public String requestReplyUri(String jmsMessageType, PaymentPriority priority) {
+        StringBuilder uri = new StringBuilder(priority.queue(requestQueue))
+            .append("?exchangePattern=InOut")
+            .append("&useMessageIDAsCorrelationID=true")
+            .append("&requestTimeout=").append(requestTimeout)
+            .append("&requestTimeoutCheckerInterval=").append(requestTimeoutCheckerInterval)
+            .append("&jmsMessageType=").append(jmsMessageType);
+        if (priority != PaymentPriority.NORMAL) {
+            uri.append("&explicitQosEnabled=true&priority=").append(priority.getJmsPriority());
+        }
+        if (replyToType != ReplyToType.Temporary) {
+            uri.append("&replyTo=queue:").append(replyQueueName(priority))
+                .append("&replyToType=").append(replyToType)
+                .append("&replyToConcurrentConsumers=").append(replyToConcurrentConsumers)
+                .append("&replyToMaxConcurrentConsumers=").append(replyToMaxConcurrentConsumers);
+        }
+        return uri.toString();
+    }
+
+    private String replyQueueName(PaymentPriority priority) {
+        return replyToType == ReplyToType.Exclusive ? priority.queue(replyQueueName()) : replyQueueName();
+    }
+}
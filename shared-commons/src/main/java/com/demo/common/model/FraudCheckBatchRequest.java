@@ -0,0 +1,28 @@
+package com.demo.common.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fraud Check Batch Request
+ *
+ * Several payment requests sent to the fraud check system in one message
+ */
+@XmlRootElement(name = "fraudCheckBatchRequest", namespace = "urn:example:fraudcheck:v1")
+@XmlAccessorType(XmlAccessType.FIELD)
+@Data @Builder @AllArgsConstructor @NoArgsConstructor
+public class FraudCheckBatchRequest {
+
+    @XmlElement(name = "fraudCheckRequest")
+    @Builder.Default
+    private List<PaymentRequest> requests = new ArrayList<>();
+}
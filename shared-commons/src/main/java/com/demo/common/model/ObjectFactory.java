@@ -29,6 +29,20 @@ public class ObjectFactory {
         return new FraudCheckResponse();
     }
 
+    /**
+     * Create an instance of {@link FraudCheckBatchRequest}
+     */
+    public FraudCheckBatchRequest createFraudCheckBatchRequest() {
+        return new FraudCheckBatchRequest();
+    }
+
+    /**
+     * Create an instance of {@link FraudCheckBatchResponse}
+     */
+    public FraudCheckBatchResponse createFraudCheckBatchResponse() {
+        return new FraudCheckBatchResponse();
+    }
+
     /**
      * Create an instance of {@link FraudCheckStatus}
      */
@@ -0,0 +1,101 @@
+package com.demo.common.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.demo.common.jaxb.FraudCheckJaxb;
+import com.demo.common.jaxb.PooledJaxbDataFormat;
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Size and per message cost of the binary codec against the pooled JAXB XML used on the broker to fraud check hop.
+ *
+ * Run with: mvn test -pl shared-commons -Dtest=FraudCheckBinaryCodecBenchmarkTest -Dbenchmark=true
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Fraud Check Binary Codec Benchmark")
+class FraudCheckBinaryCodecBenchmarkTest {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    @DisplayName("Should compare the binary codec with JAXB XML")
+    void shouldCompareWithJaxb() throws Exception {
+        PooledJaxbDataFormat jaxb = FraudCheckJaxb.dataFormat();
+        PaymentRequest request = FraudCheckBinaryCodecTest.samplePayment();
+        FraudCheckResponse response = FraudCheckResponse.builder()
+            .transactionId(UUID.randomUUID())
+            .status(FraudCheckStatus.APPROVED)
+            .validationTimestamp(Instant.now())
+            .build();
+
+        // One request and one response, encoded and decoded, like a full fraud check exchange
+        Task xml = () -> {
+            ByteArrayOutputStream requestXml = new ByteArrayOutputStream(1024);
+            jaxb.marshal(request, requestXml);
+            jaxb.unmarshal(new ByteArrayInputStream(requestXml.toByteArray()));
+            ByteArrayOutputStream responseXml = new ByteArrayOutputStream(256);
+            jaxb.marshal(response, responseXml);
+            jaxb.unmarshal(new ByteArrayInputStream(responseXml.toByteArray()));
+            return requestXml.size() + responseXml.size();
+        };
+        Task binary = () -> {
+            byte[] requestBytes = FraudCheckBinaryCodec.encode(request);
+            FraudCheckBinaryCodec.decode(requestBytes);
+            byte[] responseBytes = FraudCheckBinaryCodec.encode(response);
+            FraudCheckBinaryCodec.decode(responseBytes);
+            return requestBytes.length + responseBytes.length;
+        };
+
+        ByteArrayOutputStream requestXml = new ByteArrayOutputStream();
+        jaxb.marshal(request, requestXml);
+        ByteArrayOutputStream responseXml = new ByteArrayOutputStream();
+        jaxb.marshal(response, responseXml);
+        log.info(String.format("request   xml %4d bytes, binary %4d bytes",
+            requestXml.size(), FraudCheckBinaryCodec.encode(request).length));
+        log.info(String.format("response  xml %4d bytes, binary %4d bytes",
+            responseXml.size(), FraudCheckBinaryCodec.encode(response).length));
+
+        double xmlNanos = measure(xml);
+        double binaryNanos = measure(binary);
+
+        log.info(String.format("xml    %8.0f ns/exchange", xmlNanos));
+        log.info(String.format("binary %8.0f ns/exchange (%.1fx)", binaryNanos, xmlNanos / binaryNanos));
+        assertThat(binaryNanos).isPositive();
+    }
+
+    private static double measure(Task task) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += task.run();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += task.run();
+        }
+        double nanos = (double) (System.nanoTime() - started) / ITERATIONS;
+        assertThat(sink).isPositive();
+        return nanos;
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        long run() throws Exception;
+    }
+}
@@ -0,0 +1,126 @@
+package com.demo.common.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.jaxb.FraudCheckJaxb;
+import com.demo.common.model.FraudCheckBatchRequest;
+import com.demo.common.model.FraudCheckBatchResponse;
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+
+@DisplayName("Fraud Check Binary Codec Tests")
+class FraudCheckBinaryCodecTest {
+
+    @Test
+    @DisplayName("Should round trip a payment request")
+    void shouldRoundTripPaymentRequest() {
+        // Given
+        PaymentRequest request = samplePayment();
+
+        // When
+        Object decoded = FraudCheckBinaryCodec.decode(FraudCheckBinaryCodec.encode(request));
+
+        // Then
+        assertThat(decoded).isInstanceOf(PaymentRequest.class).isEqualTo(request);
+    }
+
+    @Test
+    @DisplayName("Should round trip a response and keep null fields null")
+    void shouldRoundTripResponseWithNulls() {
+        // Given
+        FraudCheckResponse response = FraudCheckResponse.builder()
+            .transactionId(UUID.randomUUID())
+            .status(FraudCheckStatus.SUSPICIOUS)
+            .validationTimestamp(Instant.parse("2024-01-15T10:30:00.123456789Z"))
+            .build();
+        PaymentRequest sparse = PaymentRequest.builder()
+            .transactionId(UUID.randomUUID())
+            .amount(new BigDecimal("-12345678901234567890.123"))
+            .executionDate(LocalDate.of(1969, 12, 31))
+            .payerName("Zoë Ærø €")
+            .build();
+
+        // When/Then
+        assertThat(FraudCheckBinaryCodec.decode(FraudCheckBinaryCodec.encode(response))).isEqualTo(response);
+        assertThat(FraudCheckBinaryCodec.decode(FraudCheckBinaryCodec.encode(sparse))).isEqualTo(sparse);
+    }
+
+    @Test
+    @DisplayName("Should round trip batches in order")
+    void shouldRoundTripBatches() {
+        // Given
+        PaymentRequest second = samplePayment();
+        second.setTransactionId(UUID.randomUUID());
+        FraudCheckBatchRequest requests = new FraudCheckBatchRequest(List.of(samplePayment(), second));
+        FraudCheckBatchResponse responses = new FraudCheckBatchResponse(List.of(
+            new FraudCheckResponse(second.getTransactionId(), FraudCheckStatus.APPROVED, Instant.EPOCH),
+            new FraudCheckResponse(UUID.randomUUID(), FraudCheckStatus.SUSPICIOUS, null)));
+
+        // When/Then
+        assertThat(FraudCheckBinaryCodec.decode(FraudCheckBinaryCodec.encode(requests))).isEqualTo(requests);
+        assertThat(FraudCheckBinaryCodec.decode(FraudCheckBinaryCodec.encode(responses))).isEqualTo(responses);
+        assertThat(FraudCheckBinaryCodec.decode(FraudCheckBinaryCodec.encode(new FraudCheckBatchRequest())))
+            .isEqualTo(new FraudCheckBatchRequest());
+    }
+
+    @Test
+    @DisplayName("Should be several times smaller than the JAXB XML")
+    void shouldBeSmallerThanXml() throws Exception {
+        // Given
+        PaymentRequest request = samplePayment();
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        FraudCheckJaxb.dataFormat().marshal(request, xml);
+
+        // When
+        byte[] binary = FraudCheckBinaryCodec.encode(request);
+
+        // Then
+        assertThat(binary.length * 3).isLessThan(xml.size());
+    }
+
+    @Test
+    @DisplayName("Should reject data that is not in the binary format")
+    void shouldRejectForeignData() {
+        // Given
+        byte[] truncated = Arrays.copyOf(FraudCheckBinaryCodec.encode(samplePayment()), 20);
+
+        // When/Then
+        assertThatThrownBy(() -> FraudCheckBinaryCodec.decode("<xml/>".getBytes()))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FraudCheckBinaryCodec.decode(truncated))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Truncated");
+    }
+
+    static PaymentRequest samplePayment() {
+        return PaymentRequest.builder()
+            .transactionId(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"))
+            .payerName("John Doe")
+            .payerBank("Bank of America")
+            .payerCountryCode("USA")
+            .payerAccount("1234567890123456")
+            .payeeName("Jane Smith")
+            .payeeBank("BNP Paribas")
+            .payeeCountryCode("FRA")
+            .payeeAccount("FR1420041010050500013M02606")
+            .paymentInstruction("Loan Repayment")
+            .executionDate(LocalDate.of(2024, 1, 20))
+            .amount(new BigDecimal("1500.50"))
+            .currency("EUR")
+            .creationTimestamp(Instant.parse("2024-01-15T10:30:00Z"))
+            .build();
+    }
+}
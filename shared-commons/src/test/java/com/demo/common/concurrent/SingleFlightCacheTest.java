@@ -0,0 +1,71 @@
+package com.demo.common.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Single Flight Cache Tests")
+class SingleFlightCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+    private final SingleFlightCache<String, String> cache = new SingleFlightCache<>(clock::get, () -> 2);
+
+    @Test
+    @DisplayName("Should let one caller claim a flight and the others join it")
+    void shouldJoinFlight() {
+        // Given
+        SingleFlightCache<String, String>.Flight first = cache.join("a", "owner");
+
+        // When
+        SingleFlightCache<String, String>.Flight second = cache.join("a", "other");
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(second.getOwner()).isEqualTo("owner");
+        assertThat(first.claim()).isTrue();
+        assertThat(second.claim()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep completed flights until their TTL and drop failures without one")
+    void shouldExpireCompletedFlights() {
+        // Given
+        SingleFlightCache<String, String>.Flight succeeded = cache.join("a", null);
+        succeeded.succeed("result", 1000);
+        SingleFlightCache<String, String>.Flight failed = cache.join("b", null);
+        failed.fail(new IllegalStateException("down"), 0);
+
+        // When
+        clock.addAndGet(999);
+        SingleFlightCache<String, String>.Flight cached = cache.join("a", null);
+        SingleFlightCache<String, String>.Flight retried = cache.join("b", null);
+        clock.addAndGet(1);
+        SingleFlightCache<String, String>.Flight expired = cache.join("a", null);
+
+        // Then
+        assertThat(cached).isSameAs(succeeded);
+        assertThat(cached.future()).isCompletedWithValue("result");
+        assertThat(retried).isNotSameAs(failed);
+        assertThat(expired).isNotSameAs(succeeded);
+    }
+
+    @Test
+    @DisplayName("Should never evict outstanding flights to bound the number of entries")
+    void shouldNotEvictOutstandingFlights() {
+        // Given
+        SingleFlightCache<String, String>.Flight outstanding = cache.join("a", null);
+        cache.join("b", null).succeed("b", 60_000);
+
+        // When
+        cache.join("c", null);
+        cache.join("d", null);
+
+        // Then
+        assertThat(cache.join("a", null)).isSameAs(outstanding);
+        assertThat(cache.size()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,237 @@
+package com.demo.common.errorhandling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.CamelExecutionException;
+import org.apache.camel.ConsumerTemplate;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.messaging.MessagingProperties;
+import com.demo.common.model.PaymentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@DisplayName("Route Error Handling Tests")
+class RouteErrorHandlingTest {
+
+    private final ErrorHandlingProperties properties = new ErrorHandlingProperties();
+    private final RouteErrorHandling handling = new RouteErrorHandling(properties);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean(true);
+
+    private DefaultCamelContext context;
+    private ProducerTemplate producer;
+    private ConsumerTemplate consumer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties.getRetry().setRedeliveryDelayMillis(1);
+        properties.getRetry().setMaximumRedeliveryDelayMillis(5);
+
+        // In-memory queues stand in for the JMS broker
+        context = new DefaultCamelContext();
+        context.addComponent("jms", context.getComponent("seda"));
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:orders").routeId("orders")
+                    .errorHandler(handling.deadLetterChannel("orders"))
+                    .setBody(constant("changed before failing"))
+                    .process(exchange -> fail());
+
+                from("direct:payments").routeId("payments")
+                    .errorHandler(handling.deadLetterChannelFailingCaller("payments",
+                        IllegalArgumentException.class))
+                    .to("direct:payments-downstream");
+
+                from("direct:payments-downstream")
+                    .errorHandler(noErrorHandler())
+                    .process(exchange -> {
+                        if (exchange.getMessage().getBody() instanceof RuntimeException e) {
+                            attempts.incrementAndGet();
+                            throw e;
+                        }
+                        fail();
+                    });
+            }
+        });
+        producer = context.createProducerTemplate();
+        consumer = context.createConsumerTemplate();
+        context.getRegistry().bind(RouteErrorHandling.PUBLISHER_BEAN,
+            new DeadLetterPublisher(properties, producer, objectMapper));
+        context.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    @DisplayName("Should retry, then dead-letter the original message and answer with a failure reply")
+    void shouldRetryThenDeadLetter() {
+        // Given
+        Map<String, Object> headers = Map.of("customer", "42");
+
+        // When
+        Exchange reply = producer.request("direct:orders", exchange -> {
+            exchange.getIn().setBody("original");
+            exchange.getIn().setHeaders(Map.copyOf(headers));
+        });
+
+        // Then
+        assertThat(attempts).hasValue(4);
+        assertThat(reply.getException()).isNull();
+        assertThat(reply.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE)).isEqualTo(503);
+        assertThat(reply.getMessage().getHeader(RouteErrorHandling.DEAD_LETTER_QUEUE_HEADER)).isEqualTo("DLQ.orders");
+        assertThat(reply.getMessage().getBody(String.class)).contains("4 attempt(s)", "service down");
+
+        Message deadLetter = consumer.receive("jms:queue:DLQ.orders", 1000).getMessage();
+        assertThat(deadLetter.getBody()).isEqualTo("original");
+        assertThat(deadLetter.getHeader("customer")).isEqualTo("42");
+        assertThat(deadLetter.getHeader(DeadLetterPublisher.ROUTE_ID_HEADER)).isEqualTo("orders");
+        assertThat(deadLetter.getHeader(DeadLetterPublisher.ATTEMPTS_HEADER)).isEqualTo(4);
+        assertThat(deadLetter.getHeader(DeadLetterPublisher.EXCEPTION_TYPE_HEADER))
+            .isEqualTo(IllegalStateException.class.getName());
+        assertThat(deadLetter.getHeader(DeadLetterPublisher.FROM_ENDPOINT_HEADER)).isEqualTo("direct://orders");
+    }
+
+    @Test
+    @DisplayName("Should use the retry settings of the route when it has its own")
+    void shouldUseRouteRetry() throws Exception {
+        // Given
+        ErrorHandlingProperties.Retry once = new ErrorHandlingProperties.Retry();
+        once.setMaximumRedeliveries(1);
+        properties.getRoutes().put("orders", once);
+        context.removeRoute("orders");
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:orders").routeId("orders")
+                    .errorHandler(handling.deadLetterChannel("orders"))
+                    .process(exchange -> fail());
+            }
+        });
+
+        // When
+        producer.request("direct:orders", exchange -> exchange.getIn().setBody("original"));
+
+        // Then
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should fail the caller with a DeadLetterException and store model objects as JSON")
+    void shouldFailCallerAndStoreJson() throws Exception {
+        // Given
+        PaymentRequest payment = PaymentRequest.builder()
+            .transactionId(UUID.randomUUID())
+            .amount(new BigDecimal("10.50"))
+            .currency("EUR")
+            .build();
+
+        // When/Then
+        assertThatThrownBy(() -> producer.requestBody("direct:payments", payment))
+            .isInstanceOf(CamelExecutionException.class)
+            .cause().isInstanceOf(DeadLetterException.class)
+            .extracting(e -> ((DeadLetterException) e).getDeadLetterQueue()).isEqualTo("DLQ.payments");
+        assertThat(attempts).hasValue(4);
+
+        Message deadLetter = consumer.receive("jms:queue:DLQ.payments", 1000).getMessage();
+        assertThat(deadLetter.getHeader(DeadLetterPublisher.BODY_TYPE_HEADER))
+            .isEqualTo(PaymentRequest.class.getName());
+        assertThat(objectMapper.readValue(deadLetter.getBody(byte[].class), PaymentRequest.class)).isEqualTo(payment);
+    }
+
+    @Test
+    @DisplayName("Should neither retry nor dead-letter pass-through and downstream dead letter exceptions")
+    void shouldNotRetryPassThroughOrDownstreamDeadLetters() {
+        // When/Then
+        assertThatThrownBy(() -> producer.requestBody("direct:payments", new IllegalArgumentException("duplicate")))
+            .cause().isInstanceOf(IllegalArgumentException.class).hasMessage("duplicate");
+        assertThat(attempts).hasValue(1);
+
+        assertThatThrownBy(() -> producer.requestBody("direct:payments",
+                new DeadLetterException("dead-lettered downstream", "DLQ.downstream")))
+            .cause().isInstanceOf(DeadLetterException.class)
+            .extracting(e -> ((DeadLetterException) e).getDeadLetterQueue()).isEqualTo("DLQ.downstream");
+        assertThat(attempts).hasValue(2);
+        assertThat(consumer.receiveNoWait("jms:queue:DLQ.payments")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should re-inject dead letters to the endpoint they came from")
+    void shouldReinjectDeadLetters() {
+        // Given
+        producer.request("direct:orders", exchange -> exchange.getIn().setBody("first"));
+        producer.request("direct:orders", exchange -> exchange.getIn().setBody("second"));
+        failing.set(false);
+        attempts.set(0);
+        DeadLetterReinjector reinjector = new DeadLetterReinjector(properties, consumer, producer, objectMapper);
+
+        // When
+        DeadLetterReinjector.Result result = reinjector.reinject("DLQ.orders", 10);
+
+        // Then
+        assertThat(result.getReinjected()).isEqualTo(2);
+        assertThat(result.getFailed()).isZero();
+        assertThat(attempts).hasValue(2);
+        assertThat(consumer.receiveNoWait("jms:queue:DLQ.orders")).isNull();
+        assertThatThrownBy(() -> reinjector.reinject("fraud.check.requests", 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should keep a dead letter whose origin is not an endpoint of a route")
+    void shouldNotReinjectToOtherEndpoints() {
+        // Given a dead letter pointing somewhere no route consumes from
+        producer.sendBodyAndHeaders("jms:queue:DLQ.orders", "tampered",
+            Map.of(DeadLetterPublisher.FROM_ENDPOINT_HEADER, "file://tmp/exfiltrated"));
+        DeadLetterReinjector reinjector = new DeadLetterReinjector(properties, consumer, producer, objectMapper);
+
+        // When
+        DeadLetterReinjector.Result result = reinjector.reinject("DLQ.orders", 1);
+
+        // Then it goes back to the dead letter queue
+        assertThat(result.getReinjected()).isZero();
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(consumer.receiveBodyNoWait("jms:queue:DLQ.orders", String.class)).isEqualTo("tampered");
+    }
+
+    @Test
+    @DisplayName("Should make consumers asynchronous only when they acknowledge on receipt")
+    void shouldMakeConsumersAsynchronous() {
+        // Given
+        MessagingProperties.Consumer auto = new MessagingProperties.Consumer();
+        MessagingProperties.Consumer batch = new MessagingProperties.Consumer();
+        batch.setAcknowledgement(MessagingProperties.Consumer.Acknowledgement.CLIENT_BATCH);
+
+        // When/Then
+        assertThat(handling.consumerUri("jms:queue:requests", auto)).isEqualTo("jms:queue:requests?asyncConsumer=true");
+        assertThat(handling.consumerUri("jms:queue:requests", batch)).doesNotContain("asyncConsumer");
+        properties.setEnabled(false);
+        assertThat(handling.consumerUri("jms:queue:requests", auto)).isEqualTo("jms:queue:requests");
+    }
+
+    private void fail() {
+        attempts.incrementAndGet();
+        if (failing.get()) {
+            throw new IllegalStateException("service down");
+        }
+    }
+}
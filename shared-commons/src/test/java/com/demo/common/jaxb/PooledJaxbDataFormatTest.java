@@ -0,0 +1,108 @@
+package com.demo.common.jaxb;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.model.FraudCheckResponse;
+import com.demo.common.model.FraudCheckStatus;
+import com.demo.common.model.PaymentRequest;
+
+@DisplayName("Pooled JAXB Data Format Tests")
+class PooledJaxbDataFormatTest {
+
+    private PooledJaxbDataFormat dataFormat;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        dataFormat = FraudCheckJaxb.dataFormat();
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should round trip a payment request and return the unwrapped object")
+    void shouldRoundTripPaymentRequest() throws Exception {
+        // Given
+        PaymentRequest request = createPaymentRequest();
+
+        // When
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        dataFormat.marshal(request, xml);
+        Object unmarshalled = dataFormat.unmarshal(new ByteArrayInputStream(xml.toByteArray()));
+
+        // Then
+        assertThat(xml.toString(StandardCharsets.UTF_8))
+            .contains("fraudCheckRequest")
+            .contains("urn:example:fraudcheck:v1")
+            .contains("<creationTimestamp>2025-09-14T10:30:00Z</creationTimestamp>");
+        assertThat(unmarshalled).isInstanceOf(PaymentRequest.class).isEqualTo(request);
+    }
+
+    @Test
+    @DisplayName("Should be safe to share between threads")
+    void shouldMarshalConcurrently() throws Exception {
+        // Given
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 64; i++) {
+            results.add(executor.submit(() -> {
+                FraudCheckResponse response = FraudCheckResponse.builder()
+                    .transactionId(UUID.randomUUID())
+                    .status(FraudCheckStatus.SUSPICIOUS)
+                    .validationTimestamp(Instant.parse("2025-09-14T10:30:00Z"))
+                    .build();
+                ByteArrayOutputStream xml = new ByteArrayOutputStream();
+                dataFormat.marshal(response, xml);
+                return response.equals(dataFormat.unmarshal(new ByteArrayInputStream(xml.toByteArray())));
+            }));
+        }
+
+        // Then
+        for (Future<Boolean> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    private PaymentRequest createPaymentRequest() {
+        return PaymentRequest.builder()
+            .transactionId(UUID.fromString("123e4567-e89b-12d3-a456-426614174000"))
+            .payerName("John Doe")
+            .payerBank("Chase Bank")
+            .payerCountryCode("USA")
+            .payerAccount("12345678901234")
+            .payeeName("Jane Smith")
+            .payeeBank("Wells Fargo")
+            .payeeCountryCode("USA")
+            .payeeAccount("87654321098765")
+            .paymentInstruction("Monthly rent payment")
+            .executionDate(LocalDate.of(2025, 9, 15))
+            .amount(new BigDecimal("1500.00"))
+            .currency("USD")
+            .creationTimestamp(Instant.parse("2025-09-14T10:30:00Z"))
+            .build();
+    }
+}
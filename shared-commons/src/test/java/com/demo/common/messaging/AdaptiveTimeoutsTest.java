@@ -0,0 +1,179 @@
+package com.demo.common.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ExchangeTimedOutException;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Adaptive Timeouts Tests")
+class AdaptiveTimeoutsTest {
+
+    private final MessagingProperties.AdaptiveTimeout settings = new MessagingProperties.AdaptiveTimeout();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private AdaptiveTimeouts timeouts;
+    private AdaptiveTimeouts.Hop hop;
+
+    @BeforeEach
+    void setUp() {
+        settings.setMinSamples(1000);
+        settings.setMinMillis(100);
+        timeouts = new AdaptiveTimeouts(settings, meterRegistry, clock::get);
+        hop = timeouts.hop("broker", 30_000);
+    }
+
+    @Test
+    @DisplayName("Should keep the configured timeout until the window holds enough latencies")
+    void shouldKeepConfiguredTimeoutWithoutSamples() {
+        // Given
+        record(999, 50);
+
+        // When
+        clock.addAndGet(1000);
+
+        // Then
+        assertThat(hop.timeoutMillis()).isEqualTo(30_000);
+    }
+
+    @Test
+    @DisplayName("Should derive the timeout from the p99.9 latency times the factor")
+    void shouldFollowLatencyPercentile() {
+        // Given 998 fast replies and two slow ones, the slowest 0.1% are 400 ms
+        record(998, 50);
+        record(2, 400);
+
+        // When
+        clock.addAndGet(1000);
+
+        // Then within the 5% precision of the histogram
+        assertThat(hop.timeoutMillis()).isBetween(800L, 840L);
+        assertThat(meterRegistry.get("messaging.timeout").tag("hop", "broker").gauge().value())
+            .isEqualTo((double) hop.timeoutMillis());
+        assertThat(meterRegistry.get("messaging.latency.percentile").tag("hop", "broker").gauge().value())
+            .isBetween(400.0, 420.0);
+    }
+
+    @Test
+    @DisplayName("Should keep the timeout between the minimum and the configured timeout")
+    void shouldStayWithinBounds() {
+        // Given
+        AdaptiveTimeouts.Hop slow = timeouts.hop("slow", 2_000);
+        for (int i = 0; i < 1000; i++) {
+            hop.completed(1, null);
+            slow.completed(5_000, null);
+        }
+
+        // When
+        clock.addAndGet(1000);
+
+        // Then
+        assertThat(hop.timeoutMillis()).isEqualTo(100);
+        assertThat(slow.timeoutMillis()).isEqualTo(2_000);
+    }
+
+    @Test
+    @DisplayName("Should grow the timeout again when requests run into it")
+    void shouldGrowAfterTimeouts() {
+        // Given
+        record(1000, 50);
+        clock.addAndGet(1000);
+        long adapted = hop.timeoutMillis();
+
+        // When more than 0.1% time out, each counting as at least as slow as its timeout
+        for (int i = 0; i < 3; i++) {
+            hop.completed(adapted, new ExchangeTimedOutException(null, adapted));
+        }
+        clock.addAndGet(1000);
+
+        // Then
+        assertThat(hop.timeoutMillis()).isGreaterThanOrEqualTo(2 * adapted);
+    }
+
+    @Test
+    @DisplayName("Should forget latencies older than the window")
+    void shouldForgetOldLatencies() {
+        // Given
+        record(1000, 50);
+        clock.addAndGet(1000);
+        assertThat(hop.timeoutMillis()).isLessThan(30_000);
+
+        // When
+        clock.addAndGet(settings.getWindowMillis());
+
+        // Then
+        assertThat(hop.samples()).isZero();
+        assertThat(hop.timeoutMillis()).isEqualTo(30_000);
+    }
+
+    @Test
+    @DisplayName("Should always use the configured timeout when disabled")
+    void shouldNotAdaptWhenDisabled() {
+        // Given
+        settings.setEnabled(false);
+        record(1000, 50);
+
+        // When
+        clock.addAndGet(1000);
+
+        // Then
+        assertThat(hop.timeoutMillis()).isEqualTo(30_000);
+    }
+
+    @Test
+    @DisplayName("Should time the first send after the exchange was marked, and only that one")
+    void shouldMeasureMarkedSend() throws Exception {
+        // Given
+        CamelContext context = new DefaultCamelContext();
+        context.getManagementStrategy().addEventNotifier(timeouts);
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:caller").to("direct:requestReply").to("direct:after");
+                from("direct:requestReply").process(hop.begin("timeoutHeader")).to("direct:broker");
+                from("direct:broker").setBody(constant("reply"));
+                from("direct:after").log("${body}");
+            }
+        });
+        context.start();
+
+        try (ProducerTemplate template = context.createProducerTemplate()) {
+            // When
+            var exchange = template.request("direct:caller", e -> e.getMessage().setBody("request"));
+
+            // Then
+            assertThat(exchange.getMessage().getHeader("timeoutHeader", Long.class)).isEqualTo(30_000);
+            assertThat(RequestDeadline.of(exchange.getMessage())).isGreaterThan(System.currentTimeMillis());
+            assertThat(hop.samples()).isEqualTo(1);
+        } finally {
+            context.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a percentile outside (0, 1]")
+    void shouldRejectInvalidPercentile() {
+        // Given
+        settings.setPercentile(99.9);
+
+        // When/Then
+        assertThatThrownBy(() -> new AdaptiveTimeouts(settings, meterRegistry))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void record(int count, long millis) {
+        for (int i = 0; i < count; i++) {
+            hop.completed(millis, null);
+        }
+    }
+}
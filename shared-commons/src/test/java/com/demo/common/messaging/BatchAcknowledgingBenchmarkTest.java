@@ -0,0 +1,74 @@
+package com.demo.common.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.camel.component.jms.JmsComponent;
+import org.apache.camel.component.jms.JmsEndpoint;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumer throughput of the transacted batch profile against one commit per message, with every commit paying a
+ * simulated broker round trip. There is no broker in the build, so the round trip is a fixed pause.
+ *
+ * Run with: mvn test -pl shared-commons -Dtest=BatchAcknowledgingBenchmarkTest -Dbenchmark=true
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Batch Acknowledging Benchmark")
+class BatchAcknowledgingBenchmarkTest {
+
+    private static final long COMMIT_ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final int MESSAGES = 20_000;
+
+    @Test
+    @DisplayName("Should compare commits per message with commits per batch")
+    void shouldCompareBatchSizes() throws Exception {
+        Message message = mock(Message.class);
+        for (int batchSize : new int[] { 1, 10, 100, 500 }) {
+            AtomicLong commits = new AtomicLong();
+            Session session = mock(Session.class);
+            when(session.getTransacted()).thenReturn(true);
+            doAnswer(invocation -> {
+                commits.incrementAndGet();
+                LockSupport.parkNanos(COMMIT_ROUND_TRIP_NANOS);
+                return null;
+            }).when(session).commit();
+
+            JmsComponent component = new JmsComponent(new DefaultCamelContext());
+            BatchAcknowledgingMessageListenerContainer container = new BatchAcknowledgingMessageListenerContainer(
+                new JmsEndpoint("jms:queue:bench", component, "bench", false, component.getConfiguration()),
+                batchSize, 10);
+            container.setConnectionFactory(mock(ConnectionFactory.class));
+            container.setSessionTransacted(true);
+
+            long started = System.nanoTime();
+            for (int i = 0; i < MESSAGES; i++) {
+                container.commitIfNecessary(session, message);
+            }
+            container.completeIdleBatch(session);
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            log.info(String.format("batch %3d: %6d commits, %9.0f msg/s", batchSize, commits.get(),
+                MESSAGES / seconds));
+            assertThat(commits.get()).isGreaterThanOrEqualTo(MESSAGES / batchSize);
+        }
+    }
+}
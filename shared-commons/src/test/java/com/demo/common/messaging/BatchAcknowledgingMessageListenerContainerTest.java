@@ -0,0 +1,161 @@
+package com.demo.common.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.camel.component.jms.JmsComponent;
+import org.apache.camel.component.jms.JmsEndpoint;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.Message;
+import jakarta.jms.Session;
+
+@DisplayName("Batch Acknowledging Message Listener Container Tests")
+class BatchAcknowledgingMessageListenerContainerTest {
+
+    @Test
+    @DisplayName("Should commit a transacted session once per batch")
+    void shouldCommitOncePerBatch() throws Exception {
+        // Given
+        BatchAcknowledgingMessageListenerContainer container = transactedContainer(10, 60_000);
+        Session session = transactedSession();
+
+        // When
+        for (int i = 0; i < 25; i++) {
+            container.commitIfNecessary(session, mock(Message.class));
+        }
+
+        // Then
+        verify(session, times(2)).commit();
+        assertThat(container.pendingMessages()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should commit an open batch when the consumer goes idle")
+    void shouldCommitOnIdle() throws Exception {
+        // Given
+        BatchAcknowledgingMessageListenerContainer container = transactedContainer(10, 60_000);
+        Session session = transactedSession();
+        container.commitIfNecessary(session, mock(Message.class));
+        container.commitIfNecessary(session, mock(Message.class));
+
+        // When
+        container.completeIdleBatch(session);
+        container.completeIdleBatch(session);
+
+        // Then
+        verify(session, times(1)).commit();
+        assertThat(container.pendingMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should commit every message once the batch interval has passed")
+    void shouldCommitAfterInterval() throws Exception {
+        // Given
+        BatchAcknowledgingMessageListenerContainer container = transactedContainer(100, 0);
+        Session session = transactedSession();
+
+        // When
+        container.commitIfNecessary(session, mock(Message.class));
+        container.commitIfNecessary(session, mock(Message.class));
+
+        // Then
+        verify(session, times(2)).commit();
+    }
+
+    @Test
+    @DisplayName("Should acknowledge the last message of a client acknowledged batch")
+    void shouldAcknowledgeLastMessageOfBatch() throws Exception {
+        // Given
+        BatchAcknowledgingMessageListenerContainer container = new BatchAcknowledgingMessageListenerContainer(
+            endpoint(), 3, 60_000);
+        container.setConnectionFactory(mock(ConnectionFactory.class));
+        container.setSessionAcknowledgeMode(Session.CLIENT_ACKNOWLEDGE);
+        Session session = mock(Session.class);
+        when(session.getAcknowledgeMode()).thenReturn(Session.CLIENT_ACKNOWLEDGE);
+        Message first = mock(Message.class);
+        Message second = mock(Message.class);
+        Message third = mock(Message.class);
+
+        // When
+        container.commitIfNecessary(session, first);
+        container.commitIfNecessary(session, second);
+        container.commitIfNecessary(session, third);
+
+        // Then
+        verify(first, never()).acknowledge();
+        verify(second, never()).acknowledge();
+        verify(third).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should commit redelivered messages one by one after a rollback")
+    void shouldCommitSinglyAfterRollback() throws Exception {
+        // Given
+        BatchAcknowledgingMessageListenerContainer container = transactedContainer(3, 60_000);
+        Session session = transactedSession();
+        container.commitIfNecessary(session, mock(Message.class));
+
+        // When
+        container.rollbackOnExceptionIfNecessary(session, new IllegalStateException("poison"));
+        for (int i = 0; i < 3; i++) {
+            container.commitIfNecessary(session, mock(Message.class));
+        }
+        container.commitIfNecessary(session, mock(Message.class));
+
+        // Then
+        verify(session).rollback();
+        verify(session, times(3)).commit();
+        assertThat(container.pendingMessages()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should append the endpoint options of each acknowledgement profile")
+    void shouldBuildEndpointOptions() {
+        // Given
+        MessagingProperties.Consumer consumer = new MessagingProperties.Consumer();
+        consumer.setBatchIntervalMillis(20);
+
+        // When/Then
+        assertThat(consumer.applyTo("jms:queue:q")).isEqualTo("jms:queue:q");
+        assertThat(consumer.applyAsyncTo("jms:queue:q")).isEqualTo("jms:queue:q?asyncConsumer=true");
+        consumer.setAcknowledgement(MessagingProperties.Consumer.Acknowledgement.DUPS_OK);
+        assertThat(consumer.applyTo("jms:queue:q?concurrentConsumers=4"))
+            .isEqualTo("jms:queue:q?concurrentConsumers=4&acknowledgementModeName=DUPS_OK_ACKNOWLEDGE");
+        consumer.setAcknowledgement(MessagingProperties.Consumer.Acknowledgement.TRANSACTED_BATCH);
+        assertThat(consumer.applyAsyncTo("jms:queue:q")).doesNotContain("asyncConsumer");
+        assertThat(consumer.applyTo("jms:queue:q"))
+            .startsWith("jms:queue:q?transacted=true&lazyCreateTransactionManager=false")
+            .contains("messageListenerContainerFactory=#batchAcknowledgingContainerFactory")
+            .endsWith("&receiveTimeout=20");
+        assertThatThrownBy(() -> new BatchAcknowledgingMessageListenerContainer(endpoint(), 0, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BatchAcknowledgingMessageListenerContainer transactedContainer(int batchSize, long intervalMillis) {
+        BatchAcknowledgingMessageListenerContainer container = new BatchAcknowledgingMessageListenerContainer(
+            endpoint(), batchSize, intervalMillis);
+        container.setConnectionFactory(mock(ConnectionFactory.class));
+        container.setSessionTransacted(true);
+        return container;
+    }
+
+    private static Session transactedSession() throws Exception {
+        Session session = mock(Session.class);
+        when(session.getTransacted()).thenReturn(true);
+        return session;
+    }
+
+    private static JmsEndpoint endpoint() {
+        JmsComponent component = new JmsComponent(new DefaultCamelContext());
+        return new JmsEndpoint("jms:queue:test", component, "test", false, component.getConfiguration());
+    }
+}
@@ -0,0 +1,200 @@
+package com.demo.common.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("Consumer Autoscaler Tests")
+class ConsumerAutoscalerTest {
+
+    private final MessagingProperties.Autoscaling settings = new MessagingProperties.Autoscaling();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final FakePool pool = new FakePool();
+    private ConsumerAutoscaler autoscaler;
+    private ConsumerAutoscaler.ScaledQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        // Scaled by hand, the scheduled interval never comes
+        settings.setIntervalMillis(TimeUnit.HOURS.toMillis(1));
+        settings.setTargetDrainMillis(1000);
+        autoscaler = new ConsumerAutoscaler(settings, name -> depth.get(), meterRegistry);
+        queue = autoscaler.register("requests", pool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        autoscaler.close();
+    }
+
+    @Test
+    @DisplayName("Should add enough consumers to drain the backlog in time, at most doubling per interval")
+    void shouldScaleUpWithBacklog() {
+        // Given 50 queued messages taking 100 ms each, 5 consumers drain them in a second
+        depth.set(50);
+        queue.record(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // When
+        autoscaler.scale();
+        int first = pool.size();
+        autoscaler.scale();
+        int second = pool.size();
+
+        // Then
+        assertThat(first).isEqualTo(2);
+        assertThat(second).isEqualTo(4);
+        autoscaler.scale();
+        assertThat(pool.size()).isEqualTo(5);
+        assertThat(meterRegistry.get("messaging.consumers").tag("queue", "requests").gauge().value()).isEqualTo(5);
+        assertThat(meterRegistry.get("messaging.queue.depth").tag("queue", "requests").gauge().value()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Should stay within the configured maximum")
+    void shouldStayWithinMaximum() {
+        // Given
+        depth.set(5000);
+        queue.record(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            autoscaler.scale();
+        }
+
+        // Then
+        assertThat(pool.size()).isEqualTo(settings.getMaxConsumers());
+    }
+
+    @Test
+    @DisplayName("Should remove consumers one at a time, only after the backlog stayed low long enough")
+    void shouldScaleDownWithHysteresis() {
+        // Given
+        pool.resize(8);
+        depth.set(0);
+
+        // When
+        for (int i = 1; i < settings.getScaleDownAfterIntervals(); i++) {
+            autoscaler.scale();
+        }
+        int beforeHysteresis = pool.size();
+        autoscaler.scale();
+        int afterHysteresis = pool.size();
+        autoscaler.scale();
+
+        // Then
+        assertThat(beforeHysteresis).isEqualTo(8);
+        assertThat(afterHysteresis).isEqualTo(7);
+        assertThat(pool.size()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Should restart the scale-down count when the backlog returns")
+    void shouldResetHysteresisOnBacklog() {
+        // Given
+        pool.resize(4);
+        for (int i = 1; i < settings.getScaleDownAfterIntervals(); i++) {
+            autoscaler.scale();
+        }
+
+        // When a burst needs all consumers again
+        depth.set(40);
+        queue.record(TimeUnit.MILLISECONDS.toNanos(100));
+        autoscaler.scale();
+        depth.set(0);
+        autoscaler.scale();
+
+        // Then
+        assertThat(pool.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should double the consumers when messages wait but none completed yet")
+    void shouldScaleUpWithoutLatency() {
+        // Given
+        depth.set(3);
+
+        // When
+        autoscaler.scale();
+
+        // Then
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should count messages a worker pool took off the queue into its depth")
+    void shouldCountPoolBacklog() {
+        // Given 10 messages on the queue and 40 queued by the pool, taking 100 ms each
+        pool.backlog = 40;
+        depth.set(10);
+        queue.record(TimeUnit.MILLISECONDS.toNanos(100));
+        pool.resize(4);
+
+        // When
+        autoscaler.scale();
+
+        // Then
+        assertThat(pool.size()).isEqualTo(5);
+        assertThat(meterRegistry.get("messaging.queue.depth").tag("queue", "requests").gauge().value()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Should keep the consumers when the queue depth cannot be measured")
+    void shouldKeepConsumersWhenProbeFails() {
+        // Given
+        autoscaler.close();
+        autoscaler = new ConsumerAutoscaler(settings, name -> {
+            throw new IllegalStateException("broker down");
+        }, new SimpleMeterRegistry());
+        pool.resize(3);
+        autoscaler.register("requests", pool);
+
+        // When
+        autoscaler.scale();
+
+        // Then
+        assertThat(pool.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should reject bounds that leave no consumer")
+    void shouldRejectInvalidBounds() {
+        // Given
+        MessagingProperties.Autoscaling invalid = new MessagingProperties.Autoscaling();
+        invalid.setMinConsumers(4);
+        invalid.setMaxConsumers(2);
+
+        // When/Then
+        assertThatThrownBy(() -> new ConsumerAutoscaler(invalid, name -> 0, meterRegistry))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static final class FakePool implements ConsumerAutoscaler.ConsumerPool {
+        private int consumers = 1;
+        private int backlog;
+
+        @Override
+        public int size() {
+            return consumers;
+        }
+
+        @Override
+        public void resize(int consumers) {
+            this.consumers = consumers;
+        }
+
+        @Override
+        public int backlog() {
+            return backlog;
+        }
+    }
+}
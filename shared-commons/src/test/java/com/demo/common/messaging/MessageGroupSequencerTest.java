@@ -0,0 +1,101 @@
+package com.demo.common.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.support.UnitOfWorkHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Message Group Sequencer Tests")
+class MessageGroupSequencerTest {
+
+    private final MessagingProperties.Groups settings = new MessagingProperties.Groups();
+    private final List<String> continued = new CopyOnWriteArrayList<>();
+    private final MessageGroupSequencer sequencer = new MessageGroupSequencer(settings);
+
+    @AfterEach
+    void tearDown() {
+        sequencer.close();
+    }
+
+    @Test
+    @DisplayName("Should hold the next exchange of a group until the previous one is done, other groups meanwhile")
+    void shouldKeepGroupOrder() throws Exception {
+        // Given an exchange of group A in progress
+        Exchange first = exchange("payer-1");
+        assertThat(sequencer.process(first, sync -> continued.add("a-first"))).isTrue();
+
+        // When
+        CountDownLatch secondDone = new CountDownLatch(1);
+        boolean secondSync = sequencer.process(exchange("payer-1"), sync -> {
+            continued.add("a-second");
+            secondDone.countDown();
+        });
+        boolean otherSync = sequencer.process(exchange("payer-2"), sync -> continued.add("b"));
+
+        // Then the other group goes ahead, the second exchange of group A waits off the consumer thread
+        assertThat(secondSync).isFalse();
+        assertThat(otherSync).isTrue();
+        assertThat(continued).containsExactly("a-first", "b");
+        assertThat(sequencer.waiting()).isEqualTo(1);
+        done(first);
+        assertThat(secondDone.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(continued).containsExactly("a-first", "b", "a-second");
+        assertThat(sequencer.waiting()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should pass ungrouped exchanges, and all exchanges when message groups are off")
+    void shouldPassUngroupedExchanges() {
+        // Given
+        settings.setEnabled(false);
+        MessageGroupSequencer disabled = new MessageGroupSequencer(settings);
+
+        // When
+        boolean ungrouped = sequencer.process(exchange(null), sync -> continued.add("ungrouped"));
+        boolean first = disabled.process(exchange("payer-1"), sync -> continued.add("first"));
+        boolean second = disabled.process(exchange("payer-1"), sync -> continued.add("second"));
+        disabled.close();
+
+        // Then
+        assertThat(List.of(ungrouped, first, second)).containsOnly(true);
+        assertThat(continued).containsExactly("ungrouped", "first", "second");
+    }
+
+    @Test
+    @DisplayName("Should fail the waiting exchanges on close")
+    void shouldFailWaitingExchangesOnClose() {
+        // Given
+        sequencer.process(exchange("payer-1"), sync -> continued.add("first"));
+        Exchange waiting = exchange("payer-1");
+        sequencer.process(waiting, sync -> continued.add("waiting"));
+
+        // When
+        sequencer.close();
+
+        // Then
+        assertThat(continued).containsExactly("first", "waiting");
+        assertThat(waiting.getException()).isInstanceOf(RejectedExecutionException.class);
+        assertThat(sequencer.waiting()).isZero();
+    }
+
+    private static void done(Exchange exchange) {
+        UnitOfWorkHelper.doneSynchronizations(exchange, exchange.getExchangeExtension().handoverCompletions());
+    }
+
+    private static Exchange exchange(String group) {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getMessage().setHeader(MessageGroups.HEADER, group);
+        return exchange;
+    }
+}
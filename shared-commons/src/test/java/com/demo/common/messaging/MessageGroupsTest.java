@@ -0,0 +1,68 @@
+package com.demo.common.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.demo.common.model.PaymentRequest;
+
+@DisplayName("Message Groups Tests")
+class MessageGroupsTest {
+
+    private final MessagingProperties.Groups settings = new MessagingProperties.Groups();
+
+    @Test
+    @DisplayName("Should put the same payer account in the same bounded group")
+    void shouldHashPayerAccounts() {
+        // When
+        String group = MessageGroups.groupOf("GB33BUKB20201555555555", 16);
+
+        // Then
+        assertThat(group).isEqualTo(MessageGroups.groupOf(" GB33BUKB20201555555555 ", 16))
+            .startsWith("payer-").doesNotContain("GB33");
+        assertThat(Integer.parseInt(group.substring("payer-".length()))).isBetween(0, 15);
+        assertThat(MessageGroups.groupOf(" ", 16)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should set the group from the payer account and keep one set by an earlier hop")
+    void shouldSetGroupHeader() throws Exception {
+        // Given
+        Exchange fresh = exchange("DE89370400440532013000");
+        Exchange forwarded = exchange("DE89370400440532013000");
+        forwarded.getMessage().setHeader(MessageGroups.HEADER, "payer-7");
+
+        // When
+        MessageGroups.byPayerAccount(settings).process(fresh);
+        MessageGroups.byPayerAccount(settings).process(forwarded);
+
+        // Then
+        assertThat(MessageGroups.of(fresh.getMessage()))
+            .isEqualTo(MessageGroups.groupOf("DE89370400440532013000", settings.getBuckets()));
+        assertThat(MessageGroups.of(forwarded.getMessage())).isEqualTo("payer-7");
+    }
+
+    @Test
+    @DisplayName("Should leave messages ungrouped when disabled")
+    void shouldNotGroupWhenDisabled() throws Exception {
+        // Given
+        settings.setEnabled(false);
+        Exchange exchange = exchange("DE89370400440532013000");
+
+        // When
+        MessageGroups.byPayerAccount(settings).process(exchange);
+
+        // Then
+        assertThat(MessageGroups.of(exchange.getMessage())).isNull();
+    }
+
+    private static Exchange exchange(String payerAccount) {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getMessage().setBody(PaymentRequest.builder().payerAccount(payerAccount).build());
+        return exchange;
+    }
+}
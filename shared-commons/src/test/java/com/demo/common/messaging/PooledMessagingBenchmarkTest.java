@@ -0,0 +1,107 @@
+package com.demo.common.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.core.JmsTemplate;
+
+import jakarta.jms.ConnectionFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Send throughput of the uncached client connection factory the services used before against the cached
+ * connection, with synchronous and asynchronous sends, against a running broker.
+ *
+ * Run with: mvn test -pl shared-commons -Dtest=PooledMessagingBenchmarkTest -Dbenchmark=true
+ * [-Dbenchmark.broker-url=tcp://localhost:61616]
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Pooled Messaging Benchmark")
+class PooledMessagingBenchmarkTest {
+
+    private static final String QUEUE = "benchmark.messaging";
+    private static final int SENDERS = 16;
+    private static final int MESSAGES_PER_SENDER = 1_000;
+
+    private final String brokerUrl = System.getProperty("benchmark.broker-url", "tcp://localhost:61616");
+    private final String user = System.getProperty("benchmark.user", "admin");
+    private final String password = System.getProperty("benchmark.password", "admin");
+
+    @Test
+    @DisplayName("Should compare uncached, cached and cached async sends")
+    void shouldCompareConnectionFactories() throws Exception {
+        MessagingProperties sync = new MessagingProperties();
+        MessagingProperties async = new MessagingProperties();
+        async.setAsyncSend(true);
+
+        log.info(String.format("%-16s %14s", "factory", "messages/s"));
+        report("uncached", PooledMessagingConfig.clientConnectionFactory(brokerUrl, user, password, sync));
+
+        CachingConnectionFactory cached = PooledMessagingConfig.cachingConnectionFactory(brokerUrl, user, password, sync);
+        report("cached", cached);
+        cached.destroy();
+
+        CachingConnectionFactory cachedAsync = PooledMessagingConfig.cachingConnectionFactory(brokerUrl, user, password, async);
+        report("cached async", cachedAsync);
+        cachedAsync.destroy();
+
+        drain();
+    }
+
+    private void report(String name, ConnectionFactory connectionFactory) throws Exception {
+        JmsTemplate jmsTemplate = new JmsTemplate(connectionFactory);
+        send(jmsTemplate, 100); // warm up
+        long started = System.nanoTime();
+        int sent = send(jmsTemplate, MESSAGES_PER_SENDER);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info(String.format("%-16s %14.0f", name, sent / seconds));
+        assertThat(sent).isEqualTo(SENDERS * MESSAGES_PER_SENDER);
+    }
+
+    private static int send(JmsTemplate jmsTemplate, int messagesPerSender) throws Exception {
+        ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int sender = 0; sender < SENDERS; sender++) {
+                results.add(senders.submit(() -> {
+                    for (int i = 0; i < messagesPerSender; i++) {
+                        jmsTemplate.convertAndSend(QUEUE, "<fraudCheckRequest/>");
+                    }
+                    return messagesPerSender;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(5, TimeUnit.MINUTES);
+            }
+            return total;
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+
+    private void drain() {
+        CachingConnectionFactory factory = PooledMessagingConfig.cachingConnectionFactory(
+            brokerUrl, user, password, new MessagingProperties());
+        JmsTemplate jmsTemplate = new JmsTemplate(factory);
+        jmsTemplate.setReceiveTimeout(JmsTemplate.RECEIVE_TIMEOUT_NO_WAIT);
+        while (jmsTemplate.receive(QUEUE) != null) {
+            // discard the benchmark messages
+        }
+        factory.destroy();
+    }
+}
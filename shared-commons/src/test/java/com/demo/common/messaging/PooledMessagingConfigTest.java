@@ -0,0 +1,71 @@
+package com.demo.common.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.camel.component.jms.JmsComponent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@DisplayName("Pooled Messaging Config Tests")
+class PooledMessagingConfigTest {
+
+    @Test
+    @DisplayName("Should apply flow control settings to the client connection factory")
+    void shouldApplyFlowControl() {
+        // Given
+        MessagingProperties properties = new MessagingProperties();
+        properties.setAsyncSend(true);
+        properties.setConfirmationWindowSize(65_536);
+        properties.setPrefetch(10);
+
+        // When
+        ActiveMQConnectionFactory factory = PooledMessagingConfig.clientConnectionFactory(
+            "tcp://localhost:61616", "admin", "secret", properties);
+
+        // Then
+        assertThat(factory.getBrokerURL()).isEqualTo("tcp://localhost:61616");
+        assertThat(factory.isUseAsyncSend()).isTrue();
+        assertThat(factory.getProducerWindowSize()).isEqualTo(65_536);
+        assertThat(factory.getPrefetchPolicy().getQueuePrefetch()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should cache sessions and producers on one connection")
+    void shouldCacheSessionsAndProducers() {
+        // Given
+        MessagingProperties properties = new MessagingProperties();
+        properties.setSessionCacheSize(8);
+
+        // When
+        CachingConnectionFactory factory = PooledMessagingConfig.cachingConnectionFactory(
+            "tcp://localhost:61616", "admin", "secret", properties);
+
+        // Then
+        assertThat(factory.getTargetConnectionFactory()).isInstanceOf(ActiveMQConnectionFactory.class);
+        assertThat(factory.getSessionCacheSize()).isEqualTo(8);
+        assertThat(factory.isCacheProducers()).isTrue();
+        assertThat(factory.isCacheConsumers()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should send through the cached connection and consume through the plain client factory")
+    void shouldKeepListenersOffTheCachedConnection() {
+        // Given
+        MessagingProperties properties = new MessagingProperties();
+        PooledMessagingConfig config = new PooledMessagingConfig();
+        ReflectionTestUtils.setField(config, "brokerUrl", "tcp://localhost:61616");
+        CachingConnectionFactory cached = PooledMessagingConfig.cachingConnectionFactory(
+            "tcp://localhost:61616", "admin", "secret", properties);
+
+        // When
+        JmsComponent component = config.jmsComponent(cached, properties);
+
+        // Then
+        assertThat(component.getConnectionFactory()).isSameAs(cached);
+        assertThat(component.getListenerConnectionFactory()).isInstanceOfSatisfying(ActiveMQConnectionFactory.class,
+            factory -> assertThat(factory.getBrokerURL()).isEqualTo("tcp://localhost:61616"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.demo.common.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.camel.component.jms.ReplyToType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Request Reply Endpoint Tests")
+class RequestReplyEndpointTest {
+
+    private final RequestReplyEndpoint endpoint =
+        new RequestReplyEndpoint("jms:queue:requests", "jms:queue:responses");
+
+    @Test
+    @DisplayName("Should read replies from a per-instance queue per lane in Exclusive mode")
+    void shouldUseExclusiveReplyQueuePerLane() {
+        // Given
+        endpoint.setInstanceId("node-1");
+
+        // When
+        String normal = endpoint.requestReplyUri();
+        String high = endpoint.requestReplyUri("Bytes", PaymentPriority.HIGH);
+
+        // Then
+        assertThat(normal).startsWith("jms:queue:requests?exchangePattern=InOut&")
+            .contains("jmsMessageType=Text", "replyTo=queue:responses.node-1&", "replyToType=Exclusive")
+            .doesNotContain("priority=");
+        assertThat(high).startsWith("jms:queue:requests.high?")
+            .contains("jmsMessageType=Bytes", "explicitQosEnabled=true&priority=9",
+                "replyTo=queue:responses.node-1.high&");
+    }
+
+    @Test
+    @DisplayName("Should share the reply queue across lanes in Shared mode and omit it in Temporary mode")
+    void shouldFollowReplyToType() {
+        // Given
+        endpoint.setReplyToType(ReplyToType.Shared);
+
+        // When
+        String shared = endpoint.requestReplyUri(PaymentPriority.HIGH);
+        endpoint.setReplyToType(ReplyToType.Temporary);
+        String temporary = endpoint.requestReplyUri(PaymentPriority.HIGH);
+
+        // Then
+        assertThat(endpoint.replyQueueName()).isEqualTo("responses");
+        assertThat(shared).contains("replyTo=queue:responses&", "replyToType=Shared");
+        assertThat(temporary).doesNotContain("replyTo");
+    }
+}